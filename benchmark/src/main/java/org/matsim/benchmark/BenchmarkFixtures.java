@@ -0,0 +1,208 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BenchmarkFixtures.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.speedy.SpeedyDijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates the synthetic input of the benchmarks.  Everything is derived from fixed seeds, so all runs, and all
+ * releases, are measured with the same input.
+ */
+public final class BenchmarkFixtures {
+
+	public static final long SEED = 4711;
+
+	/**
+	 * The distance between two neighbouring nodes of the grid, in meters.
+	 */
+	public static final double GRID_SPACING = 200.0;
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Creates a grid of <code>size</code> x <code>size</code> nodes, connected by links in both directions.  The free
+	 * speed of the links varies, so the least cost paths are not trivial.
+	 */
+	public static Network createGridNetwork(int size) {
+		Network network = NetworkUtils.createNetwork();
+		addGrid(network, size);
+		return network;
+	}
+
+	/**
+	 * Adds the grid of {@link #createGridNetwork(int)} to an existing, empty network.
+	 */
+	public static void addGrid(Network network, int size) {
+		Random random = new Random(SEED);
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * GRID_SPACING, y * GRID_SPACING));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y], random);
+				}
+				if (y + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1], random);
+				}
+			}
+		}
+	}
+
+	private static void addLinks(Network network, Node a, Node b, Random random) {
+		double freespeed = 8.33 + random.nextInt(4) * 2.77;
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(a.getId() + "-" + b.getId()), a, b, GRID_SPACING, freespeed, 900, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(b.getId() + "-" + a.getId()), b, a, GRID_SPACING, freespeed, 900, 1);
+	}
+
+	/**
+	 * @return <code>count</code> pairs of random nodes of the network, as arrays of length 2.
+	 */
+	public static List<Node[]> createNodePairs(Network network, int count) {
+		Random random = new Random(SEED);
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		List<Node[]> pairs = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			pairs.add(new Node[]{nodes.get(random.nextInt(nodes.size())), nodes.get(random.nextInt(nodes.size()))});
+		}
+		return pairs;
+	}
+
+	/**
+	 * Adds persons with a home - work - home plan by car to the population.  The car legs are routed on free speed
+	 * travel times, so the plans can be simulated directly.
+	 */
+	public static void createCarCommuters(Population population, Network network, int count) {
+		Random random = new Random(SEED);
+		PopulationFactory factory = population.getFactory();
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(-6.0, 6.0, 0.0);
+		LeastCostPathCalculator router = new SpeedyDijkstraFactory().createPathCalculator(network, freespeed, freespeed);
+		List<Link> links = new ArrayList<>(network.getLinks().values());
+		for (int i = 0; i < count; i++) {
+			Link home = links.get(random.nextInt(links.size()));
+			Link work = links.get(random.nextInt(links.size()));
+			double departure = 6 * 3600 + random.nextInt(3 * 3600);
+
+			Person person = factory.createPerson(Id.createPersonId(i));
+			Plan plan = factory.createPlan();
+			Activity morning = factory.createActivityFromLinkId("home", home.getId());
+			morning.setCoord(home.getCoord());
+			morning.setEndTime(departure);
+			plan.addActivity(morning);
+			plan.addLeg(createCarLeg(factory, router, home, work, departure));
+			Activity day = factory.createActivityFromLinkId("work", work.getId());
+			day.setCoord(work.getCoord());
+			day.setEndTime(departure + 8 * 3600);
+			plan.addActivity(day);
+			plan.addLeg(createCarLeg(factory, router, work, home, departure + 8 * 3600));
+			Activity evening = factory.createActivityFromLinkId("home", home.getId());
+			evening.setCoord(home.getCoord());
+			plan.addActivity(evening);
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+	}
+
+	private static Leg createCarLeg(PopulationFactory factory, LeastCostPathCalculator router, Link from, Link to, double departure) {
+		Leg leg = factory.createLeg(TransportMode.car);
+		leg.setDepartureTime(departure);
+		if (from == to) {
+			leg.setRoute(RouteUtils.createLinkNetworkRouteImpl(from.getId(), to.getId()));
+			return leg;
+		}
+		Path path = router.calcLeastCostPath(from.getToNode(), to.getFromNode(), departure, null, null);
+		List<Id<Link>> linkIds = new ArrayList<>(path.links.size());
+		for (Link link : path.links) {
+			linkIds.add(link.getId());
+		}
+		leg.setRoute(RouteUtils.createLinkNetworkRouteImpl(from.getId(), linkIds, to.getId()));
+		leg.setTravelTime(path.travelTime);
+		return leg;
+	}
+
+	/**
+	 * Creates the events of one car trip of each person, with <code>linksPerTrip</code> links, in the order in which
+	 * the QSim would create them.
+	 */
+	public static List<Event> createCarTripEvents(int numberOfPersons, int linksPerTrip) {
+		List<Event> events = new ArrayList<>();
+		for (int p = 0; p < numberOfPersons; p++) {
+			Id<Person> person = Id.createPersonId(p);
+			Id<Vehicle> vehicle = Id.createVehicleId(p);
+			Id<Link> home = Id.createLinkId(p % 100);
+			double time = 21600.0 + p;
+			events.add(new ActivityEndEvent(time, person, home, null, "home", new Coord(1000.0 * p, 2000.5)));
+			events.add(new PersonDepartureEvent(time, person, home, TransportMode.car, TransportMode.car));
+			events.add(new PersonEntersVehicleEvent(time, person, vehicle));
+			events.add(new VehicleEntersTrafficEvent(time, person, home, vehicle, TransportMode.car, 1.0));
+			Id<Link> link = home;
+			for (int l = 0; l < linksPerTrip; l++) {
+				events.add(new LinkLeaveEvent(time, vehicle, link));
+				link = Id.createLinkId(100 + (p + l) % 1000);
+				events.add(new LinkEnterEvent(time, vehicle, link));
+				time += 17.25;
+			}
+			events.add(new VehicleLeavesTrafficEvent(time, person, link, vehicle, TransportMode.car, 1.0));
+			events.add(new PersonLeavesVehicleEvent(time, person, vehicle));
+			events.add(new PersonArrivalEvent(time, person, link, TransportMode.car));
+			events.add(new ActivityStartEvent(time, person, link, null, "work", new Coord(500.0, 1000.0 * p)));
+		}
+		return events;
+	}
+
+}
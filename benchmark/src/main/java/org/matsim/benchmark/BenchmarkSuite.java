@@ -0,0 +1,57 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BenchmarkSuite.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this module, and writes the results as JSON, so that the results of different releases
+ * can be compared.
+ * <p></p>
+ * Usage: <code>BenchmarkSuite [resultFile [includeRegex...]]</code>.  The result file defaults to
+ * <code>jmh-result.json</code>.  Without include patterns, all benchmarks of this package are run.  The full
+ * controller run on the benchmark scenario is still available in {@link Benchmark}.
+ */
+public final class BenchmarkSuite {
+
+	private BenchmarkSuite() {
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.resultFormat(ResultFormatType.JSON)
+				.result(resultFile);
+		if (args.length > 1) {
+			for (int i = 1; i < args.length; i++) {
+				options.include(args[i]);
+			}
+		} else {
+			options.include(BenchmarkSuite.class.getPackageName() + "\\..*Benchmark\\..*");
+		}
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,147 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * DrtInsertionBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.drt.optimizer.VehicleEntry;
+import org.matsim.contrib.drt.optimizer.Waypoint;
+import org.matsim.contrib.drt.optimizer.insertion.DetourTimeEstimator;
+import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.drt.schedule.DefaultDrtStopTask;
+import org.matsim.contrib.drt.stops.DefaultStopTimeCalculator;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicleImpl;
+import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the drt insertions of new requests into the schedules of a fleet of vehicles, which already serve
+ * other requests.  The detour times are estimated from the beeline distance, so the insertion search itself is
+ * measured and not the routing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DrtInsertionBenchmark {
+
+	private static final int CAPACITY = 8;
+	private static final double STOP_DURATION = 60;
+	private static final double BEELINE_SPEED = 8.0;
+	private static final double NOW = 8 * 3600;
+
+	@Param({"500"})
+	public int numberOfVehicles;
+
+	@Param({"0", "4", "8"})
+	public int stopsPerVehicle;
+
+	private InsertionGenerator insertionGenerator;
+	private final List<VehicleEntry> vehicleEntries = new ArrayList<>();
+	private final List<DrtRequest> requests = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		Random random = new Random(BenchmarkFixtures.SEED);
+		Network network = BenchmarkFixtures.createGridNetwork(50);
+		List<Link> links = new ArrayList<>(network.getLinks().values());
+		this.insertionGenerator = new InsertionGenerator(new DefaultStopTimeCalculator(STOP_DURATION),
+				DetourTimeEstimator.createBeelineBasedEstimator(BEELINE_SPEED));
+
+		for (int v = 0; v < this.numberOfVehicles; v++) {
+			Link startLink = links.get(random.nextInt(links.size()));
+			DvrpVehicle vehicle = new DvrpVehicleImpl(ImmutableDvrpVehicleSpecification.newBuilder()
+					.id(Id.create(v, DvrpVehicle.class))
+					.capacity(CAPACITY)
+					.startLinkId(startLink.getId())
+					.serviceBeginTime(0)
+					.serviceEndTime(30 * 3600)
+					.build(), startLink);
+
+			// the vehicle drops off all passengers on board, one by one
+			int occupancy = Math.min(this.stopsPerVehicle, CAPACITY);
+			Waypoint.Start start = new Waypoint.Start(null, startLink, NOW, occupancy);
+			List<Waypoint.Stop> stops = new ArrayList<>();
+			double time = NOW;
+			for (int s = 0; s < this.stopsPerVehicle; s++) {
+				time += 120 + random.nextInt(600);
+				occupancy = Math.max(occupancy - 1, 0);
+				Link link = links.get(random.nextInt(links.size()));
+				stops.add(new Waypoint.Stop(new DefaultDrtStopTask(time, time + STOP_DURATION, link), occupancy));
+				time += STOP_DURATION;
+			}
+			double[] slackTimes = new double[stops.size() + 2];
+			Arrays.fill(slackTimes, 900);
+			this.vehicleEntries.add(new VehicleEntry(vehicle, start, ImmutableList.copyOf(stops), slackTimes,
+					Collections.nCopies(stops.size(), 0.0), NOW));
+		}
+
+		for (int r = 0; r < 20; r++) {
+			this.requests.add(DrtRequest.newBuilder()
+					.id(Id.create(r, Request.class))
+					.passengerIds(List.of(Id.createPersonId(r)))
+					.mode("drt")
+					.fromLink(links.get(random.nextInt(links.size())))
+					.toLink(links.get(random.nextInt(links.size())))
+					.submissionTime(NOW)
+					.earliestStartTime(NOW)
+					.latestStartTime(NOW + 900)
+					.latestArrivalTime(NOW + 3600)
+					.maxRideDuration(3600)
+					.build());
+		}
+	}
+
+	@Benchmark
+	public void generateInsertions(Blackhole blackhole) {
+		for (DrtRequest request : this.requests) {
+			for (VehicleEntry vehicleEntry : this.vehicleEntries) {
+				blackhole.consume(this.insertionGenerator.generateInsertions(request, vehicleEntry));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterXMLBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the {@link EventWriterXML} with writing the events from their attributes map, which is what the writer did
+ * before, for the events of a simple car trip.  The output is discarded, so only the encoding is measured.
+ *
+ * @see BenchmarkSuite
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventWriterXMLBenchmark {
+
+	private List<Event> events;
+
+	@Setup
+	public void setup() {
+		this.events = BenchmarkFixtures.createCarTripEvents(1000, 20);
+	}
+
+	@Benchmark
+	public void eventWriterXML() {
+		EventWriterXML writer = new EventWriterXML(OutputStream.nullOutputStream());
+		for (Event event : this.events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+	}
+
+	@Benchmark
+	public void attributesMap() {
+		try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8))) {
+			out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+			for (Event event : this.events) {
+				out.append("\t<event ");
+				for (Map.Entry<String, String> entry : event.getAttributes().entrySet()) {
+					out.append(entry.getKey());
+					out.append("=\"");
+					out.append(entry.getValue());
+					out.append("\" ");
+				}
+				out.append(" />\n");
+			}
+			out.write("</events>");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
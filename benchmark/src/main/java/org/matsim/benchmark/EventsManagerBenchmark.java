@@ -0,0 +1,108 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsManagerBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes the events of car trips through the default events manager, to a mix of typed and basic event handlers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventsManagerBenchmark {
+
+	private List<Event> events;
+
+	@Setup
+	public void setup() {
+		this.events = BenchmarkFixtures.createCarTripEvents(10000, 20);
+	}
+
+	@Benchmark
+	public void processEvents(Blackhole blackhole) {
+		AllCounter all = new AllCounter();
+		LinkEnterCounter linkEnters = new LinkEnterCounter();
+		DepartureCounter departures = new DepartureCounter();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler(all);
+		eventsManager.addHandler(linkEnters);
+		eventsManager.addHandler(departures);
+		eventsManager.initProcessing();
+		for (Event event : this.events) {
+			eventsManager.processEvent(event);
+		}
+		eventsManager.finishProcessing();
+		blackhole.consume(all.count + linkEnters.count + departures.count);
+	}
+
+	private static final class AllCounter implements BasicEventHandler {
+		private int count;
+
+		@Override
+		public void handleEvent(Event event) {
+			this.count++;
+		}
+	}
+
+	private static final class LinkEnterCounter implements LinkEnterEventHandler {
+		private int count;
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.count++;
+		}
+	}
+
+	private static final class DepartureCounter implements PersonDepartureEventHandler {
+		private int count;
+
+		@Override
+		public void handleEvent(PersonDepartureEvent event) {
+			this.count++;
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LeastCostPathCalculatorBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.AStarLandmarksFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.speedy.SpeedyALTFactory;
+import org.matsim.core.router.speedy.SpeedyDijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes between random nodes of a grid network with the least cost path calculators of the core.  The preprocessing
+ * of the landmarks is done in the setup, only the queries are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LeastCostPathCalculatorBenchmark {
+
+	@Param({"SpeedyDijkstra", "SpeedyALT", "AStarLandmarks"})
+	public String algorithm;
+
+	@Param({"100"})
+	public int gridSize;
+
+	private LeastCostPathCalculator router;
+	private List<Node[]> queries;
+
+	@Setup
+	public void setup() {
+		Network network = BenchmarkFixtures.createGridNetwork(this.gridSize);
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(-6.0, 6.0, 0.0);
+		LeastCostPathCalculatorFactory factory = switch (this.algorithm) {
+			case "SpeedyDijkstra" -> new SpeedyDijkstraFactory();
+			case "SpeedyALT" -> new SpeedyALTFactory();
+			case "AStarLandmarks" -> new AStarLandmarksFactory(1);
+			default -> throw new IllegalArgumentException("unknown algorithm: " + this.algorithm);
+		};
+		this.router = factory.createPathCalculator(network, freespeed, freespeed);
+		this.queries = BenchmarkFixtures.createNodePairs(network, 100);
+	}
+
+	@Benchmark
+	public void calcLeastCostPath(Blackhole blackhole) {
+		for (Node[] query : this.queries) {
+			blackhole.consume(this.router.calcLeastCostPath(query[0], query[1], 8 * 3600, null, null));
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QuadTreeBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import org.matsim.core.utils.collections.QuadTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a quad tree of random points, and queries it for the closest point and for the points within a distance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QuadTreeBenchmark {
+
+	private static final double EXTENT = 50_000.0;
+	private static final int NUMBER_OF_POINTS = 100_000;
+	private static final int NUMBER_OF_QUERIES = 10_000;
+
+	private double[] points;
+	private double[] queries;
+	private QuadTree<Integer> quadTree;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(BenchmarkFixtures.SEED);
+		this.points = randomCoordinates(random, NUMBER_OF_POINTS);
+		this.queries = randomCoordinates(random, NUMBER_OF_QUERIES);
+		this.quadTree = build();
+	}
+
+	private static double[] randomCoordinates(Random random, int count) {
+		double[] xy = new double[2 * count];
+		for (int i = 0; i < xy.length; i++) {
+			xy[i] = random.nextDouble() * EXTENT;
+		}
+		return xy;
+	}
+
+	private QuadTree<Integer> build() {
+		QuadTree<Integer> tree = new QuadTree<>(0, 0, EXTENT, EXTENT);
+		for (int i = 0; i < NUMBER_OF_POINTS; i++) {
+			tree.put(this.points[2 * i], this.points[2 * i + 1], i);
+		}
+		return tree;
+	}
+
+	@Benchmark
+	public QuadTree<Integer> put() {
+		return build();
+	}
+
+	@Benchmark
+	public void getClosest(Blackhole blackhole) {
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			blackhole.consume(this.quadTree.getClosest(this.queries[2 * i], this.queries[2 * i + 1]));
+		}
+	}
+
+	@Benchmark
+	public void getDisk(Blackhole blackhole) {
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			blackhole.consume(this.quadTree.getDisk(this.queries[2 * i], this.queries[2 * i + 1], 500.0));
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SwissRailRaptorBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import ch.sbb.matsim.routing.pt.raptor.RaptorParameters;
+import ch.sbb.matsim.routing.pt.raptor.RaptorUtils;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptor;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.router.DefaultRoutingRequest;
+import org.matsim.core.router.RoutingRequest;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes between random stops of the transit schedule of the "pt-tutorial" example scenario, and calculates trees
+ * from random stops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SwissRailRaptorBenchmark {
+
+	private static final int NUMBER_OF_QUERIES = 100;
+
+	private SwissRailRaptor raptor;
+	private RaptorParameters parameters;
+	private final List<RoutingRequest> requests = new ArrayList<>();
+	private final List<TransitStopFacility> treeStops = new ArrayList<>();
+	private final List<Double> treeTimes = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("pt-tutorial"), "0.config.xml"));
+		config.plans().setInputFile(null);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		SwissRailRaptorData data = SwissRailRaptorData.create(scenario.getTransitSchedule(), null,
+				RaptorUtils.createStaticConfig(config), scenario.getNetwork(), null);
+		this.raptor = new SwissRailRaptor.Builder(data, config).build();
+		this.parameters = RaptorUtils.createParameters(config);
+
+		Random random = new Random(BenchmarkFixtures.SEED);
+		List<TransitStopFacility> stops = new ArrayList<>(scenario.getTransitSchedule().getFacilities().values());
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			TransitStopFacility from = stops.get(random.nextInt(stops.size()));
+			TransitStopFacility to = stops.get(random.nextInt(stops.size()));
+			double departureTime = 6 * 3600 + random.nextInt(3 * 3600);
+			this.requests.add(DefaultRoutingRequest.withoutAttributes(from, to, departureTime, null));
+			this.treeStops.add(from);
+			this.treeTimes.add(departureTime);
+		}
+	}
+
+	@Benchmark
+	public void calcRoute(Blackhole blackhole) {
+		for (RoutingRequest request : this.requests) {
+			blackhole.consume(this.raptor.calcRoute(request));
+		}
+	}
+
+	@Benchmark
+	public void calcTree(Blackhole blackhole) {
+		for (int i = 0; i < this.treeStops.size(); i++) {
+			blackhole.consume(this.raptor.calcTree(this.treeStops.get(i), this.treeTimes.get(i), this.parameters, null));
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * XmlParsingBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses an events file and a population file, which are written to a temporary directory in the setup.  Both
+ * readers are based on {@link org.matsim.core.utils.io.MatsimXmlParser}, which reads the files with the SAX parser
+ * or with the fast parser.  The files are not compressed, so the parsing is measured and not the decompression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XmlParsingBenchmark {
+
+	@Param({"false", "true"})
+	public boolean fastXmlParser;
+
+	private Path directory;
+	private String eventsFile;
+	private String populationFile;
+
+	@Setup
+	public void setup() throws IOException {
+		System.setProperty("matsim.fastXmlParser", Boolean.toString(this.fastXmlParser));
+		this.directory = Files.createTempDirectory("matsim-benchmark");
+		this.eventsFile = this.directory.resolve("events.xml").toString();
+		this.populationFile = this.directory.resolve("plans.xml").toString();
+
+		EventWriterXML writer = new EventWriterXML(this.eventsFile);
+		for (Event event : BenchmarkFixtures.createCarTripEvents(10000, 20)) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		BenchmarkFixtures.addGrid(scenario.getNetwork(), 30);
+		BenchmarkFixtures.createCarCommuters(scenario.getPopulation(), scenario.getNetwork(), 10000);
+		PopulationUtils.writePopulation(scenario.getPopulation(), this.populationFile);
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.clearProperty("matsim.fastXmlParser");
+		IOUtils.deleteDirectoryRecursively(this.directory);
+	}
+
+	@Benchmark
+	public void readEvents(Blackhole blackhole) {
+		EventCounter counter = new EventCounter();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(counter);
+		EventsUtils.readEvents(events, this.eventsFile);
+		blackhole.consume(counter.count);
+	}
+
+	@Benchmark
+	public void readPopulation(Blackhole blackhole) {
+		blackhole.consume(PopulationUtils.readPopulation(this.populationFile));
+	}
+
+	private static final class EventCounter implements BasicEventHandler {
+		private int count;
+
+		@Override
+		public void handleEvent(Event event) {
+			this.count++;
+		}
+	}
+
+}
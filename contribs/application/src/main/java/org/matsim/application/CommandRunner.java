@@ -6,7 +6,6 @@ import org.apache.logging.log4j.Logger;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedAcyclicGraph;
-import org.jgrapht.traverse.BreadthFirstIterator;
 import org.matsim.application.options.CrsOptions;
 import org.matsim.application.options.InputOptions;
 import org.matsim.application.options.SampleOptions;
@@ -15,6 +14,10 @@ import org.matsim.application.options.ShpOptions;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Automatically runs commands by using the {@link CommandSpec} and various Options classes.
@@ -33,6 +36,8 @@ public final class CommandRunner {
 	private String defaultShp = null;
 	private String defaultCrs = null;
 	private Double defaultSampleSize = null;
+	private int parallelism = 1;
+	private long memoryPerHeavyCommand = 4L * 1024 * 1024 * 1024;
 
 
 	/**
@@ -59,6 +64,9 @@ public final class CommandRunner {
 
 	/**
 	 * Run the specified command. Required input files are searched on {@code input} path.
+	 * <p>
+	 * Commands are run after all the commands they depend on. With a parallelism larger than one, independent commands
+	 * are run concurrently, see {@link #setParallelism(int)}.
 	 *
 	 * @param input search path for input files not defined as output by any command.
 	 */
@@ -68,9 +76,7 @@ public final class CommandRunner {
 			throw new IllegalArgumentException("Input path does not exists:" + input);
 
 		// Run graph with dependencies
-		Graph<Class<? extends MATSimAppCommand>, DefaultEdge> graph = new DirectedAcyclicGraph<>(DefaultEdge.class);
-
-		Set<Class<? extends MATSimAppCommand>> start = new HashSet<>();
+		DirectedAcyclicGraph<Class<? extends MATSimAppCommand>, DefaultEdge> graph = new DirectedAcyclicGraph<>(DefaultEdge.class);
 
 		for (Map.Entry<Class<? extends MATSimAppCommand>, String[]> e : args.entrySet()) {
 			Class<? extends MATSimAppCommand> clazz = e.getKey();
@@ -80,23 +86,101 @@ public final class CommandRunner {
 				graph.addVertex(d);
 				graph.addEdge(d, clazz);
 			}
-			if (depends.length == 0)
-				start.add(clazz);
 		}
 
-		BreadthFirstIterator<Class<? extends MATSimAppCommand>, DefaultEdge> it = new BreadthFirstIterator<>(graph, start);
-		while (it.hasNext()) {
-			Class<? extends MATSimAppCommand> clazz = it.next();
-			try {
+		if (parallelism <= 1) {
+			// The directed acyclic graph iterates in topological order
+			for (Class<? extends MATSimAppCommand> clazz : graph) {
 				// Collect garbage between commands, because they might use quite some memory
 				System.gc();
-				runCommand(clazz, input);
+				runCommandAndLogErrors(clazz, input);
+			}
+		} else {
+			runParallel(graph, input);
+		}
+	}
+
+	/**
+	 * Run the commands of the graph on a pool of {@link #parallelism} threads. A command is submitted as soon as all
+	 * its dependencies have finished. Commands that read the events or the population are not started if this would
+	 * exceed the number of such commands fitting into the available memory.
+	 */
+	private void runParallel(Graph<Class<? extends MATSimAppCommand>, DefaultEdge> graph, Path input) {
+
+		int maxHeavy = (int) Math.max(1, Math.min(parallelism, Runtime.getRuntime().maxMemory() / memoryPerHeavyCommand));
+		log.info("Running {} commands with {} threads, of which at most {} read events or population.",
+			graph.vertexSet().size(), parallelism, maxHeavy);
+
+		Map<Class<? extends MATSimAppCommand>, Integer> unfinishedDependencies = new HashMap<>();
+		List<Class<? extends MATSimAppCommand>> ready = new ArrayList<>();
+		for (Class<? extends MATSimAppCommand> clazz : graph.vertexSet()) {
+			unfinishedDependencies.put(clazz, graph.inDegreeOf(clazz));
+			if (graph.inDegreeOf(clazz) == 0)
+				ready.add(clazz);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		ExecutorCompletionService<Class<? extends MATSimAppCommand>> completion = new ExecutorCompletionService<>(executor);
+
+		try {
+			int running = 0;
+			int runningHeavy = 0;
+			while (!ready.isEmpty() || running > 0) {
 
-			} catch (ReflectiveOperationException ex) {
-				log.error("Command {} could not be crated.", clazz, ex);
-			} catch (RuntimeException e) {
-				log.error("Command {} threw an error.", clazz, e);
+				Iterator<Class<? extends MATSimAppCommand>> it = ready.iterator();
+				while (it.hasNext()) {
+					Class<? extends MATSimAppCommand> clazz = it.next();
+					boolean heavy = isHeavy(clazz);
+					if (heavy && runningHeavy >= maxHeavy)
+						continue;
+
+					it.remove();
+					running++;
+					if (heavy)
+						runningHeavy++;
+
+					completion.submit(() -> runCommandAndLogErrors(clazz, input), clazz);
+				}
+
+				Class<? extends MATSimAppCommand> finished = completion.take().get();
+				running--;
+				if (isHeavy(finished))
+					runningHeavy--;
+
+				for (DefaultEdge edge : graph.outgoingEdgesOf(finished)) {
+					Class<? extends MATSimAppCommand> next = graph.getEdgeTarget(edge);
+					if (unfinishedDependencies.merge(next, -1, Integer::sum) == 0)
+						ready.add(next);
+				}
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while running commands.", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Command execution failed.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Commands reading events or population usually need a lot of memory.
+	 */
+	private static boolean isHeavy(Class<? extends MATSimAppCommand> clazz) {
+		CommandSpec spec = ApplicationUtils.getSpec(clazz);
+		return spec.requireEvents() || spec.requirePopulation();
+	}
+
+	/**
+	 * Run a command, errors are logged but not thrown, so that the remaining commands can still be run.
+	 */
+	private void runCommandAndLogErrors(Class<? extends MATSimAppCommand> clazz, Path input) {
+		try {
+			runCommand(clazz, input);
+		} catch (ReflectiveOperationException ex) {
+			log.error("Command {} could not be crated.", clazz, ex);
+		} catch (RuntimeException e) {
+			log.error("Command {} threw an error.", clazz, e);
 		}
 	}
 
@@ -357,4 +441,32 @@ public final class CommandRunner {
 	public void setSampleSize(double sampleSize) {
 		this.defaultSampleSize = sampleSize;
 	}
+
+	/**
+	 * Set the number of commands that may run at the same time. By default, this is 1 and all commands run one after
+	 * another on the calling thread.
+	 *
+	 * @return same instance
+	 * @throws IllegalArgumentException if the parallelism is smaller than 1
+	 */
+	public CommandRunner setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be at least 1, but is " + parallelism);
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Set the memory in bytes a command reading events or population is expected to need. The number of such commands
+	 * running at the same time is limited to the maximum heap size divided by this value. Default is 4 GB.
+	 *
+	 * @return same instance
+	 * @throws IllegalArgumentException if the memory is smaller than 1 byte
+	 */
+	public CommandRunner setMemoryPerHeavyCommand(long bytes) {
+		if (bytes < 1)
+			throw new IllegalArgumentException("Memory per heavy command must be at least 1 byte, but is " + bytes);
+		this.memoryPerHeavyCommand = bytes;
+		return this;
+	}
 }
@@ -11,6 +11,7 @@ import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.controler.Controler;
+import org.matsim.core.controler.ControlerUtils;
 import org.matsim.core.scenario.ScenarioUtils;
 import picocli.AutoComplete;
 import picocli.CommandLine;
@@ -96,6 +97,9 @@ public abstract class MATSimApplication implements Callable<Integer>, CommandLin
 	@CommandLine.Option(names = "--post-processing", description = "Option for post-processing", defaultValue = "enabled")
 	protected PostProcessOption post;
 
+	@CommandLine.Option(names = "--restart", description = "Resume the run after the iteration the given checkpoint file was written at")
+	protected Path restart;
+
 	/**
 	 * This Map will never contain anything, because this argument is not parsed correctly, but instead will go into remainingArgs field.
 	 *
@@ -185,6 +189,9 @@ public abstract class MATSimApplication implements Callable<Integer>, CommandLin
 		if (runId != null)
 			config.controller().setRunId(runId);
 
+		if (restart != null)
+			ControlerUtils.configureRestartFromCheckpoint(config, restart.toString());
+
 		final Scenario scenario = createScenario(config);
 
 		prepareScenario(scenario);
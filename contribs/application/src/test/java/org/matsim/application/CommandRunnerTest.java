@@ -6,9 +6,16 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.matsim.application.analysis.TestDependentAnalysis;
 import org.matsim.application.analysis.TestOtherAnalysis;
 import org.matsim.application.analysis.TestOtherDependentAnalysis;
+import org.matsim.application.options.InputOptions;
+import org.matsim.application.options.OutputOptions;
 import org.matsim.testcases.MatsimTestUtils;
+import picocli.CommandLine;
 
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class CommandRunnerTest {
 
@@ -33,4 +40,112 @@ public class CommandRunnerTest {
 				.isDirectoryContaining(p -> p.getFileName().toString().equals("out.xml"))
 				.isDirectoryContaining(p -> p.getFileName().toString().equals("processed.csv"));
 	}
+
+	@Test
+	void parallel() {
+
+		Path path = Path.of(utils.getOutputDirectory());
+
+		EXECUTION.clear();
+		bothStarted = new CountDownLatch(2);
+
+		CommandRunner runner = new CommandRunner().setOutput(path).setParallelism(4);
+		runner.add(TestDependentAnalysis.class);
+		runner.add(TestOtherAnalysis.class, "--option", "1");
+		runner.add(TestOtherDependentAnalysis.class);
+		runner.add(Joined.class);
+
+		// same input as the sequential runner test
+		runner.run(Path.of(utils.getClassInputDirectory(), "runner"));
+
+		Assertions.assertThat(path.resolve("analysis"))
+				.isDirectoryContaining(p -> p.getFileName().toString().equals("out.xml"))
+				.isDirectoryContaining(p -> p.getFileName().toString().equals("processed.csv"));
+
+		// the independent commands are only marked as overlapped if both were running at the same time
+		Assertions.assertThat(EXECUTION)
+				.containsExactlyInAnyOrder("start Overlapping", "overlapped Overlapping", "end Overlapping",
+					"start OtherOverlapping", "overlapped OtherOverlapping", "end OtherOverlapping",
+					"start Joined", "end Joined");
+
+		Assertions.assertThat(EXECUTION.indexOf("start Joined"))
+				.isGreaterThan(EXECUTION.indexOf("end Overlapping"))
+				.isGreaterThan(EXECUTION.indexOf("end OtherOverlapping"));
+	}
+
+	@Test
+	void invalidSettings() {
+		CommandRunner runner = new CommandRunner();
+		Assertions.assertThatIllegalArgumentException().isThrownBy(() -> runner.setParallelism(0));
+		Assertions.assertThatIllegalArgumentException().isThrownBy(() -> runner.setMemoryPerHeavyCommand(0));
+	}
+
+	/**
+	 * Order in which the commands below started and ended.
+	 */
+	private static final List<String> EXECUTION = new CopyOnWriteArrayList<>();
+
+	private static CountDownLatch bothStarted;
+
+	/**
+	 * Waits until the other independent command has started as well.
+	 */
+	private static void runOverlapping(String name) throws InterruptedException {
+		EXECUTION.add("start " + name);
+		bothStarted.countDown();
+		if (bothStarted.await(30, TimeUnit.SECONDS))
+			EXECUTION.add("overlapped " + name);
+
+		Thread.sleep(100);
+		EXECUTION.add("end " + name);
+	}
+
+	@CommandSpec(group = "parallel")
+	public static class Overlapping implements MATSimAppCommand {
+
+		@CommandLine.Mixin
+		private final InputOptions input = InputOptions.ofCommand(Overlapping.class);
+
+		@CommandLine.Mixin
+		private final OutputOptions output = OutputOptions.ofCommand(Overlapping.class);
+
+		@Override
+		public Integer call() throws Exception {
+			runOverlapping("Overlapping");
+			return 0;
+		}
+	}
+
+	@CommandSpec(group = "parallel")
+	public static class OtherOverlapping implements MATSimAppCommand {
+
+		@CommandLine.Mixin
+		private final InputOptions input = InputOptions.ofCommand(OtherOverlapping.class);
+
+		@CommandLine.Mixin
+		private final OutputOptions output = OutputOptions.ofCommand(OtherOverlapping.class);
+
+		@Override
+		public Integer call() throws Exception {
+			runOverlapping("OtherOverlapping");
+			return 0;
+		}
+	}
+
+	@CommandSpec(group = "parallel", dependsOn = {Overlapping.class, OtherOverlapping.class})
+	public static class Joined implements MATSimAppCommand {
+
+		@CommandLine.Mixin
+		private final InputOptions input = InputOptions.ofCommand(Joined.class);
+
+		@CommandLine.Mixin
+		private final OutputOptions output = OutputOptions.ofCommand(Joined.class);
+
+		@Override
+		public Integer call() throws Exception {
+			EXECUTION.add("start Joined");
+			EXECUTION.add("end Joined");
+			return 0;
+		}
+	}
 }
@@ -0,0 +1,44 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.drt.optimizer;
+
+import org.matsim.contrib.drt.optimizer.insertion.BatchUnplannedRequestInserter;
+import org.matsim.core.config.ReflectiveConfigGroup;
+
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Enables the batch assignment of requests by {@link BatchUnplannedRequestInserter}: the requests submitted within a
+ * batch interval are collected and assigned to the vehicles together, instead of being inserted one by one on arrival.
+ */
+public class BatchAssignmentParams extends ReflectiveConfigGroup {
+	public static final String SET_NAME = "batchAssignment";
+
+	@Parameter
+	@Comment("The interval (in seconds) between two subsequent batch assignments. The requests submitted in the"
+			+ " meantime wait until the next assignment. Default value is 30.")
+	@Positive
+	public int batchInterval = 30;
+
+	public BatchAssignmentParams() {
+		super(SET_NAME);
+	}
+}
@@ -95,14 +95,28 @@ public class DrtModeOptimizerQSimModule extends AbstractDvrpModeQSimModule {
 		addModalComponent(QSimScopeForkJoinPoolHolder.class,
 				() -> new QSimScopeForkJoinPoolHolder(drtCfg.numberOfThreads));
 
-		bindModal(UnplannedRequestInserter.class).toProvider(modalProvider(
-				getter -> new DefaultUnplannedRequestInserter(drtCfg, getter.getModal(Fleet.class),
-						getter.get(MobsimTimer.class), getter.get(EventsManager.class),
-						getter.getModal(RequestInsertionScheduler.class),
-						getter.getModal(VehicleEntry.EntryFactory.class), getter.getModal(DrtInsertionSearch.class),
-						getter.getModal(DrtRequestInsertionRetryQueue.class), getter.getModal(DrtOfferAcceptor.class),
-						getter.getModal(QSimScopeForkJoinPoolHolder.class).getPool(),
-						getter.getModal(PassengerStopDurationProvider.class)))).asEagerSingleton();
+		if (drtCfg.getBatchAssignmentParams().isPresent()) {
+			addModalComponent(BatchUnplannedRequestInserter.class, modalProvider(
+					getter -> new BatchUnplannedRequestInserter(drtCfg, getter.getModal(Fleet.class),
+							getter.get(MobsimTimer.class), getter.get(EventsManager.class),
+							getter.getModal(RequestInsertionScheduler.class),
+							getter.getModal(VehicleEntry.EntryFactory.class), getter.getModal(DrtInsertionSearch.class),
+							getter.getModal(InsertionCostCalculator.class),
+							getter.getModal(DrtRequestInsertionRetryQueue.class),
+							getter.getModal(DrtOfferAcceptor.class),
+							getter.getModal(QSimScopeForkJoinPoolHolder.class).getPool(),
+							getter.getModal(PassengerStopDurationProvider.class))));
+			bindModal(UnplannedRequestInserter.class).to(modalKey(BatchUnplannedRequestInserter.class));
+		} else {
+			bindModal(UnplannedRequestInserter.class).toProvider(modalProvider(
+					getter -> new DefaultUnplannedRequestInserter(drtCfg, getter.getModal(Fleet.class),
+							getter.get(MobsimTimer.class), getter.get(EventsManager.class),
+							getter.getModal(RequestInsertionScheduler.class),
+							getter.getModal(VehicleEntry.EntryFactory.class), getter.getModal(DrtInsertionSearch.class),
+							getter.getModal(DrtRequestInsertionRetryQueue.class), getter.getModal(DrtOfferAcceptor.class),
+							getter.getModal(QSimScopeForkJoinPoolHolder.class).getPool(),
+							getter.getModal(PassengerStopDurationProvider.class)))).asEagerSingleton();
+		}
 
 		bindModal(InsertionCostCalculator.class).toProvider(modalProvider(
 				getter -> new DefaultInsertionCostCalculator(getter.getModal(CostCalculationStrategy.class),
@@ -0,0 +1,284 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.drt.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.Fleet;
+import org.matsim.contrib.dvrp.path.VrpPath;
+import org.matsim.contrib.dvrp.schedule.DriveTask;
+import org.matsim.contrib.dvrp.schedule.Schedule;
+import org.matsim.contrib.dvrp.schedule.Schedule.ScheduleStatus;
+import org.matsim.contrib.dvrp.schedule.StayTask;
+import org.matsim.contrib.dvrp.schedule.Task;
+
+/**
+ * A grid-based spatial index of the current and planned locations of the vehicles of a fleet, used to select the
+ * vehicles which are close to a request before their {@link VehicleEntry}s are created and the insertion search is run.
+ * <p>
+ * The locations of a vehicle are the links of its current task (for a drive task, the first and the last link of the
+ * path) and of all the following stay and stop tasks. Before the schedule is started, it is the start link. The
+ * locations are taken from the schedule only, so the index is cheap to maintain: {@link #refresh()} updates only the
+ * vehicles whose current task, number of tasks, last task or current path has changed, and {@link #update(DvrpVehicle)}
+ * updates a vehicle whose schedule has just been modified.
+ * <p>
+ * The index is not thread-safe.
+ *
+ * @see VehicleSpatialIndexParams
+ */
+public class VehicleSpatialIndex {
+	private final Fleet fleet;
+	private final double cellSize;
+
+	private final Map<Long, Set<IndexedVehicle>> cells = new HashMap<>();
+	private final Map<Id<DvrpVehicle>, IndexedVehicle> vehicles = new HashMap<>();
+	private int minCellX = Integer.MAX_VALUE;
+	private int maxCellX = Integer.MIN_VALUE;
+	private int minCellY = Integer.MAX_VALUE;
+	private int maxCellY = Integer.MIN_VALUE;
+
+	public VehicleSpatialIndex(Fleet fleet, double cellSize) {
+		this.fleet = fleet;
+		this.cellSize = cellSize;
+		refresh();
+	}
+
+	/**
+	 * Updates the locations of all vehicles whose schedules have changed since they were last indexed.
+	 */
+	public void refresh() {
+		for (DvrpVehicle vehicle : fleet.getVehicles().values()) {
+			IndexedVehicle indexed = vehicles.get(vehicle.getId());
+			if (indexed == null || indexed.hasChanged()) {
+				update(vehicle);
+			}
+		}
+	}
+
+	/**
+	 * Updates the locations of the vehicle. Has to be called after the schedule has been modified, if the index is
+	 * queried before the next {@link #refresh()}.
+	 */
+	public void update(DvrpVehicle vehicle) {
+		IndexedVehicle indexed = vehicles.remove(vehicle.getId());
+		if (indexed != null) {
+			for (long cell : indexed.cellKeys) {
+				Set<IndexedVehicle> cellVehicles = cells.get(cell);
+				cellVehicles.remove(indexed);
+				if (cellVehicles.isEmpty()) {
+					cells.remove(cell);
+				}
+			}
+		}
+
+		indexed = new IndexedVehicle(vehicle);
+		vehicles.put(vehicle.getId(), indexed);
+		for (long cell : indexed.cellKeys) {
+			cells.computeIfAbsent(cell, c -> new HashSet<>()).add(indexed);
+		}
+	}
+
+	/**
+	 * Returns the vehicles with the smallest beeline distance between any of their locations and the given link,
+	 * ordered by the distance.
+	 *
+	 * @param maxVehicles the maximum number of vehicles returned
+	 */
+	public List<DvrpVehicle> findNearestVehicles(Link link, int maxVehicles) {
+		if (cells.isEmpty()) {
+			return List.of();
+		}
+
+		Coord coord = link.getToNode().getCoord();
+		int cellX = cellIndex(coord.getX());
+		int cellY = cellIndex(coord.getY());
+		int maxRing = Math.max(Math.max(cellX - minCellX, maxCellX - cellX), Math.max(cellY - minCellY, maxCellY - cellY));
+
+		Map<IndexedVehicle, Double> distances = new HashMap<>();
+		List<IndexedVehicle> nearest = new ArrayList<>();
+		Comparator<IndexedVehicle> byDistance = Comparator.<IndexedVehicle>comparingDouble(distances::get)
+				.thenComparing(v -> v.vehicle.getId());
+		for (int ring = 0; ring <= maxRing; ring++) {
+			for (int x = cellX - ring; x <= cellX + ring; x++) {
+				boolean borderColumn = x == cellX - ring || x == cellX + ring;
+				for (int y = cellY - ring; y <= cellY + ring; y += borderColumn || ring == 0 ? 1 : 2 * ring) {
+					Set<IndexedVehicle> cellVehicles = cells.get(cellKey(x, y));
+					if (cellVehicles != null) {
+						for (IndexedVehicle v : cellVehicles) {
+							if (!distances.containsKey(v)) {
+								distances.put(v, v.calcDistance(coord));
+								nearest.add(v);
+							}
+						}
+					}
+				}
+			}
+
+			// all vehicles not seen yet are further away than ring * cellSize
+			if (nearest.size() >= maxVehicles) {
+				nearest.sort(byDistance);
+				nearest.subList(maxVehicles, nearest.size()).clear();
+				if (distances.get(nearest.get(maxVehicles - 1)) <= ring * cellSize) {
+					break;
+				}
+			}
+		}
+
+		nearest.sort(byDistance);
+		List<DvrpVehicle> result = new ArrayList<>(nearest.size());
+		for (IndexedVehicle v : nearest) {
+			result.add(v.vehicle);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the nearest vehicles like {@link #findNearestVehicles(Link, int)}, but only counts the vehicles which are
+	 * available, e.g. in service. If too few of the nearest vehicles are available, the search is repeated with twice the
+	 * number of vehicles until enough available vehicles are found or there are no more vehicles.
+	 *
+	 * @param maxVehicles the maximum number of available vehicles returned
+	 * @param filter      called with the vehicles not checked before, ordered by the distance, so that they can be
+	 *                    checked at once; returns the available ones among them
+	 */
+	public List<DvrpVehicle> findNearestVehicles(Link link, int maxVehicles,
+			Function<List<DvrpVehicle>, Collection<DvrpVehicle>> filter) {
+		List<DvrpVehicle> result = new ArrayList<>();
+		int checked = 0;
+		for (int searched = maxVehicles; ; searched = (int)Math.min(2L * searched, Integer.MAX_VALUE)) {
+			// the nearest vehicles of a larger search start with the nearest vehicles of the smaller one
+			List<DvrpVehicle> nearest = findNearestVehicles(link, searched);
+			List<DvrpVehicle> unchecked = nearest.subList(checked, nearest.size());
+			Collection<DvrpVehicle> available = unchecked.isEmpty() ? List.of() : filter.apply(unchecked);
+			for (DvrpVehicle vehicle : unchecked) {
+				if (result.size() < maxVehicles && available.contains(vehicle)) {
+					result.add(vehicle);
+				}
+			}
+			checked = nearest.size();
+			if (result.size() >= maxVehicles || nearest.size() < searched || searched == Integer.MAX_VALUE) {
+				return result;
+			}
+		}
+	}
+
+	private int cellIndex(double coord) {
+		return (int)Math.floor(coord / cellSize);
+	}
+
+	private static long cellKey(int x, int y) {
+		return ((long)x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	private final class IndexedVehicle {
+		private final DvrpVehicle vehicle;
+		private final ScheduleStatus status;
+		private final Task currentTask;
+		private final int taskCount;
+		private final Task lastTask;
+		private final VrpPath currentPath;
+		private final List<Coord> coords = new ArrayList<>();
+		private final Set<Long> cellKeys = new HashSet<>();
+
+		private IndexedVehicle(DvrpVehicle vehicle) {
+			this.vehicle = vehicle;
+			Schedule schedule = vehicle.getSchedule();
+			List<? extends Task> tasks = schedule.getTasks();
+			status = schedule.getStatus();
+			taskCount = tasks.size();
+			lastTask = tasks.isEmpty() ? null : tasks.get(tasks.size() - 1);
+
+			if (status == ScheduleStatus.STARTED) {
+				currentTask = schedule.getCurrentTask();
+				if (currentTask instanceof DriveTask driveTask) {
+					currentPath = driveTask.getPath();
+					add(currentPath.getFromLink());
+					add(currentPath.getToLink());
+				} else {
+					currentPath = null;
+					if (currentTask instanceof StayTask stayTask) {
+						add(stayTask.getLink());
+					}
+				}
+				for (Task task : tasks.subList(currentTask.getTaskIdx() + 1, tasks.size())) {
+					if (task instanceof StayTask stayTask) {
+						add(stayTask.getLink());
+					}
+				}
+			} else {
+				currentTask = null;
+				currentPath = null;
+			}
+
+			if (coords.isEmpty()) {
+				add(vehicle.getStartLink());
+			}
+		}
+
+		private void add(Link link) {
+			Coord coord = link.getToNode().getCoord();
+			int x = cellIndex(coord.getX());
+			int y = cellIndex(coord.getY());
+			coords.add(coord);
+			cellKeys.add(cellKey(x, y));
+			minCellX = Math.min(minCellX, x);
+			maxCellX = Math.max(maxCellX, x);
+			minCellY = Math.min(minCellY, y);
+			maxCellY = Math.max(maxCellY, y);
+		}
+
+		private boolean hasChanged() {
+			Schedule schedule = vehicle.getSchedule();
+			List<? extends Task> tasks = schedule.getTasks();
+			if (schedule.getStatus() != status || tasks.size() != taskCount
+					|| (!tasks.isEmpty() && tasks.get(tasks.size() - 1) != lastTask)) {
+				return true;
+			}
+			if (status == ScheduleStatus.STARTED) {
+				Task task = schedule.getCurrentTask();
+				return task != currentTask || (task instanceof DriveTask driveTask && driveTask.getPath() != currentPath);
+			}
+			return false;
+		}
+
+		private double calcDistance(Coord coord) {
+			double minSquaredDistance = Double.POSITIVE_INFINITY;
+			for (Coord c : coords) {
+				double dx = c.getX() - coord.getX();
+				double dy = c.getY() - coord.getY();
+				minSquaredDistance = Math.min(minSquaredDistance, dx * dx + dy * dy);
+			}
+			return Math.sqrt(minSquaredDistance);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.drt.optimizer;
+
+import org.matsim.core.config.ReflectiveConfigGroup;
+
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Enables the prefiltering of the vehicles by a {@link VehicleSpatialIndex} before the insertion search.
+ */
+public class VehicleSpatialIndexParams extends ReflectiveConfigGroup {
+	public static final String SET_NAME = "vehicleSpatialIndex";
+
+	@Parameter
+	@Comment("The number of vehicles which are considered for the insertion of a request: the vehicles with the"
+			+ " smallest beeline distance between their current or planned locations and the request origin."
+			+ " Default value is 50.")
+	@Positive
+	public int maxCandidateVehicles = 50;
+
+	@Parameter
+	@Comment("The size (in the units of the network, usually m) of the grid cells of the spatial index."
+			+ " Default value is 1000.")
+	@Positive
+	public double cellSize = 1000;
+
+	public VehicleSpatialIndexParams() {
+		super(SET_NAME);
+	}
+}
@@ -0,0 +1,431 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import static org.matsim.contrib.drt.optimizer.insertion.DefaultUnplannedRequestInserter.NO_INSERTION_FOUND_CAUSE;
+import static org.matsim.contrib.drt.optimizer.insertion.DefaultUnplannedRequestInserter.OFFER_REJECTED_CAUSE;
+import static org.matsim.contrib.drt.optimizer.insertion.InsertionCostCalculator.INFEASIBLE_SOLUTION_COST;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.contrib.drt.optimizer.BatchAssignmentParams;
+import org.matsim.contrib.drt.optimizer.DrtRequestInsertionRetryQueue;
+import org.matsim.contrib.drt.optimizer.VehicleEntry;
+import org.matsim.contrib.drt.optimizer.VehicleSpatialIndex;
+import org.matsim.contrib.drt.optimizer.VehicleSpatialIndexParams;
+import org.matsim.contrib.drt.passenger.DrtOfferAcceptor;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.drt.run.DrtConfigGroup;
+import org.matsim.contrib.drt.scheduler.RequestInsertionScheduler;
+import org.matsim.contrib.drt.stops.PassengerStopDurationProvider;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.Fleet;
+import org.matsim.contrib.dvrp.passenger.PassengerRequestRejectedEvent;
+import org.matsim.contrib.dvrp.passenger.PassengerRequestScheduledEvent;
+import org.matsim.contrib.dvrp.util.HungarianAlgorithm;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeCleanupListener;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Collects the requests over a batch interval and assigns them to the vehicles together, instead of inserting them one
+ * by one in the order of their submission (as {@link DefaultUnplannedRequestInserter} does).
+ * <p>
+ * For each batch, a request-vehicle graph is built: an edge connects a request with a vehicle if the request can be
+ * inserted into the schedule of the vehicle, and is weighted by the cost of the best such insertion. The requests are
+ * then assigned in rounds: in each round, each request is matched with at most one vehicle and vice versa, assigning
+ * as many requests as possible at the minimum total cost (with the {@link HungarianAlgorithm}, as in the taxi
+ * assignment optimizer), and the matched insertions are scheduled. Afterwards, only the edges to the vehicles with
+ * modified schedules are recomputed for the remaining requests. The rounds end when no further request can be assigned;
+ * the remaining requests are retried later or rejected.
+ * <p>
+ * The path computations are shared by all vehicles of one request (see
+ * {@link DrtInsertionSearch#findBestInsertionPerVehicle}), but not between the requests of a batch, as their one-to-many
+ * searches start at different links. The edges of the requests are built one after the other, as the path searches
+ * of the insertion search are not thread-safe; each of them runs its forward and backward searches in parallel. Only
+ * the vehicle entries are created on the QSim-scope fork-join pool.
+ * <p>
+ * With a {@link VehicleSpatialIndex} (see {@link VehicleSpatialIndexParams}), a request only gets edges to its nearest
+ * vehicles at the start of the batch, and vehicle entries are only created for these vehicles.
+ * <p>
+ * The solve time of each batch is logged (at the debug level), and summarised at the end of the simulation.
+ *
+ * @see BatchAssignmentParams
+ */
+public class BatchUnplannedRequestInserter implements UnplannedRequestInserter, MobsimBeforeCleanupListener {
+	private static final Logger log = LogManager.getLogger(BatchUnplannedRequestInserter.class);
+
+	private static final Comparator<Edge> EDGE_COMPARATOR = Comparator.<Edge>comparingDouble(Edge::cost)
+			.thenComparing(edge -> edge.request().getId())
+			.thenComparing(edge -> edge.insertion().insertion, BestInsertionFinder.INSERTION_COMPARATOR);
+
+	private final String mode;
+	private final Fleet fleet;
+	private final DoubleSupplier timeOfDay;
+	private final EventsManager eventsManager;
+	private final RequestInsertionScheduler insertionScheduler;
+	private final VehicleEntry.EntryFactory vehicleEntryFactory;
+	private final DrtInsertionSearch insertionSearch;
+	private final InsertionCostCalculator insertionCostCalculator;
+	private final DrtRequestInsertionRetryQueue insertionRetryQueue;
+	private final DrtOfferAcceptor drtOfferAcceptor;
+	private final ForkJoinPool forkJoinPool;
+	private final PassengerStopDurationProvider stopDurationProvider;
+	private final int batchInterval;
+	@Nullable
+	private final VehicleSpatialIndex vehicleSpatialIndex;
+	private final int maxCandidateVehicles;
+
+	// NaN if no requests are waiting
+	private double nextBatchTime = Double.NaN;
+
+	private int batchCount = 0;
+	private long requestCount = 0;
+	private long assignedRequestCount = 0;
+	private double totalSolveTime = 0;
+	private double maxSolveTime = 0;
+
+	public BatchUnplannedRequestInserter(DrtConfigGroup drtCfg, Fleet fleet, MobsimTimer mobsimTimer,
+			EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
+			VehicleEntry.EntryFactory vehicleEntryFactory, DrtInsertionSearch insertionSearch,
+			InsertionCostCalculator insertionCostCalculator, DrtRequestInsertionRetryQueue insertionRetryQueue,
+			DrtOfferAcceptor drtOfferAcceptor, ForkJoinPool forkJoinPool,
+			PassengerStopDurationProvider stopDurationProvider) {
+		this(drtCfg.getMode(), fleet, mobsimTimer::getTimeOfDay, eventsManager, insertionScheduler, vehicleEntryFactory,
+				insertionRetryQueue, insertionSearch, insertionCostCalculator, drtOfferAcceptor, forkJoinPool,
+				stopDurationProvider, drtCfg.getBatchAssignmentParams().orElseThrow(),
+				drtCfg.getVehicleSpatialIndexParams().orElse(null));
+	}
+
+	@VisibleForTesting
+	BatchUnplannedRequestInserter(String mode, Fleet fleet, DoubleSupplier timeOfDay, EventsManager eventsManager,
+			RequestInsertionScheduler insertionScheduler, VehicleEntry.EntryFactory vehicleEntryFactory,
+			DrtRequestInsertionRetryQueue insertionRetryQueue, DrtInsertionSearch insertionSearch,
+			InsertionCostCalculator insertionCostCalculator, DrtOfferAcceptor drtOfferAcceptor,
+			ForkJoinPool forkJoinPool, PassengerStopDurationProvider stopDurationProvider,
+			BatchAssignmentParams batchAssignmentParams, @Nullable VehicleSpatialIndexParams vehicleSpatialIndexParams) {
+		this.mode = mode;
+		this.fleet = fleet;
+		this.timeOfDay = timeOfDay;
+		this.eventsManager = eventsManager;
+		this.insertionScheduler = insertionScheduler;
+		this.vehicleEntryFactory = vehicleEntryFactory;
+		this.insertionRetryQueue = insertionRetryQueue;
+		this.insertionSearch = insertionSearch;
+		this.insertionCostCalculator = insertionCostCalculator;
+		this.drtOfferAcceptor = drtOfferAcceptor;
+		this.forkJoinPool = forkJoinPool;
+		this.stopDurationProvider = stopDurationProvider;
+		this.batchInterval = batchAssignmentParams.batchInterval;
+
+		if (vehicleSpatialIndexParams != null) {
+			this.vehicleSpatialIndex = new VehicleSpatialIndex(fleet, vehicleSpatialIndexParams.cellSize);
+			this.maxCandidateVehicles = vehicleSpatialIndexParams.maxCandidateVehicles;
+		} else {
+			this.vehicleSpatialIndex = null;
+			this.maxCandidateVehicles = Integer.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Requests are only inserted at the multiples of the batch interval, starting with the first one after a request
+	 * is waiting.
+	 */
+	@Override
+	public boolean isInsertionDue(double now) {
+		if (Double.isNaN(nextBatchTime)) {
+			nextBatchTime = Math.ceil(now / batchInterval) * batchInterval;
+		}
+		return now >= nextBatchTime;
+	}
+
+	@Override
+	public void scheduleUnplannedRequests(Collection<DrtRequest> unplannedRequests) {
+		double now = timeOfDay.getAsDouble();
+		if (!isInsertionDue(now)) {
+			return;// the requests wait (in the collection of unplanned requests) for the next batch
+		}
+		nextBatchTime = Double.NaN;
+
+		//first the requests to retry, then the new requests
+		List<DrtRequest> requests = new ArrayList<>(insertionRetryQueue.getRequestsToRetryNow(now));
+		requests.addAll(unplannedRequests);
+		unplannedRequests.clear();
+		if (requests.isEmpty()) {
+			return;
+		}
+
+		long startTime = System.nanoTime();
+		int assigned = assignBatch(requests, now);
+		double solveTime = (System.nanoTime() - startTime) / 1e6;
+
+		batchCount++;
+		requestCount += requests.size();
+		assignedRequestCount += assigned;
+		totalSolveTime += solveTime;
+		maxSolveTime = Math.max(maxSolveTime, solveTime);
+		log.debug("Batch assignment at time {}: {} requests, {} assigned, solved in {} ms", now, requests.size(),
+				assigned, solveTime);
+	}
+
+	private int assignBatch(List<DrtRequest> requests, double now) {
+		// the candidate vehicles of each request, null if all vehicles are candidates
+		Map<DrtRequest, Set<Id<DvrpVehicle>>> candidates = null;
+		Map<Id<DvrpVehicle>, VehicleEntry> vehicleEntries;
+		if (vehicleSpatialIndex == null) {
+			vehicleEntries = createVehicleEntries(fleet.getVehicles().values(), now);
+		} else {
+			vehicleSpatialIndex.refresh();
+			candidates = new HashMap<>();
+			Map<Id<DvrpVehicle>, VehicleEntry> entries = new HashMap<>();
+			Set<Id<DvrpVehicle>> checkedVehicles = new HashSet<>();
+			for (DrtRequest request : requests) {
+				// vehicles without entry (e.g. out of service) are skipped, so that up to maxCandidateVehicles are found
+				List<DvrpVehicle> nearest = vehicleSpatialIndex.findNearestVehicles(request.getFromLink(),
+						maxCandidateVehicles, vehicles -> {
+							entries.putAll(createVehicleEntries(
+									vehicles.stream().filter(v -> checkedVehicles.add(v.getId())).toList(), now));
+							return vehicles.stream().filter(v -> entries.containsKey(v.getId())).collect(Collectors.toSet());
+						});
+				candidates.put(request, nearest.stream().map(DvrpVehicle::getId).collect(Collectors.toSet()));
+			}
+			vehicleEntries = entries;
+		}
+
+		// request-vehicle graph (in the order of requests)
+		Map<DrtRequest, List<Edge>> edges = new LinkedHashMap<>();
+		for (DrtRequest request : requests) {
+			edges.put(request, findEdges(request, candidateEntries(request, vehicleEntries.values(), candidates)));
+		}
+
+		int assigned = 0;
+		while (!edges.isEmpty()) {
+			List<Edge> matching = matchOptimally(edges.values());
+			if (matching.isEmpty()) {
+				break;
+			}
+
+			Set<Id<DvrpVehicle>> modifiedVehicles = new HashSet<>();
+			for (Edge edge : matching) {
+				edges.remove(edge.request());
+				if (scheduleInsertion(edge, vehicleEntries, now)) {
+					modifiedVehicles.add(edge.vehicleId());
+					assigned++;
+				}
+			}
+
+			// update the edges to the modified vehicles for the remaining requests
+			List<VehicleEntry> modifiedEntries = modifiedVehicles.stream()
+					.map(vehicleEntries::get)
+					.filter(Objects::nonNull)
+					.toList();
+			for (var requestEdges : edges.entrySet()) {
+				List<Edge> updatedEdges = new ArrayList<>(requestEdges.getValue());
+				updatedEdges.removeIf(edge -> modifiedVehicles.contains(edge.vehicleId()));
+				List<VehicleEntry> candidateEntries = candidateEntries(requestEdges.getKey(), modifiedEntries,
+						candidates);
+				if (!candidateEntries.isEmpty()) {
+					updatedEdges.addAll(findEdges(requestEdges.getKey(), candidateEntries));
+				}
+				requestEdges.setValue(updatedEdges);
+			}
+		}
+
+		edges.keySet().forEach(req -> retryOrReject(req, now, NO_INSERTION_FOUND_CAUSE));
+		return assigned;
+	}
+
+	private Map<Id<DvrpVehicle>, VehicleEntry> createVehicleEntries(Collection<? extends DvrpVehicle> vehicles,
+			double now) {
+		return forkJoinPool.submit(() -> vehicles.parallelStream()
+				.map(v -> vehicleEntryFactory.create(v, now))
+				.filter(Objects::nonNull)
+				.collect(Collectors.toMap(e -> e.vehicle.getId(), e -> e))).join();
+	}
+
+	private static List<VehicleEntry> candidateEntries(DrtRequest request, Collection<VehicleEntry> vehicleEntries,
+			@Nullable Map<DrtRequest, Set<Id<DvrpVehicle>>> candidates) {
+		if (candidates == null) {
+			return List.copyOf(vehicleEntries);
+		}
+		Set<Id<DvrpVehicle>> requestCandidates = candidates.get(request);
+		return vehicleEntries.stream().filter(e -> requestCandidates.contains(e.vehicle.getId())).toList();
+	}
+
+	private List<Edge> findEdges(DrtRequest request, Collection<VehicleEntry> vehicleEntries) {
+		List<Edge> edges = new ArrayList<>();
+		for (InsertionWithDetourData insertion : insertionSearch.findBestInsertionPerVehicle(request,
+				vehicleEntries)) {
+			double cost = insertionCostCalculator.calculate(request, insertion.insertion, insertion.detourTimeInfo);
+			if (cost < INFEASIBLE_SOLUTION_COST) {
+				edges.add(new Edge(request, insertion, cost));
+			}
+		}
+		return edges;
+	}
+
+	/**
+	 * Matches each request with at most one vehicle and vice versa. The matching has the maximum number of edges, and
+	 * among these matchings the minimum total cost. It is found with the Hungarian algorithm on the cost matrix of the
+	 * requests and vehicles with edges, in which the missing edges get a cost higher than the total cost of all edges.
+	 */
+	@VisibleForTesting
+	static List<Edge> matchOptimally(Collection<List<Edge>> edges) {
+		List<List<Edge>> requestEdges = edges.stream().filter(e -> !e.isEmpty()).toList();
+		if (requestEdges.isEmpty()) {
+			return List.of();
+		}
+
+		// vehicles ordered by id to keep the result independent of the order of the edges
+		Map<Id<DvrpVehicle>, Integer> vehicleIndices = new TreeMap<>();
+		double minCost = Double.POSITIVE_INFINITY;
+		for (List<Edge> list : requestEdges) {
+			for (Edge edge : list) {
+				vehicleIndices.put(edge.vehicleId(), 0);
+				minCost = Math.min(minCost, edge.cost());
+			}
+		}
+		int vehicleIndex = 0;
+		for (var entry : vehicleIndices.entrySet()) {
+			entry.setValue(vehicleIndex++);
+		}
+
+		// costs are shifted to be non-negative, so that one missing edge costs more than all edges together
+		double missingEdgeCost = 1;
+		for (List<Edge> list : requestEdges) {
+			for (Edge edge : list) {
+				missingEdgeCost += edge.cost() - minCost;
+			}
+		}
+		double[][] costMatrix = new double[requestEdges.size()][vehicleIndices.size()];
+		Edge[][] edgeMatrix = new Edge[requestEdges.size()][vehicleIndices.size()];
+		for (int r = 0; r < requestEdges.size(); r++) {
+			Arrays.fill(costMatrix[r], missingEdgeCost);
+			for (Edge edge : requestEdges.get(r)) {
+				int v = vehicleIndices.get(edge.vehicleId());
+				if (edgeMatrix[r][v] == null || EDGE_COMPARATOR.compare(edge, edgeMatrix[r][v]) < 0) {
+					edgeMatrix[r][v] = edge;
+					costMatrix[r][v] = edge.cost() - minCost;
+				}
+			}
+		}
+
+		int[] assignments = new HungarianAlgorithm(costMatrix).execute();
+		List<Edge> matching = new ArrayList<>();
+		for (int r = 0; r < assignments.length; r++) {
+			if (assignments[r] >= 0 && edgeMatrix[r][assignments[r]] != null) {
+				matching.add(edgeMatrix[r][assignments[r]]);
+			}
+		}
+		matching.sort(EDGE_COMPARATOR);
+		return matching;
+	}
+
+	private boolean scheduleInsertion(Edge edge, Map<Id<DvrpVehicle>, VehicleEntry> vehicleEntries, double now) {
+		DrtRequest req = edge.request();
+		InsertionWithDetourData insertion = edge.insertion();
+
+		// accept offered drt ride
+		var acceptedRequest = drtOfferAcceptor.acceptDrtOffer(req,
+				insertion.detourTimeInfo.pickupDetourInfo.departureTime,
+				insertion.detourTimeInfo.dropoffDetourInfo.arrivalTime);
+		if (acceptedRequest.isEmpty()) {
+			retryOrReject(req, now, OFFER_REJECTED_CAUSE);
+			return false;
+		}
+
+		var vehicle = insertion.insertion.vehicleEntry.vehicle;
+		var pickupDropoffTaskPair = insertionScheduler.scheduleRequest(acceptedRequest.get(), insertion);
+
+		VehicleEntry newVehicleEntry = vehicleEntryFactory.create(vehicle, now);
+		if (newVehicleEntry != null) {
+			vehicleEntries.put(vehicle.getId(), newVehicleEntry);
+		} else {
+			vehicleEntries.remove(vehicle.getId());
+		}
+		if (vehicleSpatialIndex != null) {
+			vehicleSpatialIndex.update(vehicle);
+		}
+
+		double expectedPickupTime = pickupDropoffTaskPair.pickupTask.getBeginTime();
+		expectedPickupTime = Math.max(expectedPickupTime, acceptedRequest.get().getEarliestStartTime());
+		expectedPickupTime += stopDurationProvider.calcPickupDuration(vehicle, req);
+
+		double expectedDropoffTime = pickupDropoffTaskPair.dropoffTask.getBeginTime();
+		expectedDropoffTime += stopDurationProvider.calcDropoffDuration(vehicle, req);
+
+		eventsManager.processEvent(
+				new PassengerRequestScheduledEvent(now, mode, req.getId(), req.getPassengerIds(), vehicle.getId(),
+						expectedPickupTime, expectedDropoffTime));
+		return true;
+	}
+
+	private void retryOrReject(DrtRequest req, double now, String cause) {
+		if (!insertionRetryQueue.tryAddFailedRequest(req, now)) {
+			eventsManager.processEvent(
+					new PassengerRequestRejectedEvent(now, mode, req.getId(), req.getPassengerIds(), cause));
+			log.debug("No insertion found for drt request "
+					+ req
+					+ " with passenger ids="
+					+ req.getPassengerIds().stream().map(Object::toString).collect(Collectors.joining(","))
+					+ " fromLinkId="
+					+ req.getFromLink().getId());
+		}
+	}
+
+	@Override
+	public void notifyMobsimBeforeCleanup(@SuppressWarnings("rawtypes") MobsimBeforeCleanupEvent e) {
+		if (batchCount > 0) {
+			log.info("Batch assignment of mode {}: {} batches, {} requests, {} assigned, solve time: total {} ms,"
+							+ " mean {} ms, max {} ms", mode, batchCount, requestCount, assignedRequestCount,
+					totalSolveTime, totalSolveTime / batchCount, maxSolveTime);
+		}
+	}
+
+	@VisibleForTesting
+	record Edge(DrtRequest request, InsertionWithDetourData insertion, double cost) {
+		Id<DvrpVehicle> vehicleId() {
+			return insertion.insertion.vehicleEntry.vehicle.getId();
+		}
+	}
+}
@@ -19,8 +19,10 @@
 
 package org.matsim.contrib.drt.optimizer.insertion;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -29,11 +31,15 @@ import java.util.concurrent.ForkJoinPool;
 import java.util.function.DoubleSupplier;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.contrib.drt.optimizer.DrtRequestInsertionRetryQueue;
 import org.matsim.contrib.drt.optimizer.VehicleEntry;
+import org.matsim.contrib.drt.optimizer.VehicleSpatialIndex;
+import org.matsim.contrib.drt.optimizer.VehicleSpatialIndexParams;
 import org.matsim.contrib.drt.passenger.DrtOfferAcceptor;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
@@ -67,6 +73,9 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 	private final DrtOfferAcceptor drtOfferAcceptor;
 	private final ForkJoinPool forkJoinPool;
 	private final PassengerStopDurationProvider stopDurationProvider;
+	@Nullable
+	private final VehicleSpatialIndex vehicleSpatialIndex;
+	private final int maxCandidateVehicles;
 
 	public DefaultUnplannedRequestInserter(DrtConfigGroup drtCfg, Fleet fleet, MobsimTimer mobsimTimer,
 			EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
@@ -74,7 +83,8 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 			DrtRequestInsertionRetryQueue insertionRetryQueue, DrtOfferAcceptor drtOfferAcceptor,
 			ForkJoinPool forkJoinPool, PassengerStopDurationProvider stopDurationProvider) {
 		this(drtCfg.getMode(), fleet, mobsimTimer::getTimeOfDay, eventsManager, insertionScheduler, vehicleEntryFactory,
-				insertionRetryQueue, insertionSearch, drtOfferAcceptor, forkJoinPool, stopDurationProvider);
+				insertionRetryQueue, insertionSearch, drtOfferAcceptor, forkJoinPool, stopDurationProvider,
+				drtCfg.getVehicleSpatialIndexParams().orElse(null));
 	}
 
 	@VisibleForTesting
@@ -82,6 +92,16 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 			RequestInsertionScheduler insertionScheduler, VehicleEntry.EntryFactory vehicleEntryFactory,
 			DrtRequestInsertionRetryQueue insertionRetryQueue, DrtInsertionSearch insertionSearch,
 			DrtOfferAcceptor drtOfferAcceptor, ForkJoinPool forkJoinPool, PassengerStopDurationProvider stopDurationProvider) {
+		this(mode, fleet, timeOfDay, eventsManager, insertionScheduler, vehicleEntryFactory, insertionRetryQueue,
+				insertionSearch, drtOfferAcceptor, forkJoinPool, stopDurationProvider, null);
+	}
+
+	@VisibleForTesting
+	DefaultUnplannedRequestInserter(String mode, Fleet fleet, DoubleSupplier timeOfDay, EventsManager eventsManager,
+			RequestInsertionScheduler insertionScheduler, VehicleEntry.EntryFactory vehicleEntryFactory,
+			DrtRequestInsertionRetryQueue insertionRetryQueue, DrtInsertionSearch insertionSearch,
+			DrtOfferAcceptor drtOfferAcceptor, ForkJoinPool forkJoinPool, PassengerStopDurationProvider stopDurationProvider,
+			@Nullable VehicleSpatialIndexParams vehicleSpatialIndexParams) {
 		this.mode = mode;
 		this.fleet = fleet;
 		this.timeOfDay = timeOfDay;
@@ -93,6 +113,14 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		this.drtOfferAcceptor = drtOfferAcceptor;
 		this.forkJoinPool = forkJoinPool;
 		this.stopDurationProvider = stopDurationProvider;
+
+		if (vehicleSpatialIndexParams != null) {
+			this.vehicleSpatialIndex = new VehicleSpatialIndex(fleet, vehicleSpatialIndexParams.cellSize);
+			this.maxCandidateVehicles = vehicleSpatialIndexParams.maxCandidateVehicles;
+		} else {
+			this.vehicleSpatialIndex = null;
+			this.maxCandidateVehicles = Integer.MAX_VALUE;
+		}
 	}
 
 	@Override
@@ -104,12 +132,19 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 			return;
 		}
 
-		var vehicleEntries = forkJoinPool.submit(() -> fleet.getVehicles()
-				.values()
-				.parallelStream()
-				.map(v -> vehicleEntryFactory.create(v, now))
-				.filter(Objects::nonNull)
-				.collect(Collectors.toMap(e -> e.vehicle.getId(), e -> e))).join();
+		Map<Id<DvrpVehicle>, VehicleEntry> vehicleEntries;
+		if (vehicleSpatialIndex == null) {
+			vehicleEntries = forkJoinPool.submit(() -> fleet.getVehicles()
+					.values()
+					.parallelStream()
+					.map(v -> vehicleEntryFactory.create(v, now))
+					.filter(Objects::nonNull)
+					.collect(Collectors.toMap(e -> e.vehicle.getId(), e -> e))).join();
+		} else {
+			// entries are created only for the candidate vehicles of the requests, null if the vehicle is not available
+			vehicleSpatialIndex.refresh();
+			vehicleEntries = new HashMap<>();
+		}
 
 		//first retry scheduling old requests
 		requestsToRetry.forEach(req -> scheduleUnplannedRequest(req, vehicleEntries, now));
@@ -123,8 +158,10 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 
 	private void scheduleUnplannedRequest(DrtRequest req, Map<Id<DvrpVehicle>, VehicleEntry> vehicleEntries,
 			double now) {
-		Optional<InsertionWithDetourData> best = insertionSearch.findBestInsertion(req,
-				Collections.unmodifiableCollection(vehicleEntries.values()));
+		Collection<VehicleEntry> candidateEntries = vehicleSpatialIndex == null ?
+				Collections.unmodifiableCollection(vehicleEntries.values()) :
+				getCandidateVehicleEntries(req, vehicleEntries, now);
+		Optional<InsertionWithDetourData> best = insertionSearch.findBestInsertion(req, candidateEntries);
 		if (best.isEmpty()) {
 			retryOrReject(req, now, NO_INSERTION_FOUND_CAUSE);
 		} else {
@@ -140,11 +177,14 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 				var pickupDropoffTaskPair = insertionScheduler.scheduleRequest(acceptedRequest.get(), insertion);
 
 				VehicleEntry newVehicleEntry = vehicleEntryFactory.create(vehicle, now);
-				if (newVehicleEntry != null) {
+				if (newVehicleEntry != null || vehicleSpatialIndex != null) {
 					vehicleEntries.put(vehicle.getId(), newVehicleEntry);
 				} else {
 					vehicleEntries.remove(vehicle.getId());
 				}
+				if (vehicleSpatialIndex != null) {
+					vehicleSpatialIndex.update(vehicle);
+				}
 
 				double expectedPickupTime = pickupDropoffTaskPair.pickupTask.getBeginTime();
 				expectedPickupTime = Math.max(expectedPickupTime, acceptedRequest.get().getEarliestStartTime());
@@ -162,6 +202,33 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		}
 	}
 
+	private Collection<VehicleEntry> getCandidateVehicleEntries(DrtRequest req,
+			Map<Id<DvrpVehicle>, VehicleEntry> vehicleEntries, double now) {
+		// vehicles without entry (e.g. out of service) are skipped, so that up to maxCandidateVehicles entries are found
+		List<DvrpVehicle> candidates = vehicleSpatialIndex.findNearestVehicles(req.getFromLink(), maxCandidateVehicles,
+				vehicles -> {
+					List<DvrpVehicle> newCandidates = vehicles.stream()
+							.filter(v -> !vehicleEntries.containsKey(v.getId()))
+							.toList();
+					if (!newCandidates.isEmpty()) {
+						// Stream.toList() keeps the null entries of unavailable vehicles
+						List<VehicleEntry> newEntries = forkJoinPool.submit(() -> newCandidates.parallelStream()
+								.map(v -> vehicleEntryFactory.create(v, now))
+								.toList()).join();
+						for (int i = 0; i < newCandidates.size(); i++) {
+							vehicleEntries.put(newCandidates.get(i).getId(), newEntries.get(i));
+						}
+					}
+					return vehicles.stream().filter(v -> vehicleEntries.get(v.getId()) != null).collect(Collectors.toSet());
+				});
+
+		List<VehicleEntry> candidateEntries = new ArrayList<>(candidates.size());
+		for (DvrpVehicle vehicle : candidates) {
+			candidateEntries.add(vehicleEntries.get(vehicle.getId()));
+		}
+		return Collections.unmodifiableList(candidateEntries);
+	}
+
 	private void retryOrReject(DrtRequest req, double now, String cause) {
 		if (!insertionRetryQueue.tryAddFailedRequest(req, now)) {
 			eventsManager.processEvent(
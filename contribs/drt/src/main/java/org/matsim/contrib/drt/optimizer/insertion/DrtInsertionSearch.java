@@ -19,6 +19,7 @@
 package org.matsim.contrib.drt.optimizer.insertion;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.matsim.contrib.drt.optimizer.VehicleEntry;
@@ -29,4 +30,18 @@ import org.matsim.contrib.drt.passenger.DrtRequest;
  */
 public interface DrtInsertionSearch {
 	Optional<InsertionWithDetourData> findBestInsertion(DrtRequest drtRequest, Collection<VehicleEntry> vehicleEntries);
+
+	/**
+	 * Finds the best insertion of the request into each of the vehicles (i.e. at most one insertion per vehicle). Used
+	 * for building the request-vehicle graph when a batch of requests is assigned at once.
+	 * <p>
+	 * The default implementation runs a separate search for each vehicle. Implementations should override it if the
+	 * search for all vehicles can be done at once (e.g. by sharing the path computations).
+	 */
+	default List<InsertionWithDetourData> findBestInsertionPerVehicle(DrtRequest drtRequest,
+			Collection<VehicleEntry> vehicleEntries) {
+		return vehicleEntries.stream()
+				.flatMap(entry -> findBestInsertion(drtRequest, List.of(entry)).stream())
+				.toList();
+	}
 }
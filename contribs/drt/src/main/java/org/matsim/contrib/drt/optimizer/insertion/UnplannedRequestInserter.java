@@ -28,4 +28,13 @@ import org.matsim.contrib.drt.passenger.DrtRequest;
  */
 public interface UnplannedRequestInserter {
 	void scheduleUnplannedRequests(Collection<DrtRequest> unplannedRequests);
+
+	/**
+	 * @return whether {@link #scheduleUnplannedRequests(Collection)} would insert the waiting requests now. Inserters
+	 * that collect the requests over some time return false in between, so that the optimizer can skip updating the
+	 * schedule timings.
+	 */
+	default boolean isInsertionDue(double now) {
+		return true;
+	}
 }
@@ -21,10 +21,13 @@
 package org.matsim.contrib.drt.optimizer.insertion.extensive;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.matsim.contrib.drt.optimizer.VehicleEntry;
 import org.matsim.contrib.drt.optimizer.insertion.*;
+import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator.Insertion;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.stops.PassengerStopDurationProvider;
 import org.matsim.contrib.drt.stops.StopTimeCalculator;
@@ -56,10 +59,37 @@ final class ExtensiveInsertionSearch implements DrtInsertionSearch {
 		}
 
 		DetourPathDataCache pathData = detourPathCalculator.calculatePaths(drtRequest, insertions);
-		return bestInsertionFinder.findBestInsertion(drtRequest, insertions.stream().map(i -> {
-			var insertionDetourData = pathData.createInsertionDetourData(i);
-			return new InsertionWithDetourData(i, insertionDetourData,
-					detourTimeCalculator.calculateDetourTimeInfo(i, insertionDetourData, drtRequest));
-		}));
+		return bestInsertionFinder.findBestInsertion(drtRequest,
+				insertions.stream().map(i -> createInsertionWithDetourData(drtRequest, i, pathData)));
+	}
+
+	/**
+	 * The paths are calculated once for all vehicles (as in {@link #findBestInsertion}) and then the best insertion is
+	 * selected for each vehicle separately.
+	 */
+	@Override
+	public List<InsertionWithDetourData> findBestInsertionPerVehicle(DrtRequest drtRequest,
+			Collection<VehicleEntry> vehicleEntries) {
+		var insertions = insertionProvider.getInsertions(drtRequest, vehicleEntries);
+		if (insertions.isEmpty()) {
+			return List.of();
+		}
+
+		DetourPathDataCache pathData = detourPathCalculator.calculatePaths(drtRequest, insertions);
+		return insertions.stream()
+				.collect(Collectors.groupingBy(i -> i.vehicleEntry.vehicle.getId()))
+				.values()
+				.stream()
+				.flatMap(vehicleInsertions -> bestInsertionFinder.findBestInsertion(drtRequest,
+						vehicleInsertions.stream().map(i -> createInsertionWithDetourData(drtRequest, i, pathData)))
+						.stream())
+				.toList();
+	}
+
+	private InsertionWithDetourData createInsertionWithDetourData(DrtRequest drtRequest, Insertion insertion,
+			DetourPathDataCache pathData) {
+		var insertionDetourData = pathData.createInsertionDetourData(insertion);
+		return new InsertionWithDetourData(insertion, insertionDetourData,
+				detourTimeCalculator.calculateDetourTimeInfo(insertion, insertionDetourData, drtRequest));
 	}
 }
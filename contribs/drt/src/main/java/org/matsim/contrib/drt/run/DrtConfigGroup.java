@@ -36,7 +36,9 @@ import org.matsim.contrib.drt.fare.DrtFareParams;
 import org.matsim.contrib.drt.optimizer.constraints.DefaultDrtOptimizationConstraintsSet;
 import org.matsim.contrib.drt.optimizer.constraints.DrtOptimizationConstraintsParams;
 import org.matsim.contrib.drt.optimizer.constraints.DrtOptimizationConstraintsSet;
+import org.matsim.contrib.drt.optimizer.BatchAssignmentParams;
 import org.matsim.contrib.drt.optimizer.DrtRequestInsertionRetryParams;
+import org.matsim.contrib.drt.optimizer.VehicleSpatialIndexParams;
 import org.matsim.contrib.drt.optimizer.insertion.DrtInsertionSearchParams;
 import org.matsim.contrib.drt.optimizer.insertion.extensive.ExtensiveInsertionSearchParams;
 import org.matsim.contrib.drt.optimizer.insertion.repeatedselective.RepeatedSelectiveInsertionSearchParams;
@@ -187,6 +189,12 @@ public class DrtConfigGroup extends ReflectiveConfigGroupWithConfigurableParamet
 	@Nullable
 	private DrtRequestInsertionRetryParams drtRequestInsertionRetryParams;
 
+	@Nullable
+	private VehicleSpatialIndexParams vehicleSpatialIndexParams;
+
+	@Nullable
+	private BatchAssignmentParams batchAssignmentParams;
+
 	public DrtConfigGroup() {
 		this(DefaultDrtOptimizationConstraintsSet::new);
 	}
@@ -235,6 +243,16 @@ public class DrtConfigGroup extends ReflectiveConfigGroupWithConfigurableParamet
 				() -> drtRequestInsertionRetryParams,
 				params -> drtRequestInsertionRetryParams = (DrtRequestInsertionRetryParams)params);
 
+		//spatial prefiltering of vehicles (optional)
+		addDefinition(VehicleSpatialIndexParams.SET_NAME, VehicleSpatialIndexParams::new,
+				() -> vehicleSpatialIndexParams,
+				params -> vehicleSpatialIndexParams = (VehicleSpatialIndexParams)params);
+
+		//batch assignment of requests (optional)
+		addDefinition(BatchAssignmentParams.SET_NAME, BatchAssignmentParams::new,
+				() -> batchAssignmentParams,
+				params -> batchAssignmentParams = (BatchAssignmentParams)params);
+
 		//prebooking (optional)
 		addDefinition(PrebookingParams.SET_NAME, PrebookingParams::new,
 				() -> prebookingParams,
@@ -359,6 +377,14 @@ public class DrtConfigGroup extends ReflectiveConfigGroupWithConfigurableParamet
 		return Optional.ofNullable(drtRequestInsertionRetryParams);
 	}
 
+	public Optional<VehicleSpatialIndexParams> getVehicleSpatialIndexParams() {
+		return Optional.ofNullable(vehicleSpatialIndexParams);
+	}
+
+	public Optional<BatchAssignmentParams> getBatchAssignmentParams() {
+		return Optional.ofNullable(batchAssignmentParams);
+	}
+
 	public Optional<PrebookingParams> getPrebookingParams() {
 		return Optional.ofNullable(prebookingParams);
 	}
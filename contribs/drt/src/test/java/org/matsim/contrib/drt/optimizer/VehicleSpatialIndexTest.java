@@ -0,0 +1,130 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.drt.optimizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Identifiable;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.drt.schedule.DefaultDrtStopTask;
+import org.matsim.contrib.drt.schedule.DrtStayTask;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicleImpl;
+import org.matsim.contrib.dvrp.fleet.Fleet;
+import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.testcases.fakes.FakeLink;
+
+import com.google.common.collect.ImmutableMap;
+
+public class VehicleSpatialIndexTest {
+	private final DvrpVehicle v0 = vehicle("v0", link(0, 0));
+	private final DvrpVehicle v1 = vehicle("v1", link(1500, 0));
+	private final DvrpVehicle v2 = vehicle("v2", link(3000, 0));
+	private final DvrpVehicle v3 = vehicle("v3", link(10000, 0));
+	private final DvrpVehicle v4 = vehicle("v4", link(-20000, 5000));
+
+	@Test
+	void findNearestVehicles_startLinks() {
+		var index = new VehicleSpatialIndex(fleet(v0, v1, v2, v3, v4), 1000);
+
+		assertThat(index.findNearestVehicles(link(1400, 0), 2)).containsExactly(v1, v0);
+		assertThat(index.findNearestVehicles(link(9000, 100), 1)).containsExactly(v3);
+		assertThat(index.findNearestVehicles(link(-50000, 0), 2)).containsExactly(v4, v0);
+		assertThat(index.findNearestVehicles(link(0, 0), 10)).containsExactly(v0, v1, v2, v3, v4);
+	}
+
+	@Test
+	void findNearestVehicles_plannedStops() {
+		var index = new VehicleSpatialIndex(fleet(v0, v1, v2, v3, v4), 1000);
+
+		// v3 stays at its start link and then serves a stop close to v0
+		v3.getSchedule().addTask(new DrtStayTask(0, 100, v3.getStartLink()));
+		v3.getSchedule().addTask(new DefaultDrtStopTask(200, 260, link(100, 0)));
+		v3.getSchedule().nextTask();
+
+		// not visible before the refresh
+		assertThat(index.findNearestVehicles(link(0, 0), 2)).containsExactly(v0, v1);
+
+		index.refresh();
+		assertThat(index.findNearestVehicles(link(0, 0), 2)).containsExactly(v0, v3);
+		assertThat(index.findNearestVehicles(link(10000, 0), 1)).containsExactly(v3);
+
+		// the stop is removed
+		v3.getSchedule().removeLastTask();
+		index.update(v3);
+		assertThat(index.findNearestVehicles(link(0, 0), 2)).containsExactly(v0, v1);
+	}
+
+	@Test
+	void findNearestVehicles_skipsUnavailableVehicles() {
+		var index = new VehicleSpatialIndex(fleet(v0, v1, v2, v3, v4), 1000);
+		List<List<DvrpVehicle>> checked = new ArrayList<>();
+		Function<List<DvrpVehicle>, Collection<DvrpVehicle>> available = vehicles -> {
+			checked.add(List.copyOf(vehicles));
+			return vehicles.stream().filter(v -> v != v0 && v != v1).collect(Collectors.toSet());
+		};
+
+		assertThat(index.findNearestVehicles(link(0, 0), 2, available)).containsExactly(v2, v3);
+		// each vehicle is checked once
+		assertThat(checked).containsExactly(List.of(v0, v1), List.of(v2, v3));
+
+		// fewer available vehicles than requested
+		assertThat(index.findNearestVehicles(link(0, 0), 10, available)).containsExactly(v2, v3, v4);
+	}
+
+	@Test
+	void findNearestVehicles_emptyFleet() {
+		var index = new VehicleSpatialIndex(fleet(), 1000);
+		assertThat(index.findNearestVehicles(link(0, 0), 2)).isEmpty();
+	}
+
+	private Fleet fleet(DvrpVehicle... vehicles) {
+		var map = Arrays.stream(vehicles).collect(ImmutableMap.toImmutableMap(Identifiable::getId, v -> v));
+		return () -> map;
+	}
+
+	private DvrpVehicle vehicle(String id, Link startLink) {
+		return new DvrpVehicleImpl(ImmutableDvrpVehicleSpecification.newBuilder()
+				.id(Id.create(id, DvrpVehicle.class))
+				.startLinkId(startLink.getId())
+				.capacity(1)
+				.serviceBeginTime(0)
+				.serviceEndTime(1000)
+				.build(), startLink);
+	}
+
+	private Link link(double x, double y) {
+		String id = x + "_" + y;
+		return new FakeLink(Id.createLinkId(id), NetworkUtils.createNode(Id.createNodeId("from_" + id), new Coord(x - 10, y)),
+				NetworkUtils.createNode(Id.createNodeId("to_" + id), new Coord(x, y)));
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Identifiable;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.drt.optimizer.BatchAssignmentParams;
+import org.matsim.contrib.drt.optimizer.DrtRequestInsertionRetryParams;
+import org.matsim.contrib.drt.optimizer.DrtRequestInsertionRetryQueue;
+import org.matsim.contrib.drt.optimizer.VehicleEntry;
+import org.matsim.contrib.drt.passenger.DefaultOfferAcceptor;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.drt.schedule.DefaultDrtStopTask;
+import org.matsim.contrib.drt.scheduler.RequestInsertionScheduler;
+import org.matsim.contrib.drt.scheduler.RequestInsertionScheduler.PickupDropoffTaskPair;
+import org.matsim.contrib.drt.stops.StaticPassengerStopDurationProvider;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.Fleet;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequestScheduledEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.testcases.fakes.FakeLink;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableMap;
+
+public class BatchUnplannedRequestInserterTest {
+	private static final String mode = "DRT_MODE";
+
+	private final DrtRequest request1 = request("r1", "from1", "to1");
+	private final DrtRequest request2 = request("r2", "from2", "to2");
+	private final DvrpVehicle vehicle1 = vehicle("1");
+	private final DvrpVehicle vehicle2 = vehicle("2");
+
+	private final EventsManager eventsManager = mock(EventsManager.class);
+
+	private final DrtRequestInsertionRetryQueue retryQueue = new DrtRequestInsertionRetryQueue(
+			new DrtRequestInsertionRetryParams());//retry OFF, empty queue
+
+	// the vehicle entry is updated after each insertion
+	private final VehicleEntry.EntryFactory entryFactory = (vehicle, now) -> new VehicleEntry(vehicle, null, null,
+			null, null, now);
+
+	// one insertion per vehicle
+	private final DrtInsertionSearch insertionSearch = (drtRequest, vEntries) -> Optional.of(
+			new InsertionWithDetourData(new InsertionGenerator.Insertion(vEntries.iterator().next(), null, null), null,
+					new InsertionDetourTimeCalculator.DetourTimeInfo(
+							mock(InsertionDetourTimeCalculator.PickupDetourInfo.class),
+							mock(InsertionDetourTimeCalculator.DropoffDetourInfo.class))));
+
+	private final RequestInsertionScheduler insertionScheduler = (request, insertion) -> new PickupDropoffTaskPair(
+			new DefaultDrtStopTask(10, 20, request.getFromLink()), new DefaultDrtStopTask(30, 40, request.getToLink()));
+
+	@RegisterExtension
+	public final ForkJoinPoolExtension forkJoinPoolExtension = new ForkJoinPoolExtension();
+
+	@Test
+	void requestsWaitForBatch() {
+		var unplannedRequests = requests(request1);
+
+		//call insertion between two batches (the batch interval is 30)
+		newInserter(fleet(vehicle1), 15, (request, insertion, detourTimeInfo) -> 1).scheduleUnplannedRequests(
+				unplannedRequests);
+
+		//request is still waiting
+		assertThat(unplannedRequests).containsExactly(request1);
+		verify(eventsManager, times(0)).processEvent(any());
+	}
+
+	@Test
+	void insertionDue_atBatchTimes() {
+		var inserter = newInserter(fleet(vehicle1), 15, (request, insertion, detourTimeInfo) -> 1);
+
+		//the batch interval is 30
+		assertThat(inserter.isInsertionDue(15)).isFalse();
+		assertThat(inserter.isInsertionDue(29)).isFalse();
+		assertThat(inserter.isInsertionDue(30)).isTrue();
+	}
+
+	@Test
+	void conflictingRequests_matchedWithDifferentVehicles() {
+		var unplannedRequests = requests(request1, request2);
+
+		//both requests prefer vehicle 1, request 1 is cheapest with vehicle 1, but the total cost is lower if request 2
+		//is served by vehicle 1 (2 + 5 instead of 1 + 10)
+		Map<String, Double> costs = Map.of("r1-1", 1., "r1-2", 5., "r2-1", 2., "r2-2", 10.);
+		InsertionCostCalculator costCalculator = (request, insertion, detourTimeInfo) -> costs.get(
+				request.getId() + "-" + insertion.vehicleEntry.vehicle.getId());
+
+		newInserter(fleet(vehicle1, vehicle2), 30, costCalculator).scheduleUnplannedRequests(unplannedRequests);
+
+		assertThat(unplannedRequests).isEmpty();
+		assertThat(scheduledVehicles()).containsExactly(Map.entry(request2.getId(), vehicle1.getId()),
+				Map.entry(request1.getId(), vehicle2.getId()));
+	}
+
+	@Test
+	void twoRequests_oneVehicle_assignedInSubsequentRounds() {
+		var unplannedRequests = requests(request2, request1);
+
+		//request 1 is cheaper, so it is assigned first
+		InsertionCostCalculator costCalculator = (request, insertion, detourTimeInfo) -> request == request1 ? 1 : 2;
+
+		newInserter(fleet(vehicle1), 30, costCalculator).scheduleUnplannedRequests(unplannedRequests);
+
+		assertThat(unplannedRequests).isEmpty();
+		assertThat(scheduledVehicles()).containsExactly(Map.entry(request1.getId(), vehicle1.getId()),
+				Map.entry(request2.getId(), vehicle1.getId()));
+	}
+
+	@Test
+	void matchOptimally_minimumTotalCost() {
+		var entry1 = entryFactory.create(vehicle1, 0);
+		var entry2 = entryFactory.create(vehicle2, 0);
+		var edge11 = edge(request1, entry1, 1);
+		var edge12 = edge(request1, entry2, 2);
+		var edge21 = edge(request2, entry1, 2);
+		var edge22 = edge(request2, entry2, 10);
+
+		//taking the cheapest edge first would result in 1 + 10
+		assertThat(BatchUnplannedRequestInserter.matchOptimally(List.of(List.of(edge11, edge12), List.of(edge21, edge22))))
+				.containsExactly(edge12, edge21);
+	}
+
+	@Test
+	void matchOptimally_maximumNumberOfEdges() {
+		var entry1 = entryFactory.create(vehicle1, 0);
+		var entry2 = entryFactory.create(vehicle2, 0);
+		var edge11 = edge(request1, entry1, 1);
+		var edge12 = edge(request1, entry2, 100);
+		var edge21 = edge(request2, entry1, 50);
+
+		//both requests are matched, even though matching only request 1 with vehicle 1 would be cheaper
+		assertThat(BatchUnplannedRequestInserter.matchOptimally(List.of(List.of(edge11, edge12), List.of(edge21), List.of())))
+				.containsExactly(edge21, edge12);
+	}
+
+	private BatchUnplannedRequestInserter.Edge edge(DrtRequest request, VehicleEntry entry, double cost) {
+		return new BatchUnplannedRequestInserter.Edge(request,
+				new InsertionWithDetourData(new InsertionGenerator.Insertion(entry, null, null), null, null), cost);
+	}
+
+	private List<Map.Entry<Id<Request>, Id<DvrpVehicle>>> scheduledVehicles() {
+		ArgumentCaptor<PassengerRequestScheduledEvent> captor = ArgumentCaptor.forClass(
+				PassengerRequestScheduledEvent.class);
+		verify(eventsManager, times(2)).processEvent(captor.capture());
+		return captor.getAllValues().stream().map(e -> Map.entry(e.getRequestId(), e.getVehicleId())).toList();
+	}
+
+	private Collection<DrtRequest> requests(DrtRequest... requests) {
+		return new ArrayList<>(Arrays.asList(requests));//returned collection needs to be modifiable
+	}
+
+	private Fleet fleet(DvrpVehicle... vehicles) {
+		var map = Arrays.stream(vehicles).collect(ImmutableMap.toImmutableMap(Identifiable::getId, v -> v));
+		return () -> map;
+	}
+
+	private DvrpVehicle vehicle(String vehicleId) {
+		var id = Id.create(vehicleId, DvrpVehicle.class);
+		var vehicle = mock(DvrpVehicle.class);
+		when(vehicle.getId()).thenReturn(id);
+		return vehicle;
+	}
+
+	private DrtRequest request(String id, String fromLinkId, String toLinkId) {
+		return DrtRequest.newBuilder()
+				.id(Id.create(id, Request.class))
+				.passengerIds(List.of(Id.createPersonId(id)))
+				.fromLink(link(fromLinkId))
+				.toLink(link(toLinkId))
+				.mode(mode)
+				.build();
+	}
+
+	private BatchUnplannedRequestInserter newInserter(Fleet fleet, double now,
+			InsertionCostCalculator insertionCostCalculator) {
+		return new BatchUnplannedRequestInserter(mode, fleet, () -> now, eventsManager, insertionScheduler,
+				entryFactory, retryQueue, insertionSearch, insertionCostCalculator, new DefaultOfferAcceptor(),
+				forkJoinPoolExtension.forkJoinPool, StaticPassengerStopDurationProvider.of(10.0, 0.0),
+				new BatchAssignmentParams(), null);
+	}
+
+	private Link link(String id) {
+		return new FakeLink(Id.createLinkId(id));
+	}
+}
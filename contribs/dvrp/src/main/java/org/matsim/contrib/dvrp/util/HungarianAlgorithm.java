@@ -17,7 +17,7 @@
  *                                                                         *
  * *********************************************************************** */
 
-package org.matsim.contrib.taxi.optimizer.assignment;
+package org.matsim.contrib.dvrp.util;
 
 import java.util.Arrays;
 
@@ -20,6 +20,8 @@
 
 package org.matsim.contrib.zone.skims;
 
+import javax.annotation.Nullable;
+
 import jakarta.validation.constraints.PositiveOrZero;
 import org.matsim.contrib.common.util.ReflectiveConfigGroupWithConfigurableParameterSets;
 import org.matsim.contrib.common.zones.ZoneSystemParams;
@@ -54,6 +56,14 @@ public class DvrpTravelTimeMatrixParams extends ReflectiveConfigGroupWithConfigu
 			+ " The unit is seconds. Default value is 0 s (for backward compatibility).")
 	@PositiveOrZero
 	public double maxNeighborTravelTime = 0; //[s]
+
+	@Parameter
+	@Comment("Optional directory for caching the free-speed travel time matrices in binary files."
+			+ " The file name contains a hash of the network, the zone system and these parameters, so a matrix is"
+			+ " read from the cache only if none of them has changed, and is calculated and written to the cache"
+			+ " otherwise. Several processes can share the same directory. Not set by default (no caching).")
+	@Nullable
+	public String cacheDirectory = null;
 	private ZoneSystemParams zoneSystemParams;
 
 
@@ -20,6 +20,10 @@
 
 package org.matsim.contrib.zone.skims;
 
+import java.nio.file.Path;
+
+import javax.annotation.Nullable;
+
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.contrib.common.zones.ZoneSystem;
@@ -34,7 +38,22 @@ import org.matsim.core.router.util.TravelTime;
 public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
 	public static FreeSpeedTravelTimeMatrix createFreeSpeedMatrix(Network dvrpNetwork, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params, int numberOfThreads,
 		double qSimTimeStepSize) {
-		return new FreeSpeedTravelTimeMatrix(dvrpNetwork, zoneSystem, params, numberOfThreads, new QSimFreeSpeedTravelTime(qSimTimeStepSize));
+		var travelTime = new QSimFreeSpeedTravelTime(qSimTimeStepSize);
+		if (params.cacheDirectory == null) {
+			return new FreeSpeedTravelTimeMatrix(dvrpNetwork, zoneSystem, params, numberOfThreads, travelTime);
+		}
+
+		byte[] fingerprint = TravelTimeMatrixCache.fingerprint(dvrpNetwork, zoneSystem, params, qSimTimeStepSize);
+		Path file = TravelTimeMatrixCache.getFile(Path.of(params.cacheDirectory), fingerprint);
+		var cached = TravelTimeMatrixCache.read(file, fingerprint, dvrpNetwork, zoneSystem);
+		if (cached != null) {
+			return new FreeSpeedTravelTimeMatrix(zoneSystem, cached.matrix(), cached.sparseMatrix());
+		}
+
+		var matrix = new FreeSpeedTravelTimeMatrix(dvrpNetwork, zoneSystem, params, numberOfThreads, travelTime);
+		TravelTimeMatrixCache.write(file, fingerprint, dvrpNetwork, zoneSystem, matrix.freeSpeedTravelTimeMatrix,
+			matrix.freeSpeedTravelTimeSparseMatrix);
+		return matrix;
 	}
 
 	private final ZoneSystem zoneSystem;
@@ -51,6 +70,12 @@ public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
 			params.maxNeighborTravelTime, 0).orElse(null);
 	}
 
+	private FreeSpeedTravelTimeMatrix(ZoneSystem zoneSystem, Matrix freeSpeedTravelTimeMatrix, @Nullable SparseMatrix freeSpeedTravelTimeSparseMatrix) {
+		this.zoneSystem = zoneSystem;
+		this.freeSpeedTravelTimeMatrix = freeSpeedTravelTimeMatrix;
+		this.freeSpeedTravelTimeSparseMatrix = freeSpeedTravelTimeSparseMatrix;
+	}
+
 	@Override
 	public int getTravelTime(Node fromNode, Node toNode, double departureTime) {
 		if (fromNode == toNode) {
@@ -64,6 +64,12 @@ public final class SparseMatrix {
 		private int get(int toNodeIndex) {
 			return values[Arrays.binarySearch(nodeIndices, toNodeIndex)];
 		}
+
+		private void addNodeAndTimes(List<NodeAndTime> nodeAndTimes) {
+			for (int i = 0; i < nodeIndices.length; i++) {
+				nodeAndTimes.add(new NodeAndTime(nodeIndices[i], Short.toUnsignedInt(values[i])));
+			}
+		}
 	}
 
 	static final class SparseRow {
@@ -112,6 +118,16 @@ public final class SparseMatrix {
 		int get(int toNodeIndex) {
 			return presentNodes.get(toNodeIndex) ? buckets[toNodeIndex & mask].get(toNodeIndex) : -1; // value not present in the row
 		}
+
+		List<NodeAndTime> getNodeAndTimes() {
+			List<NodeAndTime> nodeAndTimes = new ArrayList<>(presentNodes.cardinality());
+			if (buckets != null) {
+				for (Bucket bucket : buckets) {
+					bucket.addNodeAndTimes(nodeAndTimes);
+				}
+			}
+			return nodeAndTimes;
+		}
 	}
 
 	private final SparseRow[] rows = new SparseRow[Id.getNumberOfIds(Node.class)];
@@ -126,6 +142,10 @@ public final class SparseMatrix {
 		return get(fromNode.getId().index(), toNode.getId().index());
 	}
 
+	SparseRow getRow(Node fromNode) {
+		return rows[fromNode.getId().index()];
+	}
+
 	void setRow(Node fromNode, SparseRow row) {
 		rows[fromNode.getId().index()] = row;
 	}
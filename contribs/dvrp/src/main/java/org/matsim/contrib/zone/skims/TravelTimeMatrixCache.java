@@ -0,0 +1,194 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.zone.skims;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.common.zones.Zone;
+import org.matsim.contrib.common.zones.ZoneSystem;
+import org.matsim.contrib.zone.skims.SparseMatrix.NodeAndTime;
+import org.matsim.contrib.zone.skims.SparseMatrix.SparseRow;
+import org.matsim.core.utils.io.FingerprintedFileCache;
+
+/**
+ * Binary file cache for the matrices of {@link FreeSpeedTravelTimeMatrix}. Calculating them takes a lot of time for
+ * large networks, while they only depend on the network, the zone system, the matrix params and the QSim time step.
+ * <p>
+ * The files are named after a fingerprint of all these inputs, and the fingerprint is repeated in the file header, so a
+ * cached file is used only if none of the inputs has changed, see {@link FingerprintedFileCache}. Zones and nodes are
+ * stored by their position in {@link ZoneSystem#getZones()} and {@link Network#getNodes()}, whose order is part of the
+ * fingerprint. The matrices are read into the heap, like calculated ones.
+ * <p>
+ * For time-variant networks, only the free speeds at time 0 (the departure time used for the matrices) are part of
+ * the fingerprint.
+ */
+final class TravelTimeMatrixCache {
+
+	private static final FingerprintedFileCache CACHE = new FingerprintedFileCache("DVRP travel time matrix", 0x4454544D /* "DTTM" */, 1);
+
+	private TravelTimeMatrixCache() {
+	}
+
+	/**
+	 * @return a hash of all data the free-speed travel time matrices depend on.
+	 */
+	static byte[] fingerprint(Network network, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params,
+			double qSimTimeStepSize) {
+		return CACHE.fingerprint(out -> {
+			out.writeDouble(qSimTimeStepSize);
+			out.writeDouble(params.maxNeighborDistance);
+			out.writeDouble(params.maxNeighborTravelTime);
+
+			// zone centroids determine the central nodes
+			out.writeInt(zoneSystem.getZones().size());
+			for (Zone zone : zoneSystem.getZones().values()) {
+				out.writeUTF(zone.getId().toString());
+				out.writeDouble(zone.getCentroid().getX());
+				out.writeDouble(zone.getCentroid().getY());
+			}
+
+			out.writeInt(network.getNodes().size());
+			for (Node node : network.getNodes().values()) {
+				out.writeUTF(node.getId().toString());
+				out.writeDouble(node.getCoord().getX());
+				out.writeDouble(node.getCoord().getY());
+				out.writeUTF(zoneSystem.getZoneForNodeId(node.getId()).map(zone -> zone.getId().toString()).orElse(""));
+			}
+
+			out.writeInt(network.getLinks().size());
+			for (Link link : network.getLinks().values()) {
+				out.writeUTF(link.getId().toString());
+				out.writeUTF(link.getFromNode().getId().toString());
+				out.writeUTF(link.getToNode().getId().toString());
+				out.writeDouble(link.getLength());
+				out.writeDouble(link.getFreespeed(0));
+			}
+		});
+	}
+
+	static Path getFile(Path cacheDirectory, byte[] fingerprint) {
+		return cacheDirectory.resolve("travelTimeMatrix_" + HexFormat.of().formatHex(fingerprint, 0, 8) + ".bin");
+	}
+
+	/**
+	 * @return the cached zonal matrix and sparse matrix (or {@code null} if it was not calculated), or {@code null} if
+	 * the file does not exist or does not match the fingerprint.
+	 */
+	@Nullable
+	static CachedMatrices read(Path file, byte[] fingerprint, Network network, ZoneSystem zoneSystem) {
+		return CACHE.read(file, fingerprint, in -> {
+			List<Zone> zones = List.copyOf(zoneSystem.getZones().values());
+			int zoneCount = in.readInt();
+			Set<Zone> matrixZones = new LinkedHashSet<>();
+			for (int i = 0; i < zoneCount; i++) {
+				matrixZones.add(zones.get(in.readInt()));
+			}
+			Matrix matrix = new Matrix(matrixZones);
+			for (Zone fromZone : matrixZones) {
+				for (Zone toZone : matrixZones) {
+					matrix.set(fromZone, toZone, in.readUnsignedShort());
+				}
+			}
+
+			SparseMatrix sparseMatrix = null;
+			if (in.readBoolean()) {
+				List<Node> nodes = List.copyOf(network.getNodes().values());
+				sparseMatrix = new SparseMatrix();
+				for (Node fromNode : nodes) {
+					int rowSize = in.readInt();
+					List<NodeAndTime> nodeAndTimes = new ArrayList<>(rowSize);
+					for (int i = 0; i < rowSize; i++) {
+						int toNodeIndex = nodes.get(in.readInt()).getId().index();
+						nodeAndTimes.add(new NodeAndTime(toNodeIndex, in.readUnsignedShort()));
+					}
+					sparseMatrix.setRow(fromNode, new SparseRow(nodeAndTimes));
+				}
+			}
+			return new CachedMatrices(matrix, sparseMatrix);
+		});
+	}
+
+	/**
+	 * Writes the matrices to the file. Problems are only logged, as the cache is optional.
+	 */
+	static void write(Path file, byte[] fingerprint, Network network, ZoneSystem zoneSystem, Matrix matrix,
+			@Nullable SparseMatrix sparseMatrix) {
+		CACHE.write(file, fingerprint, out -> {
+			// the matrix contains the zones with at least one node
+			Map<Zone, Integer> zonePositions = positions(zoneSystem.getZones().values());
+			Set<Zone> matrixZones = new LinkedHashSet<>();
+			for (Node node : network.getNodes().values()) {
+				matrixZones.add(zoneSystem.getZoneForNodeId(node.getId()).orElseThrow());
+			}
+			out.writeInt(matrixZones.size());
+			for (Zone zone : matrixZones) {
+				out.writeInt(zonePositions.get(zone));
+			}
+			for (Zone fromZone : matrixZones) {
+				for (Zone toZone : matrixZones) {
+					out.writeShort(matrix.get(fromZone, toZone));
+				}
+			}
+
+			out.writeBoolean(sparseMatrix != null);
+			if (sparseMatrix != null) {
+				int[] nodeIndex2position = new int[Id.getNumberOfIds(Node.class)];
+				int position = 0;
+				for (Node node : network.getNodes().values()) {
+					nodeIndex2position[node.getId().index()] = position++;
+				}
+				for (Node fromNode : network.getNodes().values()) {
+					SparseRow row = sparseMatrix.getRow(fromNode);
+					List<NodeAndTime> nodeAndTimes = row != null ? row.getNodeAndTimes() : List.of();
+					out.writeInt(nodeAndTimes.size());
+					for (NodeAndTime nodeAndTime : nodeAndTimes) {
+						out.writeInt(nodeIndex2position[nodeAndTime.nodeIdx()]);
+						out.writeShort((int)nodeAndTime.time());
+					}
+				}
+			}
+		});
+	}
+
+	private static <T> Map<T, Integer> positions(Iterable<T> elements) {
+		Map<T, Integer> positions = new HashMap<>();
+		for (T element : elements) {
+			positions.put(element, positions.size());
+		}
+		return positions;
+	}
+
+	record CachedMatrices(Matrix matrix, @Nullable SparseMatrix sparseMatrix) {
+	}
+}
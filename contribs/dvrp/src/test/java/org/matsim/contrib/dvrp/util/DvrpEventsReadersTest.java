@@ -25,11 +25,13 @@ import static org.matsim.core.config.groups.ControllerConfigGroup.EventsFileForm
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.network.Link;
@@ -54,6 +56,7 @@ import org.matsim.contrib.dvrp.vrpagent.TaskStartedEventHandler;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.columnar.ColumnarEventsWriter;
 
 /**
  * @author Michal Maciejewski (michalm)
@@ -99,6 +102,26 @@ public class DvrpEventsReadersTest {
 				.containsExactlyElementsOf(dvrpEvents);
 	}
 
+	@Test
+	void testColumnarReader(@TempDir Path tempDir) {
+		String filename = tempDir.resolve("events.mcev").toString();
+		ColumnarEventsWriter writer = new ColumnarEventsWriter(filename);
+		dvrpEvents.forEach(writer::handleEvent);
+		writer.closeFile();
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		TestEventHandler handler = new TestEventHandler();
+		eventsManager.addHandler(handler);
+		eventsManager.initProcessing();
+		DvrpEventsReaders.createEventsReader(eventsManager, TestTaskType::valueOf).readFile(filename);
+		eventsManager.finishProcessing();
+
+		assertThat(handler.handledEvents).hasSameSizeAs(dvrpEvents);
+		for (int i = 0; i < dvrpEvents.size(); i++) {
+			assertThat(handler.handledEvents.get(i).getAttributes()).isEqualTo(dvrpEvents.get(i).getAttributes());
+		}
+	}
+
 	private static class TestEventHandler
 			implements PassengerRequestSubmittedEventHandler, PassengerRequestScheduledEventHandler,
 			PassengerRequestRejectedEventHandler, PassengerPickedUpEventHandler, PassengerDroppedOffEventHandler,
@@ -22,7 +22,14 @@ package org.matsim.contrib.zone.skims;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Network;
@@ -88,4 +95,47 @@ public class FreeSpeedTravelTimeMatrixTest {
 		assertThat(matrix.getTravelTime(nodeB, nodeC, 0)).isEqualTo(20 + 11 + 2); // 2 s for moving over nodes
 		assertThat(matrix.getTravelTime(nodeC, nodeB, 0)).isEqualTo(10 + 9 + 2); // 2 s for moving over nodes
 	}
+
+	@Test
+	void cachedMatrix(@TempDir Path cacheDirectory) throws IOException {
+		DvrpTravelTimeMatrixParams params = new DvrpTravelTimeMatrixParams();
+		params.maxNeighborDistance = 9999;
+		params.cacheDirectory = cacheDirectory.toString();
+		ZoneSystem zoneSystem = new SquareGridZoneSystem(network, 100.);
+
+		// calculated and written to the cache
+		var calculated = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrix(network, zoneSystem, params, 1, 1);
+		List<Path> files = listFiles(cacheDirectory);
+		assertThat(files).hasSize(1);
+		long lastModified = Files.getLastModifiedTime(files.get(0)).toMillis();
+
+		// read from the cache
+		var cached = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrix(network, zoneSystem, params, 1, 1);
+		assertThat(listFiles(cacheDirectory)).isEqualTo(files);
+		assertThat(Files.getLastModifiedTime(files.get(0)).toMillis()).isEqualTo(lastModified);
+		for (Node from : network.getNodes().values()) {
+			for (Node to : network.getNodes().values()) {
+				assertThat(cached.getTravelTime(from, to, 0)).isEqualTo(calculated.getTravelTime(from, to, 0));
+				assertThat(cached.getZonalTravelTime(from, to, 0)).isEqualTo(calculated.getZonalTravelTime(from, to, 0));
+			}
+		}
+
+		// changed params: not read from the cache
+		params.maxNeighborDistance = 0;
+		var withoutSparseMatrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrix(network, zoneSystem, params, 1, 1);
+		assertThat(listFiles(cacheDirectory)).hasSize(2);
+		assertThat(withoutSparseMatrix.getTravelTime(nodeA, nodeC, 0)).isEqualTo(0);
+
+		// changed network: not read from the cache
+		network.getLinks().get(Id.createLinkId("AB")).setFreespeed(30);
+		var changedNetwork = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrix(network, zoneSystem, params, 1, 1);
+		assertThat(listFiles(cacheDirectory)).hasSize(3);
+		assertThat(changedNetwork.getTravelTime(nodeA, nodeB, 0)).isEqualTo(5 + 1); // 1 s for moving over nodes
+	}
+
+	private static List<Path> listFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted().toList();
+		}
+	}
 }
@@ -31,8 +31,13 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.contrib.roadpricing.RoadPricingScheme;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.contrib.roadpricing.RoadPricingSchemeImpl;
+import org.matsim.core.router.speedy.LeastCostPathTree;
 import org.matsim.core.router.speedy.SpeedyALTFactory;
+import org.matsim.core.router.speedy.SpeedyGraph;
+import org.matsim.core.router.speedy.SpeedyGraphBuilder;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculator.Path;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
@@ -47,6 +52,8 @@ import org.matsim.vehicles.VehicleUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This calculates transport-times, transport-costs and the distance to cover
@@ -66,25 +73,30 @@ import java.util.concurrent.ConcurrentHashMap;
  * from-location to to-location at a certain time and with a certain vehicle, it
  * looks up whether there is already an entry in the cache. If so, it returns
  * the cached value, if not it calculates new values with a
- * leastCostPathCalculator defined in here. It looks up the cached values
- * according to the {@link TransportDataKey}.
+ * leastCostPathCalculator defined in here. The cached values are looked up
+ * by from-link, to-link, vehicleType and time-bin, packed into one
+ * <code>long</code> key (see {@link TransportDataCache}).
  *
  * <p>
- * Two TransportDataKeys are equal if the following data are equal</br>
- * - from-locations</br>
- * - to-locations</br>
- * - time and</br>
- * - vehicleTypes
+ * The cache is bounded (see {@link Builder#setMaxCacheSize(int)}), the least
+ * recently used values are evicted first. With the default
+ * leastCostPathCalculatorFactory, a missing value is not calculated on its own:
+ * one least-cost-path tree is calculated from the from-link to all to-links
+ * recently requested by the same thread, and the values for all of them are
+ * cached (see {@link Builder#setMaxOneToManyDestinations(int)}).
  *
  * <p>
  * Keep in mind that if you have many locations, small time-bins and many
- * vehicleTypes, calculations get very time- and memory-consuming.
+ * vehicleTypes, calculations get very time-consuming, and the cache needs to
+ * be large enough to hold the values that are requested repeatedly.
  *
  * @author stefan schröder
  *
  */
 public class NetworkBasedTransportCosts implements VRPTransportCosts {
 
+	private static final Logger log = LogManager.getLogger(NetworkBasedTransportCosts.class);
+
 	private final RoadPricingScheme roadPricingScheme;
 
 	public interface InternalLeastCostPathCalculatorListener {
@@ -141,94 +153,6 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 		public Attributes getAttributes() { return this.attributes; }
 	}
 
-	/**
-	 * The key to cache {@link TransportData}.
-	 *
-	 * <p>
-	 * Two TransportDataKeys are equal if the following data are equal</br>
-	 * - from-locations</br>
-	 * - to-locations</br>
-	 * - time and</br>
-	 * - vehicleTypes
-	 *
-	 * <p>
-	 * The time-value is usually a representative value for a certain time-bin. If
-	 * the time-bin's width is 1, it calculates and caches each and every
-	 * transport-data which might be a) very time-consuming and b) very
-	 * memory-consuming.
-	 *
-	 * @author stefan schröder
-	 *
-	 */
-	static class TransportDataKey {
-		private final String from;
-		private final String to;
-		private final double time;
-		private final String vehicleType;
-
-		public TransportDataKey(String from, String to, double time, String vehicleType) {
-			super();
-			this.from = from;
-			this.to = to;
-			this.time = time;
-			this.vehicleType = vehicleType;
-		}
-
-		public String getFrom() {
-			return from;
-		}
-
-		public String getTo() {
-			return to;
-		}
-
-		public double getTime() {
-			return time;
-		}
-
-		public String getVehicleType() {
-			return vehicleType;
-		}
-
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((from == null) ? 0 : from.hashCode());
-			result = prime * result + Double.hashCode(time);
-			result = prime * result + ((to == null) ? 0 : to.hashCode());
-			result = prime * result + ((vehicleType == null) ? 0 : vehicleType.hashCode());
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			TransportDataKey other = (TransportDataKey) obj;
-			if (from == null) {
-				if (other.from != null)
-					return false;
-			} else if (!from.equals(other.from))
-				return false;
-			if (Double.doubleToLongBits(time) != Double.doubleToLongBits(other.time))
-				return false;
-			if (to == null) {
-				if (other.to != null)
-					return false;
-			} else if (!to.equals(other.to))
-				return false;
-			if (vehicleType == null) {
-				return other.vehicleType == null;
-			} else return vehicleType.equals(other.vehicleType);
-		}
-
-	}
-
 	/**
 	 * Stores transport-costs, transport-times and the distance of travel.
 	 *
@@ -388,6 +312,12 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 
 		private LeastCostPathCalculatorFactory leastCostPathCalculatorFactory = (network, travelCosts, travelTimes) -> new SpeedyALTFactory().createPathCalculator(network, travelCosts, travelTime);
 
+		private boolean isDefaultLeastCostPathCalculatorFactory = true;
+
+		private int maxCacheSize = 4_000_000;
+
+		private int maxOneToManyDestinations = 1000;
+
 //		private VehicleTypeDependentRoadPricingCalculator roadPricingScheme = new VehicleTypeDependentRoadPricingCalculator();
 		private RoadPricingScheme roadPricingScheme;
 
@@ -481,6 +411,32 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 		public Builder setThreadSafeLeastCostPathCalculatorFactory(
 				LeastCostPathCalculatorFactory leastCostPathCalcFactory) {
 			this.leastCostPathCalculatorFactory = leastCostPathCalcFactory;
+			this.isDefaultLeastCostPathCalculatorFactory = false;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of cached transport-costs, transport-times and
+		 * distances. If the cache is full, the least recently used values are
+		 * evicted. By default, it is 4,000,000.
+		 */
+		public Builder setMaxCacheSize(int maxCacheSize) {
+			this.maxCacheSize = maxCacheSize;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of to-links that are routed to in one pass, if a
+		 * value is missing in the cache. These are the to-links most recently
+		 * requested by the same thread. By default, it is 1000. With 0, each missing
+		 * value is calculated on its own.
+		 * <p>
+		 * This is only used with the default leastCostPathCalculatorFactory, i.e. it
+		 * is ignored if {@link #setThreadSafeLeastCostPathCalculatorFactory} has been
+		 * called.
+		 */
+		public Builder setMaxOneToManyDestinations(int maxOneToManyDestinations) {
+			this.maxOneToManyDestinations = maxOneToManyDestinations;
 			return this;
 		}
 
@@ -538,15 +494,30 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 
 	/**
 	 * cost-cache to cache transport-costs and transport-times (see
-	 * {@link TransportData}) according to {@link TransportDataKey}
+	 * {@link TransportData}) according to from-link, to-link, vehicleType and
+	 * time-bin
 	 */
-	private final ConcurrentHashMap<TransportDataKey, TransportData> costCache = new ConcurrentHashMap<>();
+	private final TransportDataCache costCache;
 
 	/**
-	 * caches leastCostPathCalculators according to
-	 * <code>Thread.currentThread().getId()</code>
+	 * the indices of the vehicleTypes, used in the keys of the {@link #costCache}
 	 */
-	private final ConcurrentHashMap<Long, LeastCostPathCalculator> routerCache = new ConcurrentHashMap<>();
+	private final Map<String, Integer> typeIndices = new ConcurrentHashMap<>();
+
+	private final AtomicInteger typeCount = new AtomicInteger();
+
+	private final AtomicBoolean uncachedWarningLogged = new AtomicBoolean();
+
+	/**
+	 * caches a leastCostPathCalculator per thread
+	 */
+	private final ThreadLocal<LeastCostPathCalculator> routerCache;
+
+	/**
+	 * caches a {@link OneToManyRouter} per thread, <code>null</code> if each
+	 * missing value is calculated on its own
+	 */
+	private final ThreadLocal<OneToManyRouter> oneToManyRouterCache;
 
 	private final TravelDisutility travelDisutility;
 
@@ -561,7 +532,7 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 
 	public final Counter ttRequestedCounter;
 
-	private final Map<String, org.matsim.vehicles.Vehicle> matsimVehicles = new HashMap<>();
+	private final Map<String, org.matsim.vehicles.Vehicle> matsimVehicles = new ConcurrentHashMap<>();
 
 	/**
 	 * by default sets the {@link SpeedyALTFactory}
@@ -583,6 +554,16 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 		this.defaultTypeId = builder.defaultTypeId;
 		this.ttMemorizedCounter = new Counter("#TransportCostValues cached ");
 		this.ttRequestedCounter = new Counter("numTravelCosts requested ");
+		this.costCache = new TransportDataCache(Id.getNumberOfIds(Link.class), builder.maxCacheSize);
+		this.routerCache = ThreadLocal.withInitial(
+				() -> leastCostPathCalculatorFactory.createPathCalculator(network, travelDisutility, travelTime));
+		if (builder.isDefaultLeastCostPathCalculatorFactory && builder.maxOneToManyDestinations > 0) {
+			SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+			int maxDestinations = builder.maxOneToManyDestinations;
+			this.oneToManyRouterCache = ThreadLocal.withInitial(() -> new OneToManyRouter(graph, maxDestinations));
+		} else {
+			this.oneToManyRouterCache = null;
+		}
 	}
 
 	/**
@@ -591,11 +572,10 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 	 * <p>
 	 * If <code>fromId.equals(toId)</code> it returns 0.0. Otherwise, it looks up in
 	 * the cache whether the transport-time has already been computed (see
-	 * {@link TransportDataKey}, {@link TransportData}). If so, it returns the
-	 * cached travel-time. If not, it computes and caches new values with the
-	 * leastCostPathCalc defined in here.
+	 * {@link TransportData}). If so, it returns the cached travel-time. If not, it
+	 * computes and caches new values with the leastCostPathCalc defined in here.
 	 *
-	 * @exception  IllegalStateException if vehicle is null
+	 * @exception  IllegalStateException if a location is not a link of the network
 	 */
 	@Override
 	public double getTransportTime(Location fromId, Location toId, double departureTime, Driver driver,
@@ -606,48 +586,7 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 		if (vehicle == null) {
 			vehicle = getDefaultVehicle(fromId);
 		}
-		String typeId = vehicle.getType().getTypeId();
-		int timeSlice = getTimeSlice(departureTime);
-		departureTime = timeSlice*timeSliceWidth;
-		TransportDataKey transportDataKey = makeKey(fromId.getId(), toId.getId(), timeSlice, typeId);
-		TransportData data = costCache.get(transportDataKey);
-		double transportTime;
-
-		if (data != null) {
-			transportTime = data.transportTime;
-		} else {
-			informStartCalc();
-			Id<Link> fromLinkId = Id.create(fromId.getId(), Link.class);
-			Id<Link> toLinkId = Id.create(toId.getId(), Link.class);
-			Link fromLink = network.getLinks().get(fromLinkId);
-			Link toLink = network.getLinks().get(toLinkId);
-			// because path not includes in&out Link
-
-			org.matsim.vehicles.Vehicle matsimVehicle = getMatsimVehicle(vehicle);
-			LeastCostPathCalculator router = createLeastCostPathCalculator();
-			Path path = router.calcLeastCostPath(fromLink.getToNode(), toLink.getFromNode(), departureTime, null,
-					matsimVehicle);
-//			if(path == null) return Double.MAX_VALUE;
-			double additionalCostTo = travelDisutility.getLinkTravelDisutility(toLink, departureTime + path.travelTime,
-					null, matsimVehicle);
-			double additionalTimeTo = travelTime.getLinkTravelTime(toLink, departureTime + path.travelTime, null,
-					matsimVehicle);
-
-			double travelDistance = fromLink.getLength();
-			for (Link link : path.links) {
-				travelDistance = travelDistance + link.getLength();
-			}
-			TransportData newData = new TransportData(path.travelCost + additionalCostTo,
-					path.travelTime + additionalTimeTo, travelDistance);
-			TransportData existingData = costCache.putIfAbsent(transportDataKey, newData);
-			ttMemorizedCounter.incCounter();
-			if (existingData == null) {
-				existingData = newData;
-			}
-			transportTime = existingData.transportTime;
-			informEndCalc();
-		}
-		return transportTime;
+		return getTransportData(fromId, toId, departureTime, vehicle).transportTime;
 	}
 
 	private VehicleImpl getDefaultVehicle(Location fromId) {
@@ -672,11 +611,11 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 	 * <p>
 	 * If <code>fromId.equals(toId)</code> it returns 0.0. Otherwise, it looks up in
 	 * the cache whether the transport-costs have already been computed (see
-	 * {@link TransportDataKey}, {@link TransportData}). If so, it returns the
-	 * cached travel-cost value. If not, it computes and caches new values with the
-	 * leastCostPathCalc defined in here.
+	 * {@link TransportData}). If so, it returns the cached travel-cost value. If
+	 * not, it computes and caches new values with the leastCostPathCalc defined in
+	 * here.
 	 *
-	 * @exception  IllegalStateException if vehicle is null
+	 * @exception  IllegalStateException if fromId or toId is null, or not a link of the network
 	 */
 	@Override
 	public double getTransportCost(Location fromId, Location toId, double departureTime, Driver driver,
@@ -690,48 +629,7 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 		if (vehicle == null) {
 			vehicle = getDefaultVehicle(fromId);
 		}
-		Id<Link> fromLinkId = Id.create(fromId.getId(), Link.class);
-		Id<Link> toLinkId = Id.create(toId.getId(), Link.class);
-		Link fromLink = network.getLinks().get(fromLinkId);
-		Link toLink = network.getLinks().get(toLinkId);
-		LeastCostPathCalculator router = createLeastCostPathCalculator();
-
-		int timeSlice = getTimeSlice(departureTime);
-		departureTime = timeSlice*timeSliceWidth;
-		String typeId = vehicle.getType().getTypeId();
-		TransportDataKey transportDataKey = makeKey(fromId.getId(), toId.getId(), timeSlice, typeId);
-		TransportData data = costCache.get(transportDataKey);
-		double transportCost;
-
-		if (data != null) {
-			transportCost = data.transportCosts;
-		} else {
-			informStartCalc();
-			org.matsim.vehicles.Vehicle matsimVehicle = getMatsimVehicle(vehicle);
-			Path path = router.calcLeastCostPath(fromLink.getToNode(), toLink.getFromNode(), departureTime, null,
-					matsimVehicle);
-//			if(path == null) return Double.MAX_VALUE;
-			double additionalCostTo = travelDisutility.getLinkTravelDisutility(toLink, departureTime + path.travelTime,
-					null, matsimVehicle);
-			double additionalTimeTo = travelTime.getLinkTravelTime(toLink, departureTime + path.travelTime, null,
-					matsimVehicle);
-			double travelDistance = fromLink.getLength();
-			for (Link link : path.links) {
-				travelDistance = travelDistance + link.getLength();
-			}
-
-			TransportData newData = new TransportData(path.travelCost + additionalCostTo,
-					path.travelTime + additionalTimeTo, travelDistance);
-			TransportData existingData = costCache.putIfAbsent(transportDataKey, newData);
-			ttMemorizedCounter.incCounter();
-			if (existingData == null) {
-				// succeeded
-				existingData = newData;
-			}
-			transportCost = existingData.transportCosts;
-			informEndCalc();
-		}
-		return transportCost;
+		return getTransportData(fromId, toId, departureTime, vehicle).transportCosts;
 	}
 
 	/**
@@ -740,11 +638,10 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 	 * <p>
 	 * If <code>fromId.equals(toId)</code> it returns 0.0. Otherwise, it looks up in
 	 * the cache whether the transport-distance has already been computed (see
-	 * {@link TransportDataKey}, {@link TransportData}). If so, it returns the
-	 * cached distance. If not, it computes and caches new values with the
-	 * leastCostPathCalc defined in here.
+	 * {@link TransportData}). If so, it returns the cached distance. If not, it
+	 * computes and caches new values with the leastCostPathCalc defined in here.
 	 *
-	 * @exception  IllegalStateException if vehicle is null
+	 * @exception  IllegalStateException if a location is not a link of the network
 	 */
 	@Override
 	public double getDistance(Location fromId, Location toId, double departureTime, Vehicle vehicle) {
@@ -754,44 +651,144 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 		if (vehicle == null) {
 			vehicle = getDefaultVehicle(fromId);
 		}
-		String typeId = vehicle.getType().getTypeId();
+		return getTransportData(fromId, toId, departureTime, vehicle).transportDistance;
+	}
+
+	private TransportData getTransportData(Location fromId, Location toId, double departureTime, Vehicle vehicle) {
+		Link fromLink = getLink(fromId);
+		Link toLink = getLink(toId);
 		int timeSlice = getTimeSlice(departureTime);
-		departureTime = timeSlice*timeSliceWidth;
-		TransportDataKey transportDataKey = makeKey(fromId.getId(), toId.getId(), timeSlice, typeId);
-		TransportData data = costCache.get(transportDataKey);
-		double travelDistance;
-		if (data != null) {
-			travelDistance = data.transportDistance;
+		int typeIndex = typeIndices.computeIfAbsent(vehicle.getType().getTypeId(),
+				typeId -> typeCount.getAndIncrement());
+		long key = costCache.key(fromLink.getId().index(), toLink.getId().index(), typeIndex, timeSlice);
+		if (key != TransportDataCache.NO_KEY) {
+			TransportData data = costCache.get(key);
+			if (data != null) {
+				return data;
+			}
+		}
+
+		informStartCalc();
+		org.matsim.vehicles.Vehicle matsimVehicle = getMatsimVehicle(vehicle);
+		TransportData data;
+		if (key == TransportDataCache.NO_KEY) {
+			if (!uncachedWarningLogged.getAndSet(true)) {
+				log.warn("Time slice {} or vehicle type index {} is out of the range of the cost cache. Such values are"
+						+ " calculated without caching.", timeSlice, typeIndex);
+			}
+			data = calcTransportData(fromLink, toLink, timeSlice, matsimVehicle);
+		} else if (oneToManyRouterCache == null) {
+			data = calcTransportData(fromLink, toLink, timeSlice, matsimVehicle);
+			if (costCache.putIfAbsent(key, data)) {
+				ttMemorizedCounter.incCounter();
+			}
 		} else {
-			informStartCalc();
-			Id<Link> fromLinkId = Id.create(fromId.getId(), Link.class);
-			Id<Link> toLinkId = Id.create(toId.getId(), Link.class);
-			Link fromLink = network.getLinks().get(fromLinkId);
-			Link toLink = network.getLinks().get(toLinkId);
-			travelDistance = fromLink.getLength();
-			org.matsim.vehicles.Vehicle matsimVehicle = getMatsimVehicle(vehicle);
-			LeastCostPathCalculator router = createLeastCostPathCalculator();
-			Path path = router.calcLeastCostPath(fromLink.getToNode(), toLink.getFromNode(), departureTime, null,
-					matsimVehicle);
-//			if(path == null) return Double.MAX_VALUE;
-			double additionalCostTo = travelDisutility.getLinkTravelDisutility(toLink, departureTime + path.travelTime,
-					null, matsimVehicle);
-			double additionalTimeTo = travelTime.getLinkTravelTime(toLink, departureTime + path.travelTime, null,
-					matsimVehicle);
-			for (Link link : path.links) {
-				travelDistance = travelDistance + link.getLength();
+			data = oneToManyRouterCache.get().calcTransportData(fromLink, toLink, typeIndex, timeSlice, matsimVehicle);
+		}
+		informEndCalc();
+		return data;
+	}
+
+	private Link getLink(Location location) {
+		Link link = network.getLinks().get(Id.create(location.getId(), Link.class));
+		if (link == null) {
+			throw new IllegalStateException("location " + location.getId() + " is not a link of the network");
+		}
+		return link;
+	}
+
+	private TransportData calcTransportData(Link fromLink, Link toLink, int timeSlice,
+			org.matsim.vehicles.Vehicle matsimVehicle) {
+		double departureTime = getDepartureTime(timeSlice);
+		// because path not includes in&out Link
+		Path path = routerCache.get().calcLeastCostPath(fromLink.getToNode(), toLink.getFromNode(), departureTime,
+				null, matsimVehicle);
+		double travelDistance = fromLink.getLength();
+		for (Link link : path.links) {
+			travelDistance = travelDistance + link.getLength();
+		}
+		return createTransportData(toLink, departureTime, path.travelCost, path.travelTime, travelDistance,
+				matsimVehicle);
+	}
+
+	private TransportData createTransportData(Link toLink, double departureTime, double pathCost,
+			double pathTime, double travelDistance, org.matsim.vehicles.Vehicle matsimVehicle) {
+		double additionalCostTo = travelDisutility.getLinkTravelDisutility(toLink, departureTime + pathTime, null,
+				matsimVehicle);
+		double additionalTimeTo = travelTime.getLinkTravelTime(toLink, departureTime + pathTime, null, matsimVehicle);
+		return new TransportData(pathCost + additionalCostTo, pathTime + additionalTimeTo, travelDistance);
+	}
+
+	/**
+	 * Calculates the values from one from-link to all to-links recently requested
+	 * by this thread in one pass of a {@link LeastCostPathTree}, and caches them.
+	 * jsprit usually requests the values between the same set of locations, so
+	 * the following requests from the same from-link are served from the cache.
+	 *
+	 * <p>
+	 * Not thread-safe, each thread gets its own instance.
+	 */
+	private final class OneToManyRouter {
+
+		private final LeastCostPathTree tree;
+
+		/**
+		 * the recently requested to-links, in access-order
+		 */
+		private final Map<Id<Link>, Link> destinations;
+
+		private final BitSet destinationNodes = new BitSet();
+
+		private int unsettledDestinationNodes;
+
+		private OneToManyRouter(SpeedyGraph graph, int maxDestinations) {
+			this.tree = new LeastCostPathTree(graph, travelTime, travelDisutility);
+			this.destinations = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Id<Link>, Link> eldest) {
+					return size() > maxDestinations;
+				}
+			};
+		}
+
+		private TransportData calcTransportData(Link fromLink, Link toLink, int typeIndex, int timeSlice,
+				org.matsim.vehicles.Vehicle matsimVehicle) {
+			destinations.put(toLink.getId(), toLink);
+			destinationNodes.clear();
+			for (Link destination : destinations.values()) {
+				destinationNodes.set(destination.getFromNode().getId().index());
+			}
+			unsettledDestinationNodes = destinationNodes.cardinality();
+
+			double departureTime = getDepartureTime(timeSlice);
+			// the values of a node are final once it is settled, so stop as soon as all destinations are settled
+			tree.calculate(fromLink.getToNode().getId().index(), departureTime, null, matsimVehicle,
+					(node, arrivalTime, travelCost, distance, depTime) -> destinationNodes.get(node)
+							&& --unsettledDestinationNodes == 0);
+
+			TransportData data = null;
+			for (Link destination : destinations.values()) {
+				int node = destination.getFromNode().getId().index();
+				double pathCost = tree.getCost(node);
+				if (Double.isInfinite(pathCost)) {
+					continue;
+				}
+				TransportData destinationData = createTransportData(destination, departureTime, pathCost,
+						tree.getTime(node).seconds() - departureTime, fromLink.getLength() + tree.getDistance(node),
+						matsimVehicle);
+				long key = costCache.key(fromLink.getId().index(), destination.getId().index(), typeIndex, timeSlice);
+				if (key != TransportDataCache.NO_KEY && costCache.putIfAbsent(key, destinationData)) {
+					ttMemorizedCounter.incCounter();
+				}
+				if (destination == toLink) {
+					data = destinationData;
+				}
 			}
-			TransportData newData = new TransportData(path.travelCost + additionalCostTo,
-					path.travelTime + additionalTimeTo, travelDistance);
-			TransportData existingData = costCache.putIfAbsent(transportDataKey, newData);
-			ttMemorizedCounter.incCounter();
-			if (existingData == null) {
-				existingData = newData;
+			if (data == null) {
+				throw new IllegalStateException("no path from link " + fromLink.getId() + " to link " + toLink.getId());
 			}
-			travelDistance = existingData.transportDistance;
-			informEndCalc();
+			return data;
 		}
-		return travelDistance;
 	}
 
 	/**
@@ -834,35 +831,22 @@ public class NetworkBasedTransportCosts implements VRPTransportCosts {
 	}
 
 	private org.matsim.vehicles.Vehicle getMatsimVehicle(Vehicle vehicle) {
-		String typeId = vehicle.getType().getTypeId();
-		org.matsim.vehicles.Vehicle matsimVehicle = matsimVehicles.get(typeId);
-		if (matsimVehicle != null) {
-			return matsimVehicle;
-		}
-		matsimVehicle = new MatsimVehicleWrapper(vehicle);
-		matsimVehicles.put(typeId, matsimVehicle);
-		return matsimVehicle;
+		return matsimVehicles.computeIfAbsent(vehicle.getType().getTypeId(), typeId -> new MatsimVehicleWrapper(vehicle));
 	}
 
-	private TransportDataKey makeKey(String fromId, String toId, long time, String vehicleType) {
-		return new TransportDataKey(fromId, toId, time, vehicleType);
+	public LeastCostPathCalculator getRouter() {
+		return routerCache.get();
 	}
 
-	public LeastCostPathCalculator getRouter() {
-		return createLeastCostPathCalculator();
+	/**
+	 * @return the number of cached values
+	 */
+	int getCacheSize() {
+		return costCache.size();
 	}
 
-	private LeastCostPathCalculator createLeastCostPathCalculator() {
-		LeastCostPathCalculator router = routerCache.get(Thread.currentThread().getId());
-		if (router == null) {
-			LeastCostPathCalculator newRouter = leastCostPathCalculatorFactory.createPathCalculator(network,
-					travelDisutility, travelTime);
-			router = routerCache.putIfAbsent(Thread.currentThread().getId(), newRouter);
-			if (router == null) {
-				router = newRouter;
-			}
-		}
-		return router;
+	private double getDepartureTime(int timeSlice) {
+		return timeSlice * timeSliceWidth;
 	}
 
 	private int getTimeSlice(double time) {
@@ -0,0 +1,145 @@
+/*
+ *   *********************************************************************** *
+ *   project: org.matsim.*
+ *   *********************************************************************** *
+ *                                                                           *
+ *   copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                     LICENSE and WARRANTY file.                            *
+ *   email           : info at matsim dot org                                *
+ *                                                                           *
+ *   *********************************************************************** *
+ *                                                                           *
+ *     This program is free software; you can redistribute it and/or modify  *
+ *     it under the terms of the GNU General Public License as published by  *
+ *     the Free Software Foundation; either version 2 of the License, or     *
+ *     (at your option) any later version.                                   *
+ *     See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                           *
+ *   ***********************************************************************
+ *
+ */
+
+package org.matsim.freight.carriers.jsprit;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import org.matsim.freight.carriers.jsprit.NetworkBasedTransportCosts.TransportData;
+
+/**
+ * A bounded cache of {@link TransportData}, used by {@link NetworkBasedTransportCosts}.
+ *
+ * <p>
+ * The from-link, the to-link, the vehicle-type and the time-slice of an entry are packed into a single
+ * <code>long</code> key (see {@link #key(int, int, int, int)}), so that neither key objects nor strings have to be
+ * created and hashed per request. The number of bits per location is derived from the number of link ids, the
+ * remaining bits are shared by the type and the time-slice.
+ *
+ * <p>
+ * The entries are distributed over a fixed number of shards, each guarded by its own lock. If a shard is full, its
+ * least recently used entry is evicted.
+ */
+final class TransportDataCache {
+
+	static final long NO_KEY = -1;
+
+	private static final int SHARD_BITS = 6;
+
+	private static final int MAX_TYPE_BITS = 8;
+
+	private final int locationBits;
+
+	private final int typeBits;
+
+	private final int sliceBits;
+
+	private final int maxShardSize;
+
+	private final Shard[] shards = new Shard[1 << SHARD_BITS];
+
+	/**
+	 * @param locationCount the number of link ids, i.e. the upper bound of the link indices
+	 * @param maxSize       the maximum number of entries
+	 */
+	TransportDataCache(int locationCount, int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive, but is " + maxSize);
+		}
+		this.locationBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(locationCount - 1, 1)));
+		// the sign bit is not used, so that no valid key equals NO_KEY
+		int remainingBits = 63 - 2 * locationBits;
+		if (remainingBits < 2) {
+			throw new IllegalArgumentException("too many locations (" + locationCount + ") to pack into a key");
+		}
+		this.typeBits = Math.min(MAX_TYPE_BITS, remainingBits / 2);
+		this.sliceBits = remainingBits - typeBits;
+		this.maxShardSize = Math.max(1, maxSize >> SHARD_BITS);
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new Shard();
+		}
+	}
+
+	/**
+	 * Packs the arguments into a key.
+	 *
+	 * @return the key, or {@link #NO_KEY} if one of the arguments does not fit into its bits; such values are not cached
+	 */
+	long key(int fromLinkIndex, int toLinkIndex, int typeIndex, int timeSlice) {
+		if (fromLinkIndex >>> locationBits != 0 || toLinkIndex >>> locationBits != 0 || typeIndex >>> typeBits != 0
+				|| timeSlice >>> sliceBits != 0) {
+			return NO_KEY;
+		}
+		long key = fromLinkIndex;
+		key = (key << locationBits) | toLinkIndex;
+		key = (key << typeBits) | typeIndex;
+		return (key << sliceBits) | timeSlice;
+	}
+
+	TransportData get(long key) {
+		Shard shard = getShard(key);
+		synchronized (shard) {
+			return shard.entries.getAndMoveToLast(key);
+		}
+	}
+
+	/**
+	 * Adds the entry, unless there is already an entry for the key. If the shard of the key is full, its least
+	 * recently used entry is evicted.
+	 *
+	 * @return <code>true</code> if the entry has been added
+	 */
+	boolean putIfAbsent(long key, TransportData data) {
+		Shard shard = getShard(key);
+		synchronized (shard) {
+			if (shard.entries.containsKey(key)) {
+				return false;
+			}
+			shard.entries.putAndMoveToLast(key, data);
+			if (shard.entries.size() > maxShardSize) {
+				shard.entries.removeFirst();
+			}
+			return true;
+		}
+	}
+
+	int size() {
+		int size = 0;
+		for (Shard shard : shards) {
+			synchronized (shard) {
+				size += shard.entries.size();
+			}
+		}
+		return size;
+	}
+
+	int getMaxSize() {
+		return maxShardSize * shards.length;
+	}
+
+	private Shard getShard(long key) {
+		return shards[(int)(HashCommon.mix(key) >>> (64 - SHARD_BITS))];
+	}
+
+	private static final class Shard {
+		private final Long2ObjectLinkedOpenHashMap<TransportData> entries = new Long2ObjectLinkedOpenHashMap<>();
+	}
+}
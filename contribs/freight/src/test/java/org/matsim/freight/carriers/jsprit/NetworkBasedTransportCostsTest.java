@@ -30,6 +30,7 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.roadpricing.*;
 import org.matsim.core.config.Config;
@@ -43,7 +44,11 @@ import org.matsim.vehicles.VehicleType;
 import org.matsim.vehicles.VehicleUtils;
 import org.matsim.vehicles.VehiclesFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -373,4 +378,58 @@ public class NetworkBasedTransportCostsTest {
 		Assertions.assertEquals(20000.0, c.getDistance(Location.newInstance("6"), Location.newInstance("21"), 0.0, vehicle2), 0.01);
 	}
 
+	/**
+	 * The values calculated for all destinations of an origin in one pass of the least-cost-path tree must be the same
+	 * as the values calculated for each pair of links on its own. The cache is smaller than the number of pairs, so that
+	 * values are evicted and calculated again.
+	 */
+	@Test
+	void test_whenCalculatingOneToMany_itMustReturnTheSameValuesAsForEachPair(){
+		Config config = new Config();
+		config.addCoreModules();
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		new MatsimNetworkReader(scenario.getNetwork()).readFile(utils.getClassInputDirectory() + "network.xml");
+		Network network = scenario.getNetwork();
+
+		NetworkBasedTransportCosts.Builder builder = NetworkBasedTransportCosts.Builder.newInstance(network);
+		builder.addVehicleTypeSpecificCosts(TYPE_1, 10.0, 1.0, 2.0);
+		builder.setTimeSliceWidth(1800);
+		builder.setMaxCacheSize(128);
+		NetworkBasedTransportCosts oneToMany = builder.build();
+
+		NetworkBasedTransportCosts.Builder referenceBuilder = NetworkBasedTransportCosts.Builder.newInstance(network);
+		referenceBuilder.addVehicleTypeSpecificCosts(TYPE_1, 10.0, 1.0, 2.0);
+		referenceBuilder.setTimeSliceWidth(1800);
+		referenceBuilder.setMaxOneToManyDestinations(0);
+		NetworkBasedTransportCosts reference = referenceBuilder.build();
+
+		Vehicle vehicle = mock(Vehicle.class);
+		com.graphhopper.jsprit.core.problem.vehicle.VehicleType type = mock( com.graphhopper.jsprit.core.problem.vehicle.VehicleType.class );
+		when(type.getMaxVelocity()).thenReturn(5.0);
+		when(type.getTypeId()).thenReturn(TYPE_1);
+		when(vehicle.getType()).thenReturn(type);
+		when(vehicle.getId()).thenReturn("vehicle1");
+
+		List<Location> locations = new ArrayList<>();
+		for (Id<Link> linkId : network.getLinks().keySet()) {
+			locations.add(Location.newInstance(linkId.toString()));
+		}
+		Random random = new Random(4711);
+		for (int i = 0; i < 3; i++) {
+			Collections.shuffle(locations, random);
+			for (Location from : locations) {
+				for (Location to : locations) {
+					double time = random.nextInt(4 * 3600);
+					Assertions.assertEquals(reference.getTransportCost(from, to, time, null, vehicle),
+							oneToMany.getTransportCost(from, to, time, null, vehicle), 1e-6);
+					Assertions.assertEquals(reference.getTransportTime(from, to, time, null, vehicle),
+							oneToMany.getTransportTime(from, to, time, null, vehicle), 1e-6);
+					Assertions.assertEquals(reference.getDistance(from, to, time, vehicle),
+							oneToMany.getDistance(from, to, time, vehicle), 1e-6);
+				}
+			}
+		}
+		Assertions.assertTrue(oneToMany.getCacheSize() <= 128);
+	}
+
 }
@@ -206,6 +206,7 @@ public final class SimWrapper {
 			SimWrapperConfigGroup.ContextParams ctx = configGroup.get(runner.getName());
 
 			runner.setSampleSize(configGroup.sampleSize);
+			runner.setParallelism(configGroup.numberOfThreads);
 
 			if (ctx.shp != null) {
 
@@ -32,6 +32,10 @@ public class SimWrapperConfigGroup extends ReflectiveConfigGroup {
 	@Comment("Sample size of the run, which may be required by certain analysis functions.")
 	public Double sampleSize = 1.0d;
 
+	@Parameter
+	@Comment("Number of analysis commands that may run in parallel. Commands reading events or population are additionally limited by the available memory.")
+	public int numberOfThreads = 1;
+
 	public SimWrapperConfigGroup() {
 		super(NAME);
 		get("");
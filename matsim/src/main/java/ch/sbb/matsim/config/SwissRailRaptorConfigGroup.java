@@ -66,6 +66,8 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
     private static final String PARAM_INTERMODAL_LEG_ONLYHANDLING_DESC = "Define how routes containing only intermodal legs are handled: Useful options: alllow, avoid, forbid";
     private static final String PARAM_TRANSFER_CALCULATION = "transferCalculation";
     private static final String PARAM_TRANFER_CALCULATION_DESC = "Defines whether all potential transfers are precomputed at the beginning of the simulation (Initial) or whether they are constructed on-demand when needed (Adaptive). The former incurs potentially long up-front caclulations, but quicker routing. The latter avoids any initial computation, but may require longer routing time.";
+    private static final String PARAM_TRANSFER_CACHE_FILE = "transferCacheFile";
+    private static final String PARAM_TRANSFER_CACHE_FILE_DESC = "Optional path to a binary file caching the transfers precomputed with transferCalculation=Initial. If the file exists and was written for the same schedule and settings, the transfers are loaded from it into memory instead of being calculated, otherwise they are calculated and written to it. This saves the calculation time, not memory. Several processes can use the same file.";
 
     private boolean useRangeQuery = false;
     private boolean useIntermodality = false;
@@ -80,6 +82,7 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
     private double transferWalkMargin = 5;
 	private IntermodalLegOnlyHandling intermodalLegOnlyHandling = IntermodalLegOnlyHandling.forbid;
 	private RaptorTransferCalculation transferCalculation = RaptorTransferCalculation.Initial;
+	private String transferCacheFile = null;
 
     private ScoringParameters scoringParameters = ScoringParameters.Default;
 
@@ -149,6 +152,16 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
 		return transferCalculation;
 	}
 
+	@StringSetter(PARAM_TRANSFER_CACHE_FILE)
+	public void setTransferCacheFile(String transferCacheFile) {
+		this.transferCacheFile = transferCacheFile;
+	}
+
+	@StringGetter(PARAM_TRANSFER_CACHE_FILE)
+	public String getTransferCacheFile() {
+		return transferCacheFile;
+	}
+
 	@StringGetter(PARAM_USE_RANGE_QUERY)
     public boolean isUseRangeQuery() {
         return this.useRangeQuery;
@@ -724,6 +737,7 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
         comments.put(PARAM_TRANSFER_WALK_MARGIN, PARAM_TRANSFER_WALK_MARGIN_DESC);
 		comments.put(PARAM_INTERMODAL_ACCESS_EGRESS_MODE_SELECTION,PARAM_INTERMODAL_ACCESS_EGRESS_MODE_SELECTION_DESC);
 		comments.put(PARAM_TRANSFER_CALCULATION, PARAM_TRANFER_CALCULATION_DESC);
+		comments.put(PARAM_TRANSFER_CACHE_FILE, PARAM_TRANSFER_CACHE_FILE_DESC);
         return comments;
     }
 
@@ -64,6 +64,7 @@ public final class RaptorUtils {
 		staticConfig.setIntermodalLegOnlyHandling(srrConfig.getIntermodalLegOnlyHandling());
 		staticConfig.setMinimalTransferTime(config.transitRouter().getAdditionalTransferTime());
 		staticConfig.setTransferCalculation(srrConfig.getTransferCalculation());
+		staticConfig.setTransferCacheFile(srrConfig.getTransferCacheFile());
 
         staticConfig.setUseModeMappingForPassengers(srrConfig.isUseModeMappingForPassengers());
         if (srrConfig.isUseModeMappingForPassengers()) {
@@ -20,6 +20,8 @@
 
 package ch.sbb.matsim.routing.pt.raptor;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -215,34 +217,36 @@ public class SwissRailRaptorData {
         int countStopFacilities = stops.size();
 
         // if cached transfer calculation is active, don't generate any transfers here
-		final Map<Integer, RTransfer[]> allTransfers;
+		RTransfer[] transfers = null;
 
 		if (staticConfig.getTransferCalculation().equals(RaptorTransferCalculation.Initial)) {
-			allTransfers = calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops,
-					staticConfig);
+			Path cacheFile = staticConfig.getTransferCacheFile() == null ? null : Paths.get(staticConfig.getTransferCacheFile());
+			byte[] fingerprint = null;
+			if (cacheFile != null) {
+				fingerprint = SwissRailRaptorTransferCache.fingerprint(schedule, routeStops, departures, staticConfig);
+				transfers = SwissRailRaptorTransferCache.read(cacheFile, fingerprint, routeStops.length);
+				if (transfers != null) {
+					log.info("SwissRailRaptor transfers were read from " + cacheFile);
+				}
+			}
+			if (transfers == null) {
+				transfers = flattenTransfers(calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops,
+						staticConfig), routeStops.length);
+				if (cacheFile != null) {
+					SwissRailRaptorTransferCache.write(cacheFile, fingerprint, routeStops.length, transfers);
+				}
+			}
 		} else {
-			allTransfers = Collections.emptyMap();
+			transfers = new RTransfer[0];
 		}
 
-        long countTransfers = 0;
-        for (RTransfer[] transfers : allTransfers.values()) {
-            countTransfers += transfers.length;
-        }
-        if (countTransfers > Integer.MAX_VALUE) {
-            throw new RuntimeException("TransitSchedule has too many Transfers: " + countTransfers);
-        }
-        RTransfer[] transfers = new RTransfer[(int) countTransfers];
-        int indexTransfer = 0;
-        for (int routeStopIndex = 0; routeStopIndex < routeStops.length; routeStopIndex++) {
-            RTransfer[] stopTransfers = allTransfers.get(routeStopIndex);
-            int transferCount = stopTransfers == null ? 0 : stopTransfers.length;
-            if (transferCount > 0) {
-                RRouteStop routeStop = routeStops[routeStopIndex];
+        // the transfers are sorted by their from route stop
+        for (int indexTransfer = 0; indexTransfer < transfers.length; indexTransfer++) {
+            RRouteStop routeStop = routeStops[transfers[indexTransfer].fromRouteStop];
+            if (routeStop.countTransfers == 0) {
                 routeStop.indexFirstTransfer = indexTransfer;
-                routeStop.countTransfers = transferCount;
-                System.arraycopy(stopTransfers, 0, transfers, indexTransfer, transferCount);
-                indexTransfer += transferCount;
             }
+            routeStop.countTransfers++;
         }
 
         // if adaptive transfer calculation is used, build a map for quick lookup of and collection of minimal transfer times
@@ -273,6 +277,26 @@ public class SwissRailRaptorData {
         return data;
     }
 
+    private static RTransfer[] flattenTransfers(Map<Integer, RTransfer[]> allTransfers, int countRouteStops) {
+        long countTransfers = 0;
+        for (RTransfer[] transfers : allTransfers.values()) {
+            countTransfers += transfers.length;
+        }
+        if (countTransfers > Integer.MAX_VALUE) {
+            throw new RuntimeException("TransitSchedule has too many Transfers: " + countTransfers);
+        }
+        RTransfer[] transfers = new RTransfer[(int) countTransfers];
+        int indexTransfer = 0;
+        for (int routeStopIndex = 0; routeStopIndex < countRouteStops; routeStopIndex++) {
+            RTransfer[] stopTransfers = allTransfers.get(routeStopIndex);
+            if (stopTransfers != null) {
+                System.arraycopy(stopTransfers, 0, transfers, indexTransfer, stopTransfers.length);
+                indexTransfer += stopTransfers.length;
+            }
+        }
+        return transfers;
+    }
+
     // calculate possible transfers between TransitRouteStops
     private static Map<Integer, RTransfer[]> calculateRouteStopTransfers(TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RaptorStaticConfig config) {
         Map<Integer, RTransfer[]> transfers = new HashMap<>(stopsQT.size() * 5);
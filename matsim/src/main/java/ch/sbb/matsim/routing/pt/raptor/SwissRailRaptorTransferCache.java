@@ -0,0 +1,134 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package ch.sbb.matsim.routing.pt.raptor;
+
+import java.nio.file.Path;
+
+import org.matsim.core.utils.io.FingerprintedFileCache;
+import org.matsim.pt.transitSchedule.api.MinimalTransferTimes;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData.RRouteStop;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData.RTransfer;
+
+/**
+ * Binary file cache for the transfers between route stops which {@link SwissRailRaptorData} precomputes with
+ * {@link RaptorStaticConfig.RaptorTransferCalculation#Initial}. Calculating them takes the largest part of the
+ * data preparation for large schedules, while the result only depends on the schedule and a few settings.
+ *
+ * The file consists of a header with a fingerprint of everything the transfers depend on, followed by the number of
+ * route stops and transfers and 4 ints per transfer, see {@link FingerprintedFileCache}. When the file matches, its
+ * transfers are read into the heap of the process, like calculated transfers; the file only saves the calculation,
+ * not memory.
+ */
+final class SwissRailRaptorTransferCache {
+
+	private static final FingerprintedFileCache CACHE = new FingerprintedFileCache("SwissRailRaptor transfer", 0x53525254 /* "SRRT" */, 2);
+
+	private SwissRailRaptorTransferCache() {
+	}
+
+	/**
+	 * @return a hash of all data the transfers calculated by {@link SwissRailRaptorData} depend on.
+	 */
+	static byte[] fingerprint(TransitSchedule schedule, RRouteStop[] routeStops, int[] departures, RaptorStaticConfig config) {
+		return CACHE.fingerprint(out -> {
+			out.writeDouble(config.getBeelineWalkConnectionDistance());
+			out.writeDouble(config.getBeelineWalkSpeed());
+			out.writeDouble(config.getBeelineWalkDistanceFactor());
+			out.writeDouble(config.getMinimalTransferTime());
+			out.writeUTF(config.getOptimization().name());
+
+			out.writeInt(routeStops.length);
+			for (RRouteStop routeStop : routeStops) {
+				TransitStopFacility stop = routeStop.routeStop.getStopFacility();
+				out.writeUTF(stop.getId().toString());
+				out.writeDouble(stop.getCoord().getX());
+				out.writeDouble(stop.getCoord().getY());
+				out.writeUTF(routeStop.line.getId().toString());
+				out.writeUTF(routeStop.route.getId().toString());
+				out.writeInt(routeStop.arrivalOffset);
+				out.writeInt(routeStop.departureOffset);
+				out.writeBoolean(routeStop.routeStop.isAllowBoarding());
+				out.writeBoolean(routeStop.routeStop.isAllowAlighting());
+			}
+			out.writeInt(departures.length);
+			for (int departure : departures) {
+				out.writeInt(departure);
+			}
+
+			MinimalTransferTimes.MinimalTransferTimesIterator iter = schedule.getMinimalTransferTimes().iterator();
+			while (iter.hasNext()) {
+				iter.next();
+				out.writeUTF(iter.getFromStopId().toString());
+				out.writeUTF(iter.getToStopId().toString());
+				out.writeDouble(iter.getSeconds());
+			}
+		});
+	}
+
+	/**
+	 * @return the cached transfers, sorted by their from route stop, or <code>null</code> if the file does not exist
+	 * or does not match the fingerprint.
+	 */
+	static RTransfer[] read(Path file, byte[] fingerprint, int countRouteStops) {
+		return CACHE.read(file, fingerprint, in -> {
+			if (in.readInt() != countRouteStops) {
+				return null;
+			}
+			int countTransfers = in.readInt();
+			if (countTransfers < 0) {
+				return null;
+			}
+			RTransfer[] transfers = new RTransfer[countTransfers];
+			for (int i = 0; i < countTransfers; i++) {
+				int fromRouteStop = in.readInt();
+				int toRouteStop = in.readInt();
+				int transferTime = in.readInt();
+				int transferDistance = in.readInt();
+				if (fromRouteStop < 0 || fromRouteStop >= countRouteStops || toRouteStop < 0 || toRouteStop >= countRouteStops
+						|| (i > 0 && fromRouteStop < transfers[i - 1].fromRouteStop)) {
+					return null;
+				}
+				transfers[i] = new RTransfer(fromRouteStop, toRouteStop, transferTime, transferDistance);
+			}
+			return transfers;
+		});
+	}
+
+	/**
+	 * Writes the transfers, which must be sorted by their from route stop, to the file. Problems are only logged,
+	 * as the cache is optional.
+	 */
+	static void write(Path file, byte[] fingerprint, int countRouteStops, RTransfer[] transfers) {
+		CACHE.write(file, fingerprint, out -> {
+			out.writeInt(countRouteStops);
+			out.writeInt(transfers.length);
+			for (RTransfer transfer : transfers) {
+				out.writeInt(transfer.fromRouteStop);
+				out.writeInt(transfer.toRouteStop);
+				out.writeInt(transfer.transferTime);
+				out.writeInt(transfer.transferDistance);
+			}
+		});
+	}
+
+}
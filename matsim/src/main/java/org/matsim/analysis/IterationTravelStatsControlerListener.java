@@ -21,7 +21,11 @@
 
  package org.matsim.analysis;
 
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
+import org.matsim.core.controler.AsyncOutputWriter;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationEndsEvent;
@@ -61,6 +65,9 @@ class IterationTravelStatsControlerListener implements IterationEndsListener, Sh
 	@Inject
 	TripsAndLegsWriter tripsAndLegsWriter;
 
+	@Inject
+	AsyncOutputWriter asyncOutputWriter;
+
     @Override
     public void notifyIterationEnds(IterationEndsEvent event) {
         travelDistanceStats.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
@@ -73,9 +80,18 @@ class IterationTravelStatsControlerListener implements IterationEndsListener, Sh
 		travelDistanceStats.writeOutput(event.getIteration(), writeGraph);
 
         if (isWriteTripsAndLegs(event)) {
-            tripsAndLegsWriter.write(experiencedPlansService.getExperiencedPlans()
-                    , outputDirectoryHierarchy.getIterationFilename(event.getIteration(), Controler.DefaultFiles.tripscsv)
-                    , outputDirectoryHierarchy.getIterationFilename(event.getIteration(), Controler.DefaultFiles.legscsv));
+            String tripsFilename = outputDirectoryHierarchy.getIterationFilename(event.getIteration(), Controler.DefaultFiles.tripscsv);
+            String legsFilename = outputDirectoryHierarchy.getIterationFilename(event.getIteration(), Controler.DefaultFiles.legscsv);
+            // the experienced plans are new objects in every iteration, so copying the map is enough for a snapshot
+            asyncOutputWriter.write("trips and legs", () -> {
+                IdMap<Person, Plan> experiencedPlans = experiencedPlansService.getExperiencedPlans();
+                if (!asyncOutputWriter.isAsync()) {
+                    return experiencedPlans;
+                }
+                IdMap<Person, Plan> snapshot = new IdMap<>(Person.class);
+                snapshot.putAll(experiencedPlans);
+                return snapshot;
+            }, plans -> tripsAndLegsWriter.write(plans, tripsFilename, legsFilename));
 
 			activityWriter.writeCsv(event.getIteration());
         }
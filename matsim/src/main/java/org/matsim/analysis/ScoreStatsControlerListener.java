@@ -21,6 +21,8 @@
 package org.matsim.analysis;
 
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.*;
@@ -35,6 +37,7 @@ import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.checkpoint.CheckpointParticipant;
 import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.events.StartupEvent;
@@ -60,7 +63,7 @@ import org.matsim.core.utils.io.IOUtils;
  *
  * @author mrieser
  */
-public class ScoreStatsControlerListener implements StartupListener, IterationEndsListener, ShutdownListener, ScoreStats {
+public class ScoreStatsControlerListener implements StartupListener, IterationEndsListener, ShutdownListener, ScoreStats, CheckpointParticipant {
 
 	public enum ScoreItem { worst, best, average, executed }
 
@@ -201,6 +204,45 @@ public class ScoreStatsControlerListener implements StartupListener, IterationEn
 		return Collections.unmodifiableMap( this.scoreHistory ) ;
 	}
 
+	@Override
+	public String getCheckpointName() {
+		return "scoreStats";
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutput out) throws IOException {
+		Map<Integer, Double> executed = this.scoreHistory.get(ScoreItem.executed);
+		out.writeInt(this.minIteration);
+		out.writeInt(executed.size());
+		for (Integer iteration : executed.keySet()) {
+			out.writeInt(iteration);
+			for (ScoreItem item : ScoreItem.values()) {
+				out.writeDouble(this.scoreHistory.get(item).get(iteration));
+			}
+		}
+	}
+
+	/**
+	 * Restores the history, and also writes it to scorestats.csv so that the file covers all iterations.
+	 */
+	@Override
+	public void readCheckpoint(DataInput in) throws IOException {
+		this.minIteration = in.readInt();
+		int iterations = in.readInt();
+		for (int i = 0; i < iterations; i++) {
+			int iteration = in.readInt();
+			for (ScoreItem item : ScoreItem.values()) {
+				this.scoreHistory.get(item).put(iteration, in.readDouble());
+			}
+			this.out.write(iteration + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.executed).get(iteration) + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.worst).get(iteration) + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.average).get(iteration) + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.best).get(iteration) + "\n");
+		}
+		this.out.flush();
+	}
+
 	private record ScoreHist(Map<ScoreItem, Map< Integer, Double>> hist, BufferedWriter out) {}
 
 	private static final class ScoreInfo {
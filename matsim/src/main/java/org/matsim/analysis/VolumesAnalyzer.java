@@ -24,6 +24,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
 import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
@@ -31,6 +32,8 @@ import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventArray;
+import org.matsim.core.events.handler.BatchEventHandler;
 import org.matsim.vehicles.Vehicle;
 
 import jakarta.inject.Inject;
@@ -41,10 +44,11 @@ import java.util.TreeSet;
 
 /**
  * Counts the number of vehicles leaving a link, aggregated into time bins of a specified size.
+ * Events submitted as a batch are handled in one call per batch, see {@link BatchEventHandler}.
  *
  * @author mrieser
  */
-public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTrafficEventHandler {
+public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTrafficEventHandler, BatchEventHandler {
 
 	private final static Logger log = LogManager.getLogger(VolumesAnalyzer.class);
 	private final int timeBinSize;
@@ -83,6 +87,18 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 		}
 	}
 
+	@Override
+	public void handleEvents(EventArray events) {
+		for (int i = 0; i < events.size(); i++) {
+			Event event = events.get(i);
+			if (event instanceof LinkLeaveEvent linkLeaveEvent) {
+				handleEvent(linkLeaveEvent);
+			} else if (event instanceof VehicleEntersTrafficEvent vehicleEntersTrafficEvent) {
+				handleEvent(vehicleEntersTrafficEvent);
+			}
+		}
+	}
+
 	@Override
 	public void handleEvent(VehicleEntersTrafficEvent event) {
 		if (this.observeModes) {
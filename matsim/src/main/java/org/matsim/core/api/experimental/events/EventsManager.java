@@ -33,7 +33,10 @@ public interface EventsManager {
 	public void processEvent(final Event event);
 
 	/**
-	 * Submit multiple events for processing at once.
+	 * Submit multiple events for processing at once.  The events are passed to the handlers in the same order as with
+	 * {@link #processEvent(Event)}, but the events managers in {@link org.matsim.core.events} pass the whole array to
+	 * {@link org.matsim.core.events.handler.BatchEventHandler}s in a single call.  The caller hands over the array and
+	 * must not modify or reuse it afterwards.
 	 */
 	default void processEvents(final EventArray events) {
 		for (int i = 0; i < events.size(); i++) {
@@ -46,6 +49,14 @@ public interface EventsManager {
 	public void removeHandler(final EventHandler handler);
 
 	public void resetHandlers(int iteration);
+
+	/**
+	 * @return <code>false</code> if events of the given class would not be passed to any handler, so that e.g. readers
+	 * can skip them.  Implementations that cannot tell return <code>true</code>.
+	 */
+	default boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return true;
+	}
 	
 	/**
 	 * Called before the first event is sent for processing. Allows to initialize internal
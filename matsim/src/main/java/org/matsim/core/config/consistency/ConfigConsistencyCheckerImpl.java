@@ -158,6 +158,12 @@ public final class ConfigConsistencyCheckerImpl implements ConfigConsistencyChec
 			log.warn("We don't know if non-Dijkstra routing works together with LinkToLink routing.");
 		}
 
+		if ( config.controller().getRoutingAlgorithmType() == RoutingAlgorithmType.SpeedyCH &&
+				config.routing().getRoutingRandomness() != 0. ) {
+			log.warn("SpeedyCH routing requires travel disutilities which do not depend on the person, but routingRandomness is set. "
+					+ "Routing will fall back to SpeedyALT.");
+		}
+
 	}
 
 
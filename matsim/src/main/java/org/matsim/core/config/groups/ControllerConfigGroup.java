@@ -34,11 +34,11 @@ import java.util.*;
 public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = LogManager.getLogger( ControllerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT, SpeedyCH}
 
 	public enum EventTypeToCreateScoringFunctions {IterationStarts, BeforeMobsim}
 
-	public enum EventsFileFormat {xml, pb, json}
+	public enum EventsFileFormat {xml, pb, json, columnar}
 
 	public enum CompressionType {
 		none(""),
@@ -81,6 +81,12 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 
 	private static final String MEMORY_OBSERVER_INTERVAL = "memoryObserverInterval";
 
+	private static final String WRITE_CHECKPOINT_INTERVAL = "writeCheckpointInterval";
+	private static final String RESTART_CHECKPOINT_FILE = "restartCheckpointFile";
+
+	private static final String ASYNC_OUTPUT_THREADS = "asyncOutputThreads";
+	private static final String ASYNC_OUTPUT_MAX_PENDING = "asyncOutputMaxPending";
+
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, JDEQSim, hermes}
 
@@ -113,6 +119,12 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 
 	private int memoryObserverInterval = 60;
 
+	private int writeCheckpointInterval = 0;
+	private String restartCheckpointFile = null;
+
+	private int asyncOutputThreads = 0;
+	private int asyncOutputMaxPending = 2;
+
 	public ControllerConfigGroup() {
 		super(GROUP_NAME);
 	}
@@ -120,7 +132,9 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	@Override
 	public final Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
-		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + Arrays.toString(RoutingAlgorithmType.values()));
+		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + Arrays.toString(RoutingAlgorithmType.values()) + ". " +
+				RoutingAlgorithmType.SpeedyCH + " requires travel disutilities which do not depend on the person, i.e. routing.routingRandomness=0; " +
+				"with the default routingRandomness of 3, it falls back to " + RoutingAlgorithmType.SpeedyALT + ".");
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
 		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: " + Arrays.toString(EventsFileFormat.values()) + IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
@@ -156,6 +170,14 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
 		map.put(CLEAN_ITERS_AT_END, "Defines what should be done with the ITERS directory when a simulation finished successfully");
 		map.put(MEMORY_OBSERVER_INTERVAL, "Defines the interval for printing memory usage to the log in [seconds]. Must be positive. Defaults to 60.");
+		map.put(WRITE_CHECKPOINT_INTERVAL, "iterationNumber % writeCheckpointInterval == 0 defines in which iterations a binary checkpoint of the population, " +
+				"the travel times and further iteration state is written, from which the run can be resumed. `0' disables checkpoints completely. Default=0.");
+		map.put(RESTART_CHECKPOINT_FILE, "If set, the run is resumed after the iteration the given checkpoint file was written at, instead of starting at " +
+				"the first iteration. The random seed, firstIteration and the travel time bins must be the same as in the run which wrote the checkpoint.");
+		map.put(ASYNC_OUTPUT_THREADS, "Number of background threads which write the iteration output, e.g. the plans dumps, while the next iteration " +
+				"already runs. `0' writes all output synchronously. Default=0.");
+		map.put(ASYNC_OUTPUT_MAX_PENDING, "Maximum number of output snapshots which are waiting or being written in the background. If it is reached, " +
+				"the controller waits before it takes the next snapshot. Bounds the additional memory. Default=2.");
 		return map;
 	}
 
@@ -443,6 +465,52 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 		this.memoryObserverInterval = memoryObserverInterval;
 	}
 
+	@StringGetter(WRITE_CHECKPOINT_INTERVAL)
+	public int getWriteCheckpointInterval() {
+		return writeCheckpointInterval;
+	}
+
+	@StringSetter(WRITE_CHECKPOINT_INTERVAL)
+	public void setWriteCheckpointInterval(int writeCheckpointInterval) {
+		this.writeCheckpointInterval = writeCheckpointInterval;
+	}
+
+	@StringGetter(RESTART_CHECKPOINT_FILE)
+	public String getRestartCheckpointFile() {
+		return restartCheckpointFile;
+	}
+
+	@StringSetter(RESTART_CHECKPOINT_FILE)
+	public void setRestartCheckpointFile(String restartCheckpointFile) {
+		this.restartCheckpointFile = restartCheckpointFile;
+	}
+
+	@StringGetter(ASYNC_OUTPUT_THREADS)
+	public int getAsyncOutputThreads() {
+		return asyncOutputThreads;
+	}
+
+	@StringSetter(ASYNC_OUTPUT_THREADS)
+	public void setAsyncOutputThreads(int asyncOutputThreads) {
+		if (asyncOutputThreads < 0) {
+			throw new IllegalArgumentException(ASYNC_OUTPUT_THREADS + " must not be negative, but is " + asyncOutputThreads + ".");
+		}
+		this.asyncOutputThreads = asyncOutputThreads;
+	}
+
+	@StringGetter(ASYNC_OUTPUT_MAX_PENDING)
+	public int getAsyncOutputMaxPending() {
+		return asyncOutputMaxPending;
+	}
+
+	@StringSetter(ASYNC_OUTPUT_MAX_PENDING)
+	public void setAsyncOutputMaxPending(int asyncOutputMaxPending) {
+		if (asyncOutputMaxPending < 1) {
+			throw new IllegalArgumentException(ASYNC_OUTPUT_MAX_PENDING + " must be at least 1, but is " + asyncOutputMaxPending + ".");
+		}
+		this.asyncOutputMaxPending = asyncOutputMaxPending;
+	}
+
 	// ---
 	int writePlansUntilIteration = 1 ;
 	public int getWritePlansUntilIteration() {
@@ -39,6 +39,7 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	@Override public Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(NUMBER_OF_THREADS, NUMBER_OF_THREADS_CMT ) ;
+		map.put(DYNAMIC_LOAD_BALANCING, DYNAMIC_LOAD_BALANCING_CMT ) ;
 		return map ;
 	}
 
@@ -94,6 +95,27 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 	// ---
+	private boolean dynamicLoadBalancing = false;
+	private static final String DYNAMIC_LOAD_BALANCING = "dynamicLoadBalancing";
+	private static final String DYNAMIC_LOAD_BALANCING_CMT = "If true, multi-threaded replanning and the parallel handling of persons, e.g. the initial routing, "
+			+ "let the threads take the persons in small chunks from a shared queue instead of assigning them to the threads round-robin in advance. "
+			+ "Replanning starts with the persons whose plans took longest in the previous iteration. This avoids idle threads at the end, but it is no longer "
+			+ "deterministic which thread handles which person, so results may not be reproducible if the algorithms use randomness per thread.";
+	/**
+	 * @return {@link #DYNAMIC_LOAD_BALANCING_CMT}
+	 */
+	@StringGetter( DYNAMIC_LOAD_BALANCING )
+	public boolean isDynamicLoadBalancing() {
+		return this.dynamicLoadBalancing;
+	}
+	/**
+	 * @param dynamicLoadBalancing -- {@link #DYNAMIC_LOAD_BALANCING_CMT}
+	 */
+	@StringSetter( DYNAMIC_LOAD_BALANCING )
+	public void setDynamicLoadBalancing(final boolean dynamicLoadBalancing) {
+		this.dynamicLoadBalancing = dynamicLoadBalancing;
+	}
+	// ---
 	private String coordinateSystem = "Atlantis" ;
 	// see https://matsim.atlassian.net/browse/MATSIM-898
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
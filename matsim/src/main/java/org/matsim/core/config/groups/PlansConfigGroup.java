@@ -110,6 +110,10 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		comments.put(REMOVING_UNNECESSARY_PLAN_ATTRIBUTES, "(not tested) will remove plan attributes that are presumably not used, such as " +
                 "activityStartTime. default=false. Use with Caution!");
 
+		comments.put(COMPACT_PLAN_STORAGE, "If true, the activities and legs of the plans are stored in a few arrays per plan instead of one object " +
+				"per activity and leg, which needs considerably less memory for large populations. Plan elements are then only views on these arrays, " +
+				"and references to them must not be kept across iterations. default=false.");
+
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
@@ -247,6 +251,17 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	}
 
 
+	private static final String COMPACT_PLAN_STORAGE = "compactPlanStorage";
+	private boolean compactPlanStorage = false;
+	@StringGetter(COMPACT_PLAN_STORAGE)
+	public boolean isCompactPlanStorage() {
+		return this.compactPlanStorage;
+	}
+	@StringSetter(COMPACT_PLAN_STORAGE)
+	public void setCompactPlanStorage(final boolean compactPlanStorage) {
+		this.compactPlanStorage = compactPlanStorage;
+	}
+
 	@StringGetter( INPUT_CRS )
 	public String getInputCRS() {
 		return inputCRS;
@@ -58,6 +58,9 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	private static final String STUCK_TIME = "stuckTime";
 	private static final String REMOVE_STUCK_VEHICLES = "removeStuckVehicles";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
+	private static final String NETWORK_PARTITIONING = "networkPartitioning";
+	private static final String NETSIM_ENGINE_THREADING = "netsimEngineThreading";
+	private static final String NETSIM_ENGINE_TASKS_PER_THREAD = "netsimEngineTasksPerThread";
 	private static final String TRAFFIC_DYNAMICS = "trafficDynamics";
 	private static final String SIM_STARTTIME_INTERPRETATION = "simStarttimeInterpretation";
 	private static final String USE_PERSON_ID_FOR_MISSING_VEHICLE_ID = "usePersonIdForMissingVehicleId";
@@ -91,6 +94,16 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	private boolean usePersonIdForMissingVehicleId = true;
 	@Positive
 	private int numberOfThreads = 1;
+
+	public enum NetworkPartitioning {roundRobin, spaceFillingCurve, coordinateBisection}
+
+	private NetworkPartitioning networkPartitioning = NetworkPartitioning.roundRobin;
+
+	public enum NetsimEngineThreading {fixedThreadPool, workStealing}
+
+	private NetsimEngineThreading netsimEngineThreading = NetsimEngineThreading.fixedThreadPool;
+	@Positive
+	private int netsimEngineTasksPerThread = 8;
 	//	private static final String CREATING_VEHICLES_FOR_ALL_NETWORK_MODES = "creatingVehiclesForAllNetworkModes";
 //	private boolean creatingVehiclesForAllNetworkModes = true;
 	// ---
@@ -171,6 +184,18 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "Number of threads used for the QSim.  "
 				+ "Note that this setting is independent from the \"global\" threads setting.  "
 				+ "In contrast to earlier versions, the non-parallel special version is no longer there.");
+		map.put(NETWORK_PARTITIONING, "Defines how nodes and links are distributed over the " + NUMBER_OF_THREADS + " threads of the QSim.  "
+				+ NetworkPartitioning.roundRobin + ": one node after the other (default); "
+				+ NetworkPartitioning.spaceFillingCurve + ": contiguous pieces along a hilbert curve over the node coordinates; "
+				+ NetworkPartitioning.coordinateBisection + ": recursive bisection along the longer coordinate axis.  "
+				+ "The latter two keep neighbouring nodes on the same thread and balance the threads by link flow capacity.");
+		map.put(NETSIM_ENGINE_THREADING, "Defines how the network is moved in parallel.  "
+				+ NetsimEngineThreading.fixedThreadPool + ": one task per thread, all threads wait for the slowest one (default); "
+				+ NetsimEngineThreading.workStealing + ": the network is split into " + NETSIM_ENGINE_TASKS_PER_THREAD + " times as many tasks "
+				+ "as there are threads, which are processed by a work-stealing fork/join pool.  Tasks with many active nodes or links "
+				+ "are split further, so that idle threads can take over a part of them.");
+		map.put(NETSIM_ENGINE_TASKS_PER_THREAD, "Number of tasks per thread if " + NETSIM_ENGINE_THREADING + " is "
+				+ NetsimEngineThreading.workStealing + ".  More tasks balance better, but each comes with some overhead.");
 		map.put(REMOVE_STUCK_VEHICLES, REMOVE_STUCK_VEHICLES_STRING);
 		map.put(STUCK_TIME, STUCK_TIME_STRING);
 
@@ -469,6 +494,39 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	@StringGetter(NETWORK_PARTITIONING)
+	public NetworkPartitioning getNetworkPartitioning() {
+		return this.networkPartitioning;
+	}
+
+	@StringSetter(NETWORK_PARTITIONING)
+	public void setNetworkPartitioning(final NetworkPartitioning networkPartitioning) {
+		this.networkPartitioning = networkPartitioning;
+	}
+
+	@StringGetter(NETSIM_ENGINE_THREADING)
+	public NetsimEngineThreading getNetsimEngineThreading() {
+		return this.netsimEngineThreading;
+	}
+
+	@StringSetter(NETSIM_ENGINE_THREADING)
+	public void setNetsimEngineThreading(final NetsimEngineThreading netsimEngineThreading) {
+		this.netsimEngineThreading = netsimEngineThreading;
+	}
+
+	@StringGetter(NETSIM_ENGINE_TASKS_PER_THREAD)
+	public int getNetsimEngineTasksPerThread() {
+		return this.netsimEngineTasksPerThread;
+	}
+
+	@StringSetter(NETSIM_ENGINE_TASKS_PER_THREAD)
+	public void setNetsimEngineTasksPerThread(final int netsimEngineTasksPerThread) {
+		if ( netsimEngineTasksPerThread < 1 ) {
+			throw new IllegalArgumentException( "Number of tasks per thread must be strictly positive, got "+netsimEngineTasksPerThread );
+		}
+		this.netsimEngineTasksPerThread = netsimEngineTasksPerThread;
+	}
+
 	@StringGetter(SIM_STARTTIME_INTERPRETATION)
 	public StarttimeInterpretation getSimStarttimeInterpretation() {
 		return simStarttimeInterpretation;
@@ -80,6 +80,10 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 	private static final String WRITE_SCORE_EXPLANATIONS = "writeScoreExplanations";
 
+	private static final String INCREMENTAL_SCORING = "incrementalScoring";
+
+	private static final String NUMBER_OF_THREADS = "numberOfThreads";
+
 	private final ReflectiveDelegate delegate = new ReflectiveDelegate();
 
 	private boolean usesDeprecatedSyntax = false ;
@@ -423,6 +427,18 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		map.put(WRITE_SCORE_EXPLANATIONS,
 				 "Write detailed score composition into plan attributes after execution.");
 
+		map.put(INCREMENTAL_SCORING,
+				"If true, the score of an agent is re-used from the previous iteration if the agent executed the same plan and "
+						+ "experienced exactly the same activities, legs, money, score and stuck events as then.  Only applies to "
+						+ "agents whose scoring function is a SumScoringFunction without ArbitraryEventScoring parts; all other agents "
+						+ "are scored as usual.  The scoring functions must not depend on anything else, e.g. the iteration.  "
+						+ "Default is false.");
+
+		map.put(NUMBER_OF_THREADS,
+				"Number of threads which call the scoring functions during the iteration.  The agents are distributed to the "
+						+ "threads by their id, so a scoring function is only ever called by one thread.  With 1 (default), the scoring "
+						+ "functions are called directly by the events handling thread.");
+
 		return map;
 	}
 
@@ -701,6 +717,22 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		return delegate.isWriteScoreExplanations();
 	}
 
+	public boolean isIncrementalScoring() {
+		return delegate.isIncrementalScoring();
+	}
+
+	public void setIncrementalScoring(boolean incrementalScoring) {
+		delegate.setIncrementalScoring(incrementalScoring);
+	}
+
+	public int getNumberOfThreads() {
+		return delegate.getNumberOfThreads();
+	}
+
+	public void setNumberOfThreads(int numberOfThreads) {
+		delegate.setNumberOfThreads(numberOfThreads);
+	}
+
 	public double getPathSizeLogitBeta() {
 		return delegate.getPathSizeLogitBeta();
 	}
@@ -1600,6 +1632,10 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 		private boolean explainScores = false;
 
+		private boolean incrementalScoring = false;
+
+		private int numberOfThreads = 1;
+
 		@StringGetter(FRACTION_OF_ITERATIONS_TO_START_SCORE_MSA)
 		public Double getFractionOfIterationsToStartScoreMSA() {
 			return fractionOfIterationsToStartScoreMSA;
@@ -1683,5 +1719,30 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		public boolean isWriteScoreExplanations() {
 			return explainScores;
 		}
+
+		@StringGetter(INCREMENTAL_SCORING)
+		public boolean isIncrementalScoring() {
+			return incrementalScoring;
+		}
+
+		@StringSetter(INCREMENTAL_SCORING)
+		public void setIncrementalScoring(boolean incrementalScoring) {
+			testForLocked();
+			this.incrementalScoring = incrementalScoring;
+		}
+
+		@StringGetter(NUMBER_OF_THREADS)
+		public int getNumberOfThreads() {
+			return numberOfThreads;
+		}
+
+		@StringSetter(NUMBER_OF_THREADS)
+		public void setNumberOfThreads(int numberOfThreads) {
+			testForLocked();
+			if (numberOfThreads < 1) {
+				throw new IllegalArgumentException("numberOfThreads must be at least 1, but is " + numberOfThreads);
+			}
+			this.numberOfThreads = numberOfThreads;
+		}
 	}
 }
@@ -19,6 +19,7 @@
  * *********************************************************************** */
 package org.matsim.core.config.groups;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -50,6 +51,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private static final String ANALYZEDMODES = "analyzedModes";
 	private static final String FILTERMODES = "filterModes";
 	private static final String SEPARATEMODES = "separateModes";
+	private static final String TRAVEL_TIME_STORAGE = "travelTimeStorage";
 
 	private String travelTimeAggregator = "optimistic";
 	private String travelTimeGetter = "average";
@@ -62,6 +64,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private Set<String> analyzedModes = new LinkedHashSet<>(  ) ;
 	private boolean filterModes = false;
 	private boolean separateModes = true;
+	private TravelTimeStorage travelTimeStorage = TravelTimeStorage.perLink;
 
 	public TravelTimeCalculatorConfigGroup() {
 		super(GROUPNAME);
@@ -83,9 +86,15 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 							 "respected by the travel time collector. 'car' is default which includes also buses from the pt simulation module.");
 		map.put(FILTERMODES, "(only for backwards compatiblity; only used if " + SEPARATEMODES + "==false)  Only modes included in analyzedModes are included." ) ;
 		map.put(SEPARATEMODES, "(only for backwards compatibility) If false, link travel times are measured and aggregated over all vehicles using the link." ) ;
+		map.put(TRAVEL_TIME_STORAGE, "How the collected travel times are stored. '" + TravelTimeStorage.perLink + "' creates the data of a link " +
+				"when it is first used. '" + TravelTimeStorage.flat + "' allocates the time bins of all links in one block and keeps the link " +
+				"enter times in arrays indexed by vehicle, which avoids most allocations during event handling. Possible values: " +
+				Arrays.toString(TravelTimeStorage.values()) ) ;
 		return map;
 	}
 
+	public enum TravelTimeStorage { perLink, flat }
+
 	enum DifferentModesHandling { separateAccordingToAnalyzedModes, jointButRestrictedToAnalyzedModes, jointAndUsingAllModes }
 
 	// ---
@@ -195,5 +204,15 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	public void setSeparateModes(boolean separateModes) {
 		this.separateModes = separateModes;
 	}
+	// ---
+	@StringGetter(TRAVEL_TIME_STORAGE)
+	public TravelTimeStorage getTravelTimeStorage() {
+		return this.travelTimeStorage;
+	}
+
+	@StringSetter(TRAVEL_TIME_STORAGE)
+	public void setTravelTimeStorage(TravelTimeStorage travelTimeStorage) {
+		this.travelTimeStorage = travelTimeStorage;
+	}
 
 }
@@ -80,8 +80,9 @@ import java.io.UncheckedIOException;
                 loadCoreListeners();
                 controlerListenerManagerImpl.fireControlerStartupEvent();
                 ControlerUtils.checkConfigConsistencyAndWriteToLog(config, "config dump before iterations start");
+                int restoredIteration = restoreCheckpoint();
                 prepareForSim();
-                doIterations(config);
+                doIterations(config, restoredIteration);
             }
 
             @Override
@@ -98,6 +99,16 @@ import java.io.UncheckedIOException;
 
     protected abstract void runMobSim();
 
+    /**
+     * Restores the state of a previous run from a checkpoint, if configured, so that the iterations are resumed after
+     * the iteration the checkpoint was written at.
+     *
+     * @return the iteration the checkpoint was written at, or a negative value if the run starts at the first iteration.
+     */
+    protected int restoreCheckpoint() {
+        return -1;
+    }
+
     protected abstract void prepareForSim();
 
     protected abstract void prepareForMobsim() ;
@@ -113,8 +124,8 @@ import java.io.UncheckedIOException;
 	protected abstract boolean mayTerminateAfterIteration(int iteration);
 	protected abstract boolean shouldTerminate(int iteration);
 
-    private void doIterations(Config config) throws MatsimRuntimeModifications.UnexpectedShutdownException {
-    	int iteration = config.controller().getFirstIteration();
+    private void doIterations(Config config, int restoredIteration) throws MatsimRuntimeModifications.UnexpectedShutdownException {
+    	int iteration = restoredIteration >= 0 ? restoredIteration + 1 : config.controller().getFirstIteration();
 
     	// Special case if lastIteration == -1 -> Do not run any Mobsim
     	boolean doTerminate = config.controller().getLastIteration() < iteration;
@@ -31,6 +31,7 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
+import org.matsim.core.controler.checkpoint.CheckpointParticipant;
 import org.matsim.core.controler.listener.ControlerListener;
 import org.matsim.core.events.handler.EventHandler;
 import org.matsim.core.mobsim.framework.Mobsim;
@@ -110,6 +111,7 @@ public abstract class AbstractModule implements Module {
 		Multibinder.newSetBinder(this.binder, SnapshotWriter.class);
 		Multibinder.newSetBinder(this.binder, EventHandler.class);
 		Multibinder.newSetBinder(this.binder, ControlerListener.class);
+		Multibinder.newSetBinder(this.binder, CheckpointParticipant.class);
 		MapBinder.newMapBinder(this.binder, new TypeLiteral<Class<?>>(){}, new TypeLiteral<AttributeConverter<?>>() {} );
 		Multibinder.newSetBinder(this.binder, AbstractQSimModule.class);
 		Multibinder.newSetBinder( this.binder, AbstractQSimModule.class, Names.named( "overridesFromAbstractModule" ) );
@@ -144,6 +146,13 @@ public abstract class AbstractModule implements Module {
 		return Multibinder.newSetBinder(this.binder, ControlerListener.class).addBinding();
 	}
 
+	/**
+	 * @see CheckpointParticipant
+	 */
+	protected final LinkedBindingBuilder<CheckpointParticipant> addCheckpointParticipantBinding() {
+		return Multibinder.newSetBinder(this.binder, CheckpointParticipant.class).addBinding();
+	}
+
 	/**
 	 * @see StrategyManagerModule
 	 */
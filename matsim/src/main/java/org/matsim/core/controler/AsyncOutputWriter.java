@@ -0,0 +1,201 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AsyncOutputWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Writes output on background threads, so the controller can go on with the next iteration while e.g. the plans are
+ * written.  The caller takes a snapshot of the data on its own thread, which must not change afterwards; only the
+ * snapshot is passed to the writer.
+ * <p></p>
+ * At most {@link ControllerConfigGroup#getAsyncOutputMaxPending()} snapshots are kept at the same time.  If there are
+ * more, {@link #write} blocks until one of them is written.  All output is written before the controller shuts down,
+ * and the first exception of a writer is rethrown on the controller thread.  If
+ * {@link ControllerConfigGroup#getAsyncOutputThreads()} is 0, everything is written directly by the calling thread.
+ *
+ * @see org.matsim.core.controler.corelisteners.PlansDumping
+ */
+@Singleton
+public final class AsyncOutputWriter implements ShutdownListener {
+
+	private static final Logger log = LogManager.getLogger(AsyncOutputWriter.class);
+
+	private final ThreadPoolExecutor executor;
+	private final int maxPending;
+	private final Semaphore permits;
+	private final AtomicReference<Throwable> exception = new AtomicReference<>();
+	private final Map<String, Latency> latencies = new TreeMap<>();
+
+	@Inject
+	AsyncOutputWriter(ControllerConfigGroup config) {
+		this(config.getAsyncOutputThreads(), config.getAsyncOutputMaxPending());
+	}
+
+	public AsyncOutputWriter(int numberOfThreads, int maxPending) {
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("maxPending must be at least 1, but is " + maxPending);
+		}
+		this.maxPending = maxPending;
+		this.permits = new Semaphore(maxPending);
+		if (numberOfThreads > 0) {
+			AtomicInteger threadCount = new AtomicInteger();
+			this.executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+					r -> new Thread(r, "AsyncOutputWriter-" + threadCount.incrementAndGet()));
+			// the threads are not daemons, so output is never lost; they time out if the writer is not closed
+			this.executor.allowCoreThreadTimeOut(true);
+		} else {
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * @return whether the output is written by background threads, i.e. whether the snapshots must be copies.
+	 */
+	public boolean isAsync() {
+		return this.executor != null;
+	}
+
+	/**
+	 * Takes the snapshot on the calling thread, and passes it to the writer on a background thread.
+	 *
+	 * @param name identifies the writer in the log and in the latency statistics
+	 */
+	public <T> void write(String name, Supplier<T> snapshot, Consumer<T> writer) {
+		rethrow();
+		if (this.executor == null) {
+			long start = System.nanoTime();
+			writer.accept(snapshot.get());
+			record(name, 0, System.nanoTime() - start);
+			return;
+		}
+		try {
+			this.permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		try {
+			T data = snapshot.get();
+			long submitted = System.nanoTime();
+			this.executor.execute(() -> {
+				long start = System.nanoTime();
+				try {
+					writer.accept(data);
+					long end = System.nanoTime();
+					record(name, start - submitted, end - start);
+					log.info("async output " + name + " written in " + (end - start) / 1_000_000 + " ms, after waiting "
+							+ (start - submitted) / 1_000_000 + " ms.");
+				} catch (Throwable t) {
+					log.error("async output " + name + " failed.", t);
+					this.exception.compareAndSet(null, t);
+				} finally {
+					this.permits.release();
+				}
+			});
+		} catch (RuntimeException | Error e) {
+			this.permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Blocks until all output submitted so far is written.
+	 */
+	public void awaitCompletion() {
+		if (this.executor != null) {
+			this.permits.acquireUninterruptibly(this.maxPending);
+			this.permits.release(this.maxPending);
+		}
+		rethrow();
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		awaitCompletion();
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+		synchronized (this.latencies) {
+			for (Map.Entry<String, Latency> e : this.latencies.entrySet()) {
+				Latency l = e.getValue();
+				log.info("output " + e.getKey() + ": written " + l.count + " times, on average in " + l.writeNanos / l.count / 1_000_000
+						+ " ms after waiting " + l.waitNanos / l.count / 1_000_000 + " ms, at most in " + l.maxWriteNanos / 1_000_000 + " ms.");
+			}
+		}
+	}
+
+	/**
+	 * Runs after all other listeners, so that their output is included.
+	 */
+	@Override
+	public double priority() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	private void record(String name, long waitNanos, long writeNanos) {
+		synchronized (this.latencies) {
+			Latency latency = this.latencies.computeIfAbsent(name, k -> new Latency());
+			latency.count++;
+			latency.waitNanos += waitNanos;
+			latency.writeNanos += writeNanos;
+			latency.maxWriteNanos = Math.max(latency.maxWriteNanos, writeNanos);
+		}
+	}
+
+	private void rethrow() {
+		Throwable t = this.exception.getAndSet(null);
+		if (t instanceof RuntimeException e) {
+			throw e;
+		}
+		if (t instanceof Error e) {
+			throw e;
+		}
+		if (t != null) {
+			throw new RuntimeException(t);
+		}
+	}
+
+	private static final class Latency {
+		private int count;
+		private long waitNanos;
+		private long writeNanos;
+		private long maxWriteNanos;
+	}
+
+}
@@ -86,6 +86,7 @@ public final class Controler implements ControlerI, MatsimServices, AllowsConfig
 		events("events.xml"),
 		eventsPb("events.pb"),
 		eventsJson("events.ndjson"),
+		eventsColumnar("events.mcev"),
 		transitSchedule("transitSchedule.xml"),
 		transitVehicles("transitVehicles.xml"),
 		vehicles("vehicles.xml"),
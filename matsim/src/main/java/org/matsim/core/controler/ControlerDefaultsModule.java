@@ -23,6 +23,7 @@
 package org.matsim.core.controler;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import org.matsim.analysis.IterationTravelStatsModule;
 import org.matsim.analysis.LegHistogramModule;
 import org.matsim.analysis.LegTimesModule;
@@ -30,6 +31,7 @@ import org.matsim.analysis.LinkStatsModule;
 import org.matsim.analysis.ModeStatsModule;
 import org.matsim.analysis.ScoreStatsModule;
 import org.matsim.analysis.VolumesAnalyzerModule;
+import org.matsim.core.controler.checkpoint.CheckpointModule;
 import org.matsim.core.controler.events.StartupEvent;
 import org.matsim.core.controler.listener.StartupListener;
 import org.matsim.core.events.EventsManagerModule;
@@ -62,8 +64,12 @@ public final class ControlerDefaultsModule extends AbstractModule {
         install(new StrategyManagerModule());
         install(new TimeInterpretationModule());
         if (getConfig().replanningAnnealer().isActivateAnnealingModule()) {
+            bind(ReplanningAnnealer.class).in(Singleton.class);
             addControlerListenerBinding().to(ReplanningAnnealer.class);
+            addCheckpointParticipantBinding().to(ReplanningAnnealer.class);
         }
+        install(new CheckpointModule());
+        addControlerListenerBinding().to(AsyncOutputWriter.class);
 
         // I think that the ones coming here are all for analysis only, and thus not central to the iterations. kai, apr'18
         install(new LinkStatsModule());
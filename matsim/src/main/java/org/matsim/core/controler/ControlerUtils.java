@@ -20,12 +20,16 @@ package org.matsim.core.controler;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Path;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigWriter;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
+import org.matsim.core.controler.checkpoint.CheckpointFile;
 import org.matsim.core.controler.corelisteners.ControlerDefaultCoreListenersModule;
 import org.matsim.core.scenario.ScenarioByInstanceModule;
 
@@ -87,6 +91,29 @@ public final class ControlerUtils {
 	    log.info("Checking consistency of config done.");
 	}
 
+	/**
+	 * Configures a run to resume after the iteration the given checkpoint was written at, see
+	 * {@link ControllerConfigGroup#getWriteCheckpointInterval()}.  Besides setting the checkpoint file, this sets the random
+	 * seed to the one of the run which wrote the checkpoint, and allows to write into the existing output directory,
+	 * as a resumed run usually continues in the directory of the original run.  Both overrides of the configured values
+	 * are logged as warnings.
+	 */
+	public static void configureRestartFromCheckpoint( Config config, String checkpointFile ) {
+		CheckpointFile.Header header = CheckpointFile.readHeader( Path.of( checkpointFile ) );
+		log.info( "resuming run after iteration " + header.iteration() + " from checkpoint " + checkpointFile );
+		config.controller().setRestartCheckpointFile( checkpointFile );
+		if ( config.global().getRandomSeed() != header.randomSeed() ) {
+			log.warn( "overriding the configured random seed " + config.global().getRandomSeed() + " with " + header.randomSeed()
+					+ ", as used by the run which wrote the checkpoint" );
+			config.global().setRandomSeed( header.randomSeed() );
+		}
+		if ( config.controller().getOverwriteFileSetting() != OverwriteFileSetting.overwriteExistingFiles ) {
+			log.warn( "overriding the configured output directory setting " + config.controller().getOverwriteFileSetting() + " with "
+					+ OverwriteFileSetting.overwriteExistingFiles + " to keep the output of the iterations before the checkpoint" );
+			config.controller().setOverwriteFileSetting( OverwriteFileSetting.overwriteExistingFiles );
+		}
+	}
+
 	@Deprecated // use 	OutputDirectoryLogging.catchLogEntries() directly.  kai, mar'18
 	public static final void initializeOutputLogging() {
 		OutputDirectoryLogging.catchLogEntries();
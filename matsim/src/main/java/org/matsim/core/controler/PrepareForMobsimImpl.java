@@ -94,7 +94,7 @@ public final class PrepareForMobsimImpl implements PrepareForMobsim {
 		}
 
 		// make sure all routes are calculated.
-		ParallelPersonAlgorithmUtils.run(population, globalConfigGroup.getNumberOfThreads(),
+		ParallelPersonAlgorithmUtils.run(population, globalConfigGroup.getNumberOfThreads(), globalConfigGroup.isDynamicLoadBalancing(),
 				new ParallelPersonAlgorithmUtils.PersonAlgorithmProvider() {
 					@Override
 					public AbstractPersonAlgorithm getPersonAlgorithm() {
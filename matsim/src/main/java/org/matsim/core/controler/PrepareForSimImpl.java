@@ -190,7 +190,7 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 		// the above creation of vehicles per agent has to be run before executing the initial routing here. janek, aug'19
 		// At least xy2links is needed here, i.e. earlier than PrepareForMobsimImpl.  It could, however, presumably be separated out
 		// (i.e. we introduce a separate PersonPrepareForMobsim).  kai, jul'18
-		ParallelPersonAlgorithmUtils.run(population, globalConfigGroup.getNumberOfThreads(),
+		ParallelPersonAlgorithmUtils.run(population, globalConfigGroup.getNumberOfThreads(), globalConfigGroup.isDynamicLoadBalancing(),
 				() -> new PersonPrepareForSim(new PlanRouter(tripRouterProvider.get(), activityFacilities, timeInterpretation), scenario,
 						carOnlyNetwork)
 		);
@@ -22,11 +22,14 @@
 
 package org.matsim.core.controler;
 
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.controler.events.*;
 import org.matsim.core.controler.listener.*;
+import org.matsim.core.events.EventArray;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.handler.EventHandler;
 
 import jakarta.inject.Inject;
 import java.util.Set;
@@ -95,7 +98,7 @@ public final class ReplayEvents {
                 ((BeforeMobsimListener) controlerListener).notifyBeforeMobsim(new BeforeMobsimEvent(null, iterationNumber, isLastIteration));
             }
         }
-        new MatsimEventsReader(eventsManager).readFile(eventsFilename);
+        readEventsFile(eventsFilename);
         ((ControlerListenerManagerImpl) controlerListenerManager).fireControlerAfterMobsimEvent(iterationNumber, isLastIteration);
         for (ControlerListener controlerListener : controlerListenersDeclaredByModules) {
             if (controlerListener instanceof AfterMobsimListener) {
@@ -116,6 +119,85 @@ public final class ReplayEvents {
         }
     }
 
+    /**
+     * Reads the events on the calling thread and passes them in batches to the events manager.  With a parallel events
+     * manager (see {@link org.matsim.core.config.groups.EventsManagerConfigGroup}), the handlers then run on other
+     * threads, each handler still receiving the events in the order of the file.  Events no handler is interested
+     * in are skipped while reading.
+     */
+    private void readEventsFile(String eventsFilename) {
+        BatchingEventsManager batchingEventsManager = new BatchingEventsManager(eventsManager);
+        eventsManager.initProcessing();
+        MatsimEventsReader reader = new MatsimEventsReader(batchingEventsManager);
+        reader.setSkipUnhandledEvents(true);
+        reader.readFile(eventsFilename);
+        batchingEventsManager.flush();
+        eventsManager.finishProcessing();
+    }
+
+    private static final class BatchingEventsManager implements EventsManager {
+        private static final int BATCH_SIZE = 4096;
+
+        private final EventsManager delegate;
+        private EventArray batch = new EventArray(BATCH_SIZE);
+
+        BatchingEventsManager(EventsManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void processEvent(Event event) {
+            batch.add(event);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.size() > 0) {
+                delegate.processEvents(batch);
+                // the delegate may still hold on to the batch, so do not reuse it
+                batch = new EventArray(BATCH_SIZE);
+            }
+        }
+
+        @Override
+        public boolean hasHandlerFor(Class<? extends Event> eventClass) {
+            return delegate.hasHandlerFor(eventClass);
+        }
+
+        @Override
+        public void addHandler(EventHandler handler) {
+            delegate.addHandler(handler);
+        }
+
+        @Override
+        public void removeHandler(EventHandler handler) {
+            delegate.removeHandler(handler);
+        }
+
+        @Override
+        public void resetHandlers(int iteration) {
+            delegate.resetHandlers(iteration);
+        }
+
+        @Override
+        public void initProcessing() {
+            delegate.initProcessing();
+        }
+
+        @Override
+        public void afterSimStep(double time) {
+            delegate.afterSimStep(time);
+        }
+
+        @Override
+        public void finishProcessing() {
+            flush();
+            delegate.finishProcessing();
+        }
+    }
+
     public static class Module extends AbstractModule {
         @Override
 		public void install() {
@@ -0,0 +1,187 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Reads and writes the binary checkpoint files.
+ * <p></p>
+ * A file consists of a header with the iteration and the random seed of the run, followed by one section per
+ * {@link CheckpointParticipant}.  Each section starts with the participant's name and the length of its data, so that
+ * sections without a matching participant can be skipped when reading.  New files are written to a temporary file
+ * first and then moved in place, so a run which is killed while writing a checkpoint does not destroy the previous
+ * one.
+ * <p></p>
+ * The random number generators need no section of their own, as the controler resets them from the random seed and
+ * the iteration at the start of every iteration.
+ */
+public final class CheckpointFile {
+
+	private static final Logger log = LogManager.getLogger(CheckpointFile.class);
+
+	private static final int MAGIC = 0x4d434b50; // "MCKP"
+	private static final int VERSION = 1;
+
+	/**
+	 * The iteration a checkpoint was written at, and the random seed of the run which wrote it.
+	 */
+	public record Header(int iteration, long randomSeed) {
+	}
+
+	private CheckpointFile() {
+	}
+
+	public static void write(Path file, Header header, Collection<CheckpointParticipant> participants) {
+		checkUniqueNames(participants);
+		Path tmpFile = null;
+		try {
+			Path dir = file.toAbsolutePath().getParent();
+			if (dir != null) {
+				Files.createDirectories(dir);
+			}
+			tmpFile = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+			try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE);
+				 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(header.iteration());
+				out.writeLong(header.randomSeed());
+				out.writeInt(participants.size());
+				for (CheckpointParticipant participant : participants) {
+					out.writeUTF(participant.getCheckpointName());
+					out.writeLong(0); // placeholder for the length of the section
+					out.flush();
+					long start = channel.position();
+					participant.writeCheckpoint(out);
+					out.flush();
+					long length = channel.position() - start;
+					channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, length), start - Long.BYTES);
+				}
+			}
+			try {
+				Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			if (tmpFile != null) {
+				try {
+					Files.deleteIfExists(tmpFile);
+				} catch (IOException ignored) {
+					// nothing more we can do
+				}
+			}
+			throw new UncheckedIOException("Could not write checkpoint " + file, e);
+		}
+	}
+
+	public static Header readHeader(Path file) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			return readHeader(in, file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read checkpoint " + file, e);
+		}
+	}
+
+	/**
+	 * Restores the state of the participants.  Sections without a matching participant are skipped, participants
+	 * without a matching section keep their state.  Both cases are logged.
+	 */
+	public static Header read(Path file, Collection<CheckpointParticipant> participants) {
+		checkUniqueNames(participants);
+		Map<String, CheckpointParticipant> byName = new LinkedHashMap<>();
+		for (CheckpointParticipant participant : participants) {
+			byName.put(participant.getCheckpointName(), participant);
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			Header header = readHeader(in, file);
+			int sections = in.readInt();
+			for (int i = 0; i < sections; i++) {
+				String name = in.readUTF();
+				long length = in.readLong();
+				CheckpointParticipant participant = byName.remove(name);
+				if (participant == null) {
+					log.warn("checkpoint " + file + " contains a section " + name + ", but there is no such participant. Skipping it.");
+					ByteStreams.skipFully(in, length);
+					continue;
+				}
+				log.info("restoring " + name + " from checkpoint...");
+				InputStream section = ByteStreams.limit(in, length);
+				participant.readCheckpoint(new DataInputStream(section));
+				long remaining = ByteStreams.exhaust(section);
+				if (remaining > 0) {
+					log.warn("participant " + name + " did not read " + remaining + " bytes of its checkpoint section.");
+				}
+			}
+			for (String name : byName.keySet()) {
+				log.warn("checkpoint " + file + " contains no section " + name + ". Its state is not restored.");
+			}
+			return header;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read checkpoint " + file, e);
+		}
+	}
+
+	private static Header readHeader(DataInputStream in, Path file) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException(file + " is not a checkpoint file.");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("checkpoint " + file + " has the unsupported version " + version + ".");
+		}
+		return new Header(in.readInt(), in.readLong());
+	}
+
+	private static void checkUniqueNames(Collection<CheckpointParticipant> participants) {
+		Set<String> names = new HashSet<>();
+		for (CheckpointParticipant participant : participants) {
+			if (!names.add(participant.getCheckpointName())) {
+				throw new IllegalStateException("There are multiple checkpoint participants named " + participant.getCheckpointName());
+			}
+		}
+	}
+
+}
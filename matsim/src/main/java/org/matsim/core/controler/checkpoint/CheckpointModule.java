@@ -0,0 +1,38 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.checkpoint;
+
+import org.matsim.core.controler.AbstractModule;
+
+/**
+ * Registers the population as {@link CheckpointParticipant}, and writes checkpoints if
+ * {@link org.matsim.core.config.groups.ControllerConfigGroup#getWriteCheckpointInterval()} is positive.
+ */
+public final class CheckpointModule extends AbstractModule {
+
+	@Override
+	public void install() {
+		addCheckpointParticipantBinding().to(PopulationCheckpoint.class);
+		if (getConfig().controller().getWriteCheckpointInterval() > 0) {
+			addControlerListenerBinding().to(CheckpointWriter.class);
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.checkpoint;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.matsim.core.controler.AbstractModule;
+
+/**
+ * A component whose state is written to the iteration checkpoints, so that a run can be resumed after the iteration
+ * the checkpoint was written at. Participants are registered with
+ * {@link AbstractModule#addCheckpointParticipantBinding()}.
+ * <p></p>
+ * The checkpoint is written after all listeners have processed the end of the iteration.  It is restored after the
+ * startup listeners were called, and before the preparation for the simulation, so participants may overwrite what
+ * they have initialized at startup.
+ */
+public interface CheckpointParticipant {
+
+	/**
+	 * @return the name of the section the participant's state is stored in. Must be unique among all participants.
+	 */
+	String getCheckpointName();
+
+	void writeCheckpoint(DataOutput out) throws IOException;
+
+	/**
+	 * Restores the state from the data written by {@link #writeCheckpoint(DataOutput)}.
+	 */
+	void readCheckpoint(DataInput in) throws IOException;
+
+}
@@ -0,0 +1,76 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.checkpoint;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+
+/**
+ * Restores the state of all {@link CheckpointParticipant}s from {@link ControllerConfigGroup#getRestartCheckpointFile()},
+ * if set.  Called by the controler after the startup listeners.
+ */
+public final class CheckpointRestorer {
+
+	private static final Logger log = LogManager.getLogger(CheckpointRestorer.class);
+
+	private final ControllerConfigGroup controllerConfig;
+	private final GlobalConfigGroup globalConfig;
+	private final Provider<Set<CheckpointParticipant>> participants;
+
+	@Inject
+	CheckpointRestorer(ControllerConfigGroup controllerConfig, GlobalConfigGroup globalConfig, Provider<Set<CheckpointParticipant>> participants) {
+		this.controllerConfig = controllerConfig;
+		this.globalConfig = globalConfig;
+		this.participants = participants;
+	}
+
+	/**
+	 * @return the iteration the restored checkpoint was written at, or -1 if no checkpoint is configured.
+	 */
+	public int restore() {
+		String filename = this.controllerConfig.getRestartCheckpointFile();
+		if (filename == null) {
+			return -1;
+		}
+		Path file = Path.of(filename);
+		CheckpointFile.Header header = CheckpointFile.readHeader(file);
+		if (header.iteration() < this.controllerConfig.getFirstIteration()) {
+			throw new IllegalArgumentException("checkpoint " + file + " was written at iteration " + header.iteration()
+					+ ", before the first iteration " + this.controllerConfig.getFirstIteration() + ".");
+		}
+		if (header.randomSeed() != this.globalConfig.getRandomSeed()) {
+			log.warn("checkpoint " + file + " was written by a run with random seed " + header.randomSeed() + ", but the random seed is "
+					+ this.globalConfig.getRandomSeed() + ". The resumed iterations will differ from the original run.");
+		}
+		log.info("restoring checkpoint " + file + " of iteration " + header.iteration() + "...");
+		CheckpointFile.read(file, this.participants.get());
+		log.info("restoring checkpoint done, resuming at iteration " + (header.iteration() + 1) + ".");
+		return header.iteration();
+	}
+
+}
@@ -0,0 +1,79 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.checkpoint;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+
+/**
+ * Writes a checkpoint at the end of every {@link ControllerConfigGroup#getWriteCheckpointInterval()}th iteration,
+ * after all other listeners have processed the iteration.
+ */
+final class CheckpointWriter implements IterationEndsListener {
+
+	private static final Logger log = LogManager.getLogger(CheckpointWriter.class);
+
+	static final String FILENAME = "checkpoint.bin";
+
+	private final ControllerConfigGroup controllerConfig;
+	private final GlobalConfigGroup globalConfig;
+	private final OutputDirectoryHierarchy controlerIO;
+	private final Provider<Set<CheckpointParticipant>> participants;
+
+	@Inject
+	CheckpointWriter(ControllerConfigGroup controllerConfig, GlobalConfigGroup globalConfig, OutputDirectoryHierarchy controlerIO,
+					 Provider<Set<CheckpointParticipant>> participants) {
+		this.controllerConfig = controllerConfig;
+		this.globalConfig = globalConfig;
+		this.controlerIO = controlerIO;
+		this.participants = participants;
+	}
+
+	@Override
+	public void notifyIterationEnds(IterationEndsEvent event) {
+		int interval = this.controllerConfig.getWriteCheckpointInterval();
+		if (interval <= 0 || event.getIteration() % interval != 0) {
+			return;
+		}
+		Path file = Path.of(this.controlerIO.getIterationFilename(event.getIteration(), FILENAME));
+		log.info("writing checkpoint " + file + "...");
+		long start = System.currentTimeMillis();
+		CheckpointFile.write(file, new CheckpointFile.Header(event.getIteration(), this.globalConfig.getRandomSeed()), this.participants.get());
+		log.info("writing checkpoint took " + (System.currentTimeMillis() - start) + " ms.");
+	}
+
+	@Override
+	public double priority() {
+		// the state of all other listeners must be final for this iteration
+		return -1000;
+	}
+
+}
@@ -0,0 +1,442 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.checkpoint;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.replanning.inheritance.PlanInheritanceModule;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+import jakarta.inject.Inject;
+
+/**
+ * Stores the plans of all persons, including their scores and which plan is selected, and the persons' attributes.
+ * The persons themselves must already exist in the population the checkpoint is restored into, so that everything
+ * else about them (e.g. their vehicles) is set up as usual.
+ * <p></p>
+ * Strings, ids and types are written once and referenced by their index afterwards. Attribute values are converted to
+ * strings by the same {@link AttributeConverter}s as used for the plans file, so attributes which cannot be written
+ * there are also lost here.
+ */
+final class PopulationCheckpoint implements CheckpointParticipant {
+
+	private static final int NULL_STRING = -1;
+	private static final int NEW_STRING = -2;
+
+	private static final byte ACTIVITY = 0;
+	private static final byte INTERACTION_ACTIVITY = 1;
+	private static final byte LEG = 2;
+
+	private final Population population;
+	private final PlansConfigGroup plansConfig;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+
+	@Inject
+	PopulationCheckpoint(Population population, PlansConfigGroup plansConfig, Map<Class<?>, AttributeConverter<?>> attributeConverters) {
+		this.population = population;
+		this.plansConfig = plansConfig;
+		this.attributesConverter.putAttributeConverters(attributeConverters);
+	}
+
+	@Override
+	public String getCheckpointName() {
+		return "population";
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutput out) throws IOException {
+		Writer writer = new Writer(out);
+		out.writeInt(this.population.getPersons().size());
+		for (Person person : this.population.getPersons().values()) {
+			writer.writeString(person.getId().toString());
+			writer.writeAttributes(person.getAttributes());
+			out.writeInt(person.getPlans().size());
+			out.writeInt(person.getPlans().indexOf(person.getSelectedPlan()));
+			for (Plan plan : person.getPlans()) {
+				writer.writePlan(plan);
+			}
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInput in) throws IOException {
+		Reader reader = new Reader(in, this.population.getFactory());
+		int personCount = in.readInt();
+		if (personCount != this.population.getPersons().size()) {
+			throw new IOException("The checkpoint contains " + personCount + " persons, but the population has " + this.population.getPersons().size() + ".");
+		}
+		List<Person> persons = new ArrayList<>(personCount);
+		for (int p = 0; p < personCount; p++) {
+			Id<Person> personId = Id.createPersonId(reader.readString());
+			Person person = this.population.getPersons().get(personId);
+			if (person == null) {
+				throw new IOException("The checkpoint contains person " + personId + ", which is not part of the population.");
+			}
+			persons.add(person);
+			person.getAttributes().clear();
+			reader.readAttributes(person.getAttributes());
+			int planCount = in.readInt();
+			int selectedIndex = in.readInt();
+
+			@SuppressWarnings("unchecked")
+			List<Plan> plans = (List<Plan>) person.getPlans();
+			person.setSelectedPlan(null);
+			plans.clear();
+			for (int i = 0; i < planCount; i++) {
+				person.addPlan(reader.readPlan());
+			}
+			person.setSelectedPlan(selectedIndex < 0 ? null : plans.get(selectedIndex));
+		}
+		// the order of the persons influences the simulation and replanning, so restore it as well
+		if (!persons.equals(new ArrayList<>(this.population.getPersons().values()))) {
+			for (Person person : persons) {
+				this.population.removePerson(person.getId());
+			}
+			for (Person person : persons) {
+				this.population.addPerson(person);
+			}
+		}
+		if (this.plansConfig.isCompactPlanStorage()) {
+			PopulationUtils.compactPlans(this.population);
+		}
+	}
+
+	private static double toDouble(OptionalTime time) {
+		return time.isDefined() ? time.seconds() : Double.NaN;
+	}
+
+	private final class Writer {
+		private final DataOutput out;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		Writer(DataOutput out) {
+			this.out = out;
+		}
+
+		void writeString(String s) throws IOException {
+			if (s == null) {
+				this.out.writeInt(NULL_STRING);
+				return;
+			}
+			Integer index = this.strings.get(s);
+			if (index != null) {
+				this.out.writeInt(index);
+			} else {
+				this.strings.put(s, this.strings.size());
+				this.out.writeInt(NEW_STRING);
+				this.out.writeUTF(s);
+			}
+		}
+
+		void writeId(Id<?> id) throws IOException {
+			writeString(id == null ? null : id.toString());
+		}
+
+		/**
+		 * Writes strings which may exceed the 64k limit of {@link DataOutput#writeUTF(String)}, and which are not
+		 * worth to be deduplicated, like route descriptions.
+		 */
+		void writeLongString(String s) throws IOException {
+			if (s == null) {
+				this.out.writeInt(-1);
+				return;
+			}
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			this.out.writeInt(bytes.length);
+			this.out.write(bytes);
+		}
+
+		void writeAttributes(Attributes attributes) throws IOException {
+			List<Map.Entry<String, String>> converted = new ArrayList<>(attributes.size());
+			List<String> classNames = new ArrayList<>(attributes.size());
+			for (Map.Entry<String, Object> e : attributes.getAsMap().entrySet()) {
+				String value = attributesConverter.convertToString(e.getValue());
+				if (value != null) {
+					converted.add(Map.entry(e.getKey(), value));
+					classNames.add(e.getValue().getClass().getName());
+				}
+			}
+			this.out.writeInt(converted.size());
+			for (int i = 0; i < converted.size(); i++) {
+				writeString(converted.get(i).getKey());
+				writeString(classNames.get(i));
+				writeLongString(converted.get(i).getValue());
+			}
+		}
+
+		void writePlan(Plan plan) throws IOException {
+			Double score = plan.getScore();
+			this.out.writeBoolean(score != null);
+			if (score != null) {
+				this.out.writeDouble(score);
+			}
+			writeString(plan.getType());
+			// plan id, iteration created and plan mutator are only set if plan inheritance is enabled
+			writeId(plan.getId());
+			boolean hasIterationCreated = plan.getAttributes().getAttribute(PlanInheritanceModule.ITERATION_CREATED) != null;
+			this.out.writeBoolean(hasIterationCreated);
+			if (hasIterationCreated) {
+				this.out.writeInt(plan.getIterationCreated());
+			}
+			writeString(plan.getPlanMutator());
+			writeAttributes(plan.getAttributes());
+			List<PlanElement> elements = plan.getPlanElements();
+			this.out.writeInt(elements.size());
+			for (PlanElement pe : elements) {
+				if (pe instanceof Activity act) {
+					writeActivity(act);
+				} else {
+					writeLeg((Leg) pe);
+				}
+			}
+		}
+
+		private void writeActivity(Activity act) throws IOException {
+			boolean interaction = PopulationUtils.isInteractionActivity(act);
+			this.out.writeByte(interaction ? INTERACTION_ACTIVITY : ACTIVITY);
+			writeString(act.getType());
+			Coord coord = act.getCoord();
+			this.out.writeByte(coord == null ? 0 : (coord.hasZ() ? 3 : 2));
+			if (coord != null) {
+				this.out.writeDouble(coord.getX());
+				this.out.writeDouble(coord.getY());
+				if (coord.hasZ()) {
+					this.out.writeDouble(coord.getZ());
+				}
+			}
+			writeId(act.getLinkId());
+			writeId(act.getFacilityId());
+			if (!interaction) {
+				this.out.writeDouble(toDouble(act.getStartTime()));
+				this.out.writeDouble(toDouble(act.getEndTime()));
+				this.out.writeDouble(toDouble(act.getMaximumDuration()));
+			}
+			writeAttributes(act.getAttributes());
+		}
+
+		private void writeLeg(Leg leg) throws IOException {
+			this.out.writeByte(LEG);
+			writeString(leg.getMode());
+			writeString(leg.getRoutingMode());
+			this.out.writeDouble(toDouble(leg.getDepartureTime()));
+			this.out.writeDouble(toDouble(leg.getTravelTime()));
+			Route route = leg.getRoute();
+			this.out.writeBoolean(route != null);
+			if (route != null) {
+				writeString(route.getRouteType());
+				writeId(route.getStartLinkId());
+				writeId(route.getEndLinkId());
+				this.out.writeDouble(route.getDistance());
+				this.out.writeDouble(toDouble(route.getTravelTime()));
+				writeId(route instanceof NetworkRoute networkRoute ? networkRoute.getVehicleId() : null);
+				writeLongString(route.getRouteDescription());
+			}
+			writeAttributes(leg.getAttributes());
+		}
+	}
+
+	private final class Reader {
+		private final DataInput in;
+		private final PopulationFactory factory;
+		private final RouteFactories routeFactories;
+		private final List<String> strings = new ArrayList<>();
+
+		Reader(DataInput in, PopulationFactory factory) {
+			this.in = in;
+			this.factory = factory;
+			this.routeFactories = factory.getRouteFactories();
+		}
+
+		String readString() throws IOException {
+			int index = this.in.readInt();
+			if (index == NULL_STRING) {
+				return null;
+			}
+			if (index == NEW_STRING) {
+				String s = this.in.readUTF();
+				this.strings.add(s);
+				return s;
+			}
+			return this.strings.get(index);
+		}
+
+		<T> Id<T> readId(Class<T> type) throws IOException {
+			String s = readString();
+			return s == null ? null : Id.create(s, type);
+		}
+
+		String readLongString() throws IOException {
+			int length = this.in.readInt();
+			if (length < 0) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			this.in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		void readAttributes(Attributes attributes) throws IOException {
+			int count = this.in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = readString();
+				String className = readString();
+				Object value = attributesConverter.convert(className, readLongString());
+				if (value != null) {
+					attributes.putAttribute(name, value);
+				}
+			}
+		}
+
+		Plan readPlan() throws IOException {
+			Plan plan = this.factory.createPlan();
+			if (this.in.readBoolean()) {
+				plan.setScore(this.in.readDouble());
+			}
+			plan.setType(readString());
+			Id<Plan> planId = readId(Plan.class);
+			if (planId != null) {
+				plan.setPlanId(planId);
+			}
+			if (this.in.readBoolean()) {
+				plan.setIterationCreated(this.in.readInt());
+			}
+			String planMutator = readString();
+			if (planMutator != null) {
+				plan.setPlanMutator(planMutator);
+			}
+			readAttributes(plan.getAttributes());
+			int elementCount = this.in.readInt();
+			for (int i = 0; i < elementCount; i++) {
+				byte kind = this.in.readByte();
+				if (kind == LEG) {
+					plan.addLeg(readLeg());
+				} else {
+					plan.addActivity(readActivity(kind == INTERACTION_ACTIVITY));
+				}
+			}
+			return plan;
+		}
+
+		private Activity readActivity(boolean interaction) throws IOException {
+			String type = readString();
+			int dimensions = this.in.readByte();
+			Coord coord = null;
+			if (dimensions == 2) {
+				coord = new Coord(this.in.readDouble(), this.in.readDouble());
+			} else if (dimensions == 3) {
+				coord = new Coord(this.in.readDouble(), this.in.readDouble(), this.in.readDouble());
+			}
+			Id<Link> linkId = readId(Link.class);
+			Id<ActivityFacility> facilityId = readId(ActivityFacility.class);
+			Activity act = interaction ?
+					this.factory.createInteractionActivityFromLinkId(type, linkId) :
+					this.factory.createActivityFromLinkId(type, linkId);
+			if (coord != null) {
+				act.setCoord(coord);
+			}
+			if (facilityId != null) {
+				act.setFacilityId(facilityId);
+			}
+			if (!interaction) {
+				double startTime = this.in.readDouble();
+				double endTime = this.in.readDouble();
+				double maxDuration = this.in.readDouble();
+				if (!Double.isNaN(startTime)) {
+					act.setStartTime(startTime);
+				}
+				if (!Double.isNaN(endTime)) {
+					act.setEndTime(endTime);
+				}
+				if (!Double.isNaN(maxDuration)) {
+					act.setMaximumDuration(maxDuration);
+				}
+			}
+			readAttributes(act.getAttributes());
+			return act;
+		}
+
+		private Leg readLeg() throws IOException {
+			Leg leg = this.factory.createLeg(readString());
+			leg.setRoutingMode(readString());
+			double departureTime = this.in.readDouble();
+			double travelTime = this.in.readDouble();
+			if (!Double.isNaN(departureTime)) {
+				leg.setDepartureTime(departureTime);
+			}
+			if (!Double.isNaN(travelTime)) {
+				leg.setTravelTime(travelTime);
+			}
+			if (this.in.readBoolean()) {
+				String routeType = readString();
+				Id<Link> startLinkId = readId(Link.class);
+				Id<Link> endLinkId = readId(Link.class);
+				double distance = this.in.readDouble();
+				double routeTravelTime = this.in.readDouble();
+				Id<Vehicle> vehicleId = readId(Vehicle.class);
+				String description = readLongString();
+
+				Route route = this.routeFactories.createRoute(this.routeFactories.getRouteClassForType(routeType), startLinkId, endLinkId);
+				if (description != null) {
+					route.setRouteDescription(description);
+				}
+				route.setDistance(distance);
+				if (Double.isNaN(routeTravelTime)) {
+					route.setTravelTimeUndefined();
+				} else {
+					route.setTravelTime(routeTravelTime);
+				}
+				if (vehicleId != null && route instanceof NetworkRoute networkRoute) {
+					networkRoute.setVehicleId(vehicleId);
+				}
+				leg.setRoute(route);
+			}
+			readAttributes(leg.getAttributes());
+			return leg;
+		}
+	}
+
+}
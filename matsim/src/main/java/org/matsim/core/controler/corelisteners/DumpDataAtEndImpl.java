@@ -156,6 +156,10 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 					case json:
 						file = Controler.DefaultFiles.eventsJson;
 						break;
+					case columnar:
+						IOUtils.copyFile(this.controlerIO.getIterationFilename(iteration, Controler.DefaultFiles.eventsColumnar, ControllerConfigGroup.CompressionType.none),
+								this.controlerIO.getOutputFilename(Controler.DefaultFiles.eventsColumnar, ControllerConfigGroup.CompressionType.none));
+						continue;
 					default:
 						continue;
 				}
@@ -320,6 +324,7 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 
 		final PopulationWriter writer = new PopulationWriter(this.population, this.network);
 		writer.putAttributeConverters(this.attributeConverters);
+		writer.setNumberOfThreads(this.config.global().getNumberOfThreads());
 		writer.write(this.controlerIO.getOutputFilename(Controler.DefaultFiles.population));
 	}
 
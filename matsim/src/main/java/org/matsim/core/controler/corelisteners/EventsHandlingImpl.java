@@ -45,6 +45,7 @@ import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.EventWriter;
 import org.matsim.core.events.algorithms.EventWriterJson;
 import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.columnar.ColumnarEventsWriter;
 
 import java.io.File;
 import org.matsim.core.utils.io.IOUtils;
@@ -109,6 +110,11 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 						this.eventWriters.add(new EventWriterJson(new File(controlerIO.getIterationFilename(event.getIteration(),
 								Controler.DefaultFiles.eventsJson))));
 						break;
+					case columnar:
+						// chunks are compressed internally, the file itself must stay uncompressed for random access
+						this.eventWriters.add(new ColumnarEventsWriter(controlerIO.getIterationFilename(event.getIteration(),
+								Controler.DefaultFiles.eventsColumnar, ControllerConfigGroup.CompressionType.none)));
+						break;
 					default:
 						log.warn("Unknown events file format specified: " + format.toString() + ".");
 				}
@@ -24,19 +24,24 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.analysis.IterationStopWatch;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.controler.AsyncOutputWriter;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.population.PopulationUtils;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
 
 /**
  * {@link org.matsim.core.controler.listener.ControlerListener} that dumps the
@@ -57,6 +62,7 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 	@Inject private Population population;
 	@Inject private IterationStopWatch stopwatch;
 	@Inject private OutputDirectoryHierarchy controlerIO;
+	@Inject private AsyncOutputWriter asyncOutputWriter;
 	private int writePlansInterval ;
 
 	private int writeMoreUntilIteration;
@@ -77,23 +83,48 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 			log.info("dumping plans...");
 			final String inputCRS = config.plans().getInputCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
+			final String filename = controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population);
 
-			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population));
-			}
-			else {
-				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+			// the population changes during the next iterations, so the background writer gets a copy of it
+			asyncOutputWriter.write("plans dump", () -> asyncOutputWriter.isAsync() ? copyPopulation(population) : population, pop -> {
+				if ( inputCRS == null ) {
+					new PopulationWriter(pop, network).write(filename);
+				}
+				else {
+					log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
 
-				final CoordinateTransformation transformation =
-						TransformationFactory.getCoordinateTransformation(
-								internalCRS,
-								inputCRS );
+					final CoordinateTransformation transformation =
+							TransformationFactory.getCoordinateTransformation(
+									internalCRS,
+									inputCRS );
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population));
-			}
-			log.info("finished plans dump.");
+					new PopulationWriter(transformation, pop, network).write(filename);
+				}
+				log.info("finished plans dump.");
+			});
 			stopwatch.endOperation("dump all plans");
 		}
 	}
 
+	private Population copyPopulation(Population population) {
+		Population copy = PopulationUtils.createPopulation(config);
+		copy.setName(population.getName());
+		AttributesUtils.copyAttributesFromTo(population, copy);
+		for (Person person : population.getPersons().values()) {
+			Person personCopy = copy.getFactory().createPerson(person.getId());
+			AttributesUtils.copyAttributesFromTo(person, personCopy);
+			for (Plan plan : person.getPlans()) {
+				Plan planCopy = copy.getFactory().createPlan();
+				// also copies the attributes, including the plan inheritance data if present
+				PopulationUtils.copyFromTo(plan, planCopy, true);
+				personCopy.addPlan(planCopy);
+				if (plan == person.getSelectedPlan()) {
+					personCopy.setSelectedPlan(planCopy);
+				}
+			}
+			copy.addPerson(personCopy);
+		}
+		return copy;
+	}
+
 }
@@ -21,8 +21,10 @@
 package org.matsim.core.controler.corelisteners;
 
 import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.groups.PlansConfigGroup;
 import org.matsim.core.controler.events.ReplanningEvent;
 import org.matsim.core.controler.listener.ReplanningListener;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.replanning.StrategyManager;
 import org.matsim.core.replanning.conflicts.ConflictManager;
@@ -46,11 +48,13 @@ final class PlansReplanningImpl implements PlansReplanning, ReplanningListener {
 	private final Population population;
 	private final StrategyManager strategyManager;
 	private final ConflictManager conflictManager;
+	private final boolean compactPlans;
 
 	@Inject
 	PlansReplanningImpl(StrategyManager strategyManager, ConflictManager conflictManager, Population pop,
-			Provider<ReplanningContext> replanningContextProvider) {
+			Provider<ReplanningContext> replanningContextProvider, PlansConfigGroup plansConfigGroup) {
 		this.population = pop;
+		this.compactPlans = plansConfigGroup.isCompactPlanStorage();
 		this.strategyManager = strategyManager;
 		this.conflictManager = conflictManager;
 		this.replanningContextProvider = replanningContextProvider;
@@ -61,5 +65,9 @@ final class PlansReplanningImpl implements PlansReplanning, ReplanningListener {
 		conflictManager.initializeReplanning(population);
 		strategyManager.run(population, event.getIteration(), replanningContextProvider.get());
 		conflictManager.run(population, event.getIteration());
+		if (this.compactPlans) {
+			// replanning copies plans and their elements as objects, store them compactly again
+			PopulationUtils.compactPlans(population);
+		}
 	}
 }
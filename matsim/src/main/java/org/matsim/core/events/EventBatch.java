@@ -0,0 +1,47 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventBatch.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import org.matsim.api.core.v01.events.Event;
+
+/**
+ * Special event wrapping the events passed to {@link org.matsim.core.api.experimental.events.EventsManager#processEvents(EventArray)},
+ * so that the parallel events managers can pass them through their event queues as a single entry.
+ */
+/*package*/ final class EventBatch extends Event {
+
+	private final EventArray events;
+
+	EventBatch(final EventArray events) {
+		super(events.get(0).getTime());
+		this.events = events;
+	}
+
+	EventArray getEvents() {
+		return this.events;
+	}
+
+	@Override
+	public String getEventType() {
+		return null;
+	}
+
+}
@@ -0,0 +1,113 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventHandlerCall.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Calls one <code>handleEvent</code> method of an {@link EventHandler} interface without going through
+ * {@link Method#invoke} for every event.
+ * <p></p>
+ * {@link #create(Method)} generates the call once per handler method: if the handler interface and the event class
+ * can be accessed from this package, a class implementing this interface is generated with the
+ * {@link LambdaMetafactory}, which the JIT can inline like a hand-written cast and call.  Otherwise, e.g. for private
+ * handler interfaces or classes from another class loader, a {@link MethodHandle} is used, and if even that is not
+ * possible, plain reflection.
+ */
+@FunctionalInterface
+interface EventHandlerCall {
+
+	MethodType CALL_TYPE = MethodType.methodType(void.class, EventHandler.class, Event.class);
+
+	void call(EventHandler handler, Event event);
+
+	static EventHandlerCall create(final Method method) {
+		Class<?> handlerClass = method.getDeclaringClass();
+		Class<?> eventClass = method.getParameterTypes()[0];
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		if (isVisible(handlerClass) && isVisible(eventClass)) {
+			try {
+				lookup.accessClass(handlerClass);
+				lookup.accessClass(eventClass);
+				MethodHandle target = lookup.unreflect(method);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "call", MethodType.methodType(EventHandlerCall.class),
+						CALL_TYPE, target, MethodType.methodType(void.class, handlerClass, eventClass));
+				return (EventHandlerCall) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				// not accessible from here, try the next option
+			}
+		}
+
+		try {
+			method.setAccessible(true);
+			MethodHandle target = lookup.unreflect(method).asType(CALL_TYPE);
+			return (handler, event) -> {
+				try {
+					target.invokeExact(handler, event);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new RuntimeException(e);
+				}
+			};
+		} catch (RuntimeException | IllegalAccessException e) {
+			// not accessible at all, let reflection report the problem when the handler is actually called
+		}
+
+		return (handler, event) -> {
+			try {
+				method.invoke(handler, event);
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				}
+				if (e.getCause() instanceof Error error) {
+					throw error;
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		};
+	}
+
+	/**
+	 * The generated class is defined by the class loader of this package, so it must resolve the given class by name to
+	 * the very same class.
+	 */
+	private static boolean isVisible(final Class<?> klass) {
+		try {
+			return Class.forName(klass.getName(), false, EventHandlerCall.class.getClassLoader()) == klass;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+}
@@ -20,10 +20,10 @@
 
 package org.matsim.core.events;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,16 +31,25 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.matsim.api.core.v01.events.*;
-import org.matsim.api.core.v01.events.handler.*;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
-import org.matsim.core.api.experimental.events.handler.AgentWaitingForPtEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
-import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.BatchEventHandler;
 import org.matsim.core.events.handler.EventHandler;
 
 /**
@@ -51,9 +60,9 @@ import org.matsim.core.events.handler.EventHandler;
  * <li>add method public void handleEvent(MyEvent event) to it</li>
  * <li>ready to go, just implement the interface somewhere and add a
  * HandlerObject with a call to <code>Events.addHandler(HandlerObject)</code></li>
- * <li>(optional) add an appropriate line in callHandlerFast() for speeding
- * up execution!</li>
  * </ol>
+ * The handler methods are not called by reflection, but through an {@link EventHandlerCall} which is generated once
+ * per handler method when the first handler for it is added.
  *
  * @author dstrippgen
  * @author mrieser
@@ -62,15 +71,29 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private static final Logger log = LogManager.getLogger(EventsManagerImpl.class);
 
+	/**
+	 * The event classes whose handlers used to be called directly instead of by reflection.  Exceptions thrown by these
+	 * handlers are passed on as they are, while exceptions and errors thrown by all other handlers are wrapped into a
+	 * RuntimeException naming the handler, as it was done when the latter were called by reflection.
+	 */
+	private static final Set<Class<? extends Event>> UNWRAPPED_EXCEPTION_EVENT_CLASSES = Set.of(LinkLeaveEvent.class,
+			LinkEnterEvent.class, VehicleEntersTrafficEvent.class, VehicleLeavesTrafficEvent.class, PersonArrivalEvent.class,
+			PersonDepartureEvent.class, ActivityEndEvent.class, ActivityStartEvent.class, TransitDriverStartsEvent.class,
+			PersonStuckEvent.class, PersonMoneyEvent.class, AgentWaitingForPtEvent.class, PersonEntersVehicleEvent.class,
+			PersonLeavesVehicleEvent.class, VehicleDepartsAtFacilityEvent.class, VehicleArrivesAtFacilityEvent.class,
+			Event.class);
+
 	static private class HandlerData {
 
 		protected Class<? extends Event> eventClass;
 		protected ArrayList<EventHandler> handlerList = new ArrayList<EventHandler>(5);
-		protected Method method;
+		protected EventHandlerCall call;
+		protected boolean wrapExceptions;
 
-		protected HandlerData(final Class<? extends Event> eventClass, final Method method) {
+		protected HandlerData(final Class<? extends Event> eventClass, final EventHandlerCall call) {
 			this.eventClass = eventClass;
-			this.method = method;
+			this.call = call;
+			this.wrapExceptions = !UNWRAPPED_EXCEPTION_EVENT_CLASSES.contains(eventClass);
 		}
 
 		protected void removeHandler(final EventHandler handler) {
@@ -81,13 +104,17 @@ public final class EventsManagerImpl implements EventsManager {
 	static private class HandlerInfo {
 		protected final Class<? extends Event> eventClass;
 		protected final EventHandler eventHandler;
-		protected final Method method;
+		protected final EventHandlerCall call;
+		protected final boolean wrapExceptions;
+		protected final boolean batchHandler;
 
 		protected HandlerInfo(final Class<? extends Event> eventClass, final EventHandler eventHandler,
-				final Method method) {
+				final EventHandlerCall call, final boolean wrapExceptions) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
-			this.method = method;
+			this.call = call;
+			this.wrapExceptions = wrapExceptions;
+			this.batchHandler = eventHandler instanceof BatchEventHandler;
 		}
 	}
 
@@ -95,6 +122,8 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private final Map<Class<? extends Event>, HandlerInfo[]> cacheHandlers = new ConcurrentHashMap<>(15);
 
+	private BatchEventHandler[] batchHandlers = new BatchEventHandler[0];
+
 	private long counter = 0;
 	private long nextCounterMsg = 1;
 
@@ -115,41 +144,69 @@ public final class EventsManagerImpl implements EventsManager {
 			log.info(" event # " + this.counter);
 		}
 		for (HandlerInfo info : getHandlersForClass( event.getClass() )) {
-			synchronized(info.eventHandler) {
-				if (callHandlerFast(info.eventClass, event, info.eventHandler )) {
-					continue;
+			callHandler(info, event);
+		}
+	}
+
+	/**
+	 * Passes the events one by one to the regular handlers, and then the whole array to the {@link BatchEventHandler}s.
+	 */
+	@Override
+	public void processEvents(final EventArray events) {
+		this.counter += events.size();
+		if (this.counter >= this.nextCounterMsg) {
+			while (this.nextCounterMsg <= this.counter) {
+				this.nextCounterMsg *= 4;
+			}
+			log.info(" event # " + this.counter);
+		}
+		for (int i = 0; i < events.size(); i++) {
+			Event event = events.get(i);
+			for (HandlerInfo info : getHandlersForClass( event.getClass() )) {
+				if (!info.batchHandler) {
+					callHandler(info, event);
 				}
+			}
+		}
+		for (BatchEventHandler handler : this.batchHandlers) {
+			synchronized(handler) {
 				try {
-					info.method.invoke(info.eventHandler, event );
-				} catch (IllegalArgumentException | IllegalAccessException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (InvocationTargetException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
+					handler.handleEvents(events);
+				} catch (RuntimeException e) {
+					throw new RuntimeException("problem invoking EventHandler " + handler.getClass().getCanonicalName() + " for a batch of events", e);
 				}
 			}
 		}
 	}
 
+	private static void callHandler(final HandlerInfo info, final Event event) {
+		synchronized(info.eventHandler) {
+			if (!info.wrapExceptions) {
+				info.call.call(info.eventHandler, event);
+				return;
+			}
+			try {
+				info.call.call(info.eventHandler, event);
+			} catch (RuntimeException | Error e) {
+				throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
+			}
+		}
+	}
+
 
 	@Override
 	public void addHandler (final EventHandler handler) {
-		Set<Class<?>> addedHandlers = new HashSet<>();
-		Class<?> test = handler.getClass();
-		log.info("adding Event-Handler: " + test.getName());
-		do {
-			for (Class<?> theInterface : test.getInterfaces()) {
-				if (EventHandler.class.isAssignableFrom(theInterface)) {
-					Class<? extends EventHandler> eventHandlerInterface = (Class<? extends EventHandler>)theInterface;
-					if (!addedHandlers.contains(theInterface)) {
-						log.info("  " + theInterface.getName());
-						addHandlerInterfaces(handler, eventHandlerInterface);
-						addedHandlers.add(theInterface);
-					}
-				}
-			}
-			test = test.getSuperclass();
-		} while ((EventHandler.class.isAssignableFrom(test)));
+		log.info("adding Event-Handler: " + handler.getClass().getName());
+		for (Class<? extends EventHandler> eventHandlerInterface : getHandlerInterfaces(handler)) {
+			log.info("  " + eventHandlerInterface.getName());
+			addHandlerInterfaces(handler, eventHandlerInterface);
+		}
 
+		if (handler instanceof BatchEventHandler batchHandler) {
+			List<BatchEventHandler> handlers = new ArrayList<>(List.of(this.batchHandlers));
+			handlers.add(batchHandler);
+			this.batchHandlers = handlers.toArray(new BatchEventHandler[0]);
+		}
 		this.cacheHandlers.clear();
 		log.info("");
 	}
@@ -160,9 +217,19 @@ public final class EventsManagerImpl implements EventsManager {
 		for (HandlerData handlerList : this.handlerData) {
 			handlerList.removeHandler(handler);
 		}
+		if (handler instanceof BatchEventHandler) {
+			List<BatchEventHandler> handlers = new ArrayList<>(List.of(this.batchHandlers));
+			handlers.remove(handler);
+			this.batchHandlers = handlers.toArray(new BatchEventHandler[0]);
+		}
 		this.cacheHandlers.clear();
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return getHandlersForClass(eventClass).length > 0;
+	}
+
 	@Override
 	public void resetHandlers(final int iteration) {
 		log.info("resetting Event-Handlers");
@@ -196,22 +263,66 @@ public final class EventsManagerImpl implements EventsManager {
 	}
 
 	private void addHandlerInterfaces(final EventHandler handler, final Class<? extends EventHandler> handlerClass) {
-		Method[] classmethods = handlerClass.getMethods();
-		for (Method method : classmethods) {
-			if (method.getName().equals("handleEvent")) {
-				Class<?>[] params = method.getParameterTypes();
-				if (params.length == 1) {
-					Class<? extends Event> eventClass = params[0].asSubclass(Event.class);
-					log.info("    > " + eventClass.getName());
-					HandlerData dat = findHandler(eventClass);
-					if (dat == null) {
-						dat = new HandlerData(eventClass, method);
-						this.handlerData.add(dat);
-					}
-					dat.handlerList.add(handler);
+		for (Method method : getHandleEventMethods(handlerClass)) {
+			Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+			log.info("    > " + eventClass.getName());
+			HandlerData dat = findHandler(eventClass);
+			if (dat == null) {
+				dat = new HandlerData(eventClass, EventHandlerCall.create(method));
+				this.handlerData.add(dat);
+			}
+			dat.handlerList.add(handler);
+		}
+	}
+
+	/**
+	 * @return the event handler interfaces implemented by the class of the handler and its super classes
+	 */
+	static Set<Class<? extends EventHandler>> getHandlerInterfaces(final EventHandler handler) {
+		Set<Class<? extends EventHandler>> handlerInterfaces = new LinkedHashSet<>();
+		Class<?> test = handler.getClass();
+		do {
+			for (Class<?> theInterface : test.getInterfaces()) {
+				if (EventHandler.class.isAssignableFrom(theInterface)) {
+					handlerInterfaces.add(theInterface.asSubclass(EventHandler.class));
 				}
 			}
+			test = test.getSuperclass();
+		} while ((EventHandler.class.isAssignableFrom(test)));
+		return handlerInterfaces;
+	}
+
+	/**
+	 * @return the <code>handleEvent</code> methods of the handler interface
+	 */
+	static List<Method> getHandleEventMethods(final Class<? extends EventHandler> handlerClass) {
+		List<Method> methods = new ArrayList<>();
+		for (Method method : handlerClass.getMethods()) {
+			if (method.getName().equals("handleEvent") && method.getParameterCount() == 1) {
+				methods.add(method);
+			}
 		}
+		return methods;
+	}
+
+	/**
+	 * @return whether an events manager of this class would call the handler for events of the given class, i.e.
+	 * whether the handler has a <code>handleEvent</code> method for the class or one of its super classes
+	 */
+	static boolean isHandlerFor(final EventHandler handler, final Class<? extends Event> eventClass) {
+		for (Class<? extends EventHandler> handlerInterface : getHandlerInterfaces(handler)) {
+			for (Method method : getHandleEventMethods(handlerInterface)) {
+				// the same search in the class hierarchy as in getHandlersForClass
+				Class<?> klass = eventClass;
+				do {
+					if (method.getParameterTypes()[0] == klass) {
+						return true;
+					}
+					klass = klass.getSuperclass();
+				} while (Event.class.isAssignableFrom(klass));
+			}
+		}
+		return false;
 	}
 
 	private HandlerInfo[] getHandlersForClass(final Class<? extends Event> eventClass) {
@@ -228,7 +339,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(eventKlass);
 			if (dat != null) {
 				for (EventHandler handler : dat.handlerList) {
-					info.add(new HandlerInfo(eventKlass, handler, dat.method));
+					info.add(new HandlerInfo(eventKlass, handler, dat.call, dat.wrapExceptions));
 				}
 			}
 			klass = klass.getSuperclass();
@@ -239,64 +350,6 @@ public final class EventsManagerImpl implements EventsManager {
 		return cache;
 	}
 
-	// this method is purely for performance reasons and need not be implemented
-	private static boolean callHandlerFast(final Class<? extends Event> klass, final Event ev,
-			final EventHandler handler) {
-		if (klass == LinkLeaveEvent.class) {
-			((LinkLeaveEventHandler)handler).handleEvent((LinkLeaveEvent)ev);
-			return true;
-		} else if (klass == LinkEnterEvent.class) {
-			((LinkEnterEventHandler)handler).handleEvent((LinkEnterEvent)ev);
-			return true;
-		} else if (klass == VehicleEntersTrafficEvent.class) {
-			((VehicleEntersTrafficEventHandler) handler).handleEvent((VehicleEntersTrafficEvent) ev);
-			return true;
-		} else if (klass == VehicleLeavesTrafficEvent.class) {
-			((VehicleLeavesTrafficEventHandler) handler).handleEvent((VehicleLeavesTrafficEvent) ev);
-			return true;
-		} else if (klass == PersonArrivalEvent.class) {
-			((PersonArrivalEventHandler)handler).handleEvent((PersonArrivalEvent)ev);
-			return true;
-		} else if (klass == PersonDepartureEvent.class) {
-			((PersonDepartureEventHandler)handler).handleEvent((PersonDepartureEvent)ev);
-			return true;
-		} else if (klass == ActivityEndEvent.class) {
-			((ActivityEndEventHandler)handler).handleEvent((ActivityEndEvent)ev);
-			return true;
-		} else if (klass == ActivityStartEvent.class) {
-			((ActivityStartEventHandler)handler).handleEvent((ActivityStartEvent)ev);
-			return true;
-		} else if (klass == TransitDriverStartsEvent.class) {
-			((TransitDriverStartsEventHandler) handler).handleEvent((TransitDriverStartsEvent) ev);
-			return true;
-		} else if (klass == PersonStuckEvent.class) {
-			((PersonStuckEventHandler)handler).handleEvent((PersonStuckEvent)ev);
-			return true;
-		} else if (klass == PersonMoneyEvent.class) {
-			((PersonMoneyEventHandler)handler).handleEvent((PersonMoneyEvent)ev);
-			return true;
-		} else if (klass == AgentWaitingForPtEvent.class) {
-			((AgentWaitingForPtEventHandler)handler).handleEvent((AgentWaitingForPtEvent)ev);
-			return true;
-		} else if (klass == PersonEntersVehicleEvent.class) {
-			((PersonEntersVehicleEventHandler)handler).handleEvent((PersonEntersVehicleEvent)ev);
-			return true;
-		} else if (klass == PersonLeavesVehicleEvent.class) {
-			((PersonLeavesVehicleEventHandler)handler).handleEvent((PersonLeavesVehicleEvent)ev);
-			return true;
-		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
-			((VehicleDepartsAtFacilityEventHandler) handler).handleEvent((VehicleDepartsAtFacilityEvent) ev);
-			return true;
-		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
-			((VehicleArrivesAtFacilityEventHandler) handler).handleEvent((VehicleArrivesAtFacilityEvent) ev);
-			return true;
-		} else if (klass == Event.class) {
-			((BasicEventHandler)handler).handleEvent(ev);
-			return true;
-		}
-		return false;
-	}
-
 	public void printEventHandlers() {
 		log.info("currently registered event-handlers:");
 		for (HandlerData handlerType : this.handlerData) {
@@ -28,6 +28,7 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.function.Predicate;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.logging.log4j.LogManager;
@@ -86,6 +87,7 @@ public final class EventsReaderJson {
 
 	private final EventsManager events;
 	private final Map<String, CustomEventMapper> customEventMappers = new HashMap<>();
+	private Predicate<String> eventTypeFilter = null;
 
 	public EventsReaderJson(final EventsManager events) {
 		this.events = events;
@@ -95,6 +97,13 @@ public final class EventsReaderJson {
 		this.customEventMappers.put(eventType, cem);
 	}
 
+	/**
+	 * Events whose type does not pass the filter are skipped before their attributes are parsed.
+	 */
+	public void setEventTypeFilter(Predicate<String> eventTypeFilter) {
+		this.eventTypeFilter = eventTypeFilter;
+	}
+
 	void parse(final String filename) throws UncheckedIOException {
 		parse(IOUtils.getBufferedReader(filename), filename);
 	}
@@ -143,6 +152,9 @@ public final class EventsReaderJson {
 
 	private void parseEvent(JsonNode o) {
 		String eventType = o.get("type").asText();
+		if (this.eventTypeFilter != null && !this.eventTypeFilter.test(eventType)) {
+			return;
+		}
 		double time = o.get("time").asDouble();
 
 		// === material related to wait2link below here ===
@@ -57,6 +57,7 @@ import org.xml.sax.SAXException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.Predicate;
 
 public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 
@@ -64,6 +65,7 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 
 	private final EventsManager events;
 	private final Map<String, MatsimEventsReader.CustomEventMapper> customEventMappers = new HashMap<>();
+	private Predicate<String> eventTypeFilter = null;
 
 	public EventsReaderXMLv1(final EventsManager events) {
 		this.events = events;
@@ -74,6 +76,13 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 		customEventMappers.put(eventType, cem);
 	}
 
+	/**
+	 * Events whose type does not pass the filter are skipped before their attributes are parsed.
+	 */
+	public void setEventTypeFilter(Predicate<String> eventTypeFilter) {
+		this.eventTypeFilter = eventTypeFilter;
+	}
+
 	@Override
 	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
 		if (EVENT.equals(name)) {
@@ -96,35 +105,81 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 	}
 
 	private void startEvent(final Attributes atts) {
-		double time = Double.parseDouble(atts.getValue("time"));
 		String eventType = atts.getValue("type");
+		if (this.eventTypeFilter != null && !this.eventTypeFilter.test(eventType)) {
+			return;
+		}
+		double time = Double.parseDouble(atts.getValue("time"));
 
-		// === material related to wait2link below here ===
-		if (LinkLeaveEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new LinkLeaveEvent(time,
-					Id.create(atts.getValue(LinkLeaveEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
-					Id.create(atts.getValue(LinkLeaveEvent.ATTRIBUTE_LINK), Link.class)
-					// had driver id in previous version
-					));
-		} else if (LinkEnterEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new LinkEnterEvent(time,
-					Id.create(atts.getValue(LinkEnterEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
-					Id.create(atts.getValue(LinkEnterEvent.ATTRIBUTE_LINK), Link.class)
-					// had driver id in previous version
-					));
-		} else if (VehicleEntersTrafficEvent.EVENT_TYPE.equals(eventType) ) {
-			// (this is the new version, marked by the new events name)
+		StandardEventType standardEventType = STANDARD_EVENT_TYPES.get(eventType);
+		if (standardEventType != null) {
+			this.events.processEvent(standardEventType.parser().parse(time, atts));
+		} else {
+			GenericEvent event = new GenericEvent(eventType, time);
+			for ( int ii=0; ii<atts.getLength(); ii++ ) {
+				String key = atts.getLocalName(ii);
+				if ( key.equals("time") || key.equals("type") ) {
+					continue;
+				}
+				String value = atts.getValue(ii);
+				event.getAttributes().put(key, value);
+			}
+			MatsimEventsReader.CustomEventMapper cem = customEventMappers.get(eventType);
+			if (cem != null) {
+				this.events.processEvent(cem.apply(event));
+			} else {
+				this.events.processEvent(event);
+			}
+		}
+	}
 
-			this.events.processEvent(new VehicleEntersTrafficEvent(time,
-					Id.create(atts.getValue(HasPersonId.ATTRIBUTE_PERSON), Person.class),
-					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_LINK), Link.class),
-					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
-					atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE),
-					Double.parseDouble( atts.getValue( VehicleEntersTrafficEvent.ATTRIBUTE_POSITION) )
-					));
-		} else if ( "wait2link".equals(eventType) ) {
-			// (this is the old version, marked by the old events name)
+	/**
+	 * @return the class of the events this reader creates for the given type, or <code>null</code> if it creates a
+	 * {@link GenericEvent} (or whatever a custom event mapper makes of it).
+	 */
+	static Class<? extends Event> getStandardEventClass(String eventType) {
+		StandardEventType standardEventType = STANDARD_EVENT_TYPES.get(eventType);
+		return standardEventType == null ? null : standardEventType.eventClass();
+	}
+
+	private interface EventParser {
+		Event parse(double time, Attributes atts);
+	}
+
+	private record StandardEventType(Class<? extends Event> eventClass, EventParser parser) {
+	}
+
+	/**
+	 * The types for which this reader creates specific events, including old names of the types.
+	 */
+	private static final Map<String, StandardEventType> STANDARD_EVENT_TYPES = new HashMap<>();
 
+	private static void addStandardEventType(String eventType, Class<? extends Event> eventClass, EventParser parser) {
+		STANDARD_EVENT_TYPES.put(eventType, new StandardEventType(eventClass, parser));
+	}
+
+	static {
+		// === material related to wait2link below here ===
+		addStandardEventType(LinkLeaveEvent.EVENT_TYPE, LinkLeaveEvent.class, (time, atts) -> new LinkLeaveEvent(time,
+				Id.create(atts.getValue(LinkLeaveEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
+				Id.create(atts.getValue(LinkLeaveEvent.ATTRIBUTE_LINK), Link.class)
+				// had driver id in previous version
+				));
+		addStandardEventType(LinkEnterEvent.EVENT_TYPE, LinkEnterEvent.class, (time, atts) -> new LinkEnterEvent(time,
+				Id.create(atts.getValue(LinkEnterEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
+				Id.create(atts.getValue(LinkEnterEvent.ATTRIBUTE_LINK), Link.class)
+				// had driver id in previous version
+				));
+		// (this is the new version, marked by the new events name)
+		addStandardEventType(VehicleEntersTrafficEvent.EVENT_TYPE, VehicleEntersTrafficEvent.class, (time, atts) -> new VehicleEntersTrafficEvent(time,
+				Id.create(atts.getValue(HasPersonId.ATTRIBUTE_PERSON), Person.class),
+				Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_LINK), Link.class),
+				Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
+				atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE),
+				Double.parseDouble( atts.getValue( VehicleEntersTrafficEvent.ATTRIBUTE_POSITION) )
+				));
+		// (this is the old version, marked by the old events name)
+		addStandardEventType("wait2link", VehicleEntersTrafficEvent.class, (time, atts) -> {
 			// retrofit vehicle Id:
 			Id<Vehicle> vehicleId ;
 			if ( atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_VEHICLE) != null ) {
@@ -140,124 +195,112 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 			} else {
 				position = 1.0 ;
 			}
-			this.events.processEvent(new VehicleEntersTrafficEvent(time,
+			return new VehicleEntersTrafficEvent(time,
 					Id.create(atts.getValue(HasPersonId.ATTRIBUTE_PERSON), Person.class),
 					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_LINK), Link.class),
 					vehicleId,
 					atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE),
 					position
-					));
-		} else if (VehicleLeavesTrafficEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new VehicleLeavesTrafficEvent(time,
-					Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_DRIVER), Person.class),
-					Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_LINK), Link.class),
-					atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE) == null ? null : Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
-					atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_NETWORKMODE),
-					Double.parseDouble( atts.getValue( VehicleLeavesTrafficEvent.ATTRIBUTE_POSITION) )
-					));
-		}
+					);
+		});
+		addStandardEventType(VehicleLeavesTrafficEvent.EVENT_TYPE, VehicleLeavesTrafficEvent.class, (time, atts) -> new VehicleLeavesTrafficEvent(time,
+				Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_DRIVER), Person.class),
+				Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_LINK), Link.class),
+				atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE) == null ? null : Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
+				atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_NETWORKMODE),
+				Double.parseDouble( atts.getValue( VehicleLeavesTrafficEvent.ATTRIBUTE_POSITION) )
+				));
 		// === material related to wait2link above here
-		else if (ActivityEndEvent.EVENT_TYPE.equals(eventType)) {
-			Coord coord = null ;
-			if ( atts.getValue( Event.ATTRIBUTE_X )!=null ) {
-				double xx = Double.parseDouble( atts.getValue( Event.ATTRIBUTE_X ) ) ;
-				double yy = Double.parseDouble( atts.getValue( Event.ATTRIBUTE_Y ) ) ;
-				coord = new Coord( xx, yy ) ;
-			}
-			this.events.processEvent(new ActivityEndEvent(
-					time,
-					Id.create(atts.getValue(HasPersonId.ATTRIBUTE_PERSON), Person.class),
-					Id.create(atts.getValue(HasLinkId.ATTRIBUTE_LINK), Link.class),
-					atts.getValue(HasFacilityId.ATTRIBUTE_FACILITY) == null ? null : Id.create(atts.getValue(HasFacilityId.ATTRIBUTE_FACILITY),
-							ActivityFacility.class),
-					atts.getValue(ActivityEndEvent.ATTRIBUTE_ACTTYPE),
-					coord));
-		} else if (ActivityStartEvent.EVENT_TYPE.equals(eventType)) {
-			Coord coord = null ;
-			if ( atts.getValue( Event.ATTRIBUTE_X )!=null ) {
-				double xx = Double.parseDouble( atts.getValue( Event.ATTRIBUTE_X ) ) ;
-				double yy = Double.parseDouble( atts.getValue( Event.ATTRIBUTE_Y ) ) ;
-				coord = new Coord( xx, yy ) ;
-			}
-			this.events.processEvent(new ActivityStartEvent(
-					time,
-					Id.create(atts.getValue( HasPersonId.ATTRIBUTE_PERSON ), Person.class ),
-					Id.create(atts.getValue( HasLinkId.ATTRIBUTE_LINK ), Link.class ),
-					atts.getValue( HasFacilityId.ATTRIBUTE_FACILITY ) == null ? null : Id.create(atts.getValue(
-							HasFacilityId.ATTRIBUTE_FACILITY ), ActivityFacility.class ),
-					atts.getValue(ActivityStartEvent.ATTRIBUTE_ACTTYPE ),
-					coord ) ) ;
-		} else if (PersonArrivalEvent.EVENT_TYPE.equals(eventType)) {
+		addStandardEventType(ActivityEndEvent.EVENT_TYPE, ActivityEndEvent.class, (time, atts) -> new ActivityEndEvent(
+				time,
+				Id.create(atts.getValue(HasPersonId.ATTRIBUTE_PERSON), Person.class),
+				Id.create(atts.getValue(HasLinkId.ATTRIBUTE_LINK), Link.class),
+				atts.getValue(HasFacilityId.ATTRIBUTE_FACILITY) == null ? null : Id.create(atts.getValue(HasFacilityId.ATTRIBUTE_FACILITY),
+						ActivityFacility.class),
+				atts.getValue(ActivityEndEvent.ATTRIBUTE_ACTTYPE),
+				parseCoord(atts)));
+		addStandardEventType(ActivityStartEvent.EVENT_TYPE, ActivityStartEvent.class, (time, atts) -> new ActivityStartEvent(
+				time,
+				Id.create(atts.getValue( HasPersonId.ATTRIBUTE_PERSON ), Person.class ),
+				Id.create(atts.getValue( HasLinkId.ATTRIBUTE_LINK ), Link.class ),
+				atts.getValue( HasFacilityId.ATTRIBUTE_FACILITY ) == null ? null : Id.create(atts.getValue(
+						HasFacilityId.ATTRIBUTE_FACILITY ), ActivityFacility.class ),
+				atts.getValue(ActivityStartEvent.ATTRIBUTE_ACTTYPE ),
+				parseCoord(atts) ) ) ;
+		addStandardEventType(PersonArrivalEvent.EVENT_TYPE, PersonArrivalEvent.class, (time, atts) -> {
 			String legMode = atts.getValue(PersonArrivalEvent.ATTRIBUTE_LEGMODE);
 			String mode = legMode == null ? null : legMode.intern();
-			this.events.processEvent(new PersonArrivalEvent(time, Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_LINK), Link.class), mode));
-		} else if (PersonDepartureEvent.EVENT_TYPE.equals(eventType)) {
+			return new PersonArrivalEvent(time, Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_LINK), Link.class), mode);
+		});
+		addStandardEventType(PersonDepartureEvent.EVENT_TYPE, PersonDepartureEvent.class, (time, atts) -> {
 			String legMode = atts.getValue(PersonDepartureEvent.ATTRIBUTE_LEGMODE);
 			String canonicalLegMode = legMode == null ? null : legMode.intern();
 			String routingMode = atts.getValue(PersonDepartureEvent.ATTRIBUTE_ROUTING_MODE);
 			String canonicalRoutingMode = routingMode == null ? null : routingMode.intern();
-			this.events.processEvent(new PersonDepartureEvent(time, Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_LINK), Link.class), canonicalLegMode, canonicalRoutingMode));
-		} else if (PersonStuckEvent.EVENT_TYPE.equals(eventType)) {
+			return new PersonDepartureEvent(time, Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_LINK), Link.class), canonicalLegMode, canonicalRoutingMode);
+		});
+		addStandardEventType(PersonStuckEvent.EVENT_TYPE, PersonStuckEvent.class, (time, atts) -> {
 			String legMode = atts.getValue(PersonStuckEvent.ATTRIBUTE_LEGMODE);
 			String mode = legMode == null ? null : legMode.intern();
 			String linkIdString = atts.getValue(PersonStuckEvent.ATTRIBUTE_LINK);
 			Id<Link> linkId = linkIdString == null ? null : Id.create(linkIdString, Link.class); // linkId is optional
-			this.events.processEvent(new PersonStuckEvent(time, Id.create(atts.getValue(PersonStuckEvent.ATTRIBUTE_PERSON), Person.class), linkId, mode));
-		} else if (VehicleAbortsEvent.EVENT_TYPE.equals(eventType)) {
+			return new PersonStuckEvent(time, Id.create(atts.getValue(PersonStuckEvent.ATTRIBUTE_PERSON), Person.class), linkId, mode);
+		});
+		addStandardEventType(VehicleAbortsEvent.EVENT_TYPE, VehicleAbortsEvent.class, (time, atts) -> {
 			String linkIdString = atts.getValue(VehicleAbortsEvent.ATTRIBUTE_LINK);
 			Id<Link> linkId = linkIdString == null ? null : Id.create(linkIdString, Link.class);
-			this.events.processEvent(new VehicleAbortsEvent(time, Id.create(atts.getValue(VehicleAbortsEvent.ATTRIBUTE_VEHICLE), Vehicle.class), linkId));
-		} else if (PersonMoneyEvent.EVENT_TYPE.equals(eventType) || "agentMoney".equals(eventType)) {
-			this.events.processEvent(new PersonMoneyEvent(time, Id.create(atts.getValue(PersonMoneyEvent.ATTRIBUTE_PERSON), Person.class), Double.parseDouble(atts.getValue(PersonMoneyEvent.ATTRIBUTE_AMOUNT)), atts.getValue(PersonMoneyEvent.ATTRIBUTE_PURPOSE), atts.getValue(PersonMoneyEvent.ATTRIBUTE_TRANSACTION_PARTNER), atts.getValue(PersonMoneyEvent.ATTRIBUTE_REFERENCE)));
-		} else if (PersonScoreEvent.EVENT_TYPE.equals(eventType) || "personScore".equals(eventType)) {
-			this.events.processEvent(new PersonScoreEvent(time, Id.create(atts.getValue(PersonScoreEvent.ATTRIBUTE_PERSON), Person.class), Double.parseDouble(atts.getValue(PersonScoreEvent.ATTRIBUTE_AMOUNT)), atts.getValue(PersonScoreEvent.ATTRIBUTE_KIND)));
-		} else if (PersonEntersVehicleEvent.EVENT_TYPE.equals(eventType)) {
+			return new VehicleAbortsEvent(time, Id.create(atts.getValue(VehicleAbortsEvent.ATTRIBUTE_VEHICLE), Vehicle.class), linkId);
+		});
+		EventParser personMoneyParser = (time, atts) -> new PersonMoneyEvent(time, Id.create(atts.getValue(PersonMoneyEvent.ATTRIBUTE_PERSON), Person.class), Double.parseDouble(atts.getValue(PersonMoneyEvent.ATTRIBUTE_AMOUNT)), atts.getValue(PersonMoneyEvent.ATTRIBUTE_PURPOSE), atts.getValue(PersonMoneyEvent.ATTRIBUTE_TRANSACTION_PARTNER), atts.getValue(PersonMoneyEvent.ATTRIBUTE_REFERENCE));
+		addStandardEventType(PersonMoneyEvent.EVENT_TYPE, PersonMoneyEvent.class, personMoneyParser);
+		addStandardEventType("agentMoney", PersonMoneyEvent.class, personMoneyParser);
+		EventParser personScoreParser = (time, atts) -> new PersonScoreEvent(time, Id.create(atts.getValue(PersonScoreEvent.ATTRIBUTE_PERSON), Person.class), Double.parseDouble(atts.getValue(PersonScoreEvent.ATTRIBUTE_AMOUNT)), atts.getValue(PersonScoreEvent.ATTRIBUTE_KIND));
+		addStandardEventType(PersonScoreEvent.EVENT_TYPE, PersonScoreEvent.class, personScoreParser);
+		addStandardEventType("personScore", PersonScoreEvent.class, personScoreParser);
+		addStandardEventType(PersonEntersVehicleEvent.EVENT_TYPE, PersonEntersVehicleEvent.class, (time, atts) -> {
 			String personString = atts.getValue(PersonEntersVehicleEvent.ATTRIBUTE_PERSON);
 			String vehicleString = atts.getValue(PersonEntersVehicleEvent.ATTRIBUTE_VEHICLE);
-			this.events.processEvent(new PersonEntersVehicleEvent(time, Id.create(personString, Person.class), Id.create(vehicleString, Vehicle.class)));
-		} else if (PersonLeavesVehicleEvent.EVENT_TYPE.equals(eventType)) {
+			return new PersonEntersVehicleEvent(time, Id.create(personString, Person.class), Id.create(vehicleString, Vehicle.class));
+		});
+		addStandardEventType(PersonLeavesVehicleEvent.EVENT_TYPE, PersonLeavesVehicleEvent.class, (time, atts) -> {
 			Id<Person> pId = Id.create(atts.getValue(PersonLeavesVehicleEvent.ATTRIBUTE_PERSON), Person.class);
 			Id<Vehicle> vId = Id.create(atts.getValue(PersonLeavesVehicleEvent.ATTRIBUTE_VEHICLE), Vehicle.class);
-			this.events.processEvent(new PersonLeavesVehicleEvent(time, pId, vId));
-		} else if (TeleportationArrivalEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new TeleportationArrivalEvent(
-					time,
-					Id.create(atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_PERSON), Person.class),
-					Double.parseDouble(atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_DISTANCE)), atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_MODE)));
-		} else if (VehicleArrivesAtFacilityEvent.EVENT_TYPE.equals(eventType)) {
+			return new PersonLeavesVehicleEvent(time, pId, vId);
+		});
+		addStandardEventType(TeleportationArrivalEvent.EVENT_TYPE, TeleportationArrivalEvent.class, (time, atts) -> new TeleportationArrivalEvent(
+				time,
+				Id.create(atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_PERSON), Person.class),
+				Double.parseDouble(atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_DISTANCE)), atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_MODE)));
+		addStandardEventType(VehicleArrivesAtFacilityEvent.EVENT_TYPE, VehicleArrivesAtFacilityEvent.class, (time, atts) -> {
 			String delay = atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_DELAY);
-			this.events.processEvent(new VehicleArrivesAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay)));
-		} else if (VehicleDepartsAtFacilityEvent.EVENT_TYPE.equals(eventType)) {
+			return new VehicleArrivesAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay));
+		});
+		addStandardEventType(VehicleDepartsAtFacilityEvent.EVENT_TYPE, VehicleDepartsAtFacilityEvent.class, (time, atts) -> {
 			String delay = atts.getValue(VehicleDepartsAtFacilityEvent.ATTRIBUTE_DELAY);
-			this.events.processEvent(new VehicleDepartsAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay)));
-		} else if (TransitDriverStartsEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new TransitDriverStartsEvent(time, Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DRIVER_ID), Person.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_VEHICLE_ID), Vehicle.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_LINE_ID), TransitLine.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_ROUTE_ID), TransitRoute.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DEPARTURE_ID), Departure.class)));
-		} else if (BoardingDeniedEvent.EVENT_TYPE.equals(eventType)){
+			return new VehicleDepartsAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay));
+		});
+		addStandardEventType(TransitDriverStartsEvent.EVENT_TYPE, TransitDriverStartsEvent.class, (time, atts) -> new TransitDriverStartsEvent(time, Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DRIVER_ID), Person.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_VEHICLE_ID), Vehicle.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_LINE_ID), TransitLine.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_ROUTE_ID), TransitRoute.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DEPARTURE_ID), Departure.class)));
+		addStandardEventType(BoardingDeniedEvent.EVENT_TYPE, BoardingDeniedEvent.class, (time, atts) -> {
 			Id<Person> personId = Id.create(atts.getValue(BoardingDeniedEvent.ATTRIBUTE_PERSON_ID), Person.class);
 			Id<Vehicle> vehicleId = Id.create(atts.getValue(BoardingDeniedEvent.ATTRIBUTE_VEHICLE_ID), Vehicle.class);
-			this.events.processEvent(new BoardingDeniedEvent(time, personId, vehicleId));
-		} else if (AgentWaitingForPtEvent.EVENT_TYPE.equals(eventType)){
+			return new BoardingDeniedEvent(time, personId, vehicleId);
+		});
+		addStandardEventType(AgentWaitingForPtEvent.EVENT_TYPE, AgentWaitingForPtEvent.class, (time, atts) -> {
 			Id<Person> agentId = Id.create(atts.getValue(AgentWaitingForPtEvent.ATTRIBUTE_AGENT), Person.class);
 			Id<TransitStopFacility> waitStopId = Id.create(atts.getValue(AgentWaitingForPtEvent.ATTRIBUTE_WAITSTOP), TransitStopFacility.class);
 			Id<TransitStopFacility> destinationStopId = Id.create(atts.getValue(AgentWaitingForPtEvent.ATTRIBUTE_DESTINATIONSTOP), TransitStopFacility.class);
-			this.events.processEvent(new AgentWaitingForPtEvent(time, agentId, waitStopId, destinationStopId));
-		} else {
-			GenericEvent event = new GenericEvent(eventType, time);
-			for ( int ii=0; ii<atts.getLength(); ii++ ) {
-				String key = atts.getLocalName(ii);
-				if ( key.equals("time") || key.equals("type") ) {
-					continue;
-				}
-				String value = atts.getValue(ii);
-				event.getAttributes().put(key, value);
-			}
-			MatsimEventsReader.CustomEventMapper cem = customEventMappers.get(eventType);
-			if (cem != null) {
-				this.events.processEvent(cem.apply(event));
-			} else {
-				this.events.processEvent(event);
-			}
+			return new AgentWaitingForPtEvent(time, agentId, waitStopId, destinationStopId);
+		});
+	}
+
+	private static Coord parseCoord(Attributes atts) {
+		Coord coord = null ;
+		if ( atts.getValue( Event.ATTRIBUTE_X )!=null ) {
+			double xx = Double.parseDouble( atts.getValue( Event.ATTRIBUTE_X ) ) ;
+			double yy = Double.parseDouble( atts.getValue( Event.ATTRIBUTE_Y ) ) ;
+			coord = new Coord( xx, yy ) ;
 		}
+		return coord;
 	}
 
 }
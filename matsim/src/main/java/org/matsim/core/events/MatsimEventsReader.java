@@ -22,10 +22,12 @@ package org.matsim.core.events;
 
 import java.io.InputStream;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.Predicate;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -34,6 +36,7 @@ import org.matsim.api.core.v01.events.GenericEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.MatsimReader;
 import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.events.columnar.ColumnarEventsReader;
 import org.matsim.core.utils.io.MatsimXmlParser;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -50,6 +53,7 @@ public final class MatsimEventsReader implements MatsimReader {
 	private final EventsManager events;
 
 	private final Map<String, CustomEventMapper> customEventMappers = new LinkedHashMap<>();
+	private boolean skipUnhandledEvents = false;
 
 	public interface CustomEventMapper {
 		Event apply(GenericEvent event);
@@ -68,6 +72,32 @@ public final class MatsimEventsReader implements MatsimReader {
 		this.events = events;
 	}
 
+	/**
+	 * If set, events which no handler of the events manager is interested in are skipped before they are parsed,
+	 * see {@link EventsManager#hasHandlerFor(Class)}.  This is only useful if the handlers do not change while
+	 * reading.  Events with a custom event mapper are always parsed, as the class they are mapped to is unknown.
+	 */
+	public void setSkipUnhandledEvents(boolean skipUnhandledEvents) {
+		this.skipUnhandledEvents = skipUnhandledEvents;
+	}
+
+	private Predicate<String> createEventTypeFilter() {
+		if (!this.skipUnhandledEvents) {
+			return null;
+		}
+		Map<String, Boolean> handledByType = new HashMap<>();
+		return eventType -> handledByType.computeIfAbsent(eventType, type -> this.customEventMappers.containsKey(type) ||
+				this.events.hasHandlerFor(getEventClass(type)));
+	}
+
+	/**
+	 * The events readers of all formats create the same events as the xml reader.
+	 */
+	private static Class<? extends Event> getEventClass(String eventType) {
+		Class<? extends Event> eventClass = EventsReaderXMLv1.getStandardEventClass(eventType);
+		return eventClass == null ? GenericEvent.class : eventClass;
+	}
+
 	/**
 	 * Parses the specified events file.
 	 *
@@ -77,11 +107,17 @@ public final class MatsimEventsReader implements MatsimReader {
 	public void readFile(final String filename) {
 		String lcFilename = filename.toLowerCase(Locale.ROOT);
 		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz") || lcFilename.endsWith(".xml.zst") || lcFilename.endsWith(".xml.lz4")) {
-			new XmlEventsReader(this.events, this.customEventMappers).readFile(filename );
+			new XmlEventsReader(this.events, this.customEventMappers, createEventTypeFilter()).readFile(filename );
 		} else if (lcFilename.endsWith(".ndjson") || lcFilename.endsWith(".ndjson.gz") || lcFilename.endsWith(".ndjson.zst")) {
 			EventsReaderJson reader = new EventsReaderJson(this.events);
 			customEventMappers.forEach(reader::addCustomEventMapper);
+			reader.setEventTypeFilter(createEventTypeFilter());
 			reader.parse(filename);
+		} else if (lcFilename.endsWith(".mcev")) {
+			ColumnarEventsReader reader = new ColumnarEventsReader(this.events);
+			customEventMappers.forEach(reader::addCustomEventMapper);
+			reader.setEventTypeFilter(createEventTypeFilter());
+			reader.readFile(filename);
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -91,13 +127,13 @@ public final class MatsimEventsReader implements MatsimReader {
 
 	@Deprecated // use readStream(InputStream, EventsFileFormat)
 	public void readStream(final InputStream stream) {
-		new XmlEventsReader(this.events, this.customEventMappers).parse(stream );
+		new XmlEventsReader(this.events, this.customEventMappers, createEventTypeFilter()).parse(stream );
 	}
 
 	public void readStream(final InputStream stream, final ControllerConfigGroup.EventsFileFormat format) {
 		switch (format) {
 			case xml:
-				new XmlEventsReader(this.events, this.customEventMappers).parse(stream);
+				new XmlEventsReader(this.events, this.customEventMappers, createEventTypeFilter()).parse(stream);
 				break;
 			case pb:
 				throw new UnsupportedOperationException(
@@ -105,19 +141,29 @@ public final class MatsimEventsReader implements MatsimReader {
 			case json:
 				EventsReaderJson reader = new EventsReaderJson(this.events);
 				customEventMappers.forEach(reader::addCustomEventMapper);
+				reader.setEventTypeFilter(createEventTypeFilter());
 				reader.parse(stream);
 				break;
+			case columnar:
+				throw new UnsupportedOperationException(
+						"Columnar events need random access and cannot be read from a stream");
 		}
 	}
 
 	@Override
 	public void readURL( final URL url ) {
 		if (url.getFile().contains(".xml")) {
-			new XmlEventsReader( this.events, this.customEventMappers).readURL( url );
+			new XmlEventsReader(this.events, this.customEventMappers, createEventTypeFilter()).readURL( url );
 		} else if (url.getFile().contains(".ndjson")) {
 			EventsReaderJson reader = new EventsReaderJson(this.events);
 			customEventMappers.forEach(reader::addCustomEventMapper);
+			reader.setEventTypeFilter(createEventTypeFilter());
 			reader.parse(url);
+		} else if (url.getFile().endsWith(".mcev")) {
+			ColumnarEventsReader reader = new ColumnarEventsReader(this.events);
+			customEventMappers.forEach(reader::addCustomEventMapper);
+			reader.setEventTypeFilter(createEventTypeFilter());
+			reader.readURL(url);
 		}
 	}
 
@@ -125,14 +171,16 @@ public final class MatsimEventsReader implements MatsimReader {
 
 		final EventsManager events;
 		private final static String EVENTS_V1 = "events_v1.dtd";
-		private MatsimXmlEventsParser delegate = null;
+		private EventsReaderXMLv1 delegate = null;
 
 		private final Map<String, CustomEventMapper> map ;
+		private final Predicate<String> eventTypeFilter;
 
-		private XmlEventsReader( final EventsManager events, Map<String, CustomEventMapper> map ) {
+		private XmlEventsReader( final EventsManager events, Map<String, CustomEventMapper> map, Predicate<String> eventTypeFilter ) {
 			super(ValidationType.NO_VALIDATION);
 			this.events = events;
 			this.map = map;
+			this.eventTypeFilter = eventTypeFilter;
 			this.setValidating(false); // events-files have no DTD, thus they cannot validate
 			setDoctype("events_v1.dtd"); // manually set a doctype, otherwise delegate would not be initialized
 		}
@@ -165,6 +213,7 @@ public final class MatsimEventsReader implements MatsimReader {
 			if (EVENTS_V1.equals(doctype)) {
 				this.delegate = new EventsReaderXMLv1(this.events);
 				map.forEach(delegate::addCustomEventMapper);
+				delegate.setEventTypeFilter(eventTypeFilter);
 				log.info("using events_v1-reader.");
 			} else {
 				throw new IllegalArgumentException("Doctype \"" + doctype + "\" not known.");
@@ -185,6 +185,16 @@ public final class ParallelEventsManager implements EventsManager {
 		this.eventsHandlers.remove(handler);
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		for (EventHandler handler : this.eventsHandlers) {
+			if (EventsManagerImpl.isHandlerFor(handler, eventClass)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void resetHandlers(int iteration) {
 		for (EventsManager eventsManager : this.eventsManagers) {
@@ -374,9 +384,7 @@ public final class ParallelEventsManager implements EventsManager {
 					EventArray events = this.eventsQueue.poll(50, TimeUnit.MICROSECONDS);
 
 					if (events != null) {
-						for (int i = 0; i < events.size(); i++) {
-							this.eventsManager.processEvent(events.get(i));
-						}
+						this.eventsManager.processEvents(events);
 					}
 
 					// If flush is over, then try to wake up distributor
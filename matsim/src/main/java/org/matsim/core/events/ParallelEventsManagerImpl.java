@@ -121,6 +121,19 @@ public final class ParallelEventsManagerImpl implements EventsManager {
 		}
 	}
 
+	@Override
+	public void processEvents(final EventArray events) {
+		if (parallelMode) {
+			for (int i = 0; i < eventsProcessThread.length; i++) {
+				eventsProcessThread[i].processEvents(events);
+			}
+		} else {
+			for (int i = 0; i < eventsProcessThread.length; i++) {
+				eventsProcessThread[i].getEvents().processEvents(events);
+			}
+		}
+	}
+
 	@Override
 	public void addHandler(final EventHandler handler) {
 		synchronized (this) {
@@ -148,6 +161,18 @@ public final class ParallelEventsManagerImpl implements EventsManager {
 		}
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		synchronized (this) {
+			for (EventsManagerImpl eventsManager : events) {
+				if (eventsManager.hasHandlerFor(eventClass)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
 	private void printEventHandlers() {
 		synchronized (this) {
 			for (int i = 0; i < events.length; i++) {
@@ -39,6 +39,7 @@ import org.matsim.core.gbl.Gbl;
 	private final BlockingQueue<Event> eventQueue;
 	private final EventsManager events;
 	private final int preInputBufferMaxLength;
+	private int preInputBufferEvents = 0;
 
 	public ProcessEventThread(
 			final EventsManager events,
@@ -55,7 +56,22 @@ import org.matsim.core.gbl.Gbl;
 
 		// second approach, lesser locking => faster on Satawal
 		preInputBuffer.add(event);
-		if (preInputBuffer.size() > preInputBufferMaxLength) {
+		preInputBufferEvents++;
+		if (preInputBufferEvents > preInputBufferMaxLength) {
+			emptyPreBuffer();
+		}
+	}
+
+	/**
+	 * Passes the events as a single entry through the queue, so that they can be processed as a batch.
+	 */
+	public synchronized void processEvents(final EventArray events) {
+		if (events.size() == 0) {
+			return;
+		}
+		preInputBuffer.add(new EventBatch(events));
+		preInputBufferEvents += events.size();
+		if (preInputBufferEvents > preInputBufferMaxLength) {
 			emptyPreBuffer();
 		}
 	}
@@ -63,6 +79,7 @@ import org.matsim.core.gbl.Gbl;
 	private void emptyPreBuffer() {
 		eventQueue.addAll( preInputBuffer );
 		preInputBuffer.clear();
+		preInputBufferEvents = 0;
 	}
 
 	@Override
@@ -88,7 +105,11 @@ import org.matsim.core.gbl.Gbl;
 						return;
 					}
 				}
-				getEvents().processEvent(nextEvent);
+				if (nextEvent instanceof EventBatch batch) {
+					getEvents().processEvents(batch.getEvents());
+				} else {
+					getEvents().processEvent(nextEvent);
+				}
 			}
 		}
 		catch ( InterruptedException e ) {
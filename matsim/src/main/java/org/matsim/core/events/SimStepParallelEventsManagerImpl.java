@@ -105,6 +105,21 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 		}
 	}
 
+	@Override
+	public void processEvents(final EventArray events) {
+		if (events.size() == 0) {
+			return;
+		}
+		this.counter.addAndGet(events.size());
+
+		if (parallelMode) {
+			// pass the whole batch as a single entry through the event queues
+			runnables[0].processEvent(new EventBatch(events));
+		} else {
+			delegate.processEvents(events);
+		}
+	}
+
 	@Override
 	public void addHandler(final EventHandler handler) {
 		delegate.addHandler(handler);
@@ -120,6 +135,11 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 		for (EventsManager eventsManager : eventsManagers) eventsManager.removeHandler(handler);
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return delegate.hasHandlerFor(eventClass);
+	}
+
 	@Override
 	public void resetHandlers(int iteration) {
 		delegate.resetHandlers(iteration);
@@ -249,6 +269,8 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 
 	private static class ProcessEventsRunnable implements Runnable {
 
+		private static final int MAX_BATCH_SIZE = 1024;
+
 		private final EventsManager eventsManager;
 		private final ProcessedEventsChecker processedEventsChecker;
 		private final CyclicBarrier waitForEmptyQueuesBarrier;
@@ -285,17 +307,29 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 				while (true) {
 					Event event = ((LinkedBlockingQueue<Event>) eventsQueue).take();
 
+					/*
+					 * If more single events are already waiting in the queue, they are taken together
+					 * with this one and processed as a batch, so that BatchEventHandlers get them
+					 * in one call. This does not change the order in which the events are processed.
+					 */
+					if (isSingleEvent(event) && isSingleEvent(eventsQueue.peek())) {
+						EventArray events = new EventArray();
+						events.add(event);
+						while (events.size() < MAX_BATCH_SIZE && isSingleEvent(eventsQueue.peek())) {
+							events.add(eventsQueue.poll());
+						}
+						event = new EventBatch(events);
+					}
+
 					/*
 					 * Check whether the events are ordered chronologically.
 					 */
-					if (event.getTime() < this.lastEventTime) {
-						throw new RuntimeException("Events in the queue are not ordered chronologically. " +
-								"This should never happen. Is the SimTimeStepParallelEventsManager registered " +
-								"as a MobsimAfterSimStepListener? LastEventTime = " + this.lastEventTime +
-							  " currentEvent.time = " + event.getTime() + " currentEvent.type = " + event.getEventType() +
-							  " full event: " + event.toString());
+					if (event instanceof EventBatch batch) {
+						for (int i = 0; i < batch.getEvents().size(); i++) {
+							checkTime(batch.getEvents().get(i));
+						}
 					} else {
-						this.lastEventTime = event.getTime();
+						checkTime(event);
 					}
 
 					if (event instanceof LastEventOfSimStep) {
@@ -343,7 +377,11 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 							break;
 						}
 					}
-					eventsManager.processEvent(event);
+					if (event instanceof EventBatch batch) {
+						eventsManager.processEvents(batch.getEvents());
+					} else {
+						eventsManager.processEvent(event);
+					}
 				}
 				iterationEndBarrier.await();
 			} catch (InterruptedException | BrokenBarrierException e) {
@@ -352,6 +390,28 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
             Gbl.printCurrentThreadCpuTime();
 		}
 
+		/**
+		 * @return whether the event can be put into a batch, i.e. whether it is neither a batch already nor one of the
+		 * events marking the end of a sim step or iteration.  Only this thread takes events from its queue, so
+		 * an event seen by peek() is still there when it is polled.
+		 */
+		private static boolean isSingleEvent(Event event) {
+			return event != null && !(event instanceof EventBatch) && !(event instanceof LastEventOfSimStep)
+					&& !(event instanceof LastEventOfIteration);
+		}
+
+		private void checkTime(Event event) {
+			if (event.getTime() < this.lastEventTime) {
+				throw new RuntimeException("Events in the queue are not ordered chronologically. " +
+						"This should never happen. Is the SimTimeStepParallelEventsManager registered " +
+						"as a MobsimAfterSimStepListener? LastEventTime = " + this.lastEventTime +
+					  " currentEvent.time = " + event.getTime() + " currentEvent.type = " + event.getEventType() +
+					  " full event: " + event.toString());
+			} else {
+				this.lastEventTime = event.getTime();
+			}
+		}
+
 		public void processEvent(Event event) {
 			this.eventsQueue.add(event);
 		}
@@ -70,6 +70,7 @@ import org.matsim.core.api.experimental.events.handler.TeleportationArrivalEvent
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.BatchEventHandler;
 import org.matsim.core.events.handler.EventHandler;
 import org.matsim.core.utils.misc.ClassUtils;
 
@@ -183,6 +184,27 @@ public final class SingleHandlerEventsManager implements EventsManager {
 		computeEvent(event);
 	}
 
+	@Override
+	public void processEvents(final EventArray events) {
+
+		if (!this.isActive) return;
+
+		if (this.eventHandler instanceof BatchEventHandler batchEventHandler) {
+			this.counter += events.size();
+			if (this.counter >= this.nextCounterMsg) {
+				while (this.nextCounterMsg <= this.counter) {
+					this.nextCounterMsg *= 4;
+				}
+				log.info(" event # " + this.counter);
+			}
+			batchEventHandler.handleEvents(events);
+		} else {
+			for (int i = 0; i < events.size(); i++) {
+				processEvent(events.get(i));
+			}
+		}
+	}
+
 	@Override
 	public void addHandler(final EventHandler handler) {
 		throw new UnsupportedOperationException("This implementation supports only a single EventHandler which "
@@ -0,0 +1,352 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * XmlEventEncoder.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import org.matsim.api.core.v01.BasicLocation;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.HasFacilityId;
+import org.matsim.api.core.v01.events.HasLinkId;
+import org.matsim.api.core.v01.events.HasPersonId;
+import org.matsim.api.core.v01.events.HasVehicleId;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes events into the lines of an xml events file, directly as UTF-8 bytes into a reusable buffer.
+ * <p></p>
+ * The most frequent core event types are written attribute by attribute, with pre-encoded attribute names, cached
+ * bytes of ids and strings, and doubles formatted without creating Strings where possible.  All other events, and
+ * subclasses of the core events, are written from {@link Event#getAttributes()}.  In both cases, the output is exactly
+ * the same as if all events were written from their attributes.
+ */
+final class XmlEventEncoder {
+
+	private static final int MAX_CACHED_STRINGS = 1 << 14;
+
+	private static final byte[] EVENT_START = ascii("\t<event ");
+	private static final byte[] EVENT_END = ascii(" />\n");
+	private static final byte[] VALUE_END = ascii("\" ");
+	private static final byte[] NULL = ascii("null");
+
+	private static final byte[] TIME = attributeName(Event.ATTRIBUTE_TIME);
+	private static final byte[] TYPE = attributeName(Event.ATTRIBUTE_TYPE);
+	private static final byte[] PERSON = attributeName(HasPersonId.ATTRIBUTE_PERSON);
+	private static final byte[] FACILITY = attributeName(HasFacilityId.ATTRIBUTE_FACILITY);
+	private static final byte[] LINK = attributeName(HasLinkId.ATTRIBUTE_LINK);
+	private static final byte[] X = attributeName(Event.ATTRIBUTE_X);
+	private static final byte[] Y = attributeName(Event.ATTRIBUTE_Y);
+	private static final byte[] VEHICLE = attributeName(HasVehicleId.ATTRIBUTE_VEHICLE);
+	private static final byte[] NETWORK_MODE = attributeName(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE);
+	private static final byte[] POSITION = attributeName(VehicleEntersTrafficEvent.ATTRIBUTE_POSITION);
+	private static final byte[] LEG_MODE = attributeName(PersonDepartureEvent.ATTRIBUTE_LEGMODE);
+	private static final byte[] ROUTING_MODE = attributeName(PersonDepartureEvent.ATTRIBUTE_ROUTING_MODE);
+	private static final byte[] ACT_TYPE = attributeName(ActivityStartEvent.ATTRIBUTE_ACTTYPE);
+
+	private byte[] buffer = new byte[1 << 17];
+	private int size = 0;
+
+	private final IdCache personIds = new IdCache();
+	private final IdCache facilityIds = new IdCache();
+	private final IdCache linkIds = new IdCache();
+	private final IdCache vehicleIds = new IdCache();
+	private final Map<String, byte[]> strings = new HashMap<>();
+	private final Map<String, byte[]> attributeNames = new HashMap<>();
+
+	void encode(Event event) {
+		Class<? extends Event> clazz = event.getClass();
+		if (clazz == LinkEnterEvent.class || clazz == LinkLeaveEvent.class
+				|| clazz == PersonEntersVehicleEvent.class || clazz == PersonLeavesVehicleEvent.class) {
+			writeCommonAttributes(event);
+		} else if (clazz == VehicleEntersTrafficEvent.class) {
+			VehicleEntersTrafficEvent e = (VehicleEntersTrafficEvent) event;
+			writeCommonAttributes(event);
+			writeTrafficAttributes(e.getNetworkMode(), e.getRelativePositionOnLink());
+		} else if (clazz == VehicleLeavesTrafficEvent.class) {
+			VehicleLeavesTrafficEvent e = (VehicleLeavesTrafficEvent) event;
+			writeCommonAttributes(event);
+			writeTrafficAttributes(e.getNetworkMode(), e.getRelativePositionOnLink());
+		} else if (clazz == PersonDepartureEvent.class) {
+			PersonDepartureEvent e = (PersonDepartureEvent) event;
+			writeCommonAttributes(event);
+			if (e.getLegMode() != null) {
+				writeStringAttribute(LEG_MODE, e.getLegMode());
+			}
+			if (e.getRoutingMode() != null) {
+				writeStringAttribute(ROUTING_MODE, e.getRoutingMode());
+			}
+		} else if (clazz == PersonArrivalEvent.class) {
+			PersonArrivalEvent e = (PersonArrivalEvent) event;
+			writeCommonAttributes(event);
+			if (e.getLegMode() != null) {
+				writeStringAttribute(LEG_MODE, e.getLegMode());
+			}
+		} else if (clazz == ActivityStartEvent.class) {
+			writeCommonAttributes(event);
+			writeStringAttribute(ACT_TYPE, ((ActivityStartEvent) event).getActType());
+		} else if (clazz == ActivityEndEvent.class) {
+			writeCommonAttributes(event);
+			writeStringAttribute(ACT_TYPE, ((ActivityEndEvent) event).getActType());
+		} else {
+			writeAttributes(event.getAttributes());
+		}
+		write(EVENT_END);
+	}
+
+	/**
+	 * Writes the attributes which {@link Event#getAttributes()} derives from the implemented interfaces, in the same
+	 * order.
+	 */
+	private void writeCommonAttributes(Event event) {
+		write(EVENT_START);
+		write(TIME);
+		writeDouble(event.getTime());
+		write(VALUE_END);
+		writeStringAttribute(TYPE, event.getEventType());
+		if (event instanceof HasPersonId hasPersonId && hasPersonId.getPersonId() != null) {
+			writeIdAttribute(PERSON, this.personIds, hasPersonId.getPersonId());
+		}
+		if (event instanceof HasFacilityId hasFacilityId && hasFacilityId.getFacilityId() != null) {
+			writeIdAttribute(FACILITY, this.facilityIds, hasFacilityId.getFacilityId());
+		}
+		if (event instanceof HasLinkId hasLinkId && hasLinkId.getLinkId() != null) {
+			writeIdAttribute(LINK, this.linkIds, hasLinkId.getLinkId());
+		}
+		if (event instanceof BasicLocation basicLocation && basicLocation.getCoord() != null) {
+			Coord coord = basicLocation.getCoord();
+			write(X);
+			writeDouble(coord.getX());
+			write(VALUE_END);
+			write(Y);
+			writeDouble(coord.getY());
+			write(VALUE_END);
+		}
+		if (event instanceof HasVehicleId hasVehicleId && hasVehicleId.getVehicleId() != null) {
+			writeIdAttribute(VEHICLE, this.vehicleIds, hasVehicleId.getVehicleId());
+		}
+	}
+
+	private void writeTrafficAttributes(String networkMode, double relativePosition) {
+		if (networkMode != null) {
+			writeStringAttribute(NETWORK_MODE, networkMode);
+		}
+		write(POSITION);
+		writeDouble(relativePosition);
+		write(VALUE_END);
+	}
+
+	private void writeAttributes(Map<String, String> attributes) {
+		write(EVENT_START);
+		for (Map.Entry<String, String> entry : attributes.entrySet()) {
+			byte[] name = this.attributeNames.get(entry.getKey());
+			if (name == null) {
+				name = utf8(entry.getKey() + "=\"");
+				if (this.attributeNames.size() < MAX_CACHED_STRINGS) {
+					this.attributeNames.put(entry.getKey(), name);
+				}
+			}
+			write(name);
+			writeString(entry.getValue());
+			write(VALUE_END);
+		}
+	}
+
+	private void writeStringAttribute(byte[] name, String value) {
+		write(name);
+		writeString(value);
+		write(VALUE_END);
+	}
+
+	private void writeIdAttribute(byte[] name, IdCache cache, Id<?> id) {
+		write(name);
+		write(cache.get(id));
+		write(VALUE_END);
+	}
+
+	/**
+	 * Writes the escaped value, or "null" as a StringBuilder would.
+	 */
+	private void writeString(String value) {
+		if (value == null) {
+			write(NULL);
+			return;
+		}
+		byte[] bytes = this.strings.get(value);
+		if (bytes == null) {
+			bytes = encodeAttributeValue(value);
+			if (this.strings.size() < MAX_CACHED_STRINGS) {
+				this.strings.put(value, bytes);
+			}
+		}
+		write(bytes);
+	}
+
+	/**
+	 * Writes the same as {@link Double#toString(double)}.  Integral values between -10^7 and 10^7, e.g. most times,
+	 * are written without creating a String.
+	 */
+	void writeDouble(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e7 && Double.doubleToRawLongBits(value) != Long.MIN_VALUE) {
+			writeLong((long) value);
+			ensureCapacity(2);
+			this.buffer[this.size++] = '.';
+			this.buffer[this.size++] = '0';
+		} else {
+			String s = Double.toString(value);
+			ensureCapacity(s.length());
+			for (int i = 0; i < s.length(); i++) {
+				this.buffer[this.size++] = (byte) s.charAt(i);
+			}
+		}
+	}
+
+	private void writeLong(long value) {
+		ensureCapacity(20);
+		if (value < 0) {
+			this.buffer[this.size++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long v = value; v >= 10; v /= 10) {
+			digits++;
+		}
+		int pos = this.size + digits;
+		do {
+			this.buffer[--pos] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		this.size += digits;
+	}
+
+	void writeAscii(String s) {
+		write(ascii(s));
+	}
+
+	private void write(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, this.buffer, this.size, bytes.length);
+		this.size += bytes.length;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Writes the encoded bytes to the stream, and clears the buffer.
+	 */
+	void writeTo(OutputStream out) throws IOException {
+		try {
+			out.write(this.buffer, 0, this.size);
+		} finally {
+			this.size = 0;
+		}
+	}
+
+	private void ensureCapacity(int additional) {
+		if (this.size + additional > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + additional));
+		}
+	}
+
+	private static byte[] attributeName(String name) {
+		return ascii(name + "=\"");
+	}
+
+	private static byte[] ascii(String s) {
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static byte[] utf8(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Encodes the characters which have a special meaning in xml.
+	 *
+	 * @see <a href="http://www.w3.org/International/questions/qa-escapes#use">http://www.w3.org/International/questions/qa-escapes#use</a>
+	 */
+	private static byte[] encodeAttributeValue(String value) {
+		StringBuilder sb = null;
+		for (int pos = 0; pos < value.length(); pos++) {
+			char ch = value.charAt(pos);
+			String replacement = switch (ch) {
+				case '<' -> "&lt;";
+				case '>' -> "&gt;";
+				case '"' -> "&quot;";
+				case '&' -> "&amp;";
+				default -> null;
+			};
+			if (replacement != null && sb == null) {
+				sb = new StringBuilder(value.length() + 30);
+				sb.append(value, 0, pos);
+			}
+			if (sb != null) {
+				if (replacement != null) {
+					sb.append(replacement);
+				} else {
+					sb.append(ch);
+				}
+			}
+		}
+		return utf8(sb == null ? value : sb.toString());
+	}
+
+	/**
+	 * The encoded bytes of ids, by their index.  Only used for one type of ids, so that the indices are unique.
+	 */
+	private static final class IdCache {
+		private Id<?>[] ids = new Id<?>[1024];
+		private byte[][] bytes = new byte[1024][];
+
+		byte[] get(Id<?> id) {
+			int index = id.index();
+			if (index >= this.ids.length) {
+				int length = Math.max(this.ids.length * 2, index + 1);
+				this.ids = Arrays.copyOf(this.ids, length);
+				this.bytes = Arrays.copyOf(this.bytes, length);
+			}
+			if (this.ids[index] != id) {
+				// ids are unique objects, so a different object means a different id of the same index
+				this.ids[index] = id;
+				this.bytes[index] = encodeAttributeValue(id.toString());
+			}
+			return this.bytes[index];
+		}
+	}
+
+}
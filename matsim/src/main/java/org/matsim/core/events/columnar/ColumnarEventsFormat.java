@@ -0,0 +1,191 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarEventsFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.columnar;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Layout of the columnar events files and the helpers to encode them.
+ * <p></p>
+ * A file starts with {@link #MAGIC} and {@link #VERSION}, followed by the chunks and a footer.  The last
+ * {@link #TRAILER_SIZE} bytes point to the footer: its offset, compressed and uncompressed length, and the magic
+ * number again.  Everything except these fixed-size numbers is written with variable length integers and compressed
+ * with zstd.
+ * <p></p>
+ * A chunk holds the consecutive events of one time window (or less, if there are many events).  Its events are split
+ * by event type into segments, so a reader only needs to decompress the segments of the types it is interested in.
+ * Every segment stores its events column by column:
+ * <ul>
+ *     <li>the position of each event within the chunk, to restore the original order of the events across segments,</li>
+ *     <li>the time, as delta to the previous event if all times are integers, otherwise as plain doubles,</li>
+ *     <li>the person, vehicle and link of the event, as index into the dictionary of the file,</li>
+ *     <li>for every event, which of the person, vehicle and link attributes the event has (see {@link #PERSON_PRESENT}),
+ *     as the columns also hold ids that an event only provides through {@link org.matsim.api.core.v01.events.HasPersonId}
+ *     and the like,</li>
+ *     <li>all other attributes, also as index into the dictionary.</li>
+ * </ul>
+ * After its segments, every chunk has an entity index, i.e. the sorted dictionary indices of all persons, vehicles and
+ * links that occur in the chunk, so that chunks without the persons, vehicles or links of interest can be skipped.
+ * <p></p>
+ * The footer contains the dictionary of all strings in the file, i.e. ids, event types, attribute names and values,
+ * and for every chunk its time range, number of events, the location of the entity index and of every segment.
+ *
+ * @see ColumnarEventsWriter
+ * @see ColumnarEventsReader
+ */
+final class ColumnarEventsFormat {
+
+	static final int MAGIC = 0x4d434556; // "MCEV"
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 8;
+	static final int TRAILER_SIZE = 20;
+
+	static final String PERSON = "person";
+	static final String VEHICLE = "vehicle";
+	static final String LINK = "link";
+
+	static final int PERSON_PRESENT = 1;
+	static final int VEHICLE_PRESENT = 2;
+	static final int LINK_PRESENT = 4;
+
+	static final int TIME_DELTAS = 0;
+	static final int TIME_DOUBLES = 1;
+
+	private ColumnarEventsFormat() {
+	}
+
+	/**
+	 * Growable byte array with the methods to write the columns.
+	 */
+	static final class ByteSink {
+		private byte[] bytes = new byte[1024];
+		private int size = 0;
+
+		void writeByte(int value) {
+			ensureCapacity(1);
+			bytes[size++] = (byte) value;
+		}
+
+		void writeVarInt(int value) {
+			writeVarLong(value & 0xffffffffL);
+		}
+
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7fL) != 0) {
+				bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void writeZigZagLong(long value) {
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		void writeDouble(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			ensureCapacity(8);
+			for (int i = 0; i < 8; i++) {
+				bytes[size++] = (byte) (bits >>> (8 * i));
+			}
+		}
+
+		void writeString(String value) {
+			byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(utf8.length);
+			ensureCapacity(utf8.length);
+			System.arraycopy(utf8, 0, bytes, size, utf8.length);
+			size += utf8.length;
+		}
+
+		int size() {
+			return size;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		private void ensureCapacity(int additional) {
+			if (size + additional > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+			}
+		}
+	}
+
+	/**
+	 * Reads what a {@link ByteSink} has written.
+	 */
+	static final class ByteSource {
+		private final byte[] bytes;
+		private int position = 0;
+
+		ByteSource(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		int readByte() {
+			return bytes[position++] & 0xff;
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				value |= (long) (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+
+		long readZigZagLong() {
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		double readDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits |= (long) (bytes[position++] & 0xff) << (8 * i);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		String readString() {
+			int length = readVarInt();
+			String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+	}
+}
@@ -0,0 +1,399 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarEventsReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.columnar;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.EventsReaderXMLv1;
+import org.matsim.core.events.MatsimEventsReader.CustomEventMapper;
+import org.matsim.core.events.columnar.ColumnarEventsFormat.ByteSource;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.github.luben.zstd.Zstd;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+/**
+ * Reads events files written by {@link ColumnarEventsWriter}.
+ * <p></p>
+ * By default, all events are passed to the events manager.  The reader can be restricted to some event types, a time
+ * range, and some persons, vehicles or links; only the chunks and segments of the file that can contain such events
+ * are decompressed then.  For example, to read only the link events between 07:00 and 09:00:
+ * <pre>
+ * ColumnarEventsReader reader = new ColumnarEventsReader(events);
+ * reader.setEventTypes(Set.of(LinkEnterEvent.EVENT_TYPE, LinkLeaveEvent.EVENT_TYPE));
+ * reader.setTimeRange(7 * 3600, 9 * 3600);
+ * reader.readFile(filename);
+ * </pre>
+ * The events are created in the same way as by the xml reader, so custom event mappers work as well.
+ */
+public final class ColumnarEventsReader implements MatsimReader {
+
+	private final static Logger log = LogManager.getLogger(ColumnarEventsReader.class);
+
+	private final EventsReaderXMLv1 delegate;
+
+	private Predicate<String> eventTypeFilter = null;
+	private double fromTime = Double.NEGATIVE_INFINITY;
+	private double toTime = Double.POSITIVE_INFINITY;
+	private Set<Id<Person>> personIds = null;
+	private Set<Id<Vehicle>> vehicleIds = null;
+	private Set<Id<Link>> linkIds = null;
+
+	public ColumnarEventsReader(final EventsManager events) {
+		this.delegate = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, CustomEventMapper mapper) {
+		this.delegate.addCustomEventMapper(eventType, mapper);
+	}
+
+	/**
+	 * Only read events of the given types, or all events if <code>null</code>.
+	 */
+	public void setEventTypes(Set<String> eventTypes) {
+		this.eventTypeFilter = eventTypes == null ? null : eventTypes::contains;
+	}
+
+	/**
+	 * Only read events whose type passes the filter, or all events if <code>null</code>.
+	 */
+	public void setEventTypeFilter(Predicate<String> eventTypeFilter) {
+		this.eventTypeFilter = eventTypeFilter;
+	}
+
+	/**
+	 * Only read events with <code>fromTime &lt;= time &lt; toTime</code>.
+	 */
+	public void setTimeRange(double fromTime, double toTime) {
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+	}
+
+	/**
+	 * Only read events of the given persons, or ignore the person if <code>null</code>.  If persons, vehicles and
+	 * links are given, an event must match all of them.
+	 */
+	public void setPersonIds(Set<Id<Person>> personIds) {
+		this.personIds = personIds;
+	}
+
+	public void setVehicleIds(Set<Id<Vehicle>> vehicleIds) {
+		this.vehicleIds = vehicleIds;
+	}
+
+	public void setLinkIds(Set<Id<Link>> linkIds) {
+		this.linkIds = linkIds;
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		read(Paths.get(filename));
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			throw new UnsupportedOperationException("Columnar events can only be read from files, as they need random access: " + url);
+		}
+		try {
+			read(Paths.get(url.toURI()));
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private void read(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = readFully(channel, 0, ColumnarEventsFormat.HEADER_SIZE);
+			ByteBuffer trailer = readFully(channel, channel.size() - ColumnarEventsFormat.TRAILER_SIZE, ColumnarEventsFormat.TRAILER_SIZE);
+			if (header.getInt() != ColumnarEventsFormat.MAGIC || trailer.getInt(16) != ColumnarEventsFormat.MAGIC) {
+				throw new IllegalArgumentException("Not a columnar events file or incomplete: " + path);
+			}
+			int version = header.getInt();
+			if (version != ColumnarEventsFormat.VERSION) {
+				throw new IllegalArgumentException("Unsupported version " + version + " of columnar events file " + path);
+			}
+			long footerOffset = trailer.getLong();
+			int compressedLength = trailer.getInt();
+			int length = trailer.getInt();
+			ByteSource footer = new ByteSource(decompress(readFully(channel, footerOffset, compressedLength), length));
+
+			String[] strings = new String[footer.readVarInt()];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = footer.readString();
+			}
+			Map<String, Integer> codes = new HashMap<>();
+			if (this.personIds != null || this.vehicleIds != null || this.linkIds != null) {
+				for (int i = 0; i < strings.length; i++) {
+					codes.put(strings[i], i);
+				}
+			}
+			Filter filter = new Filter(codes(this.personIds, codes), codes(this.vehicleIds, codes), codes(this.linkIds, codes));
+
+			int chunks = footer.readVarInt();
+			int readChunks = 0;
+			for (int c = 0; c < chunks; c++) {
+				double minTime = footer.readDouble();
+				double maxTime = footer.readDouble();
+				int events = footer.readVarInt();
+				long indexOffset = footer.readVarLong();
+				int indexLength = footer.readVarInt();
+				int segments = footer.readVarInt();
+				long[] segmentOffsets = new long[segments];
+				int[] segmentLengths = new int[segments];
+				int[] segmentTypes = new int[segments];
+				int selectedSegments = 0;
+				for (int s = 0; s < segments; s++) {
+					int type = footer.readVarInt();
+					long offset = footer.readVarLong();
+					int segmentLength = footer.readVarInt();
+					footer.readVarInt(); // number of events, not needed here
+					if (this.eventTypeFilter == null || this.eventTypeFilter.test(strings[type])) {
+						segmentTypes[selectedSegments] = type;
+						segmentOffsets[selectedSegments] = offset;
+						segmentLengths[selectedSegments] = segmentLength;
+						selectedSegments++;
+					}
+				}
+
+				if (selectedSegments == 0 || maxTime < this.fromTime || minTime >= this.toTime) {
+					continue;
+				}
+				if (filter.isActive() && !filter.matchesIndex(new ByteSource(readCompressed(channel, indexOffset, indexLength)))) {
+					continue;
+				}
+				readChunks++;
+				Segment[] selected = new Segment[selectedSegments];
+				for (int s = 0; s < selectedSegments; s++) {
+					selected[s] = new Segment(segmentTypes[s], new ByteSource(readCompressed(channel, segmentOffsets[s], segmentLengths[s])));
+				}
+				processChunk(selected, events, strings, filter);
+			}
+			log.info("read " + readChunks + " of " + chunks + " chunks from " + path);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void processChunk(Segment[] segments, int events, String[] strings, Filter filter) {
+		// restore the original order of the events in the chunk
+		int[] segmentByPosition = new int[events];
+		int[] rowByPosition = new int[events];
+		Arrays.fill(segmentByPosition, -1);
+		for (int s = 0; s < segments.length; s++) {
+			for (int row = 0; row < segments[s].positions.length; row++) {
+				segmentByPosition[segments[s].positions[row]] = s;
+				rowByPosition[segments[s].positions[row]] = row;
+			}
+		}
+
+		Stack<String> context = new Stack<>();
+		AttributesImpl attributes = new AttributesImpl();
+		for (int position = 0; position < events; position++) {
+			if (segmentByPosition[position] < 0) {
+				continue;
+			}
+			Segment segment = segments[segmentByPosition[position]];
+			int row = rowByPosition[position];
+			double time = segment.times[row];
+			if (time < this.fromTime || time >= this.toTime || !filter.matches(segment, row)) {
+				continue;
+			}
+			attributes.clear();
+			addAttribute(attributes, Event.ATTRIBUTE_TIME, Double.toString(time));
+			addAttribute(attributes, Event.ATTRIBUTE_TYPE, strings[segment.type]);
+			// the columns may also hold ids which the event does not have as attribute, these are only used to filter
+			int present = segment.present[row];
+			if ((present & ColumnarEventsFormat.PERSON_PRESENT) != 0) {
+				addAttribute(attributes, ColumnarEventsFormat.PERSON, segment.persons[row], strings);
+			}
+			if ((present & ColumnarEventsFormat.VEHICLE_PRESENT) != 0) {
+				addAttribute(attributes, ColumnarEventsFormat.VEHICLE, segment.vehicles[row], strings);
+			}
+			if ((present & ColumnarEventsFormat.LINK_PRESENT) != 0) {
+				addAttribute(attributes, ColumnarEventsFormat.LINK, segment.links[row], strings);
+			}
+			for (int a = 0; a < segment.attributeKeys.length; a++) {
+				addAttribute(attributes, strings[segment.attributeKeys[a]], segment.attributeValues[a][row], strings);
+			}
+			this.delegate.startTag(EventsReaderXMLv1.EVENT, attributes, context);
+		}
+	}
+
+	private static void addAttribute(AttributesImpl attributes, String name, int code, String[] strings) {
+		if (code != 0) {
+			addAttribute(attributes, name, strings[code - 1]);
+		}
+	}
+
+	private static void addAttribute(AttributesImpl attributes, String name, String value) {
+		attributes.addAttribute("", name, name, "CDATA", value);
+	}
+
+	private static IntOpenHashSet codes(Set<? extends Id<?>> ids, Map<String, Integer> codes) {
+		if (ids == null) {
+			return null;
+		}
+		IntOpenHashSet result = new IntOpenHashSet();
+		for (Id<?> id : ids) {
+			Integer code = codes.get(id.toString());
+			if (code != null) {
+				result.add(code.intValue());
+			}
+		}
+		return result;
+	}
+
+	private static byte[] readCompressed(FileChannel channel, long offset, int length) throws IOException {
+		int compressedLength = readFully(channel, offset, 4).getInt();
+		return decompress(readFully(channel, offset + 4, compressedLength), length);
+	}
+
+	private static byte[] decompress(ByteBuffer compressed, int length) {
+		return Zstd.decompress(compressed.array(), length);
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of columnar events file.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * The decoded columns of one segment.
+	 */
+	private static final class Segment {
+		final int type;
+		final int[] positions;
+		final double[] times;
+		final int[] persons;
+		final int[] vehicles;
+		final int[] links;
+		final int[] present;
+		final int[] attributeKeys;
+		final int[][] attributeValues;
+
+		Segment(int type, ByteSource source) {
+			this.type = type;
+			int size = source.readVarInt();
+			this.positions = new int[size];
+			int position = 0;
+			for (int i = 0; i < size; i++) {
+				position += source.readVarInt();
+				this.positions[i] = position;
+			}
+			this.times = new double[size];
+			if (source.readByte() == ColumnarEventsFormat.TIME_DELTAS) {
+				long time = 0;
+				for (int i = 0; i < size; i++) {
+					time += source.readZigZagLong();
+					this.times[i] = time;
+				}
+			} else {
+				for (int i = 0; i < size; i++) {
+					this.times[i] = source.readDouble();
+				}
+			}
+			this.persons = readColumn(source, size);
+			this.vehicles = readColumn(source, size);
+			this.links = readColumn(source, size);
+			this.present = readColumn(source, size);
+			int attributes = source.readVarInt();
+			this.attributeKeys = new int[attributes];
+			this.attributeValues = new int[attributes][];
+			for (int a = 0; a < attributes; a++) {
+				this.attributeKeys[a] = source.readVarInt();
+				this.attributeValues[a] = readColumn(source, size);
+			}
+		}
+
+		private static int[] readColumn(ByteSource source, int size) {
+			int[] column = new int[size];
+			for (int i = 0; i < size; i++) {
+				column[i] = source.readVarInt();
+			}
+			return column;
+		}
+	}
+
+	private record Filter(IntOpenHashSet persons, IntOpenHashSet vehicles, IntOpenHashSet links) {
+
+		boolean isActive() {
+			return persons != null || vehicles != null || links != null;
+		}
+
+		boolean matches(Segment segment, int row) {
+			return matches(persons, segment.persons[row]) && matches(vehicles, segment.vehicles[row]) && matches(links, segment.links[row]);
+		}
+
+		private static boolean matches(IntOpenHashSet codes, int code) {
+			return codes == null || (code != 0 && codes.contains(code - 1));
+		}
+
+		/**
+		 * @return whether the entity index of a chunk contains at least one of the requested persons, vehicles and links.
+		 */
+		boolean matchesIndex(ByteSource index) {
+			return matchesIndex(persons, index) & matchesIndex(vehicles, index) & matchesIndex(links, index);
+		}
+
+		private static boolean matchesIndex(IntOpenHashSet codes, ByteSource index) {
+			// always read the whole list, so the next one starts at the right place
+			int size = index.readVarInt();
+			boolean found = codes == null;
+			int code = 0;
+			for (int i = 0; i < size; i++) {
+				code += index.readVarInt();
+				found = found || codes.contains(code);
+			}
+			return found;
+		}
+	}
+}
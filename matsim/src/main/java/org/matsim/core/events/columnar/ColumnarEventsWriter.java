@@ -0,0 +1,387 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarEventsWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.HasLinkId;
+import org.matsim.api.core.v01.events.HasPersonId;
+import org.matsim.api.core.v01.events.HasVehicleId;
+import org.matsim.core.events.algorithms.EventWriter;
+import org.matsim.core.events.columnar.ColumnarEventsFormat.ByteSink;
+import org.matsim.core.events.handler.BasicEventHandler;
+
+import com.github.luben.zstd.Zstd;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * Writes events into the columnar binary format described in {@link ColumnarEventsFormat}.  Such files can be read
+ * with the {@link org.matsim.core.events.MatsimEventsReader}, or with the {@link ColumnarEventsReader} to read only
+ * some event types, time ranges, persons, vehicles or links.
+ * <p></p>
+ * Events are collected per chunk in memory; a chunk is written once its time window is over or it holds the maximum
+ * number of events.
+ */
+public final class ColumnarEventsWriter implements EventWriter, BasicEventHandler {
+
+	public static final int DEFAULT_MAX_EVENTS_PER_CHUNK = 100_000;
+	public static final double DEFAULT_CHUNK_DURATION = 900.;
+
+	private static final int COMPRESSION_LEVEL = 3;
+
+	private final DataOutputStream out;
+	private long position = 0;
+	private final int maxEventsPerChunk;
+	private final double chunkDuration;
+
+	private final Object2IntOpenHashMap<String> dictionary = new Object2IntOpenHashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final IdCodes personCodes = new IdCodes();
+	private final IdCodes vehicleCodes = new IdCodes();
+	private final IdCodes linkCodes = new IdCodes();
+
+	private final Map<String, Segment> segments = new LinkedHashMap<>();
+	private int eventsInChunk = 0;
+	private long chunkWindow;
+	private double chunkMinTime;
+	private double chunkMaxTime;
+	private final List<ChunkEntry> chunks = new ArrayList<>();
+
+	public ColumnarEventsWriter(final String filename) {
+		this(filename, DEFAULT_MAX_EVENTS_PER_CHUNK, DEFAULT_CHUNK_DURATION);
+	}
+
+	/**
+	 * @param chunkDuration the length of the time window (in seconds) covered by one chunk.  Shorter windows allow
+	 *                      skipping more data when reading short time ranges, but compress less well.
+	 */
+	public ColumnarEventsWriter(final String filename, int maxEventsPerChunk, double chunkDuration) {
+		if (maxEventsPerChunk < 1 || !(chunkDuration > 0)) {
+			throw new IllegalArgumentException("maxEventsPerChunk and chunkDuration must be positive.");
+		}
+		this.maxEventsPerChunk = maxEventsPerChunk;
+		this.chunkDuration = chunkDuration;
+		this.dictionary.defaultReturnValue(-1);
+		try {
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+			this.out.writeInt(ColumnarEventsFormat.MAGIC);
+			this.out.writeInt(ColumnarEventsFormat.VERSION);
+			this.position = ColumnarEventsFormat.HEADER_SIZE;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		double time = event.getTime();
+		long window = (long) Math.floor(time / this.chunkDuration);
+		if (this.eventsInChunk > 0 && (this.eventsInChunk >= this.maxEventsPerChunk || window != this.chunkWindow)) {
+			writeChunk();
+		}
+		if (this.eventsInChunk == 0) {
+			this.chunkWindow = window;
+			this.chunkMinTime = time;
+			this.chunkMaxTime = time;
+		} else {
+			this.chunkMinTime = Math.min(this.chunkMinTime, time);
+			this.chunkMaxTime = Math.max(this.chunkMaxTime, time);
+		}
+
+		Map<String, String> attributes = event.getAttributes();
+		Segment segment = this.segments.computeIfAbsent(event.getEventType(), type -> new Segment(code(type)));
+		segment.positions.add(this.eventsInChunk);
+		segment.times.add(time);
+		Id<?> personId = event instanceof HasPersonId hasPersonId ? hasPersonId.getPersonId() : null;
+		Id<?> vehicleId = event instanceof HasVehicleId hasVehicleId ? hasVehicleId.getVehicleId() : null;
+		Id<?> linkId = event instanceof HasLinkId hasLinkId ? hasLinkId.getLinkId() : null;
+		String person = attributes.get(ColumnarEventsFormat.PERSON);
+		String vehicle = attributes.get(ColumnarEventsFormat.VEHICLE);
+		String link = attributes.get(ColumnarEventsFormat.LINK);
+		segment.persons.add(personId != null ? this.personCodes.get(personId) : attributeCode(person));
+		segment.vehicles.add(vehicleId != null ? this.vehicleCodes.get(vehicleId) : attributeCode(vehicle));
+		segment.links.add(linkId != null ? this.linkCodes.get(linkId) : attributeCode(link));
+		int present = (isInColumn(person, personId) ? ColumnarEventsFormat.PERSON_PRESENT : 0)
+				| (isInColumn(vehicle, vehicleId) ? ColumnarEventsFormat.VEHICLE_PRESENT : 0)
+				| (isInColumn(link, linkId) ? ColumnarEventsFormat.LINK_PRESENT : 0);
+		segment.present.add(present);
+
+		int row = segment.positions.size() - 1;
+		for (Map.Entry<String, String> entry : attributes.entrySet()) {
+			String key = entry.getKey();
+			if (key.equals(Event.ATTRIBUTE_TIME) || key.equals(Event.ATTRIBUTE_TYPE)
+					|| (key.equals(ColumnarEventsFormat.PERSON) && (present & ColumnarEventsFormat.PERSON_PRESENT) != 0)
+					|| (key.equals(ColumnarEventsFormat.VEHICLE) && (present & ColumnarEventsFormat.VEHICLE_PRESENT) != 0)
+					|| (key.equals(ColumnarEventsFormat.LINK) && (present & ColumnarEventsFormat.LINK_PRESENT) != 0)) {
+				continue;
+			}
+			IntArrayList column = segment.attributes.computeIfAbsent(code(key), k -> new IntArrayList());
+			while (column.size() < row) {
+				column.add(0); // the attribute was missing in the previous events of this type
+			}
+			column.add(attributeCode(entry.getValue()));
+		}
+		this.eventsInChunk++;
+	}
+
+	/**
+	 * @return whether the attribute value of the event is the one stored in the person, vehicle or link column.
+	 * 		Otherwise, it is stored like any other attribute, if the event has it at all.
+	 */
+	private static boolean isInColumn(String attribute, Id<?> id) {
+		return attribute != null && (id == null || attribute.equals(id.toString()));
+	}
+
+	private int attributeCode(String value) {
+		return value == null ? 0 : code(value) + 1;
+	}
+
+	private int code(String value) {
+		int code = this.dictionary.getInt(value);
+		if (code < 0) {
+			code = this.strings.size();
+			this.strings.add(value);
+			this.dictionary.put(value, code);
+		}
+		return code;
+	}
+
+	private void writeChunk() {
+		try {
+			ChunkEntry chunk = new ChunkEntry(this.chunkMinTime, this.chunkMaxTime, this.eventsInChunk);
+			IntOpenHashSet persons = new IntOpenHashSet();
+			IntOpenHashSet vehicles = new IntOpenHashSet();
+			IntOpenHashSet links = new IntOpenHashSet();
+			ByteSink sink = new ByteSink();
+			for (Segment segment : this.segments.values()) {
+				sink.clear();
+				segment.write(sink);
+				chunk.segments.add(new SegmentEntry(segment.type, this.position, sink.size(), segment.positions.size()));
+				writeCompressed(sink.toByteArray());
+				collectCodes(segment.persons, persons);
+				collectCodes(segment.vehicles, vehicles);
+				collectCodes(segment.links, links);
+			}
+
+			sink.clear();
+			writeSortedCodes(sink, persons);
+			writeSortedCodes(sink, vehicles);
+			writeSortedCodes(sink, links);
+			chunk.indexOffset = this.position;
+			chunk.indexLength = sink.size();
+			writeCompressed(sink.toByteArray());
+
+			this.chunks.add(chunk);
+			this.segments.clear();
+			this.eventsInChunk = 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void collectCodes(IntArrayList column, IntOpenHashSet codes) {
+		for (int i = 0; i < column.size(); i++) {
+			int code = column.getInt(i);
+			if (code != 0) {
+				codes.add(code - 1);
+			}
+		}
+	}
+
+	private static void writeSortedCodes(ByteSink sink, IntOpenHashSet codes) {
+		int[] sorted = codes.toIntArray();
+		Arrays.sort(sorted);
+		sink.writeVarInt(sorted.length);
+		int previous = 0;
+		for (int code : sorted) {
+			sink.writeVarInt(code - previous);
+			previous = code;
+		}
+	}
+
+	/**
+	 * Writes the compressed length followed by the compressed bytes.
+	 */
+	private void writeCompressed(byte[] bytes) throws IOException {
+		byte[] compressed = Zstd.compress(bytes, COMPRESSION_LEVEL);
+		this.out.writeInt(compressed.length);
+		this.out.write(compressed);
+		this.position += 4 + compressed.length;
+	}
+
+	@Override
+	public void closeFile() {
+		if (this.eventsInChunk > 0) {
+			writeChunk();
+		}
+		try {
+			ByteSink footer = new ByteSink();
+			footer.writeVarInt(this.strings.size());
+			for (String string : this.strings) {
+				footer.writeString(string);
+			}
+			footer.writeVarInt(this.chunks.size());
+			for (ChunkEntry chunk : this.chunks) {
+				footer.writeDouble(chunk.minTime);
+				footer.writeDouble(chunk.maxTime);
+				footer.writeVarInt(chunk.events);
+				footer.writeVarLong(chunk.indexOffset);
+				footer.writeVarInt(chunk.indexLength);
+				footer.writeVarInt(chunk.segments.size());
+				for (SegmentEntry segment : chunk.segments) {
+					footer.writeVarInt(segment.type);
+					footer.writeVarLong(segment.offset);
+					footer.writeVarInt(segment.length);
+					footer.writeVarInt(segment.events);
+				}
+			}
+			long footerOffset = this.position;
+			byte[] compressed = Zstd.compress(footer.toByteArray(), COMPRESSION_LEVEL);
+			this.out.write(compressed);
+			this.out.writeLong(footerOffset);
+			this.out.writeInt(compressed.length);
+			this.out.writeInt(footer.size());
+			this.out.writeInt(ColumnarEventsFormat.MAGIC);
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void reset(final int iteration) {
+	}
+
+	/**
+	 * The columns of the events of one type in the current chunk.
+	 */
+	private static final class Segment {
+		final int type;
+		final IntArrayList positions = new IntArrayList();
+		final DoubleArrayList times = new DoubleArrayList();
+		final IntArrayList persons = new IntArrayList();
+		final IntArrayList vehicles = new IntArrayList();
+		final IntArrayList links = new IntArrayList();
+		final IntArrayList present = new IntArrayList();
+		final Map<Integer, IntArrayList> attributes = new LinkedHashMap<>();
+
+		Segment(int type) {
+			this.type = type;
+		}
+
+		void write(ByteSink sink) {
+			int size = this.positions.size();
+			sink.writeVarInt(size);
+			int previousPosition = 0;
+			for (int i = 0; i < size; i++) {
+				sink.writeVarInt(this.positions.getInt(i) - previousPosition);
+				previousPosition = this.positions.getInt(i);
+			}
+
+			boolean integral = true;
+			for (int i = 0; i < size && integral; i++) {
+				double time = this.times.getDouble(i);
+				integral = time == Math.rint(time) && Math.abs(time) < (1L << 52);
+			}
+			if (integral) {
+				sink.writeByte(ColumnarEventsFormat.TIME_DELTAS);
+				long previousTime = 0;
+				for (int i = 0; i < size; i++) {
+					long time = (long) this.times.getDouble(i);
+					sink.writeZigZagLong(time - previousTime);
+					previousTime = time;
+				}
+			} else {
+				sink.writeByte(ColumnarEventsFormat.TIME_DOUBLES);
+				for (int i = 0; i < size; i++) {
+					sink.writeDouble(this.times.getDouble(i));
+				}
+			}
+
+			writeColumn(sink, this.persons, size);
+			writeColumn(sink, this.vehicles, size);
+			writeColumn(sink, this.links, size);
+			writeColumn(sink, this.present, size);
+			sink.writeVarInt(this.attributes.size());
+			for (Map.Entry<Integer, IntArrayList> entry : this.attributes.entrySet()) {
+				sink.writeVarInt(entry.getKey());
+				writeColumn(sink, entry.getValue(), size);
+			}
+		}
+
+		private static void writeColumn(ByteSink sink, IntArrayList column, int size) {
+			for (int i = 0; i < size; i++) {
+				sink.writeVarInt(i < column.size() ? column.getInt(i) : 0);
+			}
+		}
+	}
+
+	private static final class ChunkEntry {
+		final double minTime;
+		final double maxTime;
+		final int events;
+		final List<SegmentEntry> segments = new ArrayList<>();
+		long indexOffset;
+		int indexLength;
+
+		ChunkEntry(double minTime, double maxTime, int events) {
+			this.minTime = minTime;
+			this.maxTime = maxTime;
+			this.events = events;
+		}
+	}
+
+	/**
+	 * Dictionary index + 1 by {@link Id#index()}, so the string of an id is looked up only once.
+	 */
+	private final class IdCodes {
+		private int[] codes = new int[0];
+
+		int get(Id<?> id) {
+			int index = id.index();
+			if (index >= this.codes.length) {
+				this.codes = Arrays.copyOf(this.codes, Math.max(index + 1, this.codes.length * 2));
+			}
+			if (this.codes[index] == 0) {
+				this.codes[index] = code(id.toString()) + 1;
+			}
+			return this.codes[index];
+		}
+	}
+
+	private record SegmentEntry(int type, long offset, int length, int events) {
+	}
+}
@@ -0,0 +1,41 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BatchEventHandler.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.handler;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventArray;
+
+/**
+ * Event handler that receives the events which are submitted together with
+ * {@link EventsManager#processEvents(EventArray)} in a single call, instead of one call per event.  Events submitted
+ * one by one with {@link EventsManager#processEvent(Event)} are still passed to the <code>handleEvent</code> methods of
+ * the other event handler interfaces which the handler implements.
+ * <p></p>
+ * The array contains all events of the batch, also those of types the handler is not interested in, so
+ * implementations typically dispatch each event to their <code>handleEvent</code> methods by type.  The handler must
+ * not modify the array, as the same array may be passed to other handlers, possibly in parallel.
+ */
+public interface BatchEventHandler extends EventHandler {
+
+	void handleEvents(EventArray events);
+
+}
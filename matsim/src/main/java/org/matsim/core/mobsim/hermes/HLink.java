@@ -18,6 +18,7 @@
  * *********************************************************************** */
 package org.matsim.core.mobsim.hermes;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 
 class HLink {
@@ -152,6 +153,14 @@ class HLink {
     private int nextFreeFlowSlot;
 	private int lastPush;
 	private final int stuckTimePeriod;
+	// Boundary links connect two different realms: agents are pushed by the realm of the from node and popped by the
+	// realm of the to node.  Pushed agents and released capacity are only exchanged between ticks, see deliverIncoming.
+	private boolean boundary = false;
+	private int tailRealm = 0;
+	private int headRealm = 0;
+	private final ArrayList<Agent> incoming = new ArrayList<>();
+	private int forcedIncoming;
+	private float releasedCapacity;
 
     public HLink(int id, int capacity, int length, int velocity,  float flowCapacityperSecond, int stuckTimePeriod) {
         this.id = id;
@@ -178,14 +187,68 @@ class HLink {
 		this.lastUpdate = 0;
 		this.currentCapacity = initialCapacity;
 		this.flowLeftInTimestep = flowCapacityPerS;
+		this.incoming.clear();
+		this.forcedIncoming = 0;
+		this.releasedCapacity = 0;
+	}
+
+	/**
+	 * @param tailRealm the realm that pushes agents into this link, i.e. the realm of the from node.
+	 * @param headRealm the realm that pops agents from this link, i.e. the realm of the to node.
+	 */
+	void setRealms(int tailRealm, int headRealm) {
+		this.tailRealm = tailRealm;
+		this.headRealm = headRealm;
+		this.boundary = tailRealm != headRealm;
+	}
 
+	public int tailRealm() {
+		return tailRealm;
+	}
+
+	public int headRealm() {
+		return headRealm;
+	}
+
+	public boolean isBoundary() {
+		return boundary;
+	}
+
+	/**
+	 * Moves the agents pushed into a boundary link during the last tick into its queue and makes the capacity released
+	 * by agents leaving the link available again.  Must only be called while no realm is running.
+	 *
+	 * @return true if the queue was empty before, i.e. the first delivered agent is now at the head of the link.
+	 */
+	boolean deliverIncoming() {
+		currentCapacity += releasedCapacity;
+		releasedCapacity = 0;
+		if (incoming.isEmpty()) {
+			return false;
+		}
+		boolean wasEmpty = queue.size() == 0;
+		for (Agent agent : incoming) {
+			if (forcedIncoming > 0) {
+				forcedIncoming--;
+				queue.forcePush(agent);
+			} else {
+				queue.push(agent);
+			}
+		}
+		incoming.clear();
+		return wasEmpty;
 	}
 
 	public boolean push(Agent agent, int timestep, float storageCapacityPCU) {
 		//avoid long vehicles not being able to enter a short link
 		float effectiveStorageCapacity = Math.min(storageCapacityPCU, initialCapacity);
 		if (currentCapacity - effectiveStorageCapacity >= 0) {
-			if (queue.push(agent)) {
+			if (boundary) {
+				incoming.add(agent);
+				lastPush = timestep;
+				currentCapacity = currentCapacity - effectiveStorageCapacity;
+				return true;
+			} else if (queue.push(agent)) {
 				lastPush = timestep;
 				currentCapacity = currentCapacity - effectiveStorageCapacity;
 				return true;
@@ -193,7 +256,14 @@ class HLink {
 				throw new RuntimeException("should not happen?");
 			}
 		} else if (stuckTimePeriod != Integer.MAX_VALUE && (lastPush + stuckTimePeriod) < timestep) {
-			boolean result = queue.forcePush(agent);
+			boolean result;
+			if (boundary) {
+				// the queue is owned by the other realm, so increasing its capacity has to wait as well.
+				forcedIncoming++;
+				result = incoming.add(agent);
+			} else {
+				result = queue.forcePush(agent);
+			}
 			lastPush = timestep;
 			currentCapacity = currentCapacity - effectiveStorageCapacity;
 			return result;
@@ -204,7 +274,11 @@ class HLink {
 
 	public void pop(float storageCapacityPCE) {
 		queue.pop();
-		currentCapacity += storageCapacityPCE;
+		if (boundary) {
+			releasedCapacity += storageCapacityPCE;
+		} else {
+			currentCapacity += storageCapacityPCE;
+		}
 	}
 
     public int nexttime () {
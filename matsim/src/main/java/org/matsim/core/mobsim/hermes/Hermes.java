@@ -18,6 +18,15 @@
  * *********************************************************************** */
 package org.matsim.core.mobsim.hermes;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -25,12 +34,13 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventArray;
 import org.matsim.core.mobsim.framework.Mobsim;
 
 final class Hermes implements Mobsim {
 
 	final private static Logger log = LogManager.getLogger(Hermes.class);
-	private Realm realm;
+	private Realm[] realms;
 	private Agent[] agents;
 	private ScenarioImporter scenarioImporter;
 	private final Scenario scenario;
@@ -44,12 +54,12 @@ final class Hermes implements Mobsim {
 	private void importScenario() throws Exception {
 		scenarioImporter = ScenarioImporter.instance(scenario, eventsManager);
 		scenarioImporter.generate();
-		this.realm = scenarioImporter.realm;
+		this.realms = scenarioImporter.realms;
 		this.agents = scenarioImporter.hermesAgents;
 	}
 
 	private void processEvents() {
-        eventsManager.processEvents(realm.getSortedEvents());
+        eventsManager.processEvents(mergeSortedEvents());
 
 		for (Agent agent : agents) {
 			if (agent != null && !agent.finished() && !agent.isTransitVehicle()) {
@@ -61,6 +71,100 @@ final class Hermes implements Mobsim {
 		}
 	}
 
+	/**
+	 * Runs each realm in its own thread.  All realms simulate the same tick, then wait for the others so that agents
+	 * and boundary links can be handed over between the realms before the next tick starts.
+	 */
+	private void runRealmsInParallel() throws Exception {
+		CyclicBarrier barrier = new CyclicBarrier(realms.length, this::finishTick);
+		ExecutorService executor = Executors.newFixedThreadPool(realms.length);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (Realm realm : realms) {
+				futures.add(executor.submit(() -> {
+					try {
+						while (realm.getTime() != HermesConfigGroup.SIM_STEPS) {
+							realm.step();
+							barrier.await();
+						}
+					} catch (RuntimeException | Error e) {
+						// release the other realms waiting for this one
+						barrier.reset();
+						throw e;
+					}
+					return null;
+				}));
+			}
+			Exception exception = null;
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					// report the realm which failed, not the ones that found the barrier broken afterwards
+					if (exception == null || !(e.getCause() instanceof BrokenBarrierException)) {
+						exception = e;
+					}
+				}
+			}
+			if (exception != null) {
+				throw exception;
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Called by the last realm arriving at the barrier, i.e. while none of the realms is running.
+	 */
+	private void finishTick() {
+		for (Realm realm : realms) {
+			realm.exchange(realms);
+		}
+		int secs = realms[0].getTime();
+		if (HermesConfigGroup.CONCURRENT_EVENT_PROCESSING && secs % 3600 == 0) {
+			EventArray events = mergeSortedEvents();
+			if (events.size() > 0) {
+				eventsManager.processEvents(events);
+			}
+			for (Realm realm : realms) {
+				realm.resetSortedEvents();
+			}
+		}
+		for (Realm realm : realms) {
+			realm.advanceTime();
+		}
+	}
+
+	/**
+	 * Merges the events of all realms by time.  Events of the same time are ordered by realm, so the order does not
+	 * depend on the threads.
+	 */
+	private EventArray mergeSortedEvents() {
+		if (realms.length == 1) {
+			return realms[0].getSortedEvents();
+		}
+		int total = 0;
+		for (Realm realm : realms) {
+			total += realm.getSortedEvents().size();
+		}
+		EventArray merged = new EventArray(Math.max(total, 1));
+		int[] next = new int[realms.length];
+		for (int i = 0; i < total; i++) {
+			int best = -1;
+			double bestTime = Double.POSITIVE_INFINITY;
+			for (int r = 0; r < realms.length; r++) {
+				EventArray events = realms[r].getSortedEvents();
+				if (next[r] < events.size() && events.get(next[r]).getTime() < bestTime) {
+					best = r;
+					bestTime = events.get(next[r]).getTime();
+				}
+			}
+			merged.add(realms[best].getSortedEvents().get(next[best]++));
+		}
+		return merged;
+	}
+
 	@Override
 	public void run() {
 		long time;
@@ -72,7 +176,11 @@ final class Hermes implements Mobsim {
 			eventsManager.initProcessing();
 
 			time = System.currentTimeMillis();
-			realm.run();
+			if (realms.length == 1) {
+				realms[0].run();
+			} else {
+				runRealmsInParallel();
+			}
 			log.info(String.format(
 					"Hermes took %d ms", System.currentTimeMillis() - time));
 
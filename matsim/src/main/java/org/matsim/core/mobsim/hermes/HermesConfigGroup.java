@@ -46,6 +46,10 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
     public static final int MAX_EVENTS_AGENT = 65536;
 
     private static final String DETPT = "useDeterministicPt";
+    private static final String NUMBER_OF_THREADS = "numberOfThreads";
+    private static final String NUMBER_OF_THREADS_DESC = "Number of threads.  With more than one thread, the network is split into one realm per thread "
+            + "and the realms are simulated in parallel.  Agents crossing from one realm into another become visible there with the next time step.  "
+            + "Not supported together with transit, a single thread is used then.";
 
     // Number of simulation steps
     public static int SIM_STEPS = 30 * 60 * 60;
@@ -77,6 +81,9 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
     @Positive
     private int stuckTime = 10;
 
+    @Positive
+    private int numberOfThreads = 1;
+
     public Set<String> getMainModes() {
         return mainModes;
     }
@@ -123,6 +130,19 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         this.stuckTime = stuckTime;
     }
 
+    @StringGetter(NUMBER_OF_THREADS)
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    @StringSetter(NUMBER_OF_THREADS)
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be strictly positive, got " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
     @StringSetter(FLOW_CAPACITY_FACTOR)
     public void setFlowCapacityFactor(double flowCapacityFactor) {
         this.flowCapacityFactor = flowCapacityFactor;
@@ -159,6 +179,7 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         comments.put(END_TIME, "Simulation End Time");
         comments.put(STUCKTIMEPARAM, STUCKTIMEPARAMDESC);
         comments.put(DETPT, DETPTDESC);
+        comments.put(NUMBER_OF_THREADS, NUMBER_OF_THREADS_DESC);
         return comments;
     }
 
@@ -40,6 +40,12 @@ import java.util.ArrayList;
 
 class Realm {
 	private final ScenarioImporter si;
+    // Index of this realm.  There is more than one realm if the network is simulated in parallel.
+    private final int id;
+    // Boundary links that this realm pushed agents into or popped agents from in the current tick.
+    private final ArrayList<HLink> touchedBoundaryLinks = new ArrayList<>();
+    // Agents that continue in another realm.
+    private final ArrayList<ForwardedAgent> forwardedAgents = new ArrayList<>();
     // Global array of links.
     // Note: the id of the link is its index in the array.
     private final HLink[] links;
@@ -64,7 +70,12 @@ class Realm {
     Logger log = LogManager.getLogger(Realm.class);
 
     public Realm(ScenarioImporter scenario, EventsManager eventsManager) {
+        this(scenario, eventsManager, 0);
+    }
+
+    public Realm(ScenarioImporter scenario, EventsManager eventsManager, int id) {
         this.si = scenario;
+        this.id = id;
         this.links = scenario.hermesLinks;
         // The plus one is necessary because we peek into the next slot on each tick.
         this.delayedLinksByWakeupTime = new ArrayList<>();
@@ -93,6 +104,29 @@ class Realm {
         delayedAgentsByWakeupTime.get(Math.min(until, HermesConfigGroup.SIM_STEPS + 1)).add(agent);
     }
 
+    /**
+     * Delays the agent in the realm that pushes it into the link given by the plan entry at planIndex, if that is a
+     * link entry.  Otherwise, the agent stays in this realm.
+     */
+    private void addDelayedAgent(Agent agent, int until, int planIndex) {
+        if (planIndex < agent.plan.size()) {
+            long planentry = agent.plan.get(planIndex);
+            if (Agent.getPlanHeader(planentry) == Agent.LinkType) {
+                int realm = links[Agent.getLinkPlanEntry(planentry)].tailRealm();
+                if (realm != id) {
+                    forwardAgent(agent, realm, until);
+                    return;
+                }
+            }
+        }
+        addDelayedAgent(agent, until);
+    }
+
+    private void forwardAgent(Agent agent, int realm, int until) {
+        if (HermesConfigGroup.DEBUG_REALMS) log(secs, String.format("agent %d forwarded to realm %d until %d", agent.id, realm, until));
+        forwardedAgents.add(new ForwardedAgent(agent, realm, until));
+    }
+
     private void addDelayedLink(HLink link, int until) {
         if (HermesConfigGroup.DEBUG_REALMS)
             log(secs, String.format("link %d delayed until %d size %d peek agent %d", link.id(), until, link.queue().size(), link.queue().peek().id));
@@ -121,6 +155,12 @@ class Realm {
         int linkid = Agent.getLinkPlanEntry(planentry);
         double velocity = Agent.getVelocityPlanEntry(planentry);
         HLink next = links[linkid];
+        if (next.tailRealm() != id) {
+            // Only happens if the link does not start where the agent is, e.g. for routes that are not connected.
+            // Let the realm that owns the start of the link push the agent in the next tick.
+            forwardAgent(agent, next.tailRealm(), secs + 1);
+            return true;
+        }
         int prev_finishtime = agent.linkFinishTime;
         // this ensures that if no velocity is provided for the vehicle, we use the link
         velocity = velocity == 0 ? next.velocity() : velocity;
@@ -130,8 +170,11 @@ class Realm {
         float storageCapacityPCU = agent.getStorageCapacityPCUE();
         if (next.push(agent,secs,storageCapacityPCU)) {
             advanceAgentandSetEventTime(agent);
+            if (next.isBoundary()) {
+                // the agent reaches the queue of the other realm after this tick, see HLink.deliverIncoming
+                touchedBoundaryLinks.add(next);
             // If the agent we just added is the head, add to delayed links
-            if (currLinkId != next.id() && next.queue().peek() == agent) {
+            } else if (currLinkId != next.id() && next.queue().peek() == agent) {
                 addDelayedLink(next, Math.max(agent.linkFinishTime, secs + 1));
             }
             return true;
@@ -148,7 +191,8 @@ class Realm {
 
     protected boolean processAgentSleepUntil(Agent agent, long planentry) {
         int sleep = Agent.getSleepPlanEntry(planentry);
-        addDelayedAgent(agent, Math.max(sleep, secs + 1));
+        // plan index + 1 is the sleep, so the agent continues with plan index + 2
+        addDelayedAgent(agent, Math.max(sleep, secs + 1), agent.planIndex + 2);
         updateCapacities(agent);
         advanceAgentandSetEventTime(agent);
         return true;
@@ -299,6 +343,9 @@ class Realm {
             if (finished || processAgent(agent, link.id())) {
                 float storageCapacityPCE = agent.getStorageCapacityPCUE();
                 link.pop(storageCapacityPCE);
+                if (link.isBoundary()) {
+                    touchedBoundaryLinks.add(link);
+                }
                 routed += 1;
                 if ((agent = link.queue().peek()) == null) {
                     break;
@@ -316,47 +363,82 @@ class Realm {
     }
 
     public void run() throws Exception {
+        while (secs != HermesConfigGroup.SIM_STEPS) {
+            step();
+            if (HermesConfigGroup.CONCURRENT_EVENT_PROCESSING && secs % 3600 == 0 && sortedEvents.size() > 0) {
+                eventsManager.processEvents(sortedEvents);
+                sortedEvents = new EventArray();
+            }
+            secs += 1;
+        }
+    }
+
+    /**
+     * Processes the agents and links that wake up in the current tick without advancing the clock.
+     */
+    void step() {
         int routed = 0;
         Agent agent;
         HLink link;
 
-        while (secs != HermesConfigGroup.SIM_STEPS) {
-            if (secs % 3600 == 0) {
-                log.info("Hermes running at " + Time.writeTime(secs));
+        if (secs % 3600 == 0 && id == 0) {
+            log.info("Hermes running at " + Time.writeTime(secs));
+        }
+        while ((agent = delayedAgentsByWakeupTime.get(secs).poll()) != null) {
+            if (HermesConfigGroup.DEBUG_REALMS) {
+                log(secs, String.format("Processing agent %d", agent.id));
             }
-            while ((agent = delayedAgentsByWakeupTime.get(secs).poll()) != null) {
-                if (HermesConfigGroup.DEBUG_REALMS) {
-                    log(secs, String.format("Processing agent %d", agent.id));
-                }
-                routed += processAgentActivities(agent);
+            routed += processAgentActivities(agent);
 
+        }
+        delayedAgentsByWakeupTime.set(secs, null);
+        if (si.isDeterministicPt() && id == 0) {
+            for (Event e : si.getDeterministicPtEvents().get(secs)) {
+                sortedEvents.add(e);
             }
-            delayedAgentsByWakeupTime.set(secs, null);
-            if (si.isDeterministicPt()) {
-                for (Event e : si.getDeterministicPtEvents().get(secs)) {
-                    sortedEvents.add(e);
-                }
-                si.getDeterministicPtEvents().get(secs).clear();
-            }
+            si.getDeterministicPtEvents().get(secs).clear();
+        }
 
-            while ((link = delayedLinksByWakeupTime.get(secs).poll()) != null) {
-                if (HermesConfigGroup.DEBUG_REALMS) {
-                    log(secs, String.format("Processing link %d", link.id()));
-                }
-                routed += processLinks(link);
-            }
-            delayedLinksByWakeupTime.set(secs, null);
-            if (HermesConfigGroup.DEBUG_REALMS && routed > 0) {
-                log(secs, String.format("Processed %d agents", routed));
-            }
-            if (HermesConfigGroup.CONCURRENT_EVENT_PROCESSING && secs % 3600 == 0 && sortedEvents.size() > 0) {
-                eventsManager.processEvents(sortedEvents);
-                sortedEvents = new EventArray();
+        while ((link = delayedLinksByWakeupTime.get(secs).poll()) != null) {
+            if (HermesConfigGroup.DEBUG_REALMS) {
+                log(secs, String.format("Processing link %d", link.id()));
             }
+            routed += processLinks(link);
+        }
+        delayedLinksByWakeupTime.set(secs, null);
+        if (HermesConfigGroup.DEBUG_REALMS && routed > 0) {
+            log(secs, String.format("Processed %d agents", routed));
+        }
+    }
 
-            routed = 0;
-            secs += 1;
+    /**
+     * Hands the agents and boundary links of the current tick over to the other realms.  Must only be called while no
+     * realm is running.  Calling this for the realms in a fixed order keeps the simulation deterministic.
+     */
+    void exchange(Realm[] realms) {
+        for (HLink boundaryLink : touchedBoundaryLinks) {
+            if (boundaryLink.deliverIncoming()) {
+                Agent head = boundaryLink.queue().peek();
+                realms[boundaryLink.headRealm()].addDelayedLink(boundaryLink, Math.max(head.linkFinishTime, secs + 1));
+            }
+        }
+        touchedBoundaryLinks.clear();
+        for (ForwardedAgent forwarded : forwardedAgents) {
+            realms[forwarded.realm()].addDelayedAgent(forwarded.agent(), forwarded.until());
         }
+        forwardedAgents.clear();
+    }
+
+    void advanceTime() {
+        secs += 1;
+    }
+
+    int getTime() {
+        return secs;
+    }
+
+    void resetSortedEvents() {
+        this.sortedEvents = new EventArray();
     }
 
     public void setEventTime(Agent agent, int agentId, int time, boolean lastEvent) {
@@ -409,4 +491,7 @@ class Realm {
     EventArray getSortedEvents() {
         return this.sortedEvents;
     }
+
+    private record ForwardedAgent(Agent agent, int realm, int until) {
+    }
 }
@@ -28,10 +28,13 @@ import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.api.experimental.events.*;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
 import org.matsim.core.events.EventArray;
 import org.matsim.core.mobsim.hermes.Agent.PlanArray;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QNetworkPartitioner;
 import org.matsim.core.population.routes.GenericRouteImpl;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.router.TripStructureUtils;
@@ -77,7 +80,9 @@ class ScenarioImporter {
 	// Array of links that define the network.
 	protected HLink[] hermesLinks;
 
-	protected Realm realm;
+	// Realms that simulate the network, more than one if the network is split up to run in parallel.
+	protected Realm[] realms;
+	private final int numberOfRealms;
 	private final boolean deterministicPt;
 	// Agents waiting in pt stations. Should be used as follows:
 	// agent_stops.get(curr station id).get(line id) -> queue of agents
@@ -95,6 +100,7 @@ class ScenarioImporter {
 	private ScenarioImporter(Scenario scenario, EventsManager eventsManager) {
 		numberOfThreads = Math.min(scenario.getConfig().global().getNumberOfThreads(), Runtime.getRuntime().availableProcessors());
 		this.deterministicPt = scenario.getConfig().hermes().isDeterministicPt();
+		this.numberOfRealms = computeNumberOfRealms(scenario);
 		if (deterministicPt) {
 			deterministicPtEvents = new ArrayList<>(scenario.getConfig().hermes().getEndTime());
 			for (int i = 0; i < scenario.getConfig().hermes().getEndTime(); i++) {
@@ -112,6 +118,16 @@ class ScenarioImporter {
 
 	}
 
+	private static int computeNumberOfRealms(Scenario scenario) {
+		int realms = scenario.getConfig().hermes().getNumberOfThreads();
+		if (realms > 1 && !scenario.getTransitSchedule().getTransitLines().isEmpty()) {
+			// passengers waiting at stops are shared between the vehicles of all realms.
+			log.warn("Hermes does not support more than one thread with transit, using a single thread.");
+			return 1;
+		}
+		return realms;
+	}
+
 	private void generateVehicleCategories() {
 		int vehicleTypes = scenario.getVehicles().getVehicleTypes().size();
 		if (vehicleTypes >= HermesConfigGroup.MAX_VEHICLE_PCETYPES) {
@@ -211,6 +227,25 @@ class ScenarioImporter {
 
 			hermesLinks[link_id] = new HLink(link_id, storageCapacity, length, speed, effectiveflowCapacityPerSec, scenario.getConfig().hermes().getStuckTime());
 		}
+
+		if (numberOfRealms > 1) {
+			// each realm handles a contiguous region of nodes, so only few links connect different realms.
+			List<Node> nodes = new ArrayList<>(network.getNodes().values());
+			int[] parts = QNetworkPartitioner.partition(nodes, numberOfRealms, NetworkPartitioning.spaceFillingCurve);
+			int[] realmOfNode = new int[Id.getNumberOfIds(Node.class)];
+			for (int i = 0; i < parts.length; i++) {
+				realmOfNode[nodes.get(i).getId().index()] = parts[i];
+			}
+			int boundaryLinks = 0;
+			for (org.matsim.api.core.v01.network.Link matsim_link : matsim_links) {
+				HLink link = hermesLinks[matsim_link.getId().index()];
+				link.setRealms(realmOfNode[matsim_link.getFromNode().getId().index()], realmOfNode[matsim_link.getToNode().getId().index()]);
+				if (link.isBoundary()) {
+					boundaryLinks++;
+				}
+			}
+			log.info(String.format("Hermes split the network into %d realms with %d boundary links", numberOfRealms, boundaryLinks));
+		}
 	}
 
 	private void initRoutesStations() {
@@ -272,7 +307,10 @@ class ScenarioImporter {
 	}
 
 	private void generateRealms() {
-		realm = new Realm(this, eventsManager);
+		realms = new Realm[numberOfRealms];
+		for (int i = 0; i < numberOfRealms; i++) {
+			realms[i] = new Realm(this, eventsManager, i);
+		}
 
 		// Put agents in their initial location (link or activity center)
 		for (Agent agent : hermesAgents) {
@@ -294,6 +332,11 @@ class ScenarioImporter {
 				case Agent.SleepForType:
 				case Agent.SleepUntilType:
 					int sleep = Agent.getSleepPlanEntry(planentry);
+					// start in the realm that pushes the agent into its first link
+					Realm realm = realms[0];
+					if (agent.plan.size() > 1 && Agent.getPlanHeader(agent.plan.get(1)) == Agent.LinkType) {
+						realm = realms[hermesLinks[Agent.getLinkPlanEntry(agent.plan.get(1))].tailRealm()];
+					}
 					realm.delayedAgents().get(Math.min(sleep, scenario.getConfig().hermes().getEndTime() + 1)).add(agent);
 					break;
 				default:
@@ -303,9 +346,10 @@ class ScenarioImporter {
 
 		for (HLink link : this.hermesLinks) {
 			if (link != null) {
+				link.deliverIncoming();
 				int nextwakeup = link.nexttime();
 				if (nextwakeup > 0) {
-					realm.delayedLinks().get(nextwakeup).add(link);
+					realms[link.headRealm()].delayedLinks().get(nextwakeup).add(link);
 				}
 			}
 		}
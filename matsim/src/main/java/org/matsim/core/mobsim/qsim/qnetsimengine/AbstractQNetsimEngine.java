@@ -20,6 +20,7 @@
 
 package org.matsim.core.mobsim.qsim.qnetsimengine;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -31,10 +32,12 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup.LinkDynamics;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
 import org.matsim.core.config.groups.QSimConfigGroup.SnapshotStyle;
 import org.matsim.core.config.groups.QSimConfigGroup.VehicleBehavior;
 import org.matsim.core.gbl.Gbl;
@@ -83,6 +86,7 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 	private final VehicularDepartureHandler dpHandler;
 //	private final Set<QLinkI> linksToActivateInitially = new HashSet<>();
 	protected final int numOfThreads;
+	private final NetworkPartitioning networkPartitioning;
 	protected final QNetwork qNetwork;
 
 	private double infoTime = 0;
@@ -129,6 +133,7 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 		qNetwork.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
 
 		this.numOfThreads = sim.getScenario().getConfig().qsim().getNumberOfThreads();
+		this.networkPartitioning = sim.getScenario().getConfig().qsim().getNetworkPartitioning();
 	}
 
 	static AbstractAgentSnapshotInfoBuilder createAgentSnapshotInfoBuilder(Scenario scenario, SnapshotLinkWidthCalculator linkWidthCalculator) {
@@ -381,6 +386,7 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 	 * Within the MoveThreads Links are only activated when a Vehicle is moved
 	 * over a Node which is processed by that Thread. So we can assign each QLink
 	 * to the Thread that handles its InNode.
+	 * Which Thread handles which Node is decided by the QNetworkPartitioner.
 	 */
 	private void assignNetElementActivators() {
 
@@ -388,9 +394,16 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 		int nodes[] = new int[this.engines.size()];
 		int links[] = new int[this.engines.size()];
 
-		int roundRobin = 0;
-		for (QNodeI node : qNetwork.getNetsimNodes().values()) {
-			int i = roundRobin % this.engines.size();
+		List<QNodeI> qNodes = new ArrayList<>(qNetwork.getNetsimNodes().values());
+		List<Node> networkNodes = new ArrayList<>(qNodes.size());
+		for (QNodeI node : qNodes) {
+			networkNodes.add(node.getNode());
+		}
+		int[] parts = QNetworkPartitioner.partition(networkNodes, this.engines.size(), this.networkPartitioning);
+
+		for (int n = 0; n < qNodes.size(); n++) {
+			QNodeI node = qNodes.get(n);
+			int i = parts[n];
 			if( node instanceof AbstractQNode){
 				((AbstractQNode) node).setNetElementActivationRegistry(this.engines.get(i));
 			}
@@ -417,11 +430,10 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 				links[i]++;
 
 			}
-
-			roundRobin++;
 		}
 
 		// print some statistics
+		log.info("Assigned nodes and links to QSimEngineRunners using network partitioning " + this.networkPartitioning);
 		for (int i = 0; i < this.engines.size(); i++) {
 			log.info("Assigned " + nodes[i] + " nodes and " + links[i] + " links to QSimEngineRunner #" + i);
 		}
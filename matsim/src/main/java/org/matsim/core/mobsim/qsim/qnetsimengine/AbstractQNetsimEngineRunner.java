@@ -20,12 +20,14 @@
 
 package org.matsim.core.mobsim.qsim.qnetsimengine;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
 
 import org.matsim.core.mobsim.qsim.QSim;
 
@@ -70,6 +72,14 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 	private boolean lockNodes = false;
 	private boolean lockLinks = false;
 
+	/*
+	 * While the nodes are moved in chunks (see moveNodesInChunks), the links activated by a chunk are collected
+	 * per chunk and appended to the linksList afterwards in the order of the chunks.  This keeps the order of the
+	 * linksList the same as if the nodes were moved one after the other.
+	 */
+	private boolean movingNodesInChunks = false;
+	private final ThreadLocal<List<QLinkI>> linksActivatedByChunk = new ThreadLocal<>();
+
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
 	{	
@@ -96,6 +106,56 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 		this.lockNodes = false;
 	}
 	
+	/**
+	 * Like {@link #moveNodes()}, but splits the active nodes into chunks of at most <code>chunkSize</code> nodes
+	 * which are forked as tasks of the current {@link java.util.concurrent.ForkJoinPool}, so that idle threads of the
+	 * pool can take over a part of the nodes of this runner.  Must only be used if the nodes draw from their own random
+	 * number generators.
+	 */
+	protected final void moveNodesInChunks(int chunkSize) {
+		QNodeI[] nodes = this.nodesQueue.toArray(new QNodeI[0]);
+		if (nodes.length <= chunkSize) {
+			moveNodes();
+			return;
+		}
+
+		this.lockNodes = true;
+		this.movingNodesInChunks = true;
+		boolean[] remainsActive = new boolean[nodes.length];
+		int numOfChunks = (nodes.length + chunkSize - 1) / chunkSize;
+		List<List<QLinkI>> activatedLinks = new ArrayList<>(numOfChunks);
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(numOfChunks);
+		for (int chunk = 0; chunk < numOfChunks; chunk++) {
+			int from = chunk * chunkSize;
+			int to = Math.min(from + chunkSize, nodes.length);
+			List<QLinkI> links = new ArrayList<>();
+			activatedLinks.add(links);
+			tasks.add(ForkJoinTask.adapt(() -> {
+				this.linksActivatedByChunk.set(links);
+				try {
+					for (int i = from; i < to; i++) {
+						remainsActive[i] = nodes[i].doSimStep(time);
+					}
+				} finally {
+					this.linksActivatedByChunk.remove();
+				}
+			}));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		this.movingNodesInChunks = false;
+
+		// no nodes are added while moving the nodes, so the queue is still in the order of the array
+		Iterator<QNodeI> simNodes = this.nodesQueue.iterator();
+		for (int i = 0; simNodes.hasNext(); i++) {
+			simNodes.next();
+			if (!remainsActive[i]) simNodes.remove();
+		}
+		for (List<QLinkI> links : activatedLinks) {
+			this.linksList.addAll(links);
+		}
+		this.lockNodes = false;
+	}
+
 	protected final void moveLinks() {
 		boolean remainsActive;
 		lockLinks = true;
@@ -111,6 +171,39 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 		lockLinks = false;
 	}
 
+	/**
+	 * Like {@link #moveLinks()}, but splits the active links into chunks of at most <code>chunkSize</code> links
+	 * which are forked as tasks of the current {@link java.util.concurrent.ForkJoinPool}.
+	 */
+	protected final void moveLinksInChunks(int chunkSize) {
+		if (this.linksList.size() <= chunkSize) {
+			moveLinks();
+			return;
+		}
+
+		lockLinks = true;
+		QLinkI[] links = this.linksList.toArray(new QLinkI[0]);
+		boolean[] remainsActive = new boolean[links.length];
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		for (int from = 0; from < links.length; from += chunkSize) {
+			int chunkFrom = from;
+			int chunkTo = Math.min(from + chunkSize, links.length);
+			tasks.add(ForkJoinTask.adapt(() -> {
+				for (int i = chunkFrom; i < chunkTo; i++) {
+					remainsActive[i] = links[i].doSimStep();
+				}
+			}));
+		}
+		ForkJoinTask.invokeAll(tasks);
+
+		Iterator<QLinkI> simLinks = this.linksList.iterator();
+		for (int i = 0; simLinks.hasNext(); i++) {
+			simLinks.next();
+			if (!remainsActive[i]) simLinks.remove();
+		}
+		lockLinks = false;
+	}
+
 	/*
 	 * This method is only called while links are NOT "moved", i.e. their
 	 * doStimStep(...) methods are called. To ensure that, we  use a boolean lock.
@@ -118,8 +211,9 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 	 */
 	@Override
 	protected final void registerLinkAsActive(QLinkI link) {
-		if (!lockLinks) linksList.add(link);
-		else throw new RuntimeException("Tried to activate a QLink at a time where this was not allowed. Aborting!");
+		if (lockLinks) throw new RuntimeException("Tried to activate a QLink at a time where this was not allowed. Aborting!");
+		if (this.movingNodesInChunks) this.linksActivatedByChunk.get().add(link);
+		else linksList.add(link);
 	}
 
 	@Override
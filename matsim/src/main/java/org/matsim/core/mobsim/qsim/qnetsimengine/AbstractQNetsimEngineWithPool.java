@@ -0,0 +1,126 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AbstractQNetsimEngineWithPool.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.matsim.core.mobsim.qsim.QSim;
+
+/**
+ * Runs the {@link QNetsimEngineRunnerForThreadpool}s of a time step in an {@link ExecutorService}: first the nodes of
+ * all runners, then the links.  Subclasses decide on the pool and on the number and the kind of runners.
+ *
+ * @author droeder@Senozon after
+ *
+ * @author mrieser
+ * @author dgrether
+ * @author dstrippgen
+ */
+abstract class AbstractQNetsimEngineWithPool extends AbstractQNetsimEngine<QNetsimEngineRunnerForThreadpool> {
+
+	private ExecutorService pool;
+
+	AbstractQNetsimEngineWithPool(final QSim sim, QNetworkFactory netsimNetworkFactory) {
+		super(sim, netsimNetworkFactory);
+	}
+
+	/**
+	 * @return the pool which runs the runners, created once in {@link #initMultiThreading()}
+	 */
+	protected abstract ExecutorService createPool();
+
+	protected abstract int getNumberOfRunners();
+
+	protected abstract QNetsimEngineRunnerForThreadpool createRunner();
+
+	@Override public void finishMultiThreading() {
+		this.pool.shutdown();
+	}
+
+	@Override
+	protected void run(double time) {
+		// yy Acceleration options to try out (kai, jan'15):
+
+		// (a) Try to do without barriers.  With our
+		// message-based experiments a decade ago, it was better to let each runner decide locally when to proceed.  For intuition, imagine that
+		// one runner is slowest on the links, and some other runner slowest on the nodes.  With the barriers, this cannot overlap.
+		// With message passing, this was achieved by waiting for all necessary messages.  Here, it could (for example) be achieved with runner-local
+		// clocks:
+		// for ( all runners that own incoming links to my nodes ) { // (*)
+		//    wait until runner.getTime() == myTime ;
+		// }
+		// processLocalNodes() ;
+		// mytime += 0.5 ;
+		// for ( all runners that own toNodes of my links ) { // (**)
+		//    wait until runner.getTime() == myTime ;
+		// }
+		// processLocalLinks() ;
+		// myTime += 0.5 ;
+
+		// (b) Do deliberate domain decomposition rather than round robin (fewer runners to wait for at (*) and (**)).
+
+		// (c) One thread that is much faster than all others is much more efficient than one thread that is much slower than all others.
+		// So make sure that no thread sticks out in terms of slowness.  Difficult to achieve, though.  A decade back, we used a "typical" run
+		// as input for the domain decomposition under (b).
+
+		// set current Time
+		for (AbstractQNetsimEngineRunner engine : this.getQnetsimEngineRunner()) {
+			engine.setTime(time);
+		}
+
+		try {
+			for (QNetsimEngineRunnerForThreadpool engine : this.getQnetsimEngineRunner()) {
+				engine.setMovingNodes(true);
+			}
+			for (Future<Boolean> future : pool.invokeAll(this.getQnetsimEngineRunner())) {
+				future.get();
+			}
+			for (QNetsimEngineRunnerForThreadpool engine : this.getQnetsimEngineRunner()) {
+				engine.setMovingNodes(false);
+			}
+			for (Future<Boolean> future : pool.invokeAll(this.getQnetsimEngineRunner())) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e) ;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	@Override
+	protected List<QNetsimEngineRunnerForThreadpool> initQSimEngineRunners() {
+		List<QNetsimEngineRunnerForThreadpool> engines = new ArrayList<>();
+		for (int i = 0; i < getNumberOfRunners(); i++) {
+			engines.add(createRunner());
+		}
+		return engines;
+	}
+
+	@Override
+	protected void initMultiThreading() {
+		this.pool = createPool();
+	}
+}
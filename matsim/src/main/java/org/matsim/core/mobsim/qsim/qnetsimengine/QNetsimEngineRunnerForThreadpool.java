@@ -34,8 +34,18 @@ final class QNetsimEngineRunnerForThreadpool extends AbstractQNetsimEngineRunner
 	
 	private volatile boolean simulationRunning = true;
 	private boolean movingNodes;
+	private final int chunkSize;
 
 	QNetsimEngineRunnerForThreadpool() {
+		this(0);
+	}
+
+	/**
+	 * @param chunkSize if positive, the active nodes and links are moved in chunks of this size, which requires the
+	 *                  runner to be called by a {@link java.util.concurrent.ForkJoinPool}
+	 */
+	QNetsimEngineRunnerForThreadpool(int chunkSize) {
+		this.chunkSize = chunkSize;
 	}
 
 	@Override
@@ -45,7 +55,13 @@ final class QNetsimEngineRunnerForThreadpool extends AbstractQNetsimEngineRunner
 			return false;
 		}
 
-		if (this.movingNodes) {
+		if (this.chunkSize > 0) {
+			if (this.movingNodes) {
+				moveNodesInChunks(this.chunkSize);
+			} else {
+				moveLinksInChunks(this.chunkSize);
+			}
+		} else if (this.movingNodes) {
 			moveNodes();
 		} else {
 			moveLinks();
@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineWithForkJoinPool.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import jakarta.inject.Inject;
+
+import org.matsim.core.mobsim.qsim.QSim;
+
+/**
+ * Variant of {@link QNetsimEngineWithThreadpool} which splits the network into many more runners than there are
+ * threads and lets a work-stealing {@link ForkJoinPool} process them.  A thread that is done with its runners picks
+ * up runners of the others instead of waiting for the slowest thread at the end of each phase.  In addition, a runner
+ * with many active nodes or links splits them into chunks of {@link #chunkSize}, so that the other threads can also
+ * help with a single busy runner.
+ * <p></p>
+ * Nodes and links are still owned by exactly one runner, and the links activated by the chunks of a runner are
+ * registered in the same order as if its nodes were moved one after the other, so the activation logic of the runners
+ * is unchanged.  Since nodes draw from their own random number generators when running multi-threaded, the simulation
+ * results do not depend on which thread processes which runner or chunk.
+ *
+ * @see org.matsim.core.config.groups.QSimConfigGroup.NetsimEngineThreading
+ */
+final class QNetsimEngineWithForkJoinPool extends AbstractQNetsimEngineWithPool {
+
+	/**
+	 * Number of active nodes resp. links of a runner which are moved by one task.  Not final so that tests can use
+	 * small chunks on small networks.
+	 */
+	/*package*/ static int chunkSize = 256;
+
+	private final int numOfRunners;
+
+	@Inject QNetsimEngineWithForkJoinPool(final QSim sim, QNetworkFactory netsimNetworkFactory) {
+		super(sim, netsimNetworkFactory);
+		// with a single thread, nodes share the global random number generator.  Stick to one runner without chunks
+		// then, so the nodes are processed in the same order as with the thread pool.
+		this.numOfRunners = this.numOfThreads == 1 ? 1 :
+				this.numOfThreads * sim.getScenario().getConfig().qsim().getNetsimEngineTasksPerThread();
+	}
+
+	@Override
+	protected int getNumberOfRunners() {
+		return this.numOfRunners;
+	}
+
+	@Override
+	protected QNetsimEngineRunnerForThreadpool createRunner() {
+		return new QNetsimEngineRunnerForThreadpool(this.numOfThreads == 1 ? 0 : chunkSize);
+	}
+
+	@Override
+	protected ExecutorService createPool() {
+		return new ForkJoinPool(this.numOfThreads, new NamedForkJoinWorkerThreadFactory(), null, false);
+	}
+
+	private static class NamedForkJoinWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		private int count = 0;
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("QNetsimEngine_ForkJoinThread_" + count++);
+			return thread;
+		}
+	}
+}
@@ -20,12 +20,8 @@
 
 package org.matsim.core.mobsim.qsim.qnetsimengine;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 
 import jakarta.inject.Inject;
@@ -43,10 +39,7 @@ import org.matsim.core.mobsim.qsim.QSim;
  * @author dgrether
  * @author dstrippgen
  */
-final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEngineRunnerForThreadpool> {
-
-	private final int numOfRunners;
-	private ExecutorService pool;
+final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngineWithPool {
 
 //	public QNetsimEngineWithThreadpool(final QSim sim) {
 //		this(sim, null);
@@ -54,61 +47,23 @@ final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEng
 
 	@Inject QNetsimEngineWithThreadpool(final QSim sim, QNetworkFactory netsimNetworkFactory) {
 		super(sim, netsimNetworkFactory);
-		this.numOfRunners = this.numOfThreads;
 	}
 
-	@Override public void finishMultiThreading() {
-		this.pool.shutdown();
+	@Override
+	protected int getNumberOfRunners() {
+		return this.numOfThreads;
 	}
 
-	protected void run(double time) {
-		// yy Acceleration options to try out (kai, jan'15):
-
-		// (a) Try to do without barriers.  With our
-		// message-based experiments a decade ago, it was better to let each runner decide locally when to proceed.  For intuition, imagine that
-		// one runner is slowest on the links, and some other runner slowest on the nodes.  With the barriers, this cannot overlap.
-		// With message passing, this was achieved by waiting for all necessary messages.  Here, it could (for example) be achieved with runner-local
-		// clocks:
-		// for ( all runners that own incoming links to my nodes ) { // (*)
-		//    wait until runner.getTime() == myTime ;
-		// }
-		// processLocalNodes() ;
-		// mytime += 0.5 ;
-		// for ( all runners that own toNodes of my links ) { // (**)
-		//    wait until runner.getTime() == myTime ;
-		// }
-		// processLocalLinks() ;
-		// myTime += 0.5 ;
-
-		// (b) Do deliberate domain decomposition rather than round robin (fewer runners to wait for at (*) and (**)).
-
-		// (c) One thread that is much faster than all others is much more efficient than one thread that is much slower than all others.
-		// So make sure that no thread sticks out in terms of slowness.  Difficult to achieve, though.  A decade back, we used a "typical" run
-		// as input for the domain decomposition under (b).
-
-		// set current Time
-		for (AbstractQNetsimEngineRunner engine : this.getQnetsimEngineRunner()) {
-			engine.setTime(time);
-		}
+	@Override
+	protected QNetsimEngineRunnerForThreadpool createRunner() {
+		return new QNetsimEngineRunnerForThreadpool();
+	}
 
-		try {
-			for (AbstractQNetsimEngineRunner engine : this.getQnetsimEngineRunner()) {
-				((QNetsimEngineRunnerForThreadpool) engine).setMovingNodes(true);
-			}
-			for (Future<Boolean> future : pool.invokeAll(this.getQnetsimEngineRunner())) {
-				future.get();
-			}
-			for (AbstractQNetsimEngineRunner engine : this.getQnetsimEngineRunner()) {
-				((QNetsimEngineRunnerForThreadpool) engine).setMovingNodes(false);
-			}
-			for (Future<Boolean> future : pool.invokeAll(this.getQnetsimEngineRunner())) {
-				future.get();
-			}
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e) ;
-		} catch (ExecutionException e) {
-			throw new RuntimeException(e.getCause());
-		}
+	@Override
+	protected ExecutorService createPool() {
+		return Executors.newFixedThreadPool(
+				this.numOfThreads,
+				new NamedThreadFactory());
 	}
 
 	private static class NamedThreadFactory implements ThreadFactory {
@@ -119,21 +74,4 @@ final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEng
 			return new Thread( r , "QNetsimEngine_PooledThread_" + count++);
 		}
 	}
-
-	@Override
-	protected List<QNetsimEngineRunnerForThreadpool> initQSimEngineRunners() {
-		List<QNetsimEngineRunnerForThreadpool> engines = new ArrayList<>();
-		for (int i = 0; i < numOfRunners; i++) {
-			QNetsimEngineRunnerForThreadpool engine = new QNetsimEngineRunnerForThreadpool();
-			engines.add(engine);
-		}
-		return engines;
-	}
-
-	@Override
-	protected void initMultiThreading() {
-		this.pool = Executors.newFixedThreadPool(
-				this.numOfThreads,
-				new NamedThreadFactory());
-	}
 }
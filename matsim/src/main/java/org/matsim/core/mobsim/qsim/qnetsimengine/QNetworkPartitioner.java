@@ -0,0 +1,206 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
+
+/**
+ * Assigns the nodes of the network (and with them their out-links) to the
+ * {@link AbstractQNetsimEngineRunner}s.
+ * <p></p>
+ * With {@link NetworkPartitioning#roundRobin}, neighbouring nodes typically end up on different runners.  The other
+ * options produce spatially contiguous regions so that a runner mostly touches nodes and links whose neighbours it
+ * also owns.  The regions are balanced by a node weight which approximates the expected activity of the node, i.e.
+ * one for the node itself plus the flow capacity (veh/s) of its out-links.
+ */
+public final class QNetworkPartitioner {
+
+	/** number of bits per axis of the hilbert curve grid. */
+	private static final int HILBERT_ORDER = 16;
+
+	private QNetworkPartitioner() {
+	}
+
+	/**
+	 * @return for every node (same order as in the list) the index of the part, i.e. the runner, it is assigned to.
+	 */
+	public static int[] partition(List<Node> nodes, int numberOfParts, NetworkPartitioning partitioning) {
+		int[] parts = new int[nodes.size()];
+		if (numberOfParts <= 1 || nodes.isEmpty()) {
+			return parts;
+		}
+
+		switch (partitioning) {
+			case roundRobin:
+				for (int i = 0; i < parts.length; i++) {
+					parts[i] = i % numberOfParts;
+				}
+				break;
+			case spaceFillingCurve:
+				partitionAlongHilbertCurve(nodes, computeWeights(nodes), numberOfParts, parts);
+				break;
+			case coordinateBisection: {
+				Integer[] indices = new Integer[nodes.size()];
+				for (int i = 0; i < indices.length; i++) {
+					indices[i] = i;
+				}
+				bisect(nodes, computeWeights(nodes), indices, 0, indices.length, 0, numberOfParts, parts);
+				break;
+			}
+			default:
+				throw new RuntimeException("Unknown network partitioning: " + partitioning);
+		}
+		return parts;
+	}
+
+	static double[] computeWeights(List<Node> nodes) {
+		double[] weights = new double[nodes.size()];
+		for (int i = 0; i < weights.length; i++) {
+			double weight = 1.0;
+			for (Link outLink : nodes.get(i).getOutLinks().values()) {
+				weight += outLink.getFlowCapacityPerSec();
+			}
+			weights[i] = weight;
+		}
+		return weights;
+	}
+
+	/*
+	 * Sort the nodes along a hilbert curve over the bounding box of the network and cut the resulting sequence into
+	 * pieces of (roughly) equal weight.
+	 */
+	private static void partitionAlongHilbertCurve(List<Node> nodes, double[] weights, int numberOfParts, int[] parts) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Node node : nodes) {
+			Coord coord = node.getCoord();
+			minX = Math.min(minX, coord.getX());
+			minY = Math.min(minY, coord.getY());
+			maxX = Math.max(maxX, coord.getX());
+			maxY = Math.max(maxY, coord.getY());
+		}
+		final int cells = 1 << HILBERT_ORDER;
+		double scaleX = maxX > minX ? (cells - 1) / (maxX - minX) : 0.;
+		double scaleY = maxY > minY ? (cells - 1) / (maxY - minY) : 0.;
+
+		long[] keys = new long[nodes.size()];
+		Integer[] order = new Integer[nodes.size()];
+		for (int i = 0; i < keys.length; i++) {
+			Coord coord = nodes.get(i).getCoord();
+			int x = (int) ((coord.getX() - minX) * scaleX);
+			int y = (int) ((coord.getY() - minY) * scaleY);
+			keys[i] = hilbertIndex(x, y, cells);
+			order[i] = i;
+		}
+		// ties are broken by the original position, so the result does not depend on the sort implementation:
+		Arrays.sort(order, Comparator.<Integer>comparingLong(i -> keys[i]).thenComparingInt(i -> i));
+
+		double totalWeight = 0.;
+		for (double weight : weights) {
+			totalWeight += weight;
+		}
+		double cumulativeWeight = 0.;
+		for (Integer index : order) {
+			// assign by the weight midpoint of the node so that heavy nodes at a cut go to the better fitting side:
+			double midpoint = cumulativeWeight + 0.5 * weights[index];
+			parts[index] = Math.min(numberOfParts - 1, (int) (midpoint / totalWeight * numberOfParts));
+			cumulativeWeight += weights[index];
+		}
+	}
+
+	/**
+	 * Classic conversion of a position on a square grid to its distance along the hilbert curve.
+	 */
+	static long hilbertIndex(int x, int y, int cells) {
+		long d = 0;
+		for (int s = cells / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			// rotate the quadrant:
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				int tmp = x;
+				x = y;
+				y = tmp;
+			}
+		}
+		return d;
+	}
+
+	/*
+	 * Recursive coordinate bisection: split the nodes in [from, to) along the axis with the larger extent so that the
+	 * weights of both halves are proportional to the number of parts each half will be divided into afterwards.
+	 */
+	private static void bisect(List<Node> nodes, double[] weights, Integer[] indices, int from, int to,
+							   int firstPart, int numberOfParts, int[] parts) {
+		if (numberOfParts == 1 || to - from <= 1) {
+			for (int i = from; i < to; i++) {
+				parts[indices[i]] = firstPart;
+			}
+			return;
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double totalWeight = 0.;
+		for (int i = from; i < to; i++) {
+			Coord coord = nodes.get(indices[i]).getCoord();
+			minX = Math.min(minX, coord.getX());
+			minY = Math.min(minY, coord.getY());
+			maxX = Math.max(maxX, coord.getX());
+			maxY = Math.max(maxY, coord.getY());
+			totalWeight += weights[indices[i]];
+		}
+		Comparator<Integer> byCoord = maxX - minX >= maxY - minY ?
+				Comparator.comparingDouble(i -> nodes.get(i).getCoord().getX()) :
+				Comparator.comparingDouble(i -> nodes.get(i).getCoord().getY());
+		Arrays.sort(indices, from, to, byCoord.thenComparingInt(i -> i));
+
+		int lowerParts = numberOfParts / 2;
+		double targetWeight = totalWeight * lowerParts / numberOfParts;
+		double cumulativeWeight = 0.;
+		int split = from;
+		while (split < to - 1 && cumulativeWeight + 0.5 * weights[indices[split]] < targetWeight) {
+			cumulativeWeight += weights[indices[split]];
+			split++;
+		}
+		// both halves need at least one node if there are enough nodes:
+		split = Math.max(split, from + 1);
+
+		bisect(nodes, weights, indices, from, split, firstPart, lowerParts, parts);
+		bisect(nodes, weights, indices, split, to, firstPart + lowerParts, numberOfParts - lowerParts, parts);
+	}
+}
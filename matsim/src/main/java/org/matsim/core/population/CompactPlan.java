@@ -0,0 +1,952 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlan.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Customizable;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.replanning.inheritance.PlanInheritanceModule;
+import org.matsim.core.scenario.CustomizableUtils;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+import org.matsim.utils.objectattributes.attributable.LazyAllocationAttributes;
+
+/**
+ * A {@link Plan} which stores its activities and legs in a few primitive arrays instead of one object per plan element,
+ * see {@link org.matsim.core.config.groups.PlansConfigGroup#isCompactPlanStorage()}.
+ * <p></p>
+ * Activity types and modes are stored as indices into a global string table, link and facility ids by their
+ * {@link Id#index()}. Routes and non-empty attributes are kept as objects. {@link #getPlanElements()} returns a list of
+ * lightweight views which read from and write to the arrays, so code working with the {@link Activity} and {@link Leg}
+ * interfaces works unchanged.
+ * <p></p>
+ * Plan elements which are added to the plan, e.g. after being created by the {@link org.matsim.api.core.v01.population.PopulationFactory},
+ * are kept as they are, so later changes to them are not lost.  {@link #compact()} copies them into the arrays and drops all
+ * references to plan element objects; it must only be called when nobody keeps references to the plan elements any more,
+ * e.g. after the population was read or after replanning, see {@link PopulationUtils#compactPlans(org.matsim.api.core.v01.population.Population)}.
+ * <p></p>
+ * Design comments:<ul>
+ * <li> The views are created lazily and cached until the next {@link #compact()}, so the same element is returned when
+ * accessing the same position repeatedly, as some code compares plan elements by identity.
+ * <li> Removed views are detached, i.e. they get a copy of their data and continue to work outside the plan.
+ * <li> Views which are inserted again at another position, e.g. by {@link java.util.Collections#swap(List, int, int)},
+ * are detached as well, as every position of the arrays holds the data of exactly one element.
+ * </ul>
+ */
+/* deliberately package */ final class CompactPlan implements Plan {
+
+	private static final double UNDEFINED_TIME = Double.NEGATIVE_INFINITY;
+	private static final int NONE = -1;
+
+	private static final int KIND_ACTIVITY = 0;
+	private static final int KIND_INTERACTION_ACTIVITY = 1;
+	private static final int KIND_LEG = 2;
+
+	// ints per element: kind, type or mode, link id or routing mode, facility id
+	private static final int INT_STRIDE = 4;
+	private static final int I_KIND = 0;
+	private static final int I_TYPE = 1;
+	private static final int I_LINK = 2;
+	private static final int I_ROUTING_MODE = 2;
+	private static final int I_FACILITY = 3;
+
+	// doubles per element: x, y, z, start time, end time, maximum duration; or departure time, travel time for legs
+	private static final int DOUBLE_STRIDE = 6;
+	private static final int D_X = 0;
+	private static final int D_Y = 1;
+	private static final int D_Z = 2;
+	private static final int D_START = 3;
+	private static final int D_END = 4;
+	private static final int D_DURATION = 5;
+	private static final int D_DEPARTURE = 0;
+	private static final int D_TRAVEL_TIME = 1;
+
+	private static final int[] EMPTY_INTS = new int[0];
+	private static final double[] EMPTY_DOUBLES = new double[0];
+
+	private static final Map<String, Integer> stringIndices = new ConcurrentHashMap<>();
+	private static volatile String[] strings = new String[64];
+
+	private int size = 0;
+	private int[] ints = EMPTY_INTS;
+	private double[] doubles = EMPTY_DOUBLES;
+	private Route[] routes = null;
+	private Attributes[] elementAttributes = null;
+	private PlanElement[] elements = null; // views or added plan elements, null after compact()
+	private final PlanElementList planElementList = new PlanElementList();
+
+	private Id<Plan> id = null;
+	private Double score = null;
+	private Person person = null;
+	private String type = null;
+	private Customizable customizableDelegate;
+	private Attributes attributes = null;
+
+	/* package */ CompactPlan() {}
+
+	/**
+	 * Copies everything from the given plan, taking over its plan elements.
+	 */
+	/* package */ static CompactPlan copyOf(Plan plan) {
+		CompactPlan compactPlan = new CompactPlan();
+		compactPlan.setPerson(plan.getPerson());
+		compactPlan.setScore(plan.getScore());
+		compactPlan.setType(plan.getType());
+		if (!plan.getAttributes().isEmpty()) {
+			compactPlan.attributes = plan.getAttributes();
+		}
+		compactPlan.id = plan.getId();
+		if (!plan.getCustomAttributes().isEmpty()) {
+			compactPlan.getCustomAttributes().putAll(plan.getCustomAttributes());
+		}
+		compactPlan.getPlanElements().addAll(plan.getPlanElements());
+		compactPlan.compact();
+		return compactPlan;
+	}
+
+	static int intern(String s) {
+		if (s == null) {
+			return NONE;
+		}
+		Integer index = stringIndices.get(s);
+		if (index != null) {
+			return index;
+		}
+		synchronized (stringIndices) {
+			index = stringIndices.get(s);
+			if (index == null) {
+				index = stringIndices.size();
+				String[] table = strings;
+				if (index == table.length) {
+					table = Arrays.copyOf(table, table.length * 2);
+				}
+				table[index] = s.intern();
+				strings = table;
+				stringIndices.put(s, index);
+			}
+			return index;
+		}
+	}
+
+	static String string(int index) {
+		return index == NONE ? null : strings[index];
+	}
+
+	private static OptionalTime asOptionalTime(double seconds) {
+		return seconds == UNDEFINED_TIME ? OptionalTime.undefined() : OptionalTime.defined(seconds);
+	}
+
+	/**
+	 * Copies all plan elements which were added to this plan into the arrays, and drops the references to all plan
+	 * element objects.  Plan elements which were retrieved from this plan before must not be used afterwards.
+	 * Plan elements of unknown implementations are kept as they are.
+	 */
+	void compact() {
+		if (this.elements == null) {
+			return;
+		}
+		boolean hasForeignElements = false;
+		for (int i = 0; i < this.size; i++) {
+			PlanElement pe = this.elements[i];
+			if (pe == null || isOwnView(pe, i)) {
+				this.elements[i] = null;
+			} else if (pe instanceof ActivityImpl || pe instanceof InteractionActivity || pe instanceof ActivityView) {
+				storeActivity(i, (Activity) pe);
+				this.elements[i] = null;
+			} else if (pe instanceof LegImpl || pe instanceof LegView) {
+				storeLeg(i, (Leg) pe);
+				this.elements[i] = null;
+			} else {
+				hasForeignElements = true;
+			}
+		}
+		int intLength = this.size * INT_STRIDE;
+		int doubleLength = this.size * DOUBLE_STRIDE;
+		this.ints = this.ints.length == intLength ? this.ints : Arrays.copyOf(this.ints, intLength);
+		this.doubles = this.doubles.length == doubleLength ? this.doubles : Arrays.copyOf(this.doubles, doubleLength);
+		this.routes = trim(this.routes);
+		this.elementAttributes = trim(this.elementAttributes);
+		this.elements = hasForeignElements ? Arrays.copyOf(this.elements, this.size) : null;
+	}
+
+	private <T> T[] trim(T[] array) {
+		if (array == null) {
+			return null;
+		}
+		for (int i = 0; i < this.size; i++) {
+			if (array[i] != null) {
+				return array.length == this.size ? array : Arrays.copyOf(array, this.size);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if the element is a view which reads its data from the given position of the arrays.
+	 */
+	private boolean isOwnView(PlanElement pe, int index) {
+		return (pe instanceof ActivityView activity && activity.owner() == this && activity.index == index)
+				|| (pe instanceof LegView leg && leg.owner() == this && leg.index == index);
+	}
+
+	private void storeActivity(int index, Activity act) {
+		int i = index * INT_STRIDE;
+		int d = index * DOUBLE_STRIDE;
+		boolean interaction = act instanceof InteractionActivity || (act instanceof ActivityView view && view.isInteraction());
+		this.ints[i + I_KIND] = interaction ? KIND_INTERACTION_ACTIVITY : KIND_ACTIVITY;
+		this.ints[i + I_TYPE] = intern(act.getType());
+		this.ints[i + I_LINK] = act.getLinkId() == null ? NONE : act.getLinkId().index();
+		this.ints[i + I_FACILITY] = act.getFacilityId() == null ? NONE : act.getFacilityId().index();
+		setCoord(index, act.getCoord());
+		this.doubles[d + D_START] = act.getStartTime().orElse(UNDEFINED_TIME);
+		this.doubles[d + D_END] = act.getEndTime().orElse(UNDEFINED_TIME);
+		this.doubles[d + D_DURATION] = act.getMaximumDuration().orElse(UNDEFINED_TIME);
+		setElementAttributes(index, interaction || act.getAttributes().isEmpty() ? null : act.getAttributes());
+		setRoute(index, null);
+	}
+
+	private void storeLeg(int index, Leg leg) {
+		int i = index * INT_STRIDE;
+		int d = index * DOUBLE_STRIDE;
+		this.ints[i + I_KIND] = KIND_LEG;
+		this.ints[i + I_TYPE] = intern(leg.getMode());
+		this.ints[i + I_ROUTING_MODE] = intern(leg.getRoutingMode());
+		this.ints[i + I_FACILITY] = NONE;
+		this.doubles[d + D_DEPARTURE] = leg.getDepartureTime().orElse(UNDEFINED_TIME);
+		this.doubles[d + D_TRAVEL_TIME] = leg.getTravelTime().orElse(UNDEFINED_TIME);
+		setRoute(index, leg.getRoute());
+		setElementAttributes(index, leg.getAttributes().isEmpty() ? null : leg.getAttributes());
+	}
+
+	private void setCoord(int index, Coord coord) {
+		int d = index * DOUBLE_STRIDE;
+		if (coord == null) {
+			this.doubles[d + D_X] = Double.NaN;
+			this.doubles[d + D_Y] = Double.NaN;
+			this.doubles[d + D_Z] = Double.NaN;
+		} else {
+			this.doubles[d + D_X] = coord.getX();
+			this.doubles[d + D_Y] = coord.getY();
+			this.doubles[d + D_Z] = coord.hasZ() ? coord.getZ() : Double.NaN;
+		}
+	}
+
+	private Coord getCoord(int index) {
+		int d = index * DOUBLE_STRIDE;
+		double x = this.doubles[d + D_X];
+		if (Double.isNaN(x)) {
+			return null;
+		}
+		double z = this.doubles[d + D_Z];
+		return Double.isNaN(z) ? new Coord(x, this.doubles[d + D_Y]) : new Coord(x, this.doubles[d + D_Y], z);
+	}
+
+	private void setRoute(int index, Route route) {
+		if (route == null && this.routes == null) {
+			return;
+		}
+		if (this.routes == null) {
+			this.routes = new Route[this.ints.length / INT_STRIDE];
+		}
+		this.routes[index] = route;
+	}
+
+	private void setElementAttributes(int index, Attributes attributes) {
+		if (attributes == null && this.elementAttributes == null) {
+			return;
+		}
+		if (this.elementAttributes == null) {
+			this.elementAttributes = new Attributes[this.ints.length / INT_STRIDE];
+		}
+		this.elementAttributes[index] = attributes;
+	}
+
+	private Attributes getElementAttributes(int index) {
+		return this.elementAttributes == null ? null : this.elementAttributes[index];
+	}
+
+	private PlanElement getElement(int index) {
+		if (this.elements == null) {
+			this.elements = new PlanElement[this.ints.length / INT_STRIDE];
+		}
+		PlanElement pe = this.elements[index];
+		if (pe == null) {
+			pe = this.ints[index * INT_STRIDE + I_KIND] == KIND_LEG ? new LegView(index) : new ActivityView(index);
+			this.elements[index] = pe;
+		}
+		return pe;
+	}
+
+	private void ensureCapacity(int capacity) {
+		int currentCapacity = this.ints.length / INT_STRIDE;
+		if (capacity <= currentCapacity) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, currentCapacity + (currentCapacity >> 1) + 1);
+		this.ints = Arrays.copyOf(this.ints, newCapacity * INT_STRIDE);
+		this.doubles = Arrays.copyOf(this.doubles, newCapacity * DOUBLE_STRIDE);
+		if (this.routes != null) {
+			this.routes = Arrays.copyOf(this.routes, newCapacity);
+		}
+		if (this.elementAttributes != null) {
+			this.elementAttributes = Arrays.copyOf(this.elementAttributes, newCapacity);
+		}
+		if (this.elements != null) {
+			this.elements = Arrays.copyOf(this.elements, newCapacity);
+		}
+	}
+
+	/**
+	 * Moves the elements from <code>from</code> on by <code>shift</code> positions and updates the indices of the views.
+	 */
+	private void shift(int from, int shift) {
+		int count = this.size - from;
+		System.arraycopy(this.ints, from * INT_STRIDE, this.ints, (from + shift) * INT_STRIDE, count * INT_STRIDE);
+		System.arraycopy(this.doubles, from * DOUBLE_STRIDE, this.doubles, (from + shift) * DOUBLE_STRIDE, count * DOUBLE_STRIDE);
+		if (this.routes != null) {
+			System.arraycopy(this.routes, from, this.routes, from + shift, count);
+		}
+		if (this.elementAttributes != null) {
+			System.arraycopy(this.elementAttributes, from, this.elementAttributes, from + shift, count);
+		}
+		if (this.elements != null) {
+			System.arraycopy(this.elements, from, this.elements, from + shift, count);
+			for (int i = from + shift, n = this.size + shift; i < n; i++) {
+				PlanElement pe = this.elements[i];
+				if (pe instanceof ActivityView view && view.owner() == this) {
+					view.index = i;
+				} else if (pe instanceof LegView view && view.owner() == this) {
+					view.index = i;
+				}
+			}
+		}
+	}
+
+	private void detach(PlanElement pe) {
+		if (pe instanceof ActivityView view && view.owner() == this) {
+			view.detach();
+		} else if (pe instanceof LegView view && view.owner() == this) {
+			view.detach();
+		}
+	}
+
+	@Override
+	public List<PlanElement> getPlanElements() {
+		return this.planElementList;
+	}
+
+	@Override
+	public void addLeg(final Leg leg) {
+		this.planElementList.add(leg);
+	}
+
+	@Override
+	public void addActivity(final Activity act) {
+		this.planElementList.add(act);
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.person;
+	}
+
+	@Override
+	public void setPerson(final Person person) {
+		this.person = person;
+	}
+
+	@Override
+	public Double getScore() {
+		return this.score;
+	}
+
+	@Override
+	public void setScore(final Double score) {
+		this.score = score;
+	}
+
+	@Override
+	public String getType() {
+		return this.type;
+	}
+
+	@Override
+	public void setType(final String type) {
+		this.type = type;
+	}
+
+	@Override
+	public Id<Plan> getId() {
+		if (this.id != null) {
+			return this.id;
+		}
+		Object planId = this.getAttributes().getAttribute(PlanInheritanceModule.PLAN_ID);
+		return planId == null ? null : Id.create(planId.toString(), Plan.class);
+	}
+
+	@Override
+	public void setPlanId(Id<Plan> planId) {
+		this.getAttributes().putAttribute(PlanInheritanceModule.PLAN_ID, planId.toString());
+		this.id = planId;
+	}
+
+	@Override
+	public int getIterationCreated() {
+		return (int) this.getAttributes().getAttribute(PlanInheritanceModule.ITERATION_CREATED);
+	}
+
+	@Override
+	public void setIterationCreated(int iteration) {
+		this.getAttributes().putAttribute(PlanInheritanceModule.ITERATION_CREATED, iteration);
+	}
+
+	@Override
+	public String getPlanMutator() {
+		return (String) this.getAttributes().getAttribute(PlanInheritanceModule.PLAN_MUTATOR);
+	}
+
+	@Override
+	public void setPlanMutator(String planMutator) {
+		this.getAttributes().putAttribute(PlanInheritanceModule.PLAN_MUTATOR, planMutator);
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.attributes != null) {
+			return this.attributes;
+		}
+		return new LazyAllocationAttributes(attributes -> this.attributes = attributes, () -> this.attributes);
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		if (this.customizableDelegate == null) {
+			this.customizableDelegate = CustomizableUtils.createCustomizable();
+		}
+		return this.customizableDelegate.getCustomAttributes();
+	}
+
+	@Override
+	public String toString() {
+		String scoreString = "undefined";
+		if (this.getScore() != null) {
+			scoreString = this.getScore().toString();
+		}
+		String personIdString = "undefined" ;
+		if ( this.getPerson() != null ) {
+			personIdString = this.getPerson().getId().toString() ;
+		}
+		return "[score=" + scoreString + "]" +
+				"[nof_acts_legs=" + this.size + "]" +
+				"[type=" + this.type + "]" +
+				"[personId=" + personIdString + "]" ;
+	}
+
+	private final class PlanElementList extends AbstractList<PlanElement> {
+
+		@Override
+		public PlanElement get(int index) {
+			checkIndex(index, size);
+			return getElement(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public PlanElement set(int index, PlanElement element) {
+			checkIndex(index, size);
+			checkElement(element);
+			PlanElement old = getElement(index);
+			if (old != element) {
+				// a view of another position of this plan needs its own copy of the data, see add()
+				detach(element);
+				detach(old);
+				elements[index] = element;
+			}
+			return old;
+		}
+
+		@Override
+		public void add(int index, PlanElement element) {
+			checkIndex(index, size + 1);
+			checkElement(element);
+			// a view of this plan which is inserted again, e.g. when moving or duplicating an element, would still read the
+			// data of its old position, which is shifted or overwritten.  So it gets its own copy of the data, just like
+			// a plan element object which is in the list twice.
+			detach(element);
+			ensureCapacity(size + 1);
+			if (elements == null) {
+				elements = new PlanElement[ints.length / INT_STRIDE];
+			}
+			shift(index, 1);
+			elements[index] = element;
+			if (routes != null) {
+				routes[index] = null;
+			}
+			if (elementAttributes != null) {
+				elementAttributes[index] = null;
+			}
+			size++;
+			this.modCount++;
+		}
+
+		@Override
+		public PlanElement remove(int index) {
+			checkIndex(index, size);
+			PlanElement old = getElement(index);
+			detach(old);
+			shift(index + 1, -1);
+			size--;
+			elements[size] = null;
+			if (routes != null) {
+				routes[size] = null;
+			}
+			if (elementAttributes != null) {
+				elementAttributes[size] = null;
+			}
+			this.modCount++;
+			return old;
+		}
+
+		@Override
+		public void clear() {
+			if (elements != null) {
+				for (int i = 0; i < size; i++) {
+					if (elements[i] != null) {
+						detach(elements[i]);
+					}
+				}
+			}
+			size = 0;
+			ints = EMPTY_INTS;
+			doubles = EMPTY_DOUBLES;
+			routes = null;
+			elementAttributes = null;
+			elements = null;
+			this.modCount++;
+		}
+
+		private static void checkIndex(int index, int size) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+
+		private static void checkElement(PlanElement element) {
+			if (element == null) {
+				throw new NullPointerException("plan elements must not be null");
+			}
+		}
+	}
+
+	/**
+	 * An activity stored in the arrays of the plan, or a detached copy after it was removed from the plan.
+	 */
+	final class ActivityView implements Activity {
+		private int index;
+		private Activity detached = null;
+		private final boolean interaction;
+
+		private ActivityView(int index) {
+			this.index = index;
+			this.interaction = ints[index * INT_STRIDE + I_KIND] == KIND_INTERACTION_ACTIVITY;
+		}
+
+		private CompactPlan owner() {
+			return this.detached == null ? CompactPlan.this : null;
+		}
+
+		boolean isInteraction() {
+			return this.interaction;
+		}
+
+		private void detach() {
+			Activity copy = this.interaction ? new InteractionActivity(getType()) : new ActivityImpl(getType());
+			copy.setCoord(getCoord());
+			copy.setLinkId(getLinkId());
+			copy.setFacilityId(getFacilityId());
+			if (!this.interaction) {
+				getStartTime().ifDefined(copy::setStartTime);
+				getEndTime().ifDefined(copy::setEndTime);
+				getMaximumDuration().ifDefined(copy::setMaximumDuration);
+				AttributesUtils.copyAttributesFromTo(this, copy);
+			}
+			this.detached = copy;
+		}
+
+		private double getDouble(int field) {
+			return doubles[this.index * DOUBLE_STRIDE + field];
+		}
+
+		private void setDouble(int field, double value) {
+			doubles[this.index * DOUBLE_STRIDE + field] = value;
+		}
+
+		@Override
+		public OptionalTime getEndTime() {
+			return this.detached != null ? this.detached.getEndTime() : asOptionalTime(getDouble(D_END));
+		}
+
+		@Override
+		public void setEndTime(double seconds) {
+			if (this.detached != null) {
+				this.detached.setEndTime(seconds);
+				return;
+			}
+			if (this.interaction) {
+				throw new UnsupportedOperationException("Setting duration is not supported for InteractionActivity.");
+			}
+			OptionalTime.assertDefined(seconds);
+			setDouble(D_END, seconds);
+		}
+
+		@Override
+		public void setEndTimeUndefined() {
+			if (this.detached != null) {
+				this.detached.setEndTimeUndefined();
+			} else {
+				setDouble(D_END, UNDEFINED_TIME);
+			}
+		}
+
+		@Override
+		public String getType() {
+			return this.detached != null ? this.detached.getType() : string(ints[this.index * INT_STRIDE + I_TYPE]);
+		}
+
+		@Override
+		public void setType(String type) {
+			if (this.detached != null) {
+				this.detached.setType(type);
+			} else {
+				ints[this.index * INT_STRIDE + I_TYPE] = intern(type);
+			}
+		}
+
+		@Override
+		public Coord getCoord() {
+			return this.detached != null ? this.detached.getCoord() : CompactPlan.this.getCoord(this.index);
+		}
+
+		@Override
+		public void setCoord(Coord coord) {
+			if (this.detached != null) {
+				this.detached.setCoord(coord);
+			} else {
+				CompactPlan.this.setCoord(this.index, coord);
+			}
+		}
+
+		@Override
+		public OptionalTime getStartTime() {
+			return this.detached != null ? this.detached.getStartTime() : asOptionalTime(getDouble(D_START));
+		}
+
+		@Override
+		public void setStartTime(double seconds) {
+			if (this.detached != null) {
+				this.detached.setStartTime(seconds);
+				return;
+			}
+			if (this.interaction) {
+				throw new UnsupportedOperationException("Setting start time is not supported for InteractionActivity.");
+			}
+			OptionalTime.assertDefined(seconds);
+			setDouble(D_START, seconds);
+		}
+
+		@Override
+		public void setStartTimeUndefined() {
+			if (this.detached != null) {
+				this.detached.setStartTimeUndefined();
+			} else {
+				setDouble(D_START, UNDEFINED_TIME);
+			}
+		}
+
+		@Override
+		public OptionalTime getMaximumDuration() {
+			if (this.detached != null) {
+				return this.detached.getMaximumDuration();
+			}
+			return this.interaction ? OptionalTime.zeroSeconds() : asOptionalTime(getDouble(D_DURATION));
+		}
+
+		@Override
+		public void setMaximumDuration(double seconds) {
+			if (this.detached != null) {
+				this.detached.setMaximumDuration(seconds);
+				return;
+			}
+			if (this.interaction) {
+				// as in InteractionActivity: allow setting the duration to 0, which it is anyway.
+				if (seconds != 0) throw new UnsupportedOperationException("Setting duration is not supported for InteractionActivity.");
+				return;
+			}
+			OptionalTime.assertDefined(seconds);
+			setDouble(D_DURATION, seconds);
+		}
+
+		@Override
+		public void setMaximumDurationUndefined() {
+			if (this.detached != null) {
+				this.detached.setMaximumDurationUndefined();
+			} else if (this.interaction) {
+				throw new UnsupportedOperationException("Setting duration to undefined is not supported for InteractionActivity.");
+			} else {
+				setDouble(D_DURATION, UNDEFINED_TIME);
+			}
+		}
+
+		@Override
+		public Id<Link> getLinkId() {
+			if (this.detached != null) {
+				return this.detached.getLinkId();
+			}
+			int linkIndex = ints[this.index * INT_STRIDE + I_LINK];
+			return linkIndex == NONE ? null : Id.get(linkIndex, Link.class);
+		}
+
+		@Override
+		public void setLinkId(Id<Link> linkId) {
+			if (this.detached != null) {
+				this.detached.setLinkId(linkId);
+			} else {
+				ints[this.index * INT_STRIDE + I_LINK] = linkId == null ? NONE : linkId.index();
+			}
+		}
+
+		@Override
+		public Id<ActivityFacility> getFacilityId() {
+			if (this.detached != null) {
+				return this.detached.getFacilityId();
+			}
+			int facilityIndex = ints[this.index * INT_STRIDE + I_FACILITY];
+			return facilityIndex == NONE ? null : Id.get(facilityIndex, ActivityFacility.class);
+		}
+
+		@Override
+		public void setFacilityId(Id<ActivityFacility> facilityId) {
+			if (this.detached != null) {
+				this.detached.setFacilityId(facilityId);
+			} else {
+				ints[this.index * INT_STRIDE + I_FACILITY] = facilityId == null ? NONE : facilityId.index();
+			}
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			if (this.detached != null) {
+				return this.detached.getAttributes();
+			}
+			Attributes attributes = getElementAttributes(this.index);
+			if (attributes != null) {
+				return attributes;
+			}
+			if (this.interaction) {
+				return new LazyAllocationAttributes(a -> {
+					throw new RuntimeException("interaction activities cannot have attributes.");
+				}, () -> null);
+			}
+			return new LazyAllocationAttributes(a -> setElementAttributes(this.index, a), () -> getElementAttributes(this.index));
+		}
+
+		@Override
+		public String toString() {
+			return "act [type=" + this.getType() + "]"
+					+ "[coord=" + this.getCoord() + "]"
+					+ "[linkId=" + this.getLinkId() + "]"
+					+ "[startTime=" + Time.writeTime(getStartTime()) + "]"
+					+ "[endTime=" + Time.writeTime(getEndTime()) + "]"
+					+ "[duration=" + Time.writeTime(getMaximumDuration()) + "]"
+					+ "[facilityId=" + this.getFacilityId() + "]";
+		}
+	}
+
+	/**
+	 * A leg stored in the arrays of the plan, or a detached copy after it was removed from the plan.
+	 */
+	final class LegView implements Leg {
+		private int index;
+		private Leg detached = null;
+
+		private LegView(int index) {
+			this.index = index;
+		}
+
+		private CompactPlan owner() {
+			return this.detached == null ? CompactPlan.this : null;
+		}
+
+		private void detach() {
+			Leg copy = new LegImpl(getMode());
+			copy.setRoutingMode(getRoutingMode());
+			getDepartureTime().ifDefined(copy::setDepartureTime);
+			getTravelTime().ifDefined(copy::setTravelTime);
+			copy.setRoute(getRoute());
+			AttributesUtils.copyAttributesFromTo(this, copy);
+			this.detached = copy;
+		}
+
+		private double getDouble(int field) {
+			return doubles[this.index * DOUBLE_STRIDE + field];
+		}
+
+		private void setDouble(int field, double value) {
+			doubles[this.index * DOUBLE_STRIDE + field] = value;
+		}
+
+		@Override
+		public String getMode() {
+			return this.detached != null ? this.detached.getMode() : string(ints[this.index * INT_STRIDE + I_TYPE]);
+		}
+
+		@Override
+		public void setMode(String mode) {
+			if (this.detached != null) {
+				this.detached.setMode(mode);
+			} else {
+				// same as in LegImpl: changing the mode resets the routing mode
+				ints[this.index * INT_STRIDE + I_TYPE] = intern(mode);
+				ints[this.index * INT_STRIDE + I_ROUTING_MODE] = NONE;
+			}
+		}
+
+		@Override
+		public String getRoutingMode() {
+			return this.detached != null ? this.detached.getRoutingMode() : string(ints[this.index * INT_STRIDE + I_ROUTING_MODE]);
+		}
+
+		@Override
+		public void setRoutingMode(String routingMode) {
+			if (this.detached != null) {
+				this.detached.setRoutingMode(routingMode);
+			} else {
+				ints[this.index * INT_STRIDE + I_ROUTING_MODE] = intern(routingMode);
+			}
+		}
+
+		@Override
+		public Route getRoute() {
+			if (this.detached != null) {
+				return this.detached.getRoute();
+			}
+			return routes == null ? null : routes[this.index];
+		}
+
+		@Override
+		public void setRoute(Route route) {
+			if (this.detached != null) {
+				this.detached.setRoute(route);
+			} else {
+				CompactPlan.this.setRoute(this.index, route);
+			}
+		}
+
+		@Override
+		public OptionalTime getDepartureTime() {
+			return this.detached != null ? this.detached.getDepartureTime() : asOptionalTime(getDouble(D_DEPARTURE));
+		}
+
+		@Override
+		public void setDepartureTime(double seconds) {
+			if (this.detached != null) {
+				this.detached.setDepartureTime(seconds);
+			} else {
+				OptionalTime.assertDefined(seconds);
+				setDouble(D_DEPARTURE, seconds);
+			}
+		}
+
+		@Override
+		public void setDepartureTimeUndefined() {
+			if (this.detached != null) {
+				this.detached.setDepartureTimeUndefined();
+			} else {
+				setDouble(D_DEPARTURE, UNDEFINED_TIME);
+			}
+		}
+
+		@Override
+		public OptionalTime getTravelTime() {
+			return this.detached != null ? this.detached.getTravelTime() : asOptionalTime(getDouble(D_TRAVEL_TIME));
+		}
+
+		@Override
+		public void setTravelTime(double seconds) {
+			if (this.detached != null) {
+				this.detached.setTravelTime(seconds);
+			} else {
+				OptionalTime.assertDefined(seconds);
+				setDouble(D_TRAVEL_TIME, seconds);
+			}
+		}
+
+		@Override
+		public void setTravelTimeUndefined() {
+			if (this.detached != null) {
+				this.detached.setTravelTimeUndefined();
+			} else {
+				setDouble(D_TRAVEL_TIME, UNDEFINED_TIME);
+			}
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			if (this.detached != null) {
+				return this.detached.getAttributes();
+			}
+			Attributes attributes = getElementAttributes(this.index);
+			if (attributes != null) {
+				return attributes;
+			}
+			return new LazyAllocationAttributes(a -> setElementAttributes(this.index, a), () -> getElementAttributes(this.index));
+		}
+
+		@Override
+		public String toString() {
+			return "leg [mode=" + this.getMode() + "]"
+					+ "[depTime=" + Time.writeTime(this.getDepartureTime()) + "]"
+					+ "[travTime=" + Time.writeTime(this.getTravelTime()) + "]"
+					+ "[route=" + this.getRoute() + "]";
+		}
+	}
+
+}
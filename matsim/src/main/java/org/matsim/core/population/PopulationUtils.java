@@ -58,6 +58,7 @@ import org.matsim.core.config.groups.PlansConfigGroup;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.population.algorithms.PersonRouteCheck;
+import org.matsim.core.population.io.BinaryPopulationReader;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.population.io.StreamingPopulationReader;
@@ -144,7 +145,40 @@ public final class PopulationUtils {
 			throw new IllegalArgumentException("The type \"" + networkRouteType + "\" is not a supported type for network routes.");
 		}
 		routeFactory.setRouteFactory(NetworkRoute.class, factory);
-		return new PopulationImpl(new PopulationFactoryImpl(routeFactory));
+		return new PopulationImpl(new PopulationFactoryImpl(routeFactory, plansConfigGroup.isCompactPlanStorage()));
+	}
+
+	/**
+	 * Converts the plans of all persons to the compact representation, see {@link PlansConfigGroup#isCompactPlanStorage()},
+	 * and copies plan elements added since the last call into it.  References to plan elements of the population obtained
+	 * before must not be used afterwards.  Plans of other implementations than the default one are not touched.
+	 */
+	public static void compactPlans(Population population) {
+		for (Person person : population.getPersons().values()) {
+			@SuppressWarnings("unchecked")
+			List<Plan> plans = (List<Plan>) person.getPlans();
+			for (int i = 0; i < plans.size(); i++) {
+				Plan plan = plans.get(i);
+				if (plan instanceof CompactPlan compactPlan) {
+					compactPlan.compact();
+				} else if (plan instanceof PlanImpl) {
+					boolean selected = person.getSelectedPlan() == plan;
+					CompactPlan compactPlan = CompactPlan.copyOf(plan);
+					plans.set(i, compactPlan);
+					if (selected) {
+						person.setSelectedPlan(compactPlan);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return whether the plan element is an activity with fixed, undefined start and end time and a duration of 0, see
+	 * {@link #createInteractionActivityFromLinkId(String, Id)} and related methods.
+	 */
+	public static boolean isInteractionActivity(PlanElement pe) {
+		return pe instanceof InteractionActivity || (pe instanceof CompactPlan.ActivityView view && view.isInteraction());
 	}
 
 	public static Leg unmodifiableLeg( Leg leg ) {
@@ -825,7 +859,7 @@ public final class PopulationUtils {
 	}
 
 	public static Activity convertInteractionToStandardActivity(Activity activity) {
-		if (activity instanceof InteractionActivity) {
+		if (isInteractionActivity(activity)) {
 			return createActivity(activity);
 		} else {
 			return activity;
@@ -907,7 +941,7 @@ public final class PopulationUtils {
 				 * However, there are pieces of code in use, e.g. in the share mobility contrib, where "interaction activities" need to be modeled as ActivityImpl
 				 * since their duration is != 0 or they have a defined start time.
 				 */
-				if (withInteractionActivities && (pe instanceof InteractionActivity /* || StageActivityTypeIdentifier.isStageActivity(((Activity) pe).getType())*/)) {
+				if (withInteractionActivities && (isInteractionActivity(pe) /* || StageActivityTypeIdentifier.isStageActivity(((Activity) pe).getType())*/)) {
 					out.getPlanElements().add(createInteractionActivity((Activity) pe));
 				} else {
 					out.getPlanElements().add(createActivity((Activity) pe));
@@ -1180,7 +1214,11 @@ public final class PopulationUtils {
 	public static void readPopulation( Population population, String filename ) {
 		MutableScenario scenario = ScenarioUtils.createMutableScenario( ConfigUtils.createConfig() ) ;
 		scenario.setPopulation( population );
-		new PopulationReader( scenario ).readFile( filename );
+		if ( BinaryPopulationReader.isBinaryPopulationFile( filename ) ) {
+			new BinaryPopulationReader( scenario ).readFile( filename );
+		} else {
+			new PopulationReader( scenario ).readFile( filename );
+		}
 		// (yyyy population reader uses network to retrofit some missing geo information such as route lenth.
 		// In my opinion, that should be done in prepareForSim, not in the parser.  It is commented as such
 		// in the PopulationReader class.  kai, nov'18)
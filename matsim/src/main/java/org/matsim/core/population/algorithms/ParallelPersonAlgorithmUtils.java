@@ -21,9 +21,11 @@
 package org.matsim.core.population.algorithms;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -73,6 +75,22 @@ public final class ParallelPersonAlgorithmUtils {
 	 * @param algoProvider
 	 */
 	public static void run(final Population population, final int numberOfThreads, final PersonAlgorithmProvider algoProvider) {
+		run(population, numberOfThreads, false, algoProvider);
+	}
+
+	/**
+	 * Like {@link #run(Population, int, PersonAlgorithmProvider)}, but with <code>dynamicLoadBalancing</code>, the threads
+	 * take the persons in small chunks from a shared list while they run, instead of getting every n-th person assigned
+	 * in advance. So a thread which happens to get many expensive persons does not delay the others, but which thread
+	 * handles a person is no longer deterministic.
+	 *
+	 * @param population
+	 * @param numberOfThreads
+	 * @param dynamicLoadBalancing
+	 * @param algoProvider
+	 */
+	public static void run(final Population population, final int numberOfThreads, final boolean dynamicLoadBalancing,
+						   final PersonAlgorithmProvider algoProvider) {
 		int numOfThreads = Math.max(numberOfThreads, 1); // it should be at least 1 here; we allow 0 in other places for "no threads"
 		PersonAlgoThread[] algoThreads = new PersonAlgoThread[numOfThreads];
 		Thread[] threads = new Thread[numOfThreads];
@@ -82,6 +100,11 @@ public final class ParallelPersonAlgorithmUtils {
 		final AtomicBoolean hadException = new AtomicBoolean(false);
 		final ExceptionHandler uncaughtExceptionHandler = new ExceptionHandler(hadException);
 
+		SharedPersons sharedPersons = null;
+		if (dynamicLoadBalancing) {
+			sharedPersons = new SharedPersons(population.getPersons().values().toArray(new Person[0]), numOfThreads);
+		}
+
 		// setup threads
 		for (int i = 0; i < numOfThreads; i++) {
 			PersonAlgorithm algo = algoProvider.getPersonAlgorithm();
@@ -89,18 +112,20 @@ public final class ParallelPersonAlgorithmUtils {
 				name = algo.getClass().getSimpleName();
 				counter = new Counter("[" + name + "] handled person # ");
 			}
-			PersonAlgoThread algothread = new PersonAlgoThread(algo, counter);
+			PersonAlgoThread algothread = new PersonAlgoThread(algo, counter, sharedPersons);
 			Thread thread = new Thread(algothread, name + "." + i);
 			thread.setUncaughtExceptionHandler(uncaughtExceptionHandler);
 			threads[i] = thread;
 			algoThreads[i] = algothread;
 		}
 
-		// distribute workload between threads, as long as threads are not yet started, so we don't need synchronized data structures
-		int i = 0;
-		for (Person person : population.getPersons().values()) {
-			algoThreads[i % numOfThreads].handlePerson(person);
-			i++;
+		if (!dynamicLoadBalancing) {
+			// distribute workload between threads, as long as threads are not yet started, so we don't need synchronized data structures
+			int i = 0;
+			for (Person person : population.getPersons().values()) {
+				algoThreads[i % numOfThreads].handlePerson(person);
+				i++;
+			}
 		}
 
 		// start the threads
@@ -117,11 +142,57 @@ public final class ParallelPersonAlgorithmUtils {
 		} catch (InterruptedException e) {
 			throw new RuntimeException(e);
 		}
+		logThreadTimes(name, Arrays.stream(algoThreads).mapToLong(algoThread -> algoThread.busyNanos).toArray());
 		if (hadException.get()) {
 			throw new RuntimeException("Exception while processing persons. Cannot guarantee that all persons have been fully processed.");
 		}
 	}
 
+	/**
+	 * Logs the minimum, average and maximum busy time of the threads of a parallel run, and the share of the time the
+	 * threads spent waiting for the slowest one. Nothing is logged if no thread was busy.
+	 *
+	 * @param name the name of the run, used as prefix of the log message
+	 * @param busyNanos the busy time of each thread, in nanoseconds
+	 */
+	public static void logThreadTimes(final String name, final long[] busyNanos) {
+		long min = Long.MAX_VALUE;
+		long max = 0;
+		long sum = 0;
+		for (long nanos : busyNanos) {
+			min = Math.min(min, nanos);
+			max = Math.max(max, nanos);
+			sum += nanos;
+		}
+		if (max > 0) {
+			log.info("[" + name + "] busy time per thread: min " + min / 1_000_000 + " ms, avg " + sum / busyNanos.length / 1_000_000
+					+ " ms, max " + max / 1_000_000 + " ms, idle share " + Math.round(100.0 * (max * busyNanos.length - sum) / (max * busyNanos.length)) + "%");
+		}
+	}
+
+	/**
+	 * The persons shared by all threads with dynamic load balancing, taken in chunks of consecutive persons.
+	 */
+	private static class SharedPersons {
+
+		private final Person[] persons;
+		private final int chunkSize;
+		private final AtomicInteger next = new AtomicInteger(0);
+
+		SharedPersons(final Person[] persons, final int numberOfThreads) {
+			this.persons = persons;
+			// small enough chunks to balance the load, large enough to not contend on the counter
+			this.chunkSize = Math.max(1, Math.min(64, persons.length / (numberOfThreads * 32)));
+		}
+
+		/**
+		 * @return the index of the first person of the next chunk, or a value of at least the number of persons
+		 */
+		int nextChunk() {
+			return this.next.getAndAdd(this.chunkSize);
+		}
+	}
+
 	/**
 	 * The thread class that really handles the persons.
 	 */
@@ -130,10 +201,13 @@ public final class ParallelPersonAlgorithmUtils {
 		private final PersonAlgorithm personAlgo;
 		private final List<Person> persons = new LinkedList<Person>();
 		private final Counter counter;
+		private final SharedPersons sharedPersons;
+		private long busyNanos = 0;
 
-		public PersonAlgoThread(final PersonAlgorithm algo, final Counter counter) {
+		public PersonAlgoThread(final PersonAlgorithm algo, final Counter counter, final SharedPersons sharedPersons) {
 			this.personAlgo = algo;
 			this.counter = counter;
+			this.sharedPersons = sharedPersons;
 		}
 
 		public void handlePerson(final Person person) {
@@ -142,10 +216,24 @@ public final class ParallelPersonAlgorithmUtils {
 
 		@Override
 		public void run() {
-			for (Person person : this.persons) {
-				this.personAlgo.run(person);
-				counter.incCounter();
+			long start = System.nanoTime();
+			if (this.sharedPersons == null) {
+				for (Person person : this.persons) {
+					this.personAlgo.run(person);
+					counter.incCounter();
+				}
+			} else {
+				Person[] all = this.sharedPersons.persons;
+				int first;
+				while ((first = this.sharedPersons.nextChunk()) < all.length) {
+					int end = Math.min(all.length, first + this.sharedPersons.chunkSize);
+					for (int i = first; i < end; i++) {
+						this.personAlgo.run(all[i]);
+						counter.incCounter();
+					}
+				}
 			}
+			this.busyNanos = System.nanoTime() - start;
 		}
 	}
 	
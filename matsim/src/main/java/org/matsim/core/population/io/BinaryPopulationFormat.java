@@ -0,0 +1,272 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.matsim.core.population.routes.heavycompressed.VarIntUtils;
+import org.matsim.core.utils.misc.OptionalTime;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * Layout of the binary population files and the helpers to encode them.
+ * <p></p>
+ * A file starts with {@link #MAGIC} and {@link #VERSION}, followed by a block with the name and the attributes of the
+ * population, and by the chunks of persons.  Every block is stored as its number of persons, its uncompressed and its
+ * compressed length, followed by the zstd-compressed data.  A block with 0 persons after the population block marks
+ * the end of the file.
+ * <p></p>
+ * A chunk holds a fixed number of consecutive persons and can be decoded on its own, so chunks are encoded and decoded
+ * by several threads.  All strings of a chunk, i.e. ids, types, modes and attributes, are dictionary encoded: the first
+ * occurrence is written in full, every later one as the index into the dictionary of the chunk.  Numbers are written
+ * as variable length integers with {@link VarIntUtils}, network routes as the varint-encoded dictionary indices of
+ * their links.  Times are stored as integer seconds if possible, and as doubles otherwise, so they are restored
+ * exactly.
+ *
+ * @see BinaryPopulationWriter
+ * @see BinaryPopulationReader
+ */
+final class BinaryPopulationFormat {
+
+	static final int MAGIC = 0x4d504f50; // "MPOP"
+	static final int VERSION = 2;
+
+	static final String FILE_EXTENSION = ".mpop";
+
+	static final int PERSONS_PER_CHUNK = 1000;
+	static final int COMPRESSION_LEVEL = 3;
+
+	static final int ACTIVITY = 0;
+	static final int INTERACTION_ACTIVITY = 1;
+	static final int LEG = 2;
+
+	static final int ROUTE_NONE = 0;
+	static final int ROUTE_NETWORK = 1;
+	static final int ROUTE_DESCRIPTION = 2;
+
+	private static final int STRING_NULL = 0;
+	private static final int STRING_NEW = 1;
+	private static final int STRING_OFFSET = 2;
+
+	private static final long TIME_UNDEFINED = 0;
+	private static final long TIME_DOUBLE = 1;
+	private static final long TIME_OFFSET = 2;
+
+	private BinaryPopulationFormat() {
+	}
+
+	static boolean isBinaryPopulationFile(String filename) {
+		return filename.toLowerCase(Locale.ROOT).endsWith(FILE_EXTENSION);
+	}
+
+	/**
+	 * Growable buffer with the methods to write a chunk, including its dictionary.
+	 */
+	static final class ByteSink {
+		private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		private final Object2IntOpenHashMap<String> dictionary = new Object2IntOpenHashMap<>();
+
+		ByteSink() {
+			this.dictionary.defaultReturnValue(-1);
+		}
+
+		void writeByte(int value) {
+			ensureCapacity(1);
+			this.buffer.put((byte) value);
+		}
+
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			VarIntUtils.encode(this.buffer, value);
+		}
+
+		void writeVarInt(int value) {
+			writeVarLong(value & 0xffffffffL);
+		}
+
+		void writeDouble(double value) {
+			ensureCapacity(8);
+			this.buffer.putDouble(value);
+		}
+
+		void writeTime(OptionalTime time) {
+			if (time.isUndefined()) {
+				writeVarLong(TIME_UNDEFINED);
+				return;
+			}
+			double seconds = time.seconds();
+			if (seconds >= 0 && seconds == Math.rint(seconds) && seconds < (1L << 52)) {
+				writeVarLong((long) seconds + TIME_OFFSET);
+			} else {
+				writeVarLong(TIME_DOUBLE);
+				writeDouble(seconds);
+			}
+		}
+
+		/**
+		 * Writes the string with the dictionary of the chunk.
+		 */
+		void writeString(String value) {
+			if (value == null) {
+				writeVarInt(STRING_NULL);
+				return;
+			}
+			int index = this.dictionary.getInt(value);
+			if (index >= 0) {
+				writeVarInt(index + STRING_OFFSET);
+			} else {
+				this.dictionary.put(value, this.dictionary.size());
+				writeVarInt(STRING_NEW);
+				writeUtf8(value);
+			}
+		}
+
+		/**
+		 * Writes the varint-encoded dictionary indices of the strings, after the strings which are not in the
+		 * dictionary yet.
+		 */
+		void writeStrings(List<String> values) {
+			int[] codes = new int[values.size()];
+			List<String> newValues = new ArrayList<>();
+			for (int i = 0; i < codes.length; i++) {
+				String value = values.get(i);
+				int index = this.dictionary.getInt(value);
+				if (index < 0) {
+					index = this.dictionary.size();
+					this.dictionary.put(value, index);
+					newValues.add(value);
+				}
+				codes[i] = index;
+			}
+			writeVarInt(newValues.size());
+			for (String value : newValues) {
+				writeUtf8(value);
+			}
+			byte[] encoded = VarIntUtils.encode(codes, 0, codes.length);
+			writeVarInt(encoded.length);
+			ensureCapacity(encoded.length);
+			this.buffer.put(encoded);
+		}
+
+		private void writeUtf8(String value) {
+			byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(utf8.length);
+			ensureCapacity(utf8.length);
+			this.buffer.put(utf8);
+		}
+
+		int size() {
+			return this.buffer.position();
+		}
+
+		byte[] array() {
+			return this.buffer.array();
+		}
+
+		private void ensureCapacity(int additional) {
+			if (this.buffer.remaining() < additional) {
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + additional));
+				this.buffer.flip();
+				larger.put(this.buffer);
+				this.buffer = larger;
+			}
+		}
+	}
+
+	/**
+	 * Reads what a {@link ByteSink} has written.
+	 */
+	static final class ByteSource {
+		private final ByteBuffer buffer;
+		private final List<String> dictionary = new ArrayList<>();
+
+		ByteSource(byte[] bytes) {
+			this.buffer = ByteBuffer.wrap(bytes);
+		}
+
+		int readByte() {
+			return this.buffer.get() & 0xff;
+		}
+
+		long readVarLong() {
+			return VarIntUtils.decode(this.buffer);
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		double readDouble() {
+			return this.buffer.getDouble();
+		}
+
+		OptionalTime readTime() {
+			long code = readVarLong();
+			if (code == TIME_UNDEFINED) {
+				return OptionalTime.undefined();
+			}
+			if (code == TIME_DOUBLE) {
+				return OptionalTime.defined(readDouble());
+			}
+			return OptionalTime.defined(code - TIME_OFFSET);
+		}
+
+		String readString() {
+			int code = readVarInt();
+			if (code == STRING_NULL) {
+				return null;
+			}
+			if (code == STRING_NEW) {
+				String value = readUtf8();
+				this.dictionary.add(value);
+				return value;
+			}
+			return this.dictionary.get(code - STRING_OFFSET);
+		}
+
+		List<String> readStrings() {
+			int newValues = readVarInt();
+			for (int i = 0; i < newValues; i++) {
+				this.dictionary.add(readUtf8());
+			}
+			byte[] encoded = new byte[readVarInt()];
+			this.buffer.get(encoded);
+			int[] codes = VarIntUtils.decode(encoded);
+			List<String> values = new ArrayList<>(codes.length);
+			for (int code : codes) {
+				values.add(this.dictionary.get(code));
+			}
+			return values;
+		}
+
+		private String readUtf8() {
+			int length = readVarInt();
+			String value = new String(this.buffer.array(), this.buffer.position(), length, StandardCharsets.UTF_8);
+			this.buffer.position(this.buffer.position() + length);
+			return value;
+		}
+	}
+}
@@ -0,0 +1,393 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import static org.matsim.core.population.io.BinaryPopulationFormat.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.population.io.BinaryPopulationFormat.ByteSource;
+import org.matsim.core.population.io.StreamingPopulationReader.StreamingPopulation;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.scenario.ProjectionUtils;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Reads a population written in the {@link BinaryPopulationFormat}, i.e. files ending with <code>.mpop</code>.  The
+ * chunks of persons are decompressed and decoded by {@link org.matsim.core.config.groups.GlobalConfigGroup#getNumberOfThreads()}
+ * threads, and added to the population in the order they were written, so the reader also works with the
+ * {@link StreamingPopulationReader}.
+ */
+public final class BinaryPopulationReader implements MatsimReader {
+
+	private static final Logger log = LogManager.getLogger(BinaryPopulationReader.class);
+
+	private final String inputCRS;
+	private final String targetCRS;
+	private final Scenario scenario;
+	private final int numThreads;
+
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters = new HashMap<>();
+
+	public BinaryPopulationReader(final Scenario scenario) {
+		this(null, null, scenario);
+	}
+
+	public BinaryPopulationReader(final String inputCRS, final String targetCRS, final Scenario scenario) {
+		this(inputCRS, targetCRS, scenario, false);
+	}
+
+	/*deliberately package*/ BinaryPopulationReader(
+				final String inputCRS,
+				final String targetCRS,
+				final Scenario scenario,
+				boolean streaming ) {
+		if ( !streaming && scenario.getPopulation() instanceof StreamingPopulation ) {
+			throw new RuntimeException("BinaryPopulationReader called directly with an instance of StreamingPopulation "
+					+ "in scenario.  Call via StreamingPopulationReader.");
+		}
+		this.inputCRS = inputCRS;
+		this.targetCRS = targetCRS;
+		this.scenario = scenario;
+		this.numThreads = Math.max(1, scenario.getConfig().global().getNumberOfThreads());
+	}
+
+	/**
+	 * @return whether the file is recognized as binary population file by its name.
+	 */
+	public static boolean isBinaryPopulationFile(final String filename) {
+		return BinaryPopulationFormat.isBinaryPopulationFile(filename);
+	}
+
+	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
+		this.attributeConverters.put( clazz , converter );
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributeConverters.putAll( converters );
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		log.info("starting to read binary population from file " + filename + " ...");
+		parse(IOUtils.getInputStream(IOUtils.resolveFileOrResource(filename)));
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		log.info("starting to read binary population from url " + url + " ...");
+		parse(IOUtils.getInputStream(url));
+	}
+
+	/**
+	 * Reads the population from the stream and closes it.
+	 */
+	public void parse(final InputStream stream) {
+		Population population = this.scenario.getPopulation();
+		ExecutorService executor = Executors.newFixedThreadPool(this.numThreads, r -> {
+			Thread thread = new Thread(r, "BinaryPopulationReader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("not a binary population file.");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("unsupported version " + version + " of the binary population format.");
+			}
+
+			in.readInt(); // the population block contains no persons
+			ChunkDecoder header = new ChunkDecoder(readBlock(in), new IdentityTransformation());
+			String name = header.source.readString();
+			if (name != null) {
+				population.setName(name);
+			}
+			header.readAttributes(population.getAttributes());
+			CoordinateTransformation transformation = getCoordinateTransformation(population);
+
+			ArrayDeque<Future<List<Person>>> pending = new ArrayDeque<>();
+			int personCount;
+			while ((personCount = in.readInt()) > 0) {
+				int count = personCount;
+				byte[] block = readBlock(in);
+				pending.add(executor.submit(() -> new ChunkDecoder(block, transformation).readPersons(count)));
+				while (pending.size() > 2 * this.numThreads) {
+					addPersons(population, pending.poll().get());
+				}
+			}
+			while (!pending.isEmpty()) {
+				addPersons(population, pending.poll().get());
+			}
+		} catch (EOFException e) {
+			throw new UncheckedIOException("binary population file is truncated.", e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Could not decode persons", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		if (this.targetCRS != null) {
+			ProjectionUtils.putCRS(population, this.targetCRS);
+		}
+	}
+
+	private CoordinateTransformation getCoordinateTransformation(Population population) {
+		String fileCRS = ProjectionUtils.getCRS(population);
+		if (fileCRS != null && this.targetCRS != null) {
+			if (this.inputCRS != null) {
+				log.warn("coordinate transformation defined both in config and in input file: setting from input file will be used");
+			}
+			return TransformationFactory.getCoordinateTransformation(fileCRS, this.targetCRS);
+		}
+		if (this.inputCRS != null && this.targetCRS != null) {
+			return TransformationFactory.getCoordinateTransformation(this.inputCRS, this.targetCRS);
+		}
+		return new IdentityTransformation();
+	}
+
+	private static void addPersons(Population population, List<Person> persons) {
+		for (Person person : persons) {
+			population.addPerson(person);
+		}
+	}
+
+	/**
+	 * Reads the uncompressed and compressed length of a block, and returns its decompressed data.
+	 */
+	private static byte[] readBlock(DataInputStream in) throws IOException {
+		int uncompressedLength = in.readInt();
+		byte[] compressed = new byte[in.readInt()];
+		in.readFully(compressed);
+		return Zstd.decompress(compressed, uncompressedLength);
+	}
+
+	/**
+	 * Decodes the persons of one chunk.  Not thread-safe, every chunk gets its own decoder.
+	 */
+	private final class ChunkDecoder {
+		private final ByteSource source;
+		private final CoordinateTransformation transformation;
+		private final PopulationFactory factory = scenario.getPopulation().getFactory();
+		private final RouteFactories routeFactories = this.factory.getRouteFactories();
+		private final ObjectAttributesConverter converter = new ObjectAttributesConverter(attributeConverters);
+
+		ChunkDecoder(byte[] data, CoordinateTransformation transformation) {
+			this.source = new ByteSource(data);
+			this.transformation = transformation;
+		}
+
+		List<Person> readPersons(int count) {
+			List<Person> persons = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				persons.add(readPerson());
+			}
+			return persons;
+		}
+
+		private Person readPerson() {
+			Person person = this.factory.createPerson(Id.createPersonId(this.source.readString()));
+			readAttributes(person.getAttributes());
+			int planCount = this.source.readVarInt();
+			int selected = this.source.readVarInt() - 1;
+			for (int i = 0; i < planCount; i++) {
+				Plan plan = readPlan();
+				person.addPlan(plan);
+				if (i == selected) {
+					person.setSelectedPlan(plan);
+				}
+			}
+			return person;
+		}
+
+		private Plan readPlan() {
+			Plan plan = this.factory.createPlan();
+			if (this.source.readByte() != 0) {
+				plan.setScore(this.source.readDouble());
+			}
+			String type = this.source.readString();
+			if (type != null) {
+				plan.setType(type);
+			}
+			Id<Plan> planId = readId(Plan.class);
+			if (planId != null) {
+				plan.setPlanId(planId);
+			}
+			if (this.source.readByte() != 0) {
+				plan.setIterationCreated(this.source.readVarInt() - 1);
+			}
+			String planMutator = this.source.readString();
+			if (planMutator != null) {
+				plan.setPlanMutator(planMutator);
+			}
+			readAttributes(plan.getAttributes());
+			int elementCount = this.source.readVarInt();
+			for (int i = 0; i < elementCount; i++) {
+				int kind = this.source.readByte();
+				if (kind == LEG) {
+					plan.addLeg(readLeg());
+				} else {
+					plan.addActivity(readActivity(kind == INTERACTION_ACTIVITY));
+				}
+			}
+			return plan;
+		}
+
+		private Activity readActivity(boolean interaction) {
+			String type = this.source.readString();
+			Coord coord = readCoord();
+			Id<Link> linkId = readId(Link.class);
+			Id<ActivityFacility> facilityId = readId(ActivityFacility.class);
+			Activity act = interaction ?
+					this.factory.createInteractionActivityFromLinkId(type, linkId) :
+					this.factory.createActivityFromLinkId(type, linkId);
+			if (coord != null) {
+				act.setCoord(coord);
+			}
+			if (facilityId != null) {
+				act.setFacilityId(facilityId);
+			}
+			if (!interaction) {
+				this.source.readTime().ifDefinedOrElse(act::setStartTime, act::setStartTimeUndefined);
+				this.source.readTime().ifDefinedOrElse(act::setEndTime, act::setEndTimeUndefined);
+				this.source.readTime().ifDefinedOrElse(act::setMaximumDuration, act::setMaximumDurationUndefined);
+				readAttributes(act.getAttributes());
+			}
+			return act;
+		}
+
+		private Coord readCoord() {
+			int dimensions = this.source.readByte();
+			if (dimensions == 0) {
+				return null;
+			}
+			Coord coord = dimensions == 3 ?
+					new Coord(this.source.readDouble(), this.source.readDouble(), this.source.readDouble()) :
+					new Coord(this.source.readDouble(), this.source.readDouble());
+			return this.transformation.transform(coord);
+		}
+
+		private Leg readLeg() {
+			Leg leg = this.factory.createLeg(this.source.readString());
+			leg.setRoutingMode(this.source.readString());
+			this.source.readTime().ifDefinedOrElse(leg::setDepartureTime, leg::setDepartureTimeUndefined);
+			this.source.readTime().ifDefinedOrElse(leg::setTravelTime, leg::setTravelTimeUndefined);
+			int routeKind = this.source.readByte();
+			if (routeKind != ROUTE_NONE) {
+				leg.setRoute(readRoute(routeKind));
+			}
+			readAttributes(leg.getAttributes());
+			return leg;
+		}
+
+		private Route readRoute(int routeKind) {
+			String routeType = this.source.readString();
+			Id<Link> startLinkId = readId(Link.class);
+			Id<Link> endLinkId = readId(Link.class);
+			double distance = this.source.readDouble();
+			OptionalTime travelTime = this.source.readTime();
+
+			Route route = this.routeFactories.createRoute(this.routeFactories.getRouteClassForType(routeType), startLinkId, endLinkId);
+			if (routeKind == ROUTE_NETWORK) {
+				Id<Vehicle> vehicleId = readId(Vehicle.class);
+				List<String> links = this.source.readStrings();
+				List<Id<Link>> linkIds = new ArrayList<>(links.size());
+				for (String link : links) {
+					linkIds.add(Id.createLinkId(link));
+				}
+				NetworkRoute networkRoute = (NetworkRoute) route;
+				networkRoute.setLinkIds(startLinkId, linkIds, endLinkId);
+				networkRoute.setVehicleId(vehicleId);
+			} else {
+				String description = this.source.readString();
+				if (description != null) {
+					route.setRouteDescription(description);
+				}
+			}
+			route.setDistance(distance);
+			travelTime.ifDefinedOrElse(route::setTravelTime, route::setTravelTimeUndefined);
+			return route;
+		}
+
+		private <T> Id<T> readId(Class<T> type) {
+			String id = this.source.readString();
+			return id == null ? null : Id.create(id, type);
+		}
+
+		void readAttributes(Attributes attributes) {
+			int count = this.source.readVarInt();
+			for (int i = 0; i < count; i++) {
+				String name = this.source.readString();
+				String className = this.source.readString();
+				Object value = this.converter.convert(className, this.source.readString());
+				if (value != null) {
+					attributes.putAttribute(name, value);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import static org.matsim.core.population.io.BinaryPopulationFormat.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.io.BinaryPopulationFormat.ByteSink;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.replanning.inheritance.PlanInheritanceModule;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.misc.Counter;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Writes a population in the {@link BinaryPopulationFormat}.  The chunks of persons are encoded and compressed by
+ * several threads, and written in the order of the persons.
+ */
+/* deliberately package */ final class BinaryPopulationWriter {
+
+	private final CoordinateTransformation coordinateTransformation;
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters;
+	private final int numThreads;
+	private final Counter counter = new Counter("[" + this.getClass().getSimpleName() + "] dumped person # ");
+
+	/**
+	 * @param numThreads the number of threads encoding and compressing the chunks, usually
+	 *                   {@link org.matsim.core.config.groups.GlobalConfigGroup#getNumberOfThreads()}
+	 */
+	BinaryPopulationWriter(final CoordinateTransformation coordinateTransformation, final Map<Class<?>, AttributeConverter<?>> attributeConverters,
+			final int numThreads) {
+		this.coordinateTransformation = coordinateTransformation;
+		this.attributeConverters = attributeConverters;
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * Writes the given persons of the population to the stream and closes it.
+	 */
+	void write(final Population population, final Iterable<? extends Person> persons, final OutputStream stream) {
+		ExecutorService executor = Executors.newFixedThreadPool(this.numThreads, r -> {
+			Thread thread = new Thread(r, "BinaryPopulationWriter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			ChunkEncoder header = new ChunkEncoder();
+			header.sink.writeString(population.getName());
+			header.writeAttributes(population.getAttributes());
+			writeBlock(out, 0, header.compress());
+
+			ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+			ArrayDeque<Integer> pendingSizes = new ArrayDeque<>();
+			List<Person> chunk = new ArrayList<>(PERSONS_PER_CHUNK);
+			for (Person person : persons) {
+				chunk.add(person);
+				if (chunk.size() == PERSONS_PER_CHUNK) {
+					submit(executor, chunk, pending, pendingSizes);
+					chunk = new ArrayList<>(PERSONS_PER_CHUNK);
+					while (pending.size() > 2 * this.numThreads) {
+						writeBlock(out, pendingSizes.poll(), pending.poll().get());
+					}
+				}
+			}
+			if (!chunk.isEmpty()) {
+				submit(executor, chunk, pending, pendingSizes);
+			}
+			while (!pending.isEmpty()) {
+				writeBlock(out, pendingSizes.poll(), pending.poll().get());
+			}
+			out.writeInt(0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Could not encode persons", e.getCause());
+		} finally {
+			executor.shutdownNow();
+			this.counter.printCounter();
+			this.counter.reset();
+		}
+	}
+
+	private void submit(ExecutorService executor, List<Person> chunk, ArrayDeque<Future<byte[]>> pending, ArrayDeque<Integer> pendingSizes) {
+		pending.add(executor.submit(() -> {
+			ChunkEncoder encoder = new ChunkEncoder();
+			for (Person person : chunk) {
+				encoder.writePerson(person);
+			}
+			return encoder.compress();
+		}));
+		pendingSizes.add(chunk.size());
+	}
+
+	/**
+	 * @param block the uncompressed length, followed by the compressed data
+	 */
+	private void writeBlock(DataOutputStream out, int personCount, byte[] block) throws IOException {
+		out.writeInt(personCount);
+		out.write(block);
+		for (int i = 0; i < personCount; i++) {
+			this.counter.incCounter();
+		}
+	}
+
+	/**
+	 * Encodes the persons of one chunk.  Not thread-safe, every chunk gets its own encoder.
+	 */
+	private final class ChunkEncoder {
+		private final ByteSink sink = new ByteSink();
+		private final ObjectAttributesConverter converter = new ObjectAttributesConverter(attributeConverters);
+
+		void writePerson(Person person) {
+			this.sink.writeString(person.getId().toString());
+			writeAttributes(person.getAttributes());
+			List<? extends Plan> plans = person.getPlans();
+			this.sink.writeVarInt(plans.size());
+			this.sink.writeVarInt(plans.indexOf(person.getSelectedPlan()) + 1);
+			for (Plan plan : plans) {
+				writePlan(plan);
+			}
+		}
+
+		private void writePlan(Plan plan) {
+			Double score = plan.getScore();
+			if (score == null) {
+				this.sink.writeByte(0);
+			} else {
+				this.sink.writeByte(1);
+				this.sink.writeDouble(score);
+			}
+			this.sink.writeString(plan.getType());
+			// plan id, iteration created and plan mutator are only set if plan inheritance is enabled
+			writeId(plan.getId());
+			if (plan.getAttributes().getAttribute(PlanInheritanceModule.ITERATION_CREATED) == null) {
+				this.sink.writeByte(0);
+			} else {
+				this.sink.writeByte(1);
+				this.sink.writeVarInt(plan.getIterationCreated() + 1);
+			}
+			this.sink.writeString(plan.getPlanMutator());
+			writeAttributes(plan.getAttributes());
+			List<PlanElement> elements = plan.getPlanElements();
+			this.sink.writeVarInt(elements.size());
+			for (PlanElement pe : elements) {
+				if (pe instanceof Activity act) {
+					writeActivity(act);
+				} else {
+					writeLeg((Leg) pe);
+				}
+			}
+		}
+
+		private void writeActivity(Activity act) {
+			boolean interaction = PopulationUtils.isInteractionActivity(act);
+			this.sink.writeByte(interaction ? INTERACTION_ACTIVITY : ACTIVITY);
+			this.sink.writeString(act.getType());
+			writeCoord(act.getCoord());
+			writeId(act.getLinkId());
+			writeId(act.getFacilityId());
+			if (!interaction) {
+				this.sink.writeTime(act.getStartTime());
+				this.sink.writeTime(act.getEndTime());
+				this.sink.writeTime(act.getMaximumDuration());
+				writeAttributes(act.getAttributes());
+			}
+		}
+
+		private void writeCoord(Coord coord) {
+			if (coord == null) {
+				this.sink.writeByte(0);
+				return;
+			}
+			Coord transformed = coordinateTransformation.transform(coord);
+			this.sink.writeByte(transformed.hasZ() ? 3 : 2);
+			this.sink.writeDouble(transformed.getX());
+			this.sink.writeDouble(transformed.getY());
+			if (transformed.hasZ()) {
+				this.sink.writeDouble(transformed.getZ());
+			}
+		}
+
+		private void writeLeg(Leg leg) {
+			this.sink.writeByte(LEG);
+			this.sink.writeString(leg.getMode());
+			this.sink.writeString(leg.getRoutingMode());
+			this.sink.writeTime(leg.getDepartureTime());
+			this.sink.writeTime(leg.getTravelTime());
+			writeRoute(leg.getRoute());
+			writeAttributes(leg.getAttributes());
+		}
+
+		private void writeRoute(Route route) {
+			if (route == null) {
+				this.sink.writeByte(ROUTE_NONE);
+				return;
+			}
+			boolean network = route instanceof NetworkRoute;
+			this.sink.writeByte(network ? ROUTE_NETWORK : ROUTE_DESCRIPTION);
+			this.sink.writeString(route.getRouteType());
+			writeId(route.getStartLinkId());
+			writeId(route.getEndLinkId());
+			this.sink.writeDouble(route.getDistance());
+			this.sink.writeTime(route.getTravelTime());
+			if (network) {
+				NetworkRoute networkRoute = (NetworkRoute) route;
+				writeId(networkRoute.getVehicleId());
+				List<Id<Link>> linkIds = networkRoute.getLinkIds();
+				List<String> links = new ArrayList<>(linkIds.size());
+				for (Id<Link> linkId : linkIds) {
+					links.add(linkId.toString());
+				}
+				this.sink.writeStrings(links);
+			} else {
+				this.sink.writeString(route.getRouteDescription());
+			}
+		}
+
+		private void writeId(Id<?> id) {
+			this.sink.writeString(id == null ? null : id.toString());
+		}
+
+		void writeAttributes(Attributes attributes) {
+			List<String> names = new ArrayList<>(attributes.size());
+			List<String> classNames = new ArrayList<>(attributes.size());
+			List<String> values = new ArrayList<>(attributes.size());
+			for (Map.Entry<String, Object> e : attributes.getAsMap().entrySet()) {
+				String value = this.converter.convertToString(e.getValue());
+				if (value != null) {
+					names.add(e.getKey());
+					classNames.add(e.getValue().getClass().getName());
+					values.add(value);
+				}
+			}
+			this.sink.writeVarInt(names.size());
+			for (int i = 0; i < names.size(); i++) {
+				this.sink.writeString(names.get(i));
+				this.sink.writeString(classNames.get(i));
+				this.sink.writeString(values.get(i));
+			}
+		}
+
+		/**
+		 * @return the uncompressed length, followed by the compressed length and data.
+		 */
+		byte[] compress() {
+			byte[] compressed = Zstd.compress(Arrays.copyOf(this.sink.array(), this.sink.size()), COMPRESSION_LEVEL);
+			byte[] block = new byte[8 + compressed.length];
+			writeInt(block, 0, this.sink.size());
+			writeInt(block, 4, compressed.length);
+			System.arraycopy(compressed, 0, block, 8, compressed.length);
+			return block;
+		}
+	}
+
+	private static void writeInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+}
@@ -23,7 +23,9 @@ package org.matsim.core.population.io;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
@@ -37,6 +39,7 @@ import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.AbstractMatsimWriter;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.misc.Counter;
 import org.matsim.utils.FeatureFlags;
 import org.matsim.utils.objectattributes.AttributeConverter;
@@ -53,6 +56,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 	private final static Logger log = LogManager.getLogger(PopulationWriter.class);
 	private final Map<Class<?>,AttributeConverter<?>> converters = new HashMap<>();
+	private int numberOfThreads = 1;
 
 
 	public PopulationWriter(final Population population) {
@@ -135,10 +139,23 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	}
 
 	/**
-	 * Writes all plans to the file.
+	 * Sets the number of threads used to encode and compress persons in the binary population format, usually
+	 * {@link org.matsim.core.config.groups.GlobalConfigGroup#getNumberOfThreads()}.  By default, only one thread is used.
+	 */
+	public void setNumberOfThreads( int numberOfThreads ) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Writes all plans to the file.  Files ending with <code>.mpop</code> are written in the binary population format,
+	 * see {@link BinaryPopulationReader}.
 	 */
 	@Override
 	public void write(final String filename) {
+		if (BinaryPopulationFormat.isBinaryPopulationFile(filename)) {
+			writeBinary(filename);
+			return;
+		}
 		try {
 			this.handler.putAttributeConverters(converters);
 			this.openFile(filename);
@@ -180,6 +197,21 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	}
 
 
+	/**
+	 * Writes all plans to the file in the binary population format, independent of the file name.
+	 */
+	public void writeBinary(final String filename) {
+		List<Person> persons = new ArrayList<>();
+		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
+			if (isPersonToWrite()) {
+				persons.add(p);
+			}
+		}
+		new BinaryPopulationWriter(this.coordinateTransformation, this.converters, this.numberOfThreads)
+				.write(this.population, persons, IOUtils.getOutputStream(IOUtils.getFileUrl(filename), false));
+		log.info("Population written to: " + filename);
+	}
+
 	private void writePersons() {
 		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
 			writePerson(p);
@@ -188,7 +220,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 	private void writePerson(final Person person) {
 		try {
-			if ((this.write_person_fraction < 1.0) && (MatsimRandom.getRandom().nextDouble() >= this.write_person_fraction)) {
+			if (!isPersonToWrite()) {
 				return;
 			}
 			this.handler.writePerson(person, this.writer);
@@ -198,6 +230,10 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 		}
 	}
 
+	private boolean isPersonToWrite() {
+		return (this.write_person_fraction >= 1.0) || (MatsimRandom.getRandom().nextDouble() < this.write_person_fraction);
+	}
+
 	public void writeV0(final String filename) {
 		this.handler = new PopulationWriterHandlerImplV0( coordinateTransformation , this.network);
 		write(filename);
@@ -20,10 +20,13 @@
 package org.matsim.core.replanning.annealing;
 
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.population.Person;
@@ -32,6 +35,7 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.ReplanningConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.checkpoint.CheckpointParticipant;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.events.StartupEvent;
 import org.matsim.core.controler.listener.IterationStartsListener;
@@ -48,7 +52,7 @@ import org.matsim.core.utils.io.IOUtils;
  * @author fouriep, davig, jbischoff
  */
 
-public class ReplanningAnnealer implements IterationStartsListener, StartupListener {
+public class ReplanningAnnealer implements IterationStartsListener, StartupListener, CheckpointParticipant {
 
 	private static final Logger log = LogManager.getLogger(ReplanningAnnealer.class);
 	private static final String ANNEAL_FILENAME = "annealingRates.txt";
@@ -62,6 +66,8 @@ public class ReplanningAnnealer implements IterationStartsListener, StartupListe
 	private List<String> header;
 	@Inject
 	private OutputDirectoryHierarchy outputDirectoryHierarchy;
+	@Inject
+	private Provider<StrategyManager> strategyManager;
 
 	@Inject
 	public ReplanningAnnealer(Config config) {
@@ -169,6 +175,77 @@ public class ReplanningAnnealer implements IterationStartsListener, StartupListe
 		writeIterationstats(currentIter, annealStats);
 	}
 
+	@Override
+	public String getCheckpointName() {
+		return "replanningAnnealer";
+	}
+
+	/**
+	 * Writes the current annealing values, and the strategy weights of the subpopulations whose innovation rate is
+	 * annealed, as both are updated incrementally.
+	 */
+	@Override
+	public void writeCheckpoint(DataOutput out) throws IOException {
+		out.writeInt(this.currentValuesPerSubpopulation.size());
+		for (Map.Entry<AnnealParameterOption, Map<String, Double>> e : this.currentValuesPerSubpopulation.entrySet()) {
+			out.writeUTF(e.getKey().name());
+			out.writeInt(e.getValue().size());
+			for (Map.Entry<String, Double> subpopValue : e.getValue().entrySet()) {
+				writeSubpopulation(subpopValue.getKey(), out);
+				out.writeDouble(subpopValue.getValue());
+			}
+		}
+		Map<String, Double> innovationRates = this.currentValuesPerSubpopulation.getOrDefault(AnnealParameterOption.globalInnovationRate, Collections.emptyMap());
+		out.writeInt(innovationRates.size());
+		for (String subpopulation : innovationRates.keySet()) {
+			writeSubpopulation(subpopulation, out);
+			List<Double> weights = this.strategyManager.get().getWeights(subpopulation);
+			out.writeInt(weights.size());
+			for (double weight : weights) {
+				out.writeDouble(weight);
+			}
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInput in) throws IOException {
+		this.currentValuesPerSubpopulation.clear();
+		int options = in.readInt();
+		for (int i = 0; i < options; i++) {
+			AnnealParameterOption option = AnnealParameterOption.valueOf(in.readUTF());
+			Map<String, Double> values = this.currentValuesPerSubpopulation.computeIfAbsent(option, o -> new HashMap<>());
+			int count = in.readInt();
+			for (int j = 0; j < count; j++) {
+				values.put(readSubpopulation(in), in.readDouble());
+			}
+		}
+		StrategyManager stratMan = this.strategyManager.get();
+		int subpopulations = in.readInt();
+		for (int i = 0; i < subpopulations; i++) {
+			String subpopulation = readSubpopulation(in);
+			List<GenericPlanStrategy<Plan, Person>> strategies = stratMan.getStrategies(subpopulation);
+			int count = in.readInt();
+			if (count != strategies.size()) {
+				throw new IOException("The checkpoint contains " + count + " strategy weights for subpopulation " + subpopulation
+						+ ", but there are " + strategies.size() + " strategies.");
+			}
+			for (GenericPlanStrategy<Plan, Person> strategy : strategies) {
+				stratMan.changeWeightOfStrategy(strategy, subpopulation, in.readDouble());
+			}
+		}
+	}
+
+	private static void writeSubpopulation(String subpopulation, DataOutput out) throws IOException {
+		out.writeBoolean(subpopulation != null);
+		if (subpopulation != null) {
+			out.writeUTF(subpopulation);
+		}
+	}
+
+	private static String readSubpopulation(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
 	private void writeIterationstats(int currentIter, Map<String, String> annealStats) {
 		try (BufferedWriter bw = IOUtils.getAppendingBufferedWriter(outputDirectoryHierarchy.getOutputFilename(ANNEAL_FILENAME))) {
 			bw.write(Integer.toString(currentIter));
@@ -22,16 +22,24 @@ package org.matsim.core.replanning.modules;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.matsim.analysis.IterationStopWatch;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.replanning.PlanStrategyModule;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.population.algorithms.ParallelPersonAlgorithmUtils;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -51,6 +59,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
  * started after all to-be-handled plans are added, we can use unsynchronized data structures.
  * <p></p>
+ * With {@link GlobalConfigGroup#isDynamicLoadBalancing()}, the plans are instead sorted by the time their person's
+ * plan took in this module in the previous iteration, longest first, and the threads take them one by one from the
+ * sorted list while they run.  This keeps all threads busy until the end, at the cost of reproducibility.
+ * <p></p>
+ * The busy time of the threads is logged, and the times when the first and the last thread finished are recorded in the
+ * {@link IterationStopWatch} if the {@link ReplanningContext} provides one.
+ * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
  * For an example with discussions, see {@link tutorial.programming.multiThreadedPlanStrategy.RunWithMultithreadedModule}
@@ -60,6 +75,7 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
 	private final int numOfThreads;
+	private final boolean dynamicLoadBalancing;
 
 	private PlanAlgoThread[] algothreads = null;
 	private Thread[] threads = null;
@@ -68,6 +84,13 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	private int count = 0;
 
+	// for dynamic load balancing: the plans to handle, and the time (in ns) each person's plan took last time, by person index
+	private final List<Plan> sharedPlans = new ArrayList<>();
+	private float[] previousDurations = new float[0];
+
+	private IterationStopWatch stopwatch = null;
+	private final AtomicBoolean firstThreadFinished = new AtomicBoolean(false);
+
 	private final AtomicReference<Throwable> hadException = new AtomicReference<>(null);
 	private final ExceptionHandler exceptionHandler = new ExceptionHandler(this.hadException);
 
@@ -85,10 +108,12 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this.dynamicLoadBalancing = globalConfigGroup.isDynamicLoadBalancing();
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
 		this.numOfThreads = numOfThreads;
+		this.dynamicLoadBalancing = false;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -119,7 +144,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	@Override
 	public final void handlePlan(final Plan plan) {
 		if (this.directAlgo == null) {
-			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			if (this.dynamicLoadBalancing) {
+				this.sharedPlans.add(plan);
+			} else {
+				this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			}
 			this.count++;
 		} else {
 			this.directAlgo.run(plan);
@@ -141,7 +170,13 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 			// only try to start threads if we did not directly work on all the plans
 			log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
 
+			if (this.dynamicLoadBalancing) {
+				prepareSharedPlans();
+			}
+
 			// start threads
+			this.stopwatch = this.replanningContext == null ? null : this.replanningContext.getStopwatch();
+			this.firstThreadFinished.set(false);
 			for (Thread thread : this.threads) {
 				thread.start();
 			}
@@ -155,6 +190,10 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				throw new RuntimeException(e);
 			}
 			log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
+			if (this.stopwatch != null) {
+				this.stopwatch.timestamp("replanning " + this.name + ": last thread finished");
+			}
+			ParallelPersonAlgorithmUtils.logThreadTimes(this.name, Arrays.stream(this.algothreads).mapToLong(algothread -> algothread.busyNanos).toArray());
 			Throwable throwable = this.hadException.get();
 			if (throwable != null) {
 				throw new RuntimeException("Some threads crashed, thus not all plans may have been handled.", throwable);
@@ -165,6 +204,8 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		this.threads = null;
 		this.replanningContext = null;
 		this.count = 0;
+		this.sharedPlans.clear();
+		this.stopwatch = null;
 		
 		this.afterFinishReplanningHook();
 	}
@@ -179,6 +220,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		this.algothreads = new PlanAlgoThread[this.numOfThreads];
 
 		Counter counter = null;
+		AtomicInteger nextSharedPlan = this.dynamicLoadBalancing ? new AtomicInteger(0) : null;
 		// setup threads
 		for (int i = 0; i < this.numOfThreads; i++) {
 			PlanAlgorithm algo = getPlanAlgoInstance();
@@ -186,7 +228,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				this.name = algo.getClass().getSimpleName();
 				counter = new Counter("[" + this.name + "] handled plan # ");
 			}
-			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter);
+			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter, this, nextSharedPlan);
 			Thread thread = new Thread(algothread, this.name + "." + i);
 			thread.setUncaughtExceptionHandler(this.exceptionHandler);
 			this.threads[i] = thread;
@@ -194,6 +236,51 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 	}
 
+	/**
+	 * Sorts the plans by the duration of their person's plan the last time, longest first.  Persons not handled before
+	 * get the average duration.  Also ensures that the durations of all persons can be stored without growing the array
+	 * while the threads are running.
+	 */
+	private void prepareSharedPlans() {
+		int maxIndex = -1;
+		double sum = 0;
+		int known = 0;
+		for (Plan plan : this.sharedPlans) {
+			Person person = plan.getPerson();
+			if (person != null) {
+				int index = person.getId().index();
+				maxIndex = Math.max(maxIndex, index);
+				if (index < this.previousDurations.length && this.previousDurations[index] > 0) {
+					sum += this.previousDurations[index];
+					known++;
+				}
+			}
+		}
+		if (maxIndex >= this.previousDurations.length) {
+			this.previousDurations = Arrays.copyOf(this.previousDurations, maxIndex + 1);
+		}
+		if (known > 0) {
+			float average = (float) (sum / known);
+			float[] durations = this.previousDurations;
+			this.sharedPlans.sort(Comparator.comparingDouble((Plan plan) -> {
+				Person person = plan.getPerson();
+				if (person == null || durations[person.getId().index()] <= 0) {
+					return average;
+				}
+				return durations[person.getId().index()];
+			}).reversed());
+		}
+	}
+
+	private void threadFinished() {
+		IterationStopWatch stopwatch = this.stopwatch;
+		if (stopwatch != null && this.firstThreadFinished.compareAndSet(false, true)) {
+			synchronized (stopwatch) {
+				stopwatch.timestamp("replanning " + this.name + ": first thread finished");
+			}
+		}
+	}
+
 	/* package (for a test) */ final int getNumOfThreads() {
 		return numOfThreads;
 	}
@@ -219,10 +306,15 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		private final PlanAlgorithm planAlgo;
 		private final List<Plan> plans = new LinkedList<>();
 		private final Counter counter;
+		private final AbstractMultithreadedModule module;
+		private final AtomicInteger nextSharedPlan;
+		private long busyNanos = 0;
 
-		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter) {
+		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final AbstractMultithreadedModule module, final AtomicInteger nextSharedPlan) {
 			this.planAlgo = algo;
 			this.counter = counter;
+			this.module = module;
+			this.nextSharedPlan = nextSharedPlan;
 		}
 
 		public void addPlanToThread(final Plan plan) {
@@ -231,10 +323,30 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 		@Override
 		public void run() {
-			for (Plan plan : this.plans) {
-				this.planAlgo.run(plan);
-				this.counter.incCounter();
+			long start = System.nanoTime();
+			if (this.nextSharedPlan == null) {
+				for (Plan plan : this.plans) {
+					this.planAlgo.run(plan);
+					this.counter.incCounter();
+				}
+			} else {
+				List<Plan> sharedPlans = this.module.sharedPlans;
+				float[] durations = this.module.previousDurations;
+				int size = sharedPlans.size();
+				int index;
+				while ((index = this.nextSharedPlan.getAndIncrement()) < size) {
+					Plan plan = sharedPlans.get(index);
+					long planStart = System.nanoTime();
+					this.planAlgo.run(plan);
+					if (plan.getPerson() != null) {
+						// each person is only handled by one thread, so the threads write to different array elements
+						durations[plan.getPerson().getId().index()] = System.nanoTime() - planStart;
+					}
+					this.counter.incCounter();
+				}
 			}
+			this.busyNanos = System.nanoTime() - start;
+			this.module.threadFinished();
 		}
 	}
 }
@@ -0,0 +1,301 @@
+package org.matsim.core.router.speedy;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A router using a customizable contraction hierarchy, see {@link SpeedyCHData}.
+ *
+ * The day is split into time bins. For each time bin, the hierarchy is customized with the travel disutilities at the
+ * middle of the time bin, the first time a route departing in this time bin is requested. A route is then searched
+ * with the weights of its departure time bin, so the costs do not change along the route while searching.
+ * Once found, the travel time and travel cost of the route are calculated link by link with the actual travel
+ * time and travel disutility, starting at the departure time.
+ *
+ * The search itself walks up the elimination tree from the start and the end node, relaxing all upward edges of the
+ * visited nodes, so no priority queue is required. The best route is the one via the common ancestor with the
+ * lowest sum of the costs from the start and to the end node. The edges of this route are then unpacked to links
+ * by looking for the lower triangle (or link) which results in the edge's weight.
+ *
+ * As the hierarchy is customized without a person and vehicle, the travel disutility must not depend on them. See
+ * {@link SpeedyCHFactory}, which falls back to {@link SpeedyALT} otherwise. If the disutility cannot be calculated
+ * without a person only at some times of the day, the routes departing in the affected time bins are calculated with
+ * the fallback router given to the constructor.
+ *
+ * This implementation is not thread-safe. In the case of multi-threading, every thread should use
+ * a separate instance. (But the used {@link SpeedyCHData} is thread-safe and can be shared by multiple
+ * instances).
+ */
+public class SpeedyCH implements LeastCostPathCalculator {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCH.class);
+
+	private final SpeedyGraph graph;
+	private final SpeedyCHData chData;
+	private final TravelTime tt;
+	private final TravelDisutility td;
+	private final double timeBinSize;
+	private final float[][] binWeights;
+	private int currentIteration = Integer.MIN_VALUE;
+	private final int[] forwardIterationIds;
+	private final int[] backwardIterationIds;
+	private final double[] forwardCosts;
+	private final double[] backwardCosts;
+	private final int[] forwardEdges;
+	private final int[] backwardEdges;
+	private final IntArrayList stack = new IntArrayList();
+	private final IntArrayList routeNodes = new IntArrayList();
+	private final IntArrayList routeLinks = new IntArrayList();
+	private final Supplier<LeastCostPathCalculator> fallbackSupplier;
+	private final boolean[] binNotCustomizable;
+	private LeastCostPathCalculator fallback = null;
+
+	public SpeedyCH(SpeedyCHData chData, TravelTime tt, TravelDisutility td, double timeBinSize, int numberOfTimeBins) {
+		this(chData, tt, td, timeBinSize, numberOfTimeBins, null);
+	}
+
+	/**
+	 * @param fallbackSupplier creates the router for the time bins for which the hierarchy cannot be customized, because
+	 *                         the travel disutility cannot be calculated without a person. If <code>null</code>, the
+	 *                         exception of the travel disutility is thrown in this case.
+	 */
+	public SpeedyCH(SpeedyCHData chData, TravelTime tt, TravelDisutility td, double timeBinSize, int numberOfTimeBins,
+			Supplier<LeastCostPathCalculator> fallbackSupplier) {
+		this.fallbackSupplier = fallbackSupplier;
+		this.binNotCustomizable = new boolean[numberOfTimeBins];
+		this.graph = chData.graph;
+		this.chData = chData;
+		this.tt = tt;
+		this.td = td;
+		this.timeBinSize = timeBinSize;
+		this.binWeights = new float[numberOfTimeBins][];
+		int nodeCount = this.graph.nodeCount;
+		this.forwardIterationIds = new int[nodeCount];
+		this.backwardIterationIds = new int[nodeCount];
+		this.forwardCosts = new double[nodeCount];
+		this.backwardCosts = new double[nodeCount];
+		this.forwardEdges = new int[nodeCount];
+		this.backwardEdges = new int[nodeCount];
+		Arrays.fill(this.forwardIterationIds, this.currentIteration);
+		Arrays.fill(this.backwardIterationIds, this.currentIteration);
+	}
+
+	private int getTimeBin(double time) {
+		int bin = (int) (time / this.timeBinSize);
+		if (bin < 0) {
+			return 0;
+		}
+		return Math.min(bin, this.binWeights.length - 1);
+	}
+
+	private double getCustomizationTime(int bin) {
+		return (bin + 0.5) * this.timeBinSize;
+	}
+
+	/**
+	 * @return the weights of the time bin, or <code>null</code> if the hierarchy cannot be customized for this time bin
+	 * and the fallback router must be used.
+	 */
+	private float[] getWeightsOrNull(int bin) {
+		float[] weights = this.binWeights[bin];
+		if (weights == null && !this.binNotCustomizable[bin]) {
+			try {
+				weights = this.chData.customize(this.td, getCustomizationTime(bin));
+			} catch (RuntimeException e) {
+				if (this.fallbackSupplier == null) {
+					throw e;
+				}
+				LOG.warn("The travel disutility cannot be calculated without a person at time " + getCustomizationTime(bin)
+						+ " (" + e.getMessage() + "), routes departing in this time bin are calculated without contraction hierarchy.");
+				this.binNotCustomizable[bin] = true;
+				return null;
+			}
+			this.binWeights[bin] = weights;
+		}
+		return weights;
+	}
+
+	@Override
+	public Path calcLeastCostPath(Node startNode, Node endNode, double startTime, Person person, Vehicle vehicle) {
+		this.currentIteration++;
+		if (this.currentIteration == Integer.MAX_VALUE) {
+			// reset iteration as we overflow
+			Arrays.fill(this.forwardIterationIds, this.currentIteration);
+			Arrays.fill(this.backwardIterationIds, this.currentIteration);
+			this.currentIteration = Integer.MIN_VALUE;
+		}
+		int startNodeIndex = startNode.getId().index();
+		int endNodeIndex = endNode.getId().index();
+		int bin = getTimeBin(startTime);
+		float[] weights = getWeightsOrNull(bin);
+		if (weights == null) {
+			if (this.fallback == null) {
+				this.fallback = this.fallbackSupplier.get();
+			}
+			return this.fallback.calcLeastCostPath(startNode, endNode, startTime, person, vehicle);
+		}
+
+		// forward search: upward edges in their upward direction
+		this.forwardIterationIds[startNodeIndex] = this.currentIteration;
+		this.forwardCosts[startNodeIndex] = 0;
+		this.forwardEdges[startNodeIndex] = SpeedyCHData.NO_EDGE;
+		for (int node = startNodeIndex; node >= 0; node = this.chData.getParent(node)) {
+			if (this.forwardIterationIds[node] == this.currentIteration) {
+				relax(node, this.forwardCosts[node], weights, 0, this.forwardIterationIds, this.forwardCosts, this.forwardEdges);
+			}
+		}
+
+		// backward search: upward edges in their downward direction
+		this.backwardIterationIds[endNodeIndex] = this.currentIteration;
+		this.backwardCosts[endNodeIndex] = 0;
+		this.backwardEdges[endNodeIndex] = SpeedyCHData.NO_EDGE;
+		int meetingNode = -1;
+		double bestCost = Double.POSITIVE_INFINITY;
+		for (int node = endNodeIndex; node >= 0; node = this.chData.getParent(node)) {
+			if (this.backwardIterationIds[node] == this.currentIteration) {
+				double cost = this.backwardCosts[node];
+				relax(node, cost, weights, 1, this.backwardIterationIds, this.backwardCosts, this.backwardEdges);
+				if (this.forwardIterationIds[node] == this.currentIteration && this.forwardCosts[node] + cost < bestCost) {
+					bestCost = this.forwardCosts[node] + cost;
+					meetingNode = node;
+				}
+			}
+		}
+
+		if (meetingNode >= 0) {
+			return constructPath(startNodeIndex, endNodeIndex, meetingNode, weights, getCustomizationTime(bin), startTime, person, vehicle);
+		}
+		LOG.warn("No route was found from node " + startNode.getId() + " to node " + endNode.getId() + ". Some possible reasons:");
+		LOG.warn("  * Network is not connected.  Run NetworkCleaner().") ;
+		LOG.warn("  * Network for considered mode does not even exist.  Modes need to be entered for each link in network.xml.");
+		LOG.warn("  * Network for considered mode is not connected to starting or ending point of route.  Setting insertingAccessEgressWalk to true may help.");
+		LOG.warn("This will now return null, but it may fail later with a NullPointerException.");
+		return null;
+	}
+
+	private void relax(int node, double cost, float[] weights, int direction, int[] iterationIds, double[] costs, int[] usedEdges) {
+		for (int edge = this.chData.getUpEdgesStart(node), end = this.chData.getUpEdgesEnd(node); edge < end; edge++) {
+			float weight = weights[2 * edge + direction];
+			if (weight == Float.POSITIVE_INFINITY) {
+				continue;
+			}
+			int toNode = this.chData.getEdgeHead(edge);
+			double newCost = cost + weight;
+			if (iterationIds[toNode] != this.currentIteration || newCost < costs[toNode]) {
+				iterationIds[toNode] = this.currentIteration;
+				costs[toNode] = newCost;
+				usedEdges[toNode] = edge;
+			}
+		}
+	}
+
+	private Path constructPath(int startNodeIndex, int endNodeIndex, int meetingNode, float[] weights, double weightsTime, double startTime, Person person, Vehicle vehicle) {
+		this.stack.clear();
+		this.routeNodes.clear();
+		this.routeLinks.clear();
+
+		// the stack contains pairs of (from-node, to-node) which still need to be unpacked, the top-most pair is next.
+		// push the part from the meeting node to the end node first, as it is unpacked last.
+		IntArrayList downwardNodes = new IntArrayList();
+		for (int node = meetingNode; node != endNodeIndex; ) {
+			downwardNodes.add(node);
+			node = this.chData.getEdgeTail(this.backwardEdges[node]);
+		}
+		downwardNodes.add(endNodeIndex);
+		for (int i = downwardNodes.size() - 1; i > 0; i--) {
+			this.stack.push(downwardNodes.getInt(i - 1));
+			this.stack.push(downwardNodes.getInt(i));
+		}
+		for (int node = meetingNode; node != startNodeIndex; ) {
+			int fromNode = this.chData.getEdgeTail(this.forwardEdges[node]);
+			this.stack.push(fromNode);
+			this.stack.push(node);
+			node = fromNode;
+		}
+
+		this.routeNodes.add(startNodeIndex);
+		while (!this.stack.isEmpty()) {
+			int toNode = this.stack.popInt();
+			int fromNode = this.stack.popInt();
+			unpack(fromNode, toNode, weights, weightsTime);
+		}
+
+		List<Node> nodes = new ArrayList<>(this.routeNodes.size());
+		List<Link> links = new ArrayList<>(this.routeLinks.size());
+		nodes.add(this.graph.getNode(startNodeIndex));
+		double time = startTime;
+		double cost = 0;
+		for (int i = 0; i < this.routeLinks.size(); i++) {
+			Link link = this.graph.getLink(this.routeLinks.getInt(i));
+			cost += this.td.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.tt.getLinkTravelTime(link, time, person, vehicle);
+			links.add(link);
+			nodes.add(this.graph.getNode(this.routeNodes.getInt(i + 1)));
+		}
+		return new Path(nodes, links, time - startTime, cost);
+	}
+
+	/**
+	 * Replaces the edge from {@code fromNode} to {@code toNode} either with a link, or with the two edges of a lower
+	 * triangle which are pushed onto the stack.
+	 */
+	private void unpack(int fromNode, int toNode, float[] weights, double weightsTime) {
+		boolean upward = this.chData.getRank(fromNode) < this.chData.getRank(toNode);
+		int lowNode = upward ? fromNode : toNode;
+		int highNode = upward ? toNode : fromNode;
+		int edge = this.chData.getEdge(lowNode, highNode);
+		float weight = weights[2 * edge + (upward ? 0 : 1)];
+
+		for (int i = this.chData.getDownEdgesStart(lowNode), n = this.chData.getDownEdgesEnd(lowNode); i < n; i++) {
+			int lowerEdge = this.chData.getDownEdge(i);
+			int middleNode = this.chData.getEdgeTail(lowerEdge);
+			int upperEdge = this.chData.getEdge(middleNode, highNode);
+			if (upperEdge == SpeedyCHData.NO_EDGE) {
+				continue;
+			}
+			float viaWeight = upward
+					? weights[2 * lowerEdge + 1] + weights[2 * upperEdge]
+					: weights[2 * upperEdge + 1] + weights[2 * lowerEdge];
+			if (viaWeight == weight) {
+				this.stack.push(middleNode);
+				this.stack.push(toNode);
+				this.stack.push(fromNode);
+				this.stack.push(middleNode);
+				return;
+			}
+		}
+
+		// no shortcut, so it must be the cheapest link in this direction
+		int bestLink = -1;
+		double bestCost = Double.POSITIVE_INFINITY;
+		for (int i = this.chData.getEdgeLinksStart(edge), n = this.chData.getEdgeLinksEnd(edge); i < n; i++) {
+			if (this.chData.isEdgeLinkUpward(i) == upward) {
+				int linkIdx = this.chData.getEdgeLink(i);
+				double cost = this.td.getLinkTravelDisutility(this.graph.getLink(linkIdx), weightsTime, null, null);
+				if (bestLink < 0 || cost < bestCost) {
+					bestLink = linkIdx;
+					bestCost = cost;
+				}
+			}
+		}
+		if (bestLink < 0) {
+			throw new IllegalStateException("Could not unpack the edge from node " + this.graph.getNode(fromNode).getId() + " to node " + this.graph.getNode(toNode).getId());
+		}
+		this.routeLinks.add(bestLink);
+		this.routeNodes.add(toNode);
+	}
+
+}
@@ -0,0 +1,359 @@
+package org.matsim.core.router.speedy;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.router.speedy.SpeedyGraph.LinkIterator;
+import org.matsim.core.router.util.TravelDisutility;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metric-independent preprocessed data of a customizable contraction hierarchy, see {@link SpeedyCH}.
+ *
+ * The nodes are contracted in a nested dissection order, see {@link NestedDissectionOrder}. Contracting a node connects
+ * all its remaining neighbours with each other, without any witness search, so the resulting graph only depends on the
+ * network's topology, but not on the travel costs. The travel costs are applied afterwards with {@link #customize(TravelDisutility, double)}, which
+ * only has to process the lower triangles of each edge once and is thus much faster than building a new hierarchy.
+ *
+ * The edges of the hierarchy are undirected and stored once, at their lower-ranked node. Each edge has two weights,
+ * one in upward direction (from the lower-ranked node to the higher-ranked node) and one in downward direction.
+ * Links of the network are assigned to the edge between their from- and to-node.
+ *
+ * The customized weights are shared: routers whose travel disutilities result in the same costs for all links, like
+ * the routers of the different threads, get the same weights and customize the hierarchy only once.
+ *
+ * Based on "Customizable Contraction Hierarchies" by Julian Dibbelt, Ben Strasser and Dorothea Wagner, 2016.
+ *
+ * This class is thread-safe and can safely be used by multiple threads.
+ */
+class SpeedyCHData {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCHData.class);
+
+	static final int NO_EDGE = -1;
+
+	final SpeedyGraph graph;
+	private final int[] rank; // for each node: its position in the contraction order
+	private final int[] nodesByRank;
+	private final int[] parent; // for each node: its parent in the elimination tree, or -1
+	private final int[] upFirst; // for each node: the index of its first upward edge, edges are sorted by lower node
+	private final int[] edgeHead; // for each edge: the higher-ranked node, sorted by node index per lower node
+	private final int[] edgeTail; // for each edge: the lower-ranked node
+	private final int[] downFirst; // for each node: the index of the first entry in downEdges
+	private final int[] downEdges; // the edges for which the node is the higher-ranked node
+	private final int[] edgeLinkFirst; // for each edge: the index of the first entry in edgeLinks
+	private final int[] edgeLinks; // the links of the network which connect the edge's nodes
+	private final boolean[] edgeLinkUpward; // for each entry in edgeLinks: whether the link leads from the lower-ranked node
+	private final Map<LinkCosts, float[]> customizations; // the recently customized weights, by the costs of edgeLinks
+
+	/**
+	 * @param maxCustomizations the number of customized weights which are kept to be shared, each takes
+	 *                          2 floats per edge of the hierarchy.
+	 */
+	SpeedyCHData(SpeedyGraph graph, int maxCustomizations) {
+		this.graph = graph;
+		this.customizations = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<LinkCosts, float[]> eldest) {
+				return size() > maxCustomizations;
+			}
+		};
+		int nodeCount = graph.nodeCount;
+		this.rank = new int[nodeCount];
+		this.nodesByRank = new int[nodeCount];
+		this.parent = new int[nodeCount];
+
+		LOG.info("contract nodes...");
+		int[][] upNeighbours = contract(graph, this.rank, this.nodesByRank);
+
+		this.upFirst = new int[nodeCount + 1];
+		int edgeCount = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			this.upFirst[node] = edgeCount;
+			edgeCount += upNeighbours[node].length;
+		}
+		this.upFirst[nodeCount] = edgeCount;
+		this.edgeHead = new int[edgeCount];
+		this.edgeTail = new int[edgeCount];
+		int[] downCount = new int[nodeCount + 1];
+		for (int node = 0; node < nodeCount; node++) {
+			int[] neighbours = upNeighbours[node];
+			Arrays.sort(neighbours);
+			int first = this.upFirst[node];
+			System.arraycopy(neighbours, 0, this.edgeHead, first, neighbours.length);
+			Arrays.fill(this.edgeTail, first, first + neighbours.length, node);
+			int parentNode = -1;
+			for (int neighbour : neighbours) {
+				downCount[neighbour]++;
+				if (parentNode < 0 || this.rank[neighbour] < this.rank[parentNode]) {
+					parentNode = neighbour;
+				}
+			}
+			this.parent[node] = parentNode;
+			upNeighbours[node] = null;
+		}
+		LOG.info("contraction hierarchy has " + edgeCount + " edges for " + graph.linkCount + " links.");
+
+		this.downFirst = cumulate(downCount);
+		this.downEdges = new int[edgeCount];
+		int[] downPos = Arrays.copyOf(this.downFirst, nodeCount);
+		for (int edge = 0; edge < edgeCount; edge++) {
+			this.downEdges[downPos[this.edgeHead[edge]]++] = edge;
+		}
+
+		int[] linkEdge = new int[graph.linkCount];
+		int[] linkCount = new int[edgeCount + 1];
+		LinkIterator outLI = graph.getOutLinkIterator();
+		for (int node = 0; node < nodeCount; node++) {
+			outLI.reset(node);
+			while (outLI.next()) {
+				int edge = findEdge(node, outLI.getToNodeIndex());
+				linkEdge[outLI.getLinkIndex()] = edge;
+				if (edge != NO_EDGE) {
+					linkCount[edge]++;
+				}
+			}
+		}
+		this.edgeLinkFirst = cumulate(linkCount);
+		this.edgeLinks = new int[this.edgeLinkFirst[edgeCount]];
+		this.edgeLinkUpward = new boolean[this.edgeLinks.length];
+		int[] linkPos = Arrays.copyOf(this.edgeLinkFirst, edgeCount);
+		for (int node = 0; node < nodeCount; node++) {
+			outLI.reset(node);
+			while (outLI.next()) {
+				int edge = linkEdge[outLI.getLinkIndex()];
+				if (edge != NO_EDGE) {
+					this.edgeLinks[linkPos[edge]] = outLI.getLinkIndex();
+					this.edgeLinkUpward[linkPos[edge]] = node == this.edgeTail[edge];
+					linkPos[edge]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Contracts the nodes in the order calculated by {@link NestedDissectionOrder}.
+	 *
+	 * @return for each node, the neighbours it had at the time it was contracted.
+	 */
+	private static int[][] contract(SpeedyGraph graph, int[] rank, int[] nodesByRank) {
+		int nodeCount = graph.nodeCount;
+		System.arraycopy(NestedDissectionOrder.calculate(graph), 0, nodesByRank, 0, nodeCount);
+		for (int r = 0; r < nodeCount; r++) {
+			rank[nodesByRank[r]] = r;
+		}
+
+		IntOpenHashSet[] neighbours = new IntOpenHashSet[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			neighbours[node] = new IntOpenHashSet(4);
+		}
+		LinkIterator outLI = graph.getOutLinkIterator();
+		for (int node = 0; node < nodeCount; node++) {
+			outLI.reset(node);
+			while (outLI.next()) {
+				int toNode = outLI.getToNodeIndex();
+				if (toNode != node) {
+					neighbours[node].add(toNode);
+					neighbours[toNode].add(node);
+				}
+			}
+		}
+
+		int[][] upNeighbours = new int[nodeCount][];
+		for (int node : nodesByRank) {
+			int[] remaining = neighbours[node].toIntArray();
+			upNeighbours[node] = remaining;
+			neighbours[node] = null;
+			for (int i = 0; i < remaining.length; i++) {
+				IntOpenHashSet set = neighbours[remaining[i]];
+				set.remove(node);
+				for (int j = 0; j < remaining.length; j++) {
+					if (i != j) {
+						set.add(remaining[j]);
+					}
+				}
+			}
+		}
+		return upNeighbours;
+	}
+
+	private static int[] cumulate(int[] counts) {
+		int[] first = new int[counts.length];
+		int sum = 0;
+		for (int i = 0; i < counts.length; i++) {
+			first[i] = sum;
+			sum += counts[i];
+		}
+		return first;
+	}
+
+	/**
+	 * Calculates the weights of all edges of the hierarchy for the given travel disutility at the given time.
+	 * The disutility is requested without person and vehicle. If the hierarchy was recently customized with the same
+	 * link costs, the same weights are returned, so they must not be modified.
+	 *
+	 * @return 2 weights per edge, the upward weight at index {@code 2*edge} and the downward weight at index {@code 2*edge+1}.
+	 */
+	float[] customize(TravelDisutility td, double time) {
+		float[] costs = new float[this.edgeLinks.length];
+		for (int i = 0; i < costs.length; i++) {
+			costs[i] = (float) td.getLinkTravelDisutility(this.graph.getLink(this.edgeLinks[i]), time, null, null);
+		}
+		LinkCosts key = new LinkCosts(costs);
+		synchronized (this.customizations) {
+			float[] weights = this.customizations.get(key);
+			if (weights != null) {
+				return weights;
+			}
+		}
+		float[] weights = customize(costs);
+		synchronized (this.customizations) {
+			// another thread may have customized the same costs in the meantime, then use its weights
+			float[] existing = this.customizations.putIfAbsent(key, weights);
+			return existing != null ? existing : weights;
+		}
+	}
+
+	private float[] customize(float[] costs) {
+		int edgeCount = this.edgeHead.length;
+		float[] weights = new float[edgeCount * 2];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			weights[2 * edge] = Float.POSITIVE_INFINITY;
+			weights[2 * edge + 1] = Float.POSITIVE_INFINITY;
+			for (int i = this.edgeLinkFirst[edge], n = this.edgeLinkFirst[edge + 1]; i < n; i++) {
+				int index = this.edgeLinkUpward[i] ? 2 * edge : 2 * edge + 1;
+				if (costs[i] < weights[index]) {
+					weights[index] = costs[i];
+				}
+			}
+		}
+
+		// process the lower triangles: when the nodes are processed in contraction order, the weights of the edges to
+		// the upper neighbours of a node are already final when the node is processed.
+		for (int node : this.nodesByRank) {
+			for (int a = this.upFirst[node], end = this.upFirst[node + 1]; a < end; a++) {
+				int nodeA = this.edgeHead[a];
+				for (int b = a + 1; b < end; b++) {
+					int nodeB = this.edgeHead[b];
+					float viaAB = weights[2 * a + 1] + weights[2 * b]; // nodeA -> node -> nodeB
+					float viaBA = weights[2 * b + 1] + weights[2 * a]; // nodeB -> node -> nodeA
+					int edge;
+					if (this.rank[nodeA] < this.rank[nodeB]) {
+						edge = getEdge(nodeA, nodeB);
+					} else {
+						edge = getEdge(nodeB, nodeA);
+						float tmp = viaAB;
+						viaAB = viaBA;
+						viaBA = tmp;
+					}
+					if (viaAB < weights[2 * edge]) {
+						weights[2 * edge] = viaAB;
+					}
+					if (viaBA < weights[2 * edge + 1]) {
+						weights[2 * edge + 1] = viaBA;
+					}
+				}
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * @return the edge between the two nodes if {@code lowNode} has a lower rank than {@code highNode} and they are
+	 * connected in the hierarchy, {@link #NO_EDGE} otherwise.
+	 */
+	int getEdge(int lowNode, int highNode) {
+		int index = Arrays.binarySearch(this.edgeHead, this.upFirst[lowNode], this.upFirst[lowNode + 1], highNode);
+		return index >= 0 ? index : NO_EDGE;
+	}
+
+	/**
+	 * @return the edge between the two nodes, independent of their order, or {@link #NO_EDGE}.
+	 */
+	int findEdge(int nodeA, int nodeB) {
+		return this.rank[nodeA] < this.rank[nodeB] ? getEdge(nodeA, nodeB) : getEdge(nodeB, nodeA);
+	}
+
+	boolean isEdgeLinkUpward(int index) {
+		return this.edgeLinkUpward[index];
+	}
+
+	int getRank(int node) {
+		return this.rank[node];
+	}
+
+	int getParent(int node) {
+		return this.parent[node];
+	}
+
+	int getUpEdgesStart(int node) {
+		return this.upFirst[node];
+	}
+
+	int getUpEdgesEnd(int node) {
+		return this.upFirst[node + 1];
+	}
+
+	int getEdgeHead(int edge) {
+		return this.edgeHead[edge];
+	}
+
+	int getEdgeTail(int edge) {
+		return this.edgeTail[edge];
+	}
+
+	int getDownEdgesStart(int node) {
+		return this.downFirst[node];
+	}
+
+	int getDownEdgesEnd(int node) {
+		return this.downFirst[node + 1];
+	}
+
+	int getDownEdge(int index) {
+		return this.downEdges[index];
+	}
+
+	int getEdgeLinksStart(int edge) {
+		return this.edgeLinkFirst[edge];
+	}
+
+	int getEdgeLinksEnd(int edge) {
+		return this.edgeLinkFirst[edge + 1];
+	}
+
+	int getEdgeLink(int index) {
+		return this.edgeLinks[index];
+	}
+
+	int getEdgeCount() {
+		return this.edgeHead.length;
+	}
+
+	/**
+	 * The costs of all links, in the order of edgeLinks, as key of the customized weights.
+	 */
+	private static final class LinkCosts {
+		private final float[] costs;
+		private final int hash;
+
+		LinkCosts(float[] costs) {
+			this.costs = costs;
+			this.hash = Arrays.hashCode(costs);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof LinkCosts other && this.hash == other.hash && Arrays.equals(this.costs, other.costs);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+}
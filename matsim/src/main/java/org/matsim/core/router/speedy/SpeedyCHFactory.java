@@ -0,0 +1,97 @@
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates {@link SpeedyCH} routers. The contraction hierarchy is built once per network and shared by all routers,
+ * while each router customizes it with its own travel disutility. Routers with equal link costs, e.g. the routers of
+ * the different threads, share the customized weights.
+ *
+ * If the travel disutility cannot be calculated without a person for some links, e.g. because it is randomized per
+ * person with {@code routingRandomness}, a {@link SpeedyALT} router is created instead. This is logged once per factory.
+ * Note that this is the case with the default configuration, as the default {@code routingRandomness} is 3. If the
+ * disutility can only be calculated without a person at some times of the day, the created {@link SpeedyCH} uses
+ * {@link SpeedyALT} for the departures at the other times.
+ *
+ * Disutilities which accept requests without a person, but would return other values for a person, cannot be
+ * detected. They are customized with the values without person, so the routes are optimal for these values only.
+ */
+public class SpeedyCHFactory implements LeastCostPathCalculatorFactory {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCHFactory.class);
+
+	public static final double DEFAULT_TIME_BIN_SIZE = 3600;
+	public static final double DEFAULT_MAX_TIME = 30 * 3600;
+
+	private final Map<Network, SpeedyGraph> graphs = new ConcurrentHashMap<>();
+	private final Map<SpeedyGraph, SpeedyCHData> chData = new ConcurrentHashMap<>();
+	private final SpeedyALTFactory fallbackFactory = new SpeedyALTFactory();
+	private final double timeBinSize;
+	private final int numberOfTimeBins;
+	private final AtomicBoolean fallbackLogged = new AtomicBoolean(false);
+
+	public SpeedyCHFactory() {
+		this(DEFAULT_TIME_BIN_SIZE, DEFAULT_MAX_TIME);
+	}
+
+	/**
+	 * @param timeBinSize the duration of the time bins, for each of which the hierarchy is customized once.
+	 * @param maxTime the end of the last time bin, later departures use the weights of the last time bin.
+	 */
+	public SpeedyCHFactory(double timeBinSize, double maxTime) {
+		this.timeBinSize = timeBinSize;
+		this.numberOfTimeBins = Math.max(1, (int) Math.ceil(maxTime / timeBinSize));
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
+		if (!supportsCustomization(network, travelCosts)) {
+			return this.fallbackFactory.createPathCalculator(network, travelCosts, travelTimes);
+		}
+		SpeedyGraph graph = this.graphs.get(network);
+		if (graph == null) {
+			graph = SpeedyGraphBuilder.build(network);
+			this.graphs.put(network, graph);
+		}
+		SpeedyCHData ch = this.chData.get(graph);
+		if (ch == null) {
+			ch = new SpeedyCHData(graph, this.numberOfTimeBins);
+			this.chData.put(graph, ch);
+		}
+		return new SpeedyCH(ch, travelTimes, travelCosts, this.timeBinSize, this.numberOfTimeBins,
+				() -> this.fallbackFactory.createPathCalculator(network, travelCosts, travelTimes));
+	}
+
+	/**
+	 * The hierarchy is customized without person and vehicle, so the travel disutility must support this. Travel
+	 * disutilities which need a person reject such requests, e.g. the randomizing one with a routingRandomness other
+	 * than 0. All links are checked at the start of the day, as the disutility may also depend on the link, e.g. on its
+	 * modes or attributes.
+	 */
+	private boolean supportsCustomization(Network network, TravelDisutility travelCosts) {
+		for (Link link : network.getLinks().values()) {
+			try {
+				travelCosts.getLinkTravelDisutility(link, 0, null, null);
+			} catch (RuntimeException e) {
+				if (this.fallbackLogged.compareAndSet(false, true)) {
+					LOG.warn("The travel disutility " + travelCosts.getClass().getName() + " cannot be calculated without a person for link " + link.getId()
+							+ " (" + e.getMessage() + "). Contraction hierarchies cannot be used, SpeedyALT is used instead. Set routingRandomness to 0 to use SpeedyCH.");
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,289 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalScoringFunction.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring;
+
+import gnu.trove.TDoubleCollection;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stands in for the scoring function of one agent if incremental scoring is switched on.  It records the activities,
+ * legs, trips, money, score and stuck events which are passed to the agent's scoring function during the iteration,
+ * and computes a SHA-256 fingerprint of their values.  Only once the iteration is over, {@link
+ * ScoringFunctionsForPopulation} decides whether the score of the previous iteration can be re-used, or whether the
+ * recorded input has to be {@link #replay replayed} into the real scoring function.
+ * <p></p>
+ * Events passed to {@link ScoringFunction#handleEvent(Event)} are neither recorded nor part of the fingerprint, so this
+ * is only used for scoring functions which ignore them, see {@link #isApplicable(ScoringFunction)}.
+ *
+ * @see org.matsim.core.config.groups.ScoringConfigGroup#isIncrementalScoring()
+ */
+final class IncrementalScoringFunction implements ScoringFunction {
+
+	private final ScoringFunction delegate;
+	private List<Object> inputs = new ArrayList<>();
+	private MessageDigest digest = null;
+
+	private boolean replayed = false;
+	private double reusedScore = Double.NaN;
+	private String reusedExplanation = null;
+
+	IncrementalScoringFunction(ScoringFunction delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return true if the score of the given scoring function only depends on what is recorded, i.e. if it is a
+	 * {@link SumScoringFunction} without {@link SumScoringFunction.ArbitraryEventScoring} parts.  Other implementations
+	 * might use the events.
+	 */
+	static boolean isApplicable(ScoringFunction scoringFunction) {
+		return scoringFunction instanceof SumScoringFunction sum && sum.ignoresEvents();
+	}
+
+	byte[] getFingerprint() {
+		return digest().digest();
+	}
+
+	/**
+	 * Passes all recorded input to the real scoring function in the order it was received, and finishes it.  The score
+	 * after every activity and leg is added to the partial scores.
+	 */
+	void replay(TDoubleCollection partialScores) {
+		for (Object input : this.inputs) {
+			if (input instanceof Activity activity) {
+				this.delegate.handleActivity(activity);
+				partialScores.add(this.delegate.getScore());
+			} else if (input instanceof Leg leg) {
+				this.delegate.handleLeg(leg);
+				partialScores.add(this.delegate.getScore());
+			} else if (input instanceof TripStructureUtils.Trip trip) {
+				this.delegate.handleTrip(trip);
+			} else {
+				Amount amount = (Amount) input;
+				switch (amount.type()) {
+					case MONEY -> this.delegate.addMoney(amount.value());
+					case SCORE -> this.delegate.addScore(amount.value());
+					case STUCK -> this.delegate.agentStuck(amount.value());
+				}
+			}
+		}
+		this.delegate.finish();
+		this.replayed = true;
+		this.inputs = null;
+	}
+
+	/**
+	 * Uses the score of the previous iteration instead of the recorded input.
+	 */
+	void reuse(double score, String explanation) {
+		this.reusedScore = score;
+		this.reusedExplanation = explanation;
+		this.inputs = null;
+	}
+
+	@Override
+	public void handleActivity(Activity activity) {
+		this.inputs.add(activity);
+		add(1);
+		add(activity.getType());
+		add(activity.getLinkId());
+		add(activity.getFacilityId());
+		add(activity.getCoord());
+		add(activity.getStartTime());
+		add(activity.getEndTime());
+		add(activity.getMaximumDuration());
+		add(activity.getAttributes());
+	}
+
+	@Override
+	public void handleLeg(Leg leg) {
+		this.inputs.add(leg);
+		add(2);
+		add(leg.getMode());
+		add(leg.getRoutingMode());
+		add(leg.getDepartureTime());
+		add(leg.getTravelTime());
+		add(leg.getAttributes());
+		Route route = leg.getRoute();
+		if (route == null) {
+			add(0);
+			return;
+		}
+		add(1);
+		add(route.getRouteType());
+		add(route.getStartLinkId());
+		add(route.getEndLinkId());
+		add(route.getDistance());
+		add(route.getTravelTime());
+		if (route instanceof NetworkRoute networkRoute) {
+			List<Id<Link>> linkIds = networkRoute.getLinkIds();
+			add(linkIds.size());
+			for (Id<?> linkId : linkIds) {
+				add(linkId);
+			}
+			add(networkRoute.getVehicleId());
+		} else {
+			add(route.getRouteDescription());
+		}
+	}
+
+	@Override
+	public void handleTrip(TripStructureUtils.Trip trip) {
+		// derived from the activities and legs, so it is not part of the fingerprint
+		this.inputs.add(trip);
+	}
+
+	@Override
+	public void agentStuck(double time) {
+		this.inputs.add(new Amount(AmountType.STUCK, time));
+		add(3 + AmountType.STUCK.ordinal());
+		add(time);
+	}
+
+	@Override
+	public void addMoney(double amount) {
+		this.inputs.add(new Amount(AmountType.MONEY, amount));
+		add(3 + AmountType.MONEY.ordinal());
+		add(amount);
+	}
+
+	@Override
+	public void addScore(double amount) {
+		this.inputs.add(new Amount(AmountType.SCORE, amount));
+		add(3 + AmountType.SCORE.ordinal());
+		add(amount);
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		// the scoring function ignores events, see isApplicable()
+	}
+
+	@Override
+	public void finish() {
+		// the recorded input is finished by replay(), or not at all
+	}
+
+	@Override
+	public double getScore() {
+		return this.replayed ? this.delegate.getScore() : this.reusedScore;
+	}
+
+	@Override
+	public void explainScore(StringBuilder out) {
+		if (this.replayed) {
+			this.delegate.explainScore(out);
+		} else if (this.reusedExplanation != null) {
+			out.append(this.reusedExplanation);
+		}
+	}
+
+	private MessageDigest digest() {
+		if (this.digest == null) {
+			try {
+				this.digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return this.digest;
+	}
+
+	private void add(Id<?> id) {
+		add(id == null ? null : id.toString());
+	}
+
+	private void add(String value) {
+		if (value == null) {
+			add(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			add(bytes.length);
+			digest().update(bytes);
+		}
+	}
+
+	private void add(Coord coord) {
+		if (coord == null) {
+			add(0);
+		} else {
+			add(coord.hasZ() ? 3 : 2);
+			add(coord.getX());
+			add(coord.getY());
+			if (coord.hasZ()) {
+				add(coord.getZ());
+			}
+		}
+	}
+
+	private void add(OptionalTime time) {
+		if (time.isUndefined()) {
+			add(0);
+		} else {
+			add(1);
+			add(time.seconds());
+		}
+	}
+
+	private void add(Attributes attributes) {
+		add(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.getAsMap().entrySet()) {
+			add(entry.getKey());
+			Object value = entry.getValue();
+			add(value == null ? null : value.getClass().getName());
+			add(value == null ? null : value.toString());
+		}
+	}
+
+	private void add(double value) {
+		add(Double.doubleToLongBits(value));
+	}
+
+	private void add(long value) {
+		MessageDigest digest = digest();
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			digest.update((byte) (value >>> shift));
+		}
+	}
+
+	private enum AmountType {MONEY, SCORE, STUCK}
+
+	private record Amount(AmountType type, double value) {
+	}
+
+}
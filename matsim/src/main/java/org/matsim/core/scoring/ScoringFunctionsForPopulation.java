@@ -24,6 +24,8 @@ import com.google.inject.Inject;
 import gnu.trove.TDoubleCollection;
 import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
@@ -63,6 +65,7 @@ import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicReference;
@@ -79,6 +82,8 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
  */
  final class ScoringFunctionsForPopulation implements BasicEventHandler {
 
+	private static final Logger log = LogManager.getLogger(ScoringFunctionsForPopulation.class);
+
 	private final Population population;
 	private final ScoringFunctionFactory scoringFunctionFactory;
 
@@ -90,6 +95,12 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	private final AtomicReference<Throwable> exception = new AtomicReference<>();
 	private final IdMap<Person, Plan> tripRecords = new IdMap<>(Person.class);
 
+	private final boolean incrementalScoring;
+	private final IdMap<Person, PreviousScoring> previousScorings = new IdMap<>(Person.class);
+
+	// null if the scoring functions are called directly by the events thread
+	private final ScoringShards shards;
+
 	private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
 
 	@Inject
@@ -109,6 +120,9 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		this.legsDelegate = eventsToLegs;
 		this.actsDelegate = eventsToActivities;
 		this.scoringFunctionFactory = scoringFunctionFactory;
+		this.incrementalScoring = config.scoring().isIncrementalScoring();
+		int numberOfThreads = config.scoring().getNumberOfThreads();
+		this.shards = numberOfThreads > 1 ? new ScoringShards(numberOfThreads, this.exception) : null;
 
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this::handleActivity);
@@ -117,10 +131,30 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	private void init() {
 		for (Person person : this.population.getPersons().values()) {
-			this.agentScorers.put(person.getId(), this.scoringFunctionFactory.createNewScoringFunction(person ) );
+			ScoringFunction scoringFunction = this.scoringFunctionFactory.createNewScoringFunction(person );
+			if (this.incrementalScoring && IncrementalScoringFunction.isApplicable(scoringFunction)) {
+				// the scoring function is only fed at the end of the iteration, if it is needed at all
+				scoringFunction = new IncrementalScoringFunction(scoringFunction);
+			}
+			this.agentScorers.put(person.getId(), scoringFunction);
 			this.partialScores.put(person.getId(), new TDoubleArrayList());
 			this.tripRecords.put(person.getId(), PopulationUtils.createPlan());
 		}
+		if (this.shards != null) {
+			this.shards.start();
+		}
+	}
+
+	/**
+	 * Executes a call to the scoring function of the given person, either directly or on the thread which is
+	 * responsible for the person.
+	 */
+	private void score(Id<Person> personId, Runnable call) {
+		if (this.shards == null) {
+			call.run();
+		} else {
+			this.shards.submit(personId, call);
+		}
 	}
 
 	@Override
@@ -129,19 +163,22 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		// aggregated into legs and activities. for the time being, not all PersonEvents may "implement HasPersonId". link enter/leave events
 		// are NOT passed on, for performance reasons. kai/dominik, dec'12
 		if (o instanceof HasPersonId) {
-			ScoringFunction scoringFunction = getScoringFunctionForAgent(((HasPersonId) o).getPersonId());
+			Id<Person> personId = ((HasPersonId) o).getPersonId();
+			ScoringFunction scoringFunction = getScoringFunctionForAgent(personId);
 			if (scoringFunction != null) {
-				if (o instanceof PersonStuckEvent) {
-					scoringFunction.agentStuck(o.getTime());
-				} else if (o instanceof PersonMoneyEvent) {
-					scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
-					// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
-					// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
-				} else if (o instanceof PersonScoreEvent) {
-					scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
-				}
-				scoringFunction.handleEvent(o);
-				// passing this on in any case, see comment above.  kai, mar'17
+				score(personId, () -> {
+					if (o instanceof PersonStuckEvent) {
+						scoringFunction.agentStuck(o.getTime());
+					} else if (o instanceof PersonMoneyEvent) {
+						scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
+						// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
+						// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
+					} else if (o instanceof PersonScoreEvent) {
+						scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
+					}
+					scoringFunction.handleEvent(o);
+					// passing this on in any case, see comment above.  kai, mar'17
+				});
 			}
 		}
 
@@ -167,7 +204,7 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
 			// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
 			if (scoringFunction != null) {
-				scoringFunction.handleEvent(o);
+				score(driverId, () -> scoringFunction.handleEvent(o));
 			}
 		}
 
@@ -213,11 +250,13 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			// in the minibus raptor implementation has issues--???) kai, sep'18
 
 			ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(event.getPersonId());
-			for (Trip trip : trips) {
-				if (trip != null) {
-					scoringFunction.handleTrip(trip);
+			score(event.getPersonId(), () -> {
+				for (Trip trip : trips) {
+					if (trip != null) {
+						scoringFunction.handleTrip(trip);
+					}
 				}
-			}
+			});
 
 			// ... and clean out the intermediate plan (which will remain in tripRecords).
 			plan.getPlanElements().clear();
@@ -229,9 +268,14 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		Leg leg = o.getLeg();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
 		if (scoringFunction != null) {
-			scoringFunction.handleLeg(leg);
-			TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			score(agentId, () -> {
+				scoringFunction.handleLeg(leg);
+				if (!(scoringFunction instanceof IncrementalScoringFunction)) {
+					// with incremental scoring, the partial scores are collected when the experience is replayed
+					TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
+					partialScoresForAgent.add(scoringFunction.getScore());
+				}
+			});
 		}
 		Plan plan = this.tripRecords.get( agentId ) ; // as container for trip
 		if ( plan!=null ) {
@@ -244,9 +288,14 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		Activity activity = o.getActivity();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
 		if (scoringFunction != null) {
-			scoringFunction.handleActivity(activity);
-			TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			score(agentId, () -> {
+				scoringFunction.handleActivity(activity);
+				if (!(scoringFunction instanceof IncrementalScoringFunction)) {
+					// with incremental scoring, the partial scores are collected when the experience is replayed
+					TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
+					partialScoresForAgent.add(scoringFunction.getScore());
+				}
+			});
 		}
 
 		Plan plan = this.tripRecords.get( agentId ); // as container for trip
@@ -270,6 +319,9 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	void finishScoringFunctions() {
+		if (this.shards != null) {
+			this.shards.finish();
+		}
 		// Rethrow an exception in a scoring function (user code) if there was one.
 		Throwable throwable = this.exception.get();
 		if (throwable != null) {
@@ -279,14 +331,58 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 				throw new RuntimeException(throwable);
 			}
 		}
-		for (ScoringFunction sf : this.agentScorers.values()) {
-			sf.finish();
+		if (this.incrementalScoring) {
+			finishIncrementalScoringFunctions();
+		} else {
+			for (ScoringFunction sf : this.agentScorers.values()) {
+				sf.finish();
+			}
 		}
 		for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
 			entry.getValue().add(this.getScoringFunctionForAgent(entry.getKey()).getScore());
 		}
 	}
 
+	/**
+	 * Re-uses the score of the previous iteration for every agent who executed the same plan as then and whose recorded
+	 * experience has the same fingerprint.  For all other agents, the recorded experience is passed to their scoring
+	 * function.  Agents whose scoring function depends on events were scored as usual.
+	 */
+	private void finishIncrementalScoringFunctions() {
+		int skipped = 0;
+		int notApplicable = 0;
+		for (Person person : this.population.getPersons().values()) {
+			Id<Person> personId = person.getId();
+			ScoringFunction scoringFunction = this.agentScorers.get(personId);
+			if (scoringFunction == null) {
+				continue;
+			}
+			if (!(scoringFunction instanceof IncrementalScoringFunction sf)) {
+				scoringFunction.finish();
+				this.previousScorings.remove(personId);
+				notApplicable++;
+				continue;
+			}
+			Plan plan = person.getSelectedPlan();
+			byte[] fingerprint = sf.getFingerprint();
+			PreviousScoring previous = this.previousScorings.get(personId);
+			if (previous != null && previous.plan == plan && Arrays.equals(previous.fingerprint, fingerprint)) {
+				Object explanation = plan == null ? null : plan.getAttributes().getAttribute(ScoringFunction.SCORE_EXPLANATION_ATTR);
+				sf.reuse(previous.score, explanation == null ? null : explanation.toString());
+				skipped++;
+			} else {
+				sf.replay(this.partialScores.get(personId));
+			}
+			this.previousScorings.put(personId, new PreviousScoring(plan, fingerprint, sf.getScore()));
+		}
+		log.info("incremental scoring: re-used the score of the previous iteration for " + skipped + " of "
+				+ this.agentScorers.size() + " agents.");
+		if (notApplicable > 0) {
+			log.info("incremental scoring: " + notApplicable + " agents were scored as usual, as their scoring function is "
+					+ "not a SumScoringFunction or depends on events (SumScoringFunction.ArbitraryEventScoring).");
+		}
+	}
+
 	void writePartialScores(String iterationFilename) {
 		try ( BufferedWriter out = IOUtils.getBufferedWriter(iterationFilename) ) {
 			for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
@@ -303,6 +399,12 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		}
 	}
 
+	/**
+	 * What incremental scoring needs to remember about the last scoring of an agent.
+	 */
+	private record PreviousScoring(Plan plan, byte[] fingerprint, double score) {
+	}
+
 	@Override
 	public void reset(int iteration) {
 		this.legsDelegate.reset(iteration);
@@ -0,0 +1,144 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScoringShards.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes the calls to the scoring functions of {@link ScoringFunctionsForPopulation} on several threads.  The
+ * persons are distributed to the threads by their index, so all calls for one person are executed by the same thread,
+ * in the order in which they were submitted.
+ * <p></p>
+ * Calls must be submitted by one thread at a time.  They are collected in batches, so a call is only guaranteed to be
+ * executed after {@link #finish()}.
+ */
+final class ScoringShards {
+
+	private static final int BATCH_SIZE = 1024;
+	private static final int QUEUE_CAPACITY = 16;
+	private static final List<Runnable> END = new ArrayList<>();
+
+	private final Shard[] shards;
+	private final AtomicReference<Throwable> exception;
+
+	/**
+	 * @param exception receives the first exception thrown by a call, the following calls are still executed.
+	 */
+	ScoringShards(int numberOfShards, AtomicReference<Throwable> exception) {
+		this.shards = new Shard[numberOfShards];
+		this.exception = exception;
+	}
+
+	void start() {
+		finish();
+		for (int i = 0; i < this.shards.length; i++) {
+			this.shards[i] = new Shard(i);
+			this.shards[i].thread.start();
+		}
+	}
+
+	void submit(Id<Person> personId, Runnable call) {
+		this.shards[personId.index() % this.shards.length].submit(call);
+	}
+
+	/**
+	 * Waits until all submitted calls are executed, and stops the threads.
+	 */
+	void finish() {
+		for (Shard shard : this.shards) {
+			if (shard != null) {
+				shard.flush();
+				shard.put(END);
+			}
+		}
+		for (int i = 0; i < this.shards.length; i++) {
+			if (this.shards[i] != null) {
+				try {
+					this.shards[i].thread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				}
+				this.shards[i] = null;
+			}
+		}
+	}
+
+	private final class Shard implements Runnable {
+		private final BlockingQueue<List<Runnable>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		private final Thread thread;
+		private List<Runnable> batch = new ArrayList<>(BATCH_SIZE);
+
+		Shard(int index) {
+			this.thread = new Thread(this, "ScoringShard-" + index);
+			this.thread.setDaemon(true);
+		}
+
+		void submit(Runnable call) {
+			this.batch.add(call);
+			if (this.batch.size() == BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		void flush() {
+			if (!this.batch.isEmpty()) {
+				put(this.batch);
+				this.batch = new ArrayList<>(BATCH_SIZE);
+			}
+		}
+
+		void put(List<Runnable> calls) {
+			try {
+				this.queue.put(calls);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<Runnable> calls;
+				while ((calls = this.queue.take()) != END) {
+					for (Runnable call : calls) {
+						try {
+							call.run();
+						} catch (Throwable t) {
+							exception.compareAndSet(null, t);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				exception.compareAndSet(null, e);
+			}
+		}
+	}
+
+}
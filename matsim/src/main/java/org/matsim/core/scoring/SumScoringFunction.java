@@ -200,6 +200,13 @@ public final class SumScoringFunction implements ScoringFunction {
 		}
 	}
 
+	/**
+	 * @return true if none of the parts is an {@link ArbitraryEventScoring}, so that {@link #handleEvent(Event)} has no effect.
+	 */
+	/* package */ boolean ignoresEvents() {
+		return this.arbitraryEventScoringFunctions.isEmpty();
+	}
+
 	public void addScoringFunction(BasicScoring scoringFunction) {
 		this.basicScoringFunctions.add(scoringFunction);
 
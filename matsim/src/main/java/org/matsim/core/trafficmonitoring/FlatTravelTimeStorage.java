@@ -0,0 +1,311 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FlatTravelTimeStorage.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeStorage;
+import org.matsim.core.utils.collections.Tuple;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Storage of the {@link TravelTimeCalculator} for {@link TravelTimeStorage#flat}.
+ * <p></p>
+ * The time bins of all links of the network are stored in a single long array, {@code numSlots} consecutive entries per
+ * link, ordered by {@link Id#index()}, in the encoding of {@link TravelTimeDataArray}.  The link enter times of the
+ * vehicles are stored in primitive arrays indexed by the vehicle index, and the link-to-link data in an open-addressing
+ * hash table with the indices of both links combined into a single long key.  So, apart from growing the arrays, the
+ * event handling does not allocate any objects, and there are no per-link arrays.
+ * <p></p>
+ * The enter times are only accessed by the event handling, which is single-threaded per handler.  The time bins may
+ * also be read by routers in parallel, like with the per-link storage.
+ */
+final class FlatTravelTimeStorage {
+
+	private static final int NO_LINK = -1;
+
+	private final Network network;
+	private final int numSlots;
+
+	/* the time bins of all links of the network, and a view on each link's bins so that the TravelTimeGetters work as
+	 * usual. links which were added to the network later get their own TravelTimeDataArray. */
+	private final long[] linkBins;
+	private final TravelTimeDataFlat[] linkData;
+	private final IdMap<Link, TravelTimeDataArray> additionalLinkData = new IdMap<>(Link.class);
+
+	private double[] enterTimes = new double[0];
+	private int[] enterLinks = new int[0];
+
+	private long[] turnKeys;
+	private TravelTimeDataArray[] turnData;
+	private int turnCount = 0;
+
+	FlatTravelTimeStorage(final Network network, final int numSlots, final boolean calculateLinkTravelTimes,
+						  final boolean calculateLinkToLinkTravelTimes) {
+		this.network = network;
+		this.numSlots = numSlots;
+
+		if (calculateLinkTravelTimes) {
+			int numberOfLinkIndices = 0;
+			for (Id<Link> linkId : network.getLinks().keySet()) {
+				numberOfLinkIndices = Math.max(numberOfLinkIndices, linkId.index() + 1);
+			}
+			long size = (long) numberOfLinkIndices * numSlots;
+			if (size > Integer.MAX_VALUE - 8) {
+				throw new IllegalArgumentException("The network has too many links for the flat travel time storage with " + numSlots
+						+ " time bins. Use a larger travel time bin size or the " + TravelTimeStorage.perLink + " storage.");
+			}
+			this.linkBins = new long[(int) size];
+			this.linkData = new TravelTimeDataFlat[numberOfLinkIndices];
+			for (Link link : network.getLinks().values()) {
+				this.linkData[link.getId().index()] = new TravelTimeDataFlat(this.linkBins, link.getId().index() * numSlots, numSlots, link);
+			}
+		} else {
+			this.linkBins = new long[0];
+			this.linkData = new TravelTimeDataFlat[0];
+		}
+
+		if (calculateLinkToLinkTravelTimes) {
+			// assume that every link has 2 outgoing links as default, at a load factor of at most 0.5
+			int capacity = Integer.highestOneBit(Math.max(16, network.getLinks().size() * 4 - 1)) << 1;
+			this.turnKeys = new long[capacity];
+			this.turnData = new TravelTimeDataArray[capacity];
+		}
+		reset();
+	}
+
+	// ---- link data
+
+	TravelTimeData getLinkData(final Id<Link> linkId) {
+		int index = linkId.index();
+		if (index < this.linkData.length) {
+			TravelTimeDataFlat data = this.linkData[index];
+			if (data != null) {
+				return data;
+			}
+		}
+		synchronized (this.additionalLinkData) {
+			TravelTimeDataArray data = this.additionalLinkData.get(linkId);
+			if (data == null) {
+				data = new TravelTimeDataArray(this.network.getLinks().get(linkId), this.numSlots);
+				this.additionalLinkData.put(linkId, data);
+			}
+			return data;
+		}
+	}
+
+	// ---- link enter times
+
+	/**
+	 * @return the index of the link the vehicle has entered before, or a negative value if it did not enter a link
+	 * (since it last left the traffic or stopped at a facility).
+	 */
+	int getEnteredLink(final Id<Vehicle> vehicleId) {
+		int index = vehicleId.index();
+		return index < this.enterLinks.length ? this.enterLinks[index] : NO_LINK;
+	}
+
+	double getEnterTime(final Id<Vehicle> vehicleId) {
+		return this.enterTimes[vehicleId.index()];
+	}
+
+	void setEntered(final Id<Vehicle> vehicleId, final Id<Link> linkId, final double time) {
+		int index = vehicleId.index();
+		if (index >= this.enterLinks.length) {
+			int capacity = Math.max(index + 1, Math.max(16, this.enterLinks.length + this.enterLinks.length / 2));
+			int oldCapacity = this.enterLinks.length;
+			this.enterLinks = Arrays.copyOf(this.enterLinks, capacity);
+			this.enterTimes = Arrays.copyOf(this.enterTimes, capacity);
+			Arrays.fill(this.enterLinks, oldCapacity, capacity, NO_LINK);
+		}
+		this.enterLinks[index] = linkId.index();
+		this.enterTimes[index] = time;
+	}
+
+	void clearEntered(final Id<Vehicle> vehicleId) {
+		int index = vehicleId.index();
+		if (index < this.enterLinks.length) {
+			this.enterLinks[index] = NO_LINK;
+		}
+	}
+
+	// ---- link-to-link data
+
+	synchronized TravelTimeData getLinkToLinkData(final int fromLinkIndex, final int toLinkIndex) {
+		long key = turnKey(fromLinkIndex, toLinkIndex);
+		int mask = this.turnKeys.length - 1;
+		int slot = hash(key) & mask;
+		while (this.turnData[slot] != null) {
+			if (this.turnKeys[slot] == key) {
+				return this.turnData[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		TravelTimeDataArray data = new TravelTimeDataArray(this.network.getLinks().get(Id.get(fromLinkIndex, Link.class)), this.numSlots);
+		this.turnKeys[slot] = key;
+		this.turnData[slot] = data;
+		this.turnCount++;
+		if (this.turnCount * 2 > this.turnKeys.length) {
+			growTurns();
+		}
+		return data;
+	}
+
+	private void growTurns() {
+		long[] oldKeys = this.turnKeys;
+		TravelTimeDataArray[] oldData = this.turnData;
+		this.turnKeys = new long[oldKeys.length * 2];
+		this.turnData = new TravelTimeDataArray[oldKeys.length * 2];
+		int mask = this.turnKeys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldData[i] != null) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (this.turnData[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				this.turnKeys[slot] = oldKeys[i];
+				this.turnData[slot] = oldData[i];
+			}
+		}
+	}
+
+	/**
+	 * @return all link-to-link data created so far.
+	 */
+	synchronized Map<Tuple<Id<Link>, Id<Link>>, TravelTimeData> getAllLinkToLinkData() {
+		Map<Tuple<Id<Link>, Id<Link>>, TravelTimeData> allData = new LinkedHashMap<>();
+		if (this.turnData != null) {
+			for (int i = 0; i < this.turnKeys.length; i++) {
+				if (this.turnData[i] != null) {
+					long key = this.turnKeys[i];
+					allData.put(new Tuple<>(Id.get((int) (key >>> 32), Link.class), Id.get((int) key, Link.class)), this.turnData[i]);
+				}
+			}
+		}
+		return allData;
+	}
+
+	private static long turnKey(final int fromLinkIndex, final int toLinkIndex) {
+		return ((long) fromLinkIndex << 32) | (toLinkIndex & 0xffffffffL);
+	}
+
+	private static int hash(final long key) {
+		long h = key * 0x9e3779b97f4a7c15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	// ----
+
+	void reset() {
+		Arrays.fill(this.linkBins, TravelTimeDataArray.encode(0, -1.0));
+		for (TravelTimeDataFlat data : this.linkData) {
+			if (data != null) {
+				data.setNeedsConsolidation(false);
+			}
+		}
+		synchronized (this.additionalLinkData) {
+			for (TravelTimeDataArray data : this.additionalLinkData.values()) {
+				data.resetTravelTimes();
+				data.setNeedsConsolidation(false);
+			}
+		}
+		if (this.turnData != null) {
+			synchronized (this) {
+				for (TravelTimeDataArray data : this.turnData) {
+					if (data != null) {
+						data.resetTravelTimes();
+						data.setNeedsConsolidation(false);
+					}
+				}
+			}
+		}
+		Arrays.fill(this.enterLinks, NO_LINK);
+	}
+
+	/**
+	 * The time bins of one link within {@link FlatTravelTimeStorage#linkBins}.  Same behaviour as
+	 * {@link TravelTimeDataArray}, only that the data is not in an array of its own.
+	 */
+	static final class TravelTimeDataFlat extends TravelTimeData {
+		private final long[] data;
+		private final int offset;
+		private final int numSlots;
+		private final Link link;
+
+		TravelTimeDataFlat(final long[] data, final int offset, final int numSlots, final Link link) {
+			this.data = data;
+			this.offset = offset;
+			this.numSlots = numSlots;
+			this.link = link;
+		}
+
+		@Override
+		public void resetTravelTimes() {
+			Arrays.fill(this.data, this.offset, this.offset + this.numSlots, TravelTimeDataArray.encode(0, -1.0));
+		}
+
+		@Override
+		void setTravelTime(final int timeSlot, final double traveltime) {
+			this.data[this.offset + timeSlot] = TravelTimeDataArray.encode(1, traveltime);
+		}
+
+		@Override
+		void addTravelTime(final int timeSlot, final double traveltime) {
+			long val = this.data[this.offset + timeSlot];
+			int cnt = TravelTimeDataArray.count(val);
+			double sum = TravelTimeDataArray.traveltime(val) * cnt;
+
+			sum += traveltime;
+			cnt++;
+
+			this.data[this.offset + timeSlot] = TravelTimeDataArray.encode(cnt, sum / cnt);
+		}
+
+		@Override
+		double getTravelTime(final int timeSlot, final double now) {
+			long val = this.data[this.offset + timeSlot];
+			double ttime = TravelTimeDataArray.traveltime(val);
+			if (ttime >= 0.0) return ttime; // negative values are invalid.
+
+			// ttime can only be <0 if it never accumulated anything, i.e. if cnt == 0, so just use freespeed
+			double freespeed = this.link.getLength() / this.link.getFreespeed(now);
+			this.data[this.offset + timeSlot] = TravelTimeDataArray.encode(0, freespeed);
+			return freespeed;
+		}
+
+		@Override
+		long getEncoded(final int timeSlot) {
+			return this.data[this.offset + timeSlot];
+		}
+
+		@Override
+		void setEncoded(final int timeSlot, final long encoded) {
+			this.data[this.offset + timeSlot] = encoded;
+		}
+	}
+}
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.events.VehicleAbortsEvent;
@@ -42,6 +43,10 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeStorage;
+import org.matsim.core.controler.checkpoint.CheckpointParticipant;
+import org.matsim.core.events.EventArray;
+import org.matsim.core.events.handler.BatchEventHandler;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
@@ -50,9 +55,14 @@ import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -62,13 +72,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * <br>
  * Travel times on links are collected and averaged in bins/slots with a specified size
  * (<code>binSize</code>, in seconds, default 900 seconds = 15 minutes).
+ * <br>
+ * With {@link TravelTimeStorage#flat}, the data is kept in a {@link FlatTravelTimeStorage} instead of per-link objects
+ * and maps keyed by ids.
+ * <br>
+ * Events submitted as a batch are handled in one call per batch, see {@link BatchEventHandler}.
  *
  * @author dgrether
  * @author mrieser
  */
 public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEventHandler,
 									     VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, VehicleArrivesAtFacilityEventHandler,
-									     VehicleAbortsEventHandler {
+									     VehicleAbortsEventHandler, BatchEventHandler, CheckpointParticipant {
 	private static final Logger log = LogManager.getLogger(TravelTimeCalculator.class);
 
 	private static final String ERROR_STUCK_AND_LINKTOLINK = "Using the stuck feature with turning move travel times is not available. As the next link of a stucked" +
@@ -85,6 +100,8 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
 
+	private final FlatTravelTimeStorage flatStorage;
+
 	private final Set<Id<Vehicle>> vehiclesToIgnore;
 	private final Set<String> analyzedModes;
 
@@ -125,7 +142,8 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	TravelTimeCalculator(TravelTimeCalculatorConfigGroup ttconfigGroup, EventsManager eventsManager, Network network) {
 		// this injected constructor is not used when getSeparateModes is true
 		this(network, ttconfigGroup.getTraveltimeBinSize(), ttconfigGroup.getMaxTime(), ttconfigGroup.isCalculateLinkTravelTimes(),
-			  ttconfigGroup.isCalculateLinkToLinkTravelTimes(), ttconfigGroup.isFilterModes(), CollectionUtils.stringToSet(ttconfigGroup.getAnalyzedModesAsString() ) );
+			  ttconfigGroup.isCalculateLinkToLinkTravelTimes(), ttconfigGroup.isFilterModes(), CollectionUtils.stringToSet(ttconfigGroup.getAnalyzedModesAsString() ),
+			  ttconfigGroup.getTravelTimeStorage() );
 		eventsManager.addHandler(this);
 		configure(this, ttconfigGroup, network);
 	}
@@ -140,7 +158,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	@Deprecated // user builder instead.  kai, feb'19
 	public TravelTimeCalculator(final Network network, final double timeslice, final int maxTime, TravelTimeCalculatorConfigGroup ttconfigGroup) {
 		this(network, timeslice, maxTime, ttconfigGroup.isCalculateLinkTravelTimes(), ttconfigGroup.isCalculateLinkToLinkTravelTimes(), ttconfigGroup.isFilterModes(),
-			  CollectionUtils.stringToSet(ttconfigGroup.getAnalyzedModesAsString() ) );
+			  CollectionUtils.stringToSet(ttconfigGroup.getAnalyzedModesAsString() ), ttconfigGroup.getTravelTimeStorage() );
 	}
 
 	public final static class Builder {
@@ -153,6 +171,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		private boolean calculateLinkToLinkTravelTimes = false ;
 		private boolean filterModes = false ;
 		private Set<String> analyzedModes = null ;
+		private TravelTimeStorage travelTimeStorage = TravelTimeStorage.perLink ;
 		private TravelTimeCalculatorConfigGroup ttcConfig;
 		private boolean toBeConfigured = false ;
 
@@ -184,18 +203,23 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			this.analyzedModes = analyzedModes;
 		}
 
+		public void setTravelTimeStorage( TravelTimeStorage travelTimeStorage ){
+			this.travelTimeStorage = travelTimeStorage;
+		}
+
 		public void configure ( TravelTimeCalculatorConfigGroup ttcConfig ) {
 			// yyyyyy this is a fix to get the outward API sorted out somewhat better.  kai, feb'19
 			// yyyyyy presumably would like to replace this with setters for {@link TravelTimeDataFactory} and {@link TravelTimeGetter}.  But it ain't that easy because
 			// they again depend on material that (currently) is only available _after_ construction of {@link TravelTimeCalculator}.  kai, feb'19
 
 			this.ttcConfig = ttcConfig ;
+			this.travelTimeStorage = ttcConfig.getTravelTimeStorage() ;
 			this.toBeConfigured = true ;
 		}
 
 		public TravelTimeCalculator build() {
 			TravelTimeCalculator abc = new TravelTimeCalculator( network, timeslice, maxTime, calculateLinkTravelTimes, calculateLinkToLinkTravelTimes, filterModes,
-				  analyzedModes );
+				  analyzedModes, travelTimeStorage );
 			if( toBeConfigured ){
 				TravelTimeCalculator.configure( abc, this.ttcConfig, this.network );
 			}
@@ -205,7 +229,8 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	}
 
 	private TravelTimeCalculator(final Network network, final double timeslice, final int maxTime,
-								 boolean calculateLinkTravelTimes, boolean calculateLinkToLinkTravelTimes, boolean filterModes, Set<String> analyzedModes) {
+								 boolean calculateLinkTravelTimes, boolean calculateLinkToLinkTravelTimes, boolean filterModes, Set<String> analyzedModes,
+								 TravelTimeStorage travelTimeStorage) {
 		this.calculateLinkTravelTimes = calculateLinkTravelTimes;
 		this.calculateLinkToLinkTravelTimes = calculateLinkToLinkTravelTimes;
 		this.filterAnalyzedModes = filterModes;
@@ -215,14 +240,20 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		this.numSlots = TimeBinUtils.getTimeBinCount(maxTime, timeslice);
 		this.aggregator = new TimeSlotComputation(this.numSlots, this.timeSlice);
 		this.travelTimeGetter = new AveragingTravelTimeGetter( this.aggregator ) ;
-		if (this.calculateLinkTravelTimes) {
-			this.linkData = new IdMap<>(Link.class);
-		}
-		if (this.calculateLinkToLinkTravelTimes){
-			// assume that every link has 2 outgoing links as default
-			this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
+		if (travelTimeStorage == TravelTimeStorage.flat) {
+			this.flatStorage = new FlatTravelTimeStorage(network, this.numSlots, calculateLinkTravelTimes, calculateLinkToLinkTravelTimes);
+			this.linkEnterEvents = null;
+		} else {
+			this.flatStorage = null;
+			if (this.calculateLinkTravelTimes) {
+				this.linkData = new IdMap<>(Link.class);
+			}
+			if (this.calculateLinkToLinkTravelTimes){
+				// assume that every link has 2 outgoing links as default
+				this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
+			}
+			this.linkEnterEvents = new ConcurrentHashMap<>();
 		}
-		this.linkEnterEvents = new ConcurrentHashMap<>();
 
 		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
 		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
@@ -231,39 +262,73 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		this.reset(0);
 	}
 
+	@Override
+	public void handleEvents(final EventArray events) {
+		for (int i = 0; i < events.size(); i++) {
+			Event event = events.get(i);
+			if (event instanceof LinkEnterEvent linkEnterEvent) {
+				handleEvent(linkEnterEvent);
+			} else if (event instanceof LinkLeaveEvent linkLeaveEvent) {
+				handleEvent(linkLeaveEvent);
+			} else if (event instanceof VehicleEntersTrafficEvent vehicleEntersTrafficEvent) {
+				handleEvent(vehicleEntersTrafficEvent);
+			} else if (event instanceof VehicleLeavesTrafficEvent vehicleLeavesTrafficEvent) {
+				handleEvent(vehicleLeavesTrafficEvent);
+			} else if (event instanceof VehicleArrivesAtFacilityEvent vehicleArrivesAtFacilityEvent) {
+				handleEvent(vehicleArrivesAtFacilityEvent);
+			} else if (event instanceof VehicleAbortsEvent vehicleAbortsEvent) {
+				handleEvent(vehicleAbortsEvent);
+			}
+		}
+	}
+
 	@Override
 	public void handleEvent(final LinkEnterEvent e) {
 		/* if only some modes are analyzed, we check whether the vehicles
 		 * performs a trip with one of those modes. if not, we skip the event. */
 		if (filterAnalyzedModes && vehiclesToIgnore.contains(e.getVehicleId())) return;
 
+		if (this.flatStorage != null) {
+			int fromLinkIndex = this.flatStorage.getEnteredLink(e.getVehicleId());
+			if (fromLinkIndex >= 0 && this.calculateLinkToLinkTravelTimes) {
+				TravelTimeData data = this.flatStorage.getLinkToLinkData(fromLinkIndex, e.getLinkId().index());
+				addTravelTime(data, this.flatStorage.getEnterTime(e.getVehicleId()), e.getTime());
+			}
+			this.flatStorage.setEntered(e.getVehicleId(), e.getLinkId(), e.getTime());
+			return;
+		}
+
 		LinkEnterEvent oldEvent = this.linkEnterEvents.put(e.getVehicleId(), e);
 		if ((oldEvent != null) && this.calculateLinkToLinkTravelTimes) {
 			Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(oldEvent.getLinkId(), e.getLinkId());
 			TravelTimeData data = getLinkToLinkTravelTimeData(fromToLink );
-			double enterTime = oldEvent.getTime();
-
-			final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
-			data.addTravelTime(timeSlot, e.getTime() - enterTime );
-			data.setNeedsConsolidation( true );
+			addTravelTime(data, oldEvent.getTime(), e.getTime());
 		}
 	}
 
 	@Override
 	public void handleEvent(final LinkLeaveEvent e) {
 		if (this.calculateLinkTravelTimes) {
+			if (this.flatStorage != null) {
+				if (this.flatStorage.getEnteredLink(e.getVehicleId()) >= 0) {
+					addTravelTime(this.flatStorage.getLinkData(e.getLinkId()), this.flatStorage.getEnterTime(e.getVehicleId()), e.getTime());
+				}
+				return;
+			}
 			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
 			if (oldEvent != null) {
 				TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
-				double enterTime = oldEvent.getTime();
-
-				final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
-				data.addTravelTime(timeSlot, e.getTime() - enterTime );
-				data.setNeedsConsolidation( true );
+				addTravelTime(data, oldEvent.getTime(), e.getTime());
 			}
 		}
 	}
 
+	private void addTravelTime(final TravelTimeData data, final double enterTime, final double leaveTime) {
+		final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
+		data.addTravelTime(timeSlot, leaveTime - enterTime );
+		data.setNeedsConsolidation( true );
+	}
+
 	@Override
 	public void handleEvent(VehicleEntersTrafficEvent event) {
 		/* if filtering transport modes is enabled and the vehicles
@@ -279,7 +344,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		/* remove EnterEvents from list when a vehicle arrives.
 		 * otherwise, the activity duration would be counted as travel time, when the
 		 * vehicle departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		removeLinkEnter(event.getVehicleId());
 
 		// try to remove vehicles from set with filtered vehicles
 		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
@@ -290,14 +355,34 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		/* remove EnterEvents from list when a bus stops on a link.
 		 * otherwise, the stop time would be counted as travel time, when the
 		 * bus departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		removeLinkEnter(event.getVehicleId());
+	}
+
+	private void removeLinkEnter(final Id<Vehicle> vehicleId) {
+		if (this.flatStorage != null) {
+			this.flatStorage.clearEntered(vehicleId);
+		} else {
+			this.linkEnterEvents.remove(vehicleId);
+		}
 	}
 
 	@Override
 	public void handleEvent(VehicleAbortsEvent event) {
-		LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
-		if (e != null) {
-			TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
+		Id<Link> enteredLinkId = null;
+		if (this.flatStorage != null) {
+			int linkIndex = this.flatStorage.getEnteredLink(event.getVehicleId());
+			if (linkIndex >= 0) {
+				enteredLinkId = Id.get(linkIndex, Link.class);
+				this.flatStorage.clearEntered(event.getVehicleId());
+			}
+		} else {
+			LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
+			if (e != null) {
+				enteredLinkId = e.getLinkId();
+			}
+		}
+		if (enteredLinkId != null) {
+			TravelTimeData data = this.getTravelTimeData(enteredLinkId, true);
 			data.setNeedsConsolidation( true );
 
 			//			this.aggregator.addStuckEventTravelTime(data, e.getTime(), event.getTime());
@@ -316,7 +401,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
 	}
 
-	private TravelTimeDataArray getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
+	private TravelTimeData getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
+		if (this.flatStorage != null) {
+			return this.flatStorage.getLinkData(linkId);
+		}
 		TravelTimeDataArray data = this.linkData.get(linkId);
 		if ((null == data) && createIfMissing) {
 			data = this.createTravelTimeData(linkId);
@@ -356,7 +444,9 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			throw new IllegalStateException("No link to link travel time is available " +
 									    "if calculation is switched off by config option!");
 		}
-		TravelTimeData data = this.getLinkToLinkTravelTimeData(new Tuple<>(fromLinkId, toLinkId) );
+		TravelTimeData data = this.flatStorage != null ?
+				this.flatStorage.getLinkToLinkData(fromLinkId.index(), toLinkId.index()) :
+				this.getLinkToLinkTravelTimeData(new Tuple<>(fromLinkId, toLinkId) );
 		if ( data.isNeedingConsolidation() ) {
 			consolidateData(data);
 		}
@@ -365,6 +455,11 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	@Override
 	public void reset(int iteration) {
+		if (this.flatStorage != null) {
+			this.flatStorage.reset();
+			this.vehiclesToIgnore.clear();
+			return;
+		}
 		if (this.calculateLinkTravelTimes) {
 			for (TravelTimeData data : this.linkData.values()){
 				data.resetTravelTimes();
@@ -432,6 +527,104 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		}
 	}
 
+	// ---- checkpoints
+
+	@Override
+	public String getCheckpointName() {
+		return this.filterAnalyzedModes ? "travelTimes." + String.join(",", new TreeSet<>(this.analyzedModes)) : "travelTimes";
+	}
+
+	/**
+	 * Writes the time bins of all links and turns which have collected any travel times, independent of the storage.
+	 */
+	@Override
+	public void writeCheckpoint(DataOutput out) throws IOException {
+		out.writeInt(this.numSlots);
+		Map<Id<Link>, TravelTimeData> linkDataToWrite = new LinkedHashMap<>();
+		if (this.calculateLinkTravelTimes) {
+			for (Id<Link> linkId : this.network.getLinks().keySet()) {
+				TravelTimeData data = getTravelTimeData(linkId, false);
+				if (data != null && hasTravelTimes(data)) {
+					linkDataToWrite.put(linkId, data);
+				}
+			}
+		}
+		out.writeInt(linkDataToWrite.size());
+		for (Map.Entry<Id<Link>, TravelTimeData> e : linkDataToWrite.entrySet()) {
+			out.writeUTF(e.getKey().toString());
+			writeTravelTimeData(e.getValue(), out);
+		}
+
+		Map<Tuple<Id<Link>, Id<Link>>, TravelTimeData> linkToLinkDataToWrite = new LinkedHashMap<>();
+		if (this.calculateLinkToLinkTravelTimes) {
+			Map<Tuple<Id<Link>, Id<Link>>, ? extends TravelTimeData> allData = this.flatStorage != null ? this.flatStorage.getAllLinkToLinkData() : this.linkToLinkData;
+			for (Map.Entry<Tuple<Id<Link>, Id<Link>>, ? extends TravelTimeData> e : allData.entrySet()) {
+				if (hasTravelTimes(e.getValue())) {
+					linkToLinkDataToWrite.put(e.getKey(), e.getValue());
+				}
+			}
+		}
+		out.writeInt(linkToLinkDataToWrite.size());
+		for (Map.Entry<Tuple<Id<Link>, Id<Link>>, TravelTimeData> e : linkToLinkDataToWrite.entrySet()) {
+			out.writeUTF(e.getKey().getFirst().toString());
+			out.writeUTF(e.getKey().getSecond().toString());
+			writeTravelTimeData(e.getValue(), out);
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInput in) throws IOException {
+		reset(0);
+		int slots = in.readInt();
+		if (slots != this.numSlots) {
+			throw new IOException("The checkpoint contains travel times for " + slots + " time bins, but " + this.numSlots
+					+ " are configured. The travel time bin size and maximum time must not change when resuming a run.");
+		}
+		int linkCount = in.readInt();
+		for (int i = 0; i < linkCount; i++) {
+			Id<Link> linkId = Id.createLinkId(in.readUTF());
+			if (!this.network.getLinks().containsKey(linkId)) {
+				throw new IOException("The checkpoint contains travel times for link " + linkId + ", which is not part of the network.");
+			}
+			readTravelTimeData(getTravelTimeData(linkId, true), in);
+		}
+		int linkToLinkCount = in.readInt();
+		for (int i = 0; i < linkToLinkCount; i++) {
+			Id<Link> fromLinkId = Id.createLinkId(in.readUTF());
+			Id<Link> toLinkId = Id.createLinkId(in.readUTF());
+			if (!this.network.getLinks().containsKey(fromLinkId)) {
+				throw new IOException("The checkpoint contains travel times for link " + fromLinkId + ", which is not part of the network.");
+			}
+			TravelTimeData data = this.flatStorage != null ?
+					this.flatStorage.getLinkToLinkData(fromLinkId.index(), toLinkId.index()) :
+					this.getLinkToLinkTravelTimeData(new Tuple<>(fromLinkId, toLinkId));
+			readTravelTimeData(data, in);
+		}
+	}
+
+	private boolean hasTravelTimes(final TravelTimeData data) {
+		for (int i = 0; i < this.numSlots; i++) {
+			if (TravelTimeDataArray.count(data.getEncoded(i)) > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeTravelTimeData(final TravelTimeData data, final DataOutput out) throws IOException {
+		out.writeBoolean(data.isNeedingConsolidation());
+		for (int i = 0; i < this.numSlots; i++) {
+			out.writeLong(data.getEncoded(i));
+		}
+	}
+
+	private void readTravelTimeData(final TravelTimeData data, final DataInput in) throws IOException {
+		data.setNeedsConsolidation(in.readBoolean());
+		for (int i = 0; i < this.numSlots; i++) {
+			data.setEncoded(i, in.readLong());
+		}
+	}
+
 	private static int cnt = 0 ;
 
 	public TravelTime getLinkTravelTimes() {
@@ -63,6 +63,7 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 				// generate and bind the observer:
 				bind(TravelTimeCalculator.class).annotatedWith(Names.named(mode)).toProvider(new SingleModeTravelTimeCalculatorProvider(mode)).in(Singleton.class);
+				addCheckpointParticipantBinding().to(Key.get(TravelTimeCalculator.class, Names.named(mode)));
 
 				// bind the observer to travel time provider (for router):
 				addTravelTimeBinding(mode).toProvider(new Provider<TravelTime>() {
@@ -84,6 +85,7 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 			// bind the TravelTimeCalculator, which is the observer and aggregator:
 			bind(TravelTimeCalculator.class).in(Singleton.class);
+			addCheckpointParticipantBinding().to(TravelTimeCalculator.class);
 
 			// bind the TravelTime objects.  In this case, this just passes on the same information from TravelTimeCalculator to each individual mode:
 			if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()) {
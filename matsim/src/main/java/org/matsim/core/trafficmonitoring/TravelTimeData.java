@@ -59,6 +59,14 @@ abstract class TravelTimeData {
 	 */
 	abstract double getTravelTime(final int timeSlot, final double now);
 
+	/**
+	 * @return the count and travel time of the time slot in the encoding of {@link TravelTimeDataArray#encode(int, double)},
+	 * e.g. to write them to a checkpoint.
+	 */
+	abstract long getEncoded(final int timeSlot);
+
+	abstract void setEncoded(final int timeSlot, final long encoded);
+
 	void setNeedsConsolidation( boolean flag ) {
 		this.needsConsolidation = flag ;
 	}
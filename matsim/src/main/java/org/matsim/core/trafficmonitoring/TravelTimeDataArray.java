@@ -117,6 +117,16 @@ class TravelTimeDataArray extends TravelTimeData {
 		return freespeed;
 	}
 
+	@Override
+	long getEncoded(final int timeSlot) {
+		return this.data[timeSlot];
+	}
+
+	@Override
+	void setEncoded(final int timeSlot, final long encoded) {
+		this.data[timeSlot] = encoded;
+	}
+
 	/* package-private for debugging */ String cntToString(){
 		StringBuilder strb = new StringBuilder().append( "cnt=[ " );
 		for( int ii = 0 ; ii < this.data.length ; ii++ ){
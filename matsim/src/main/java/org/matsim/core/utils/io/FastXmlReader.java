@@ -0,0 +1,949 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastXmlReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A non-validating parser for the subset of XML used by MATSim files, which reads the bytes of the input directly and
+ * passes the elements to the SAX callbacks of a {@link MatsimXmlParser}.
+ * <p></p>
+ * Supported are elements, attributes, character and entity references, CDATA sections, comments, processing
+ * instructions and a DOCTYPE declaration.  The DOCTYPE is used to set the doctype of the parser; in files without
+ * DOCTYPE, the schema location of the root element is used instead, as for XML schema based files like counts.  From
+ * the DTD, the attribute defaults are added to the elements, the values of attributes which are not of type CDATA are
+ * normalized, whitespace in elements with element content is not reported and the internal entities are replaced, as a
+ * non-validating SAX parser does.  Parameter entities, namespace URIs and validation are not supported.
+ * <p></p>
+ * The attributes of an element are kept as slices of one character buffer, Strings are only created for the values
+ * which are actually read.  Element and attribute names are cached.
+ *
+ * @see MatsimXmlParser#setFastParsing(boolean)
+ */
+final class FastXmlReader {
+
+	private static final int EOF = -1;
+	private static final Pattern ATTLIST = Pattern.compile("<!ATTLIST\\s+([^\\s>]+)([^>]*)>");
+	private static final Pattern ATTRIBUTE_DEFAULT = Pattern.compile(
+			"([^\\s\"'>]+)\\s+(\\([^)]*\\)|[A-Za-z]+)\\s+(?:#REQUIRED|#IMPLIED|(?:#FIXED\\s+)?(?:\"([^\"]*)\"|'([^']*)'))");
+	private static final Pattern ELEMENT = Pattern.compile("<!ELEMENT\\s+([^\\s>]+)\\s+([^>]*)>");
+	private static final Pattern ENTITY = Pattern.compile("<!ENTITY\\s+([^\\s%>]+)\\s+(?:\"([^\"]*)\"|'([^']*)'|(?:SYSTEM|PUBLIC)[^>]*)\\s*>");
+	private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+	private static final Pattern COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+
+	/**
+	 * The DTDs, by their system id.
+	 */
+	private static final Map<String, Dtd> DTDS = new ConcurrentHashMap<>();
+
+	private final MatsimXmlParser handler;
+	private final InputStream in;
+	private final String source;
+	private final boolean namespaceAware;
+
+	private final byte[] bytes = new byte[1 << 16];
+	private int pos = 0;
+	private int limit = 0;
+	private boolean latin1 = false;
+	private int pendingChar = EOF;
+	private int line = 1;
+	private int ch;
+
+	private char[] text = new char[1024];
+	private int textLength = 0;
+	private boolean characterReference = false;
+	private char[] name = new char[64];
+	private int nameLength = 0;
+
+	private final SliceAttributes atts = new SliceAttributes();
+	private final NameCache names = new NameCache();
+	private final List<String> openElements = new ArrayList<>();
+	private Dtd dtd = new Dtd();
+
+	/**
+	 * @param source the name of the input, for error messages
+	 */
+	FastXmlReader(MatsimXmlParser handler, InputStream in, String source, boolean namespaceAware) {
+		this.handler = handler;
+		this.in = in;
+		this.source = source;
+		this.namespaceAware = namespaceAware;
+	}
+
+	/**
+	 * Reads the first block of the input, and checks the encoding of the xml declaration.
+	 *
+	 * @param honorDeclaredEncoding if false, the input is always decoded as UTF-8, like by the readers of
+	 * 		{@link IOUtils}
+	 * @return false if the input has an encoding which this parser does not support.  Nothing has been parsed in
+	 * 		this case, and the input can be read again from {@link #getBufferedBytes()} and the original stream.
+	 */
+	boolean init(boolean honorDeclaredEncoding) throws IOException {
+		while (this.limit < this.bytes.length) {
+			int n = this.in.read(this.bytes, this.limit, this.bytes.length - this.limit);
+			if (n < 0) {
+				break;
+			}
+			this.limit += n;
+		}
+		if (!honorDeclaredEncoding) {
+			return true;
+		}
+		if (this.limit >= 2 && ((this.bytes[0] == (byte) 0xFE && this.bytes[1] == (byte) 0xFF)
+				|| (this.bytes[0] == (byte) 0xFF && this.bytes[1] == (byte) 0xFE))) {
+			return false; // UTF-16
+		}
+		String head = new String(this.bytes, 0, Math.min(this.limit, 256), StandardCharsets.ISO_8859_1);
+		if (head.startsWith("<?xml")) {
+			int end = head.indexOf("?>");
+			Matcher m = ENCODING.matcher(end < 0 ? head : head.substring(0, end));
+			if (m.find()) {
+				String encoding = m.group(1).toUpperCase();
+				if (encoding.equals("ISO-8859-1") || encoding.equals("LATIN1")) {
+					this.latin1 = true;
+				} else if (!encoding.equals("UTF-8") && !encoding.equals("UTF8") && !encoding.equals("US-ASCII")) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the bytes read by {@link #init(boolean)}.
+	 */
+	InputStream getBufferedBytes() {
+		return new ByteArrayInputStream(this.bytes, 0, this.limit);
+	}
+
+	void parse() throws IOException, SAXException {
+		this.handler.startDocument();
+		next();
+		if (this.ch == '\uFEFF') {
+			next();
+		}
+		boolean rootSeen = false;
+		while (this.ch != EOF) {
+			if (this.ch == '<') {
+				next();
+				if (this.ch == '?') {
+					skipUntil("?>");
+				} else if (this.ch == '!') {
+					next();
+					parseDeclaration();
+				} else if (this.ch == '/') {
+					next();
+					parseEndTag();
+				} else {
+					if (rootSeen && this.openElements.isEmpty()) {
+						throw error("more than one root element");
+					}
+					rootSeen = true;
+					parseStartTag();
+				}
+			} else if (this.openElements.isEmpty()) {
+				if (!isWhitespace(this.ch)) {
+					throw error("content is not allowed outside of the root element");
+				}
+				next();
+			} else {
+				parseText();
+			}
+		}
+		if (!this.openElements.isEmpty()) {
+			throw error("unexpected end of file, element " + this.openElements.get(this.openElements.size() - 1) + " is not closed");
+		}
+		if (!rootSeen) {
+			throw error("no root element");
+		}
+		this.handler.endDocument();
+	}
+
+	private void parseDeclaration() throws IOException, SAXException {
+		if (this.ch == '-') {
+			expect('-');
+			expect('-');
+			skipUntil("-->");
+		} else if (this.ch == '[') {
+			for (char c : "[CDATA[".toCharArray()) {
+				expect(c);
+			}
+			parseCData();
+		} else if (this.ch == 'D') {
+			for (char c : "DOCTYPE".toCharArray()) {
+				expect(c);
+			}
+			parseDoctype();
+		} else {
+			throw error("unsupported declaration");
+		}
+	}
+
+	private void parseDoctype() throws IOException, SAXException {
+		skipWhitespace();
+		readName();
+		skipWhitespace();
+		String publicId = null;
+		String systemId = null;
+		if (this.ch == 'P' || this.ch == 'S') {
+			readName();
+			String keyword = new String(this.name, 0, this.nameLength);
+			skipWhitespace();
+			if (keyword.equals("PUBLIC")) {
+				publicId = readQuoted();
+				skipWhitespace();
+			}
+			systemId = readQuoted();
+			skipWhitespace();
+		}
+		StringBuilder internalSubset = new StringBuilder();
+		if (this.ch == '[') {
+			next();
+			while (this.ch != ']') {
+				if (this.ch == EOF) {
+					throw error("unexpected end of file in DOCTYPE");
+				}
+				internalSubset.append((char) this.ch);
+				next();
+			}
+			next();
+			skipWhitespace();
+		}
+		if (this.ch != '>') {
+			throw error("'>' expected at end of DOCTYPE");
+		}
+		next();
+
+		if (systemId != null) {
+			this.dtd = loadDtd(publicId, systemId);
+		}
+		if (internalSubset.length() > 0) {
+			Dtd dtd = new Dtd();
+			// the DTD may be cached, so its collections are copied before the internal subset is added
+			this.dtd.attributeDefaults.forEach((element, defaults) -> dtd.attributeDefaults.put(element, new ArrayList<>(defaults)));
+			this.dtd.tokenizedAttributes.forEach((element, attributes) -> dtd.tokenizedAttributes.put(element, new HashSet<>(attributes)));
+			dtd.elementContent.addAll(this.dtd.elementContent);
+			dtd.entities.putAll(this.dtd.entities);
+			dtd.parse(internalSubset);
+			this.dtd = dtd;
+		}
+	}
+
+	/**
+	 * Sets the doctype like {@link MatsimXmlParser#resolveEntity(String, String)}, and reads the DTD.  The DTDs shipped with MATSim are found in the classpath, others are resolved by the parser.
+	 */
+	private Dtd loadDtd(String publicId, String systemId) throws IOException {
+		int index = systemId.replace('\\', '/').lastIndexOf('/');
+		String shortSystemId = systemId.substring(index + 1);
+		if (this.handler.getDoctype() == null) {
+			this.handler.setDoctype(shortSystemId);
+		}
+		Dtd cached = DTDS.get(systemId);
+		if (cached != null) {
+			return cached;
+		}
+		Reader reader = null;
+		InputStream stream = FastXmlReader.class.getResourceAsStream("/dtd/" + shortSystemId);
+		if (stream == null) {
+			InputSource dtd = this.handler.resolveEntity(publicId, systemId);
+			if (dtd != null && dtd.getCharacterStream() != null) {
+				reader = dtd.getCharacterStream();
+			} else if (dtd != null && dtd.getByteStream() != null) {
+				stream = dtd.getByteStream();
+			}
+		}
+		if (stream != null) {
+			reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+		}
+		if (reader == null) {
+			return new Dtd();
+		}
+		StringBuilder content = new StringBuilder();
+		try (BufferedReader r = new BufferedReader(reader)) {
+			char[] buffer = new char[4096];
+			int n;
+			while ((n = r.read(buffer)) >= 0) {
+				content.append(buffer, 0, n);
+			}
+		}
+		Dtd dtd = new Dtd();
+		dtd.parse(content);
+		DTDS.put(systemId, dtd);
+		return dtd;
+	}
+
+	private void parseStartTag() throws IOException, SAXException {
+		flushText();
+		readName();
+		String qName = this.names.get(this.name, this.nameLength);
+		this.atts.clear();
+		boolean empty = false;
+		while (true) {
+			boolean separated = isWhitespace(this.ch);
+			skipWhitespace();
+			if (this.ch == '>') {
+				next();
+				break;
+			}
+			if (this.ch == '/') {
+				next();
+				if (this.ch != '>') {
+					throw error("'>' expected after '/'");
+				}
+				next();
+				empty = true;
+				break;
+			}
+			if (!separated) {
+				throw error("whitespace expected before attribute in element " + qName);
+			}
+			readName();
+			String attName = this.names.get(this.name, this.nameLength);
+			skipWhitespace();
+			if (this.ch != '=') {
+				throw error("'=' expected after attribute " + attName + " in element " + qName);
+			}
+			next();
+			skipWhitespace();
+			int quote = this.ch;
+			if (quote != '"' && quote != '\'') {
+				throw error("quoted value expected for attribute " + attName + " in element " + qName);
+			}
+			next();
+			int start = this.atts.valueLength;
+			while (this.ch != quote) {
+				if (this.ch == EOF || this.ch == '<') {
+					throw error("unterminated value of attribute " + attName + " in element " + qName);
+				}
+				if (this.ch == '&') {
+					String replacement = parseReference();
+					for (int i = 0; i < replacement.length(); i++) {
+						char c = replacement.charAt(i);
+						// whitespace from character references is not normalized
+						this.atts.appendValue(isWhitespace(c) && !this.characterReference ? ' ' : c);
+					}
+				} else if (this.ch == '\r') {
+					// line end normalization (2.11) happens before attribute value normalization (3.3.3)
+					this.atts.appendValue(' ');
+					next();
+					if (this.ch == '\n') {
+						next();
+					}
+				} else {
+					// attribute value normalization, see the XML specification, 3.3.3
+					this.atts.appendValue(isWhitespace(this.ch) ? ' ' : (char) this.ch);
+					next();
+				}
+			}
+			next();
+			if (this.dtd.isTokenized(qName, attName)) {
+				normalizeTokenized(start);
+			}
+			if (!(this.namespaceAware && (attName.equals("xmlns") || attName.startsWith("xmlns:")))) {
+				if (this.atts.getIndex(attName) >= 0) {
+					throw error("duplicate attribute " + attName + " in element " + qName);
+				}
+				this.atts.add(attName, localName(attName), start, this.atts.valueLength - start);
+			}
+		}
+		List<String[]> defaults = this.dtd.attributeDefaults.get(qName);
+		if (defaults != null) {
+			for (String[] attribute : defaults) {
+				if (this.atts.getIndex(attribute[0]) < 0) {
+					this.atts.addDefault(attribute[0], localName(attribute[0]), attribute[1]);
+				}
+			}
+		}
+		if (this.openElements.isEmpty() && this.handler.getDoctype() == null) {
+			setDoctypeFromSchemaLocation();
+		}
+		String tag = this.namespaceAware ? localName(qName) : qName;
+		this.openElements.add(qName);
+		this.handler.startElement("", tag, tag, this.atts);
+		if (empty) {
+			this.openElements.remove(this.openElements.size() - 1);
+			this.handler.endElement("", tag, tag);
+		}
+	}
+
+	/**
+	 * Removes leading and trailing spaces from the value of an attribute starting at <code>start</code>, and replaces
+	 * sequences of spaces by a single one, as required for attributes which are not of type CDATA.
+	 */
+	private void normalizeTokenized(int start) {
+		char[] chars = this.atts.valueChars;
+		int length = start;
+		for (int i = start; i < this.atts.valueLength; i++) {
+			if (chars[i] != ' ' || (length > start && chars[length - 1] != ' ')) {
+				chars[length++] = chars[i];
+			}
+		}
+		if (length > start && chars[length - 1] == ' ') {
+			length--;
+		}
+		this.atts.valueLength = length;
+	}
+
+	/**
+	 * Sets the doctype of files which refer to an XML schema instead of a DTD, like a SAX parser does when it resolves
+	 * the schema.  The doctype is the last part of the schema location, e.g. <code>counts_v1.xsd</code>.
+	 */
+	private void setDoctypeFromSchemaLocation() {
+		for (int i = 0; i < this.atts.getLength(); i++) {
+			String localName = this.atts.getLocalName(i);
+			String location = null;
+			if (localName.equals("noNamespaceSchemaLocation")) {
+				location = this.atts.getValue(i).trim();
+			} else if (localName.equals("schemaLocation")) {
+				// pairs of namespace and location, the first location is the one of the root element
+				String[] parts = this.atts.getValue(i).trim().split("\\s+");
+				location = parts.length >= 2 ? parts[1] : null;
+			}
+			if (location != null && !location.isEmpty()) {
+				this.handler.setDoctype(location.substring(location.replace('\\', '/').lastIndexOf('/') + 1));
+				return;
+			}
+		}
+	}
+
+	private void parseEndTag() throws IOException, SAXException {
+		flushText();
+		readName();
+		String qName = this.names.get(this.name, this.nameLength);
+		skipWhitespace();
+		if (this.ch != '>') {
+			throw error("'>' expected in end tag of element " + qName);
+		}
+		next();
+		if (this.openElements.isEmpty() || !this.openElements.get(this.openElements.size() - 1).equals(qName)) {
+			throw error("end tag of element " + qName + " does not match the start tag");
+		}
+		this.openElements.remove(this.openElements.size() - 1);
+		String tag = this.namespaceAware ? localName(qName) : qName;
+		this.handler.endElement("", tag, tag);
+	}
+
+	private void parseText() throws IOException, SAXException {
+		while (this.ch != '<' && this.ch != EOF) {
+			if (this.ch == '&') {
+				String replacement = parseReference();
+				for (int i = 0; i < replacement.length(); i++) {
+					appendText(replacement.charAt(i));
+				}
+			} else if (this.ch == '\r') {
+				// line end normalization, see the XML specification, 2.11
+				appendText('\n');
+				next();
+				if (this.ch == '\n') {
+					next();
+				}
+			} else {
+				appendText((char) this.ch);
+				next();
+			}
+		}
+	}
+
+	private void parseCData() throws IOException, SAXException {
+		int start = this.textLength;
+		while (true) {
+			if (this.ch == EOF) {
+				throw error("unterminated CDATA section");
+			}
+			if (this.ch == '\r') {
+				appendText('\n');
+				next();
+				if (this.ch == '\n') {
+					next();
+				}
+			} else {
+				appendText((char) this.ch);
+				next();
+			}
+			if (this.textLength - start >= 2 && this.ch == '>' && this.text[this.textLength - 1] == ']' && this.text[this.textLength - 2] == ']') {
+				this.textLength -= 2;
+				next();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Parses a character or entity reference, starting at the '&amp;'.  Besides the predefined entities, the entities
+	 * declared in the DTD are supported.  External entities are replaced by an empty text.
+	 *
+	 * @return the replacement text of the reference
+	 */
+	private String parseReference() throws IOException, SAXException {
+		next();
+		String value;
+		this.characterReference = this.ch == '#';
+		if (this.characterReference) {
+			next();
+			int radix = 10;
+			if (this.ch == 'x') {
+				radix = 16;
+				next();
+			}
+			int codePoint = 0;
+			int digits = 0;
+			while (this.ch != ';') {
+				int digit = Character.digit(this.ch, radix);
+				if (digit < 0 || codePoint > Character.MAX_CODE_POINT) {
+					throw error("invalid character reference");
+				}
+				codePoint = codePoint * radix + digit;
+				digits++;
+				next();
+			}
+			if (digits == 0 || codePoint > Character.MAX_CODE_POINT) {
+				throw error("invalid character reference");
+			}
+			value = new String(Character.toChars(codePoint));
+		} else {
+			this.nameLength = 0;
+			while (this.ch != ';') {
+				if (this.ch == EOF || isWhitespace(this.ch) || this.ch == '<' || this.ch == '&') {
+					throw error("invalid entity reference");
+				}
+				appendName((char) this.ch);
+				next();
+			}
+			String entity = new String(this.name, 0, this.nameLength);
+			value = switch (entity) {
+				case "lt" -> "<";
+				case "gt" -> ">";
+				case "amp" -> "&";
+				case "quot" -> "\"";
+				case "apos" -> "'";
+				default -> this.dtd.entities.get(entity);
+			};
+			if (value == null) {
+				throw error("unknown entity &" + entity + ";");
+			}
+		}
+		next();
+		return value;
+	}
+
+	/**
+	 * Passes the text read since the last tag to the handler.  Like a SAX parser, whitespace in elements which may only
+	 * contain other elements according to the DTD is not reported.
+	 */
+	private void flushText() throws SAXException {
+		if (this.textLength > 0) {
+			if (!this.openElements.isEmpty() && !(isWhitespaceOnly() && this.dtd.elementContent.contains(this.openElements.get(this.openElements.size() - 1)))) {
+				this.handler.characters(this.text, 0, this.textLength);
+			}
+			this.textLength = 0;
+		}
+	}
+
+	private boolean isWhitespaceOnly() {
+		for (int i = 0; i < this.textLength; i++) {
+			if (!isWhitespace(this.text[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void appendText(char c) {
+		if (this.textLength == this.text.length) {
+			this.text = Arrays.copyOf(this.text, this.text.length * 2);
+		}
+		this.text[this.textLength++] = c;
+	}
+
+	private void readName() throws IOException, SAXException {
+		this.nameLength = 0;
+		while (this.ch != EOF && !isWhitespace(this.ch) && this.ch != '>' && this.ch != '/' && this.ch != '='
+				&& this.ch != '<' && this.ch != '"' && this.ch != '\'' && this.ch != '[') {
+			appendName((char) this.ch);
+			next();
+		}
+		if (this.nameLength == 0) {
+			throw error("name expected");
+		}
+	}
+
+	private void appendName(char c) {
+		if (this.nameLength == this.name.length) {
+			this.name = Arrays.copyOf(this.name, this.name.length * 2);
+		}
+		this.name[this.nameLength++] = c;
+	}
+
+	private String readQuoted() throws IOException, SAXException {
+		int quote = this.ch;
+		if (quote != '"' && quote != '\'') {
+			throw error("quoted string expected");
+		}
+		next();
+		StringBuilder sb = new StringBuilder();
+		while (this.ch != quote) {
+			if (this.ch == EOF) {
+				throw error("unterminated string");
+			}
+			sb.append((char) this.ch);
+			next();
+		}
+		next();
+		return sb.toString();
+	}
+
+	private void expect(char c) throws IOException, SAXException {
+		if (this.ch != c) {
+			throw error("'" + c + "' expected");
+		}
+		next();
+	}
+
+	private void skipWhitespace() throws IOException, SAXException {
+		while (isWhitespace(this.ch)) {
+			next();
+		}
+	}
+
+	/**
+	 * Skips everything up to and including the terminator.
+	 */
+	private void skipUntil(String terminator) throws IOException, SAXException {
+		int matched = 0;
+		while (matched < terminator.length()) {
+			if (this.ch == EOF) {
+				throw error("'" + terminator + "' expected");
+			}
+			if (this.ch == terminator.charAt(matched)) {
+				matched++;
+			} else {
+				matched = this.ch == terminator.charAt(0) ? 1 : 0;
+			}
+			next();
+		}
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+	private static String localName(String qName) {
+		int colon = qName.indexOf(':');
+		return colon < 0 ? qName : qName.substring(colon + 1);
+	}
+
+	/**
+	 * Reads the next character into {@link #ch}, decoding UTF-8 or ISO-8859-1.
+	 */
+	private void next() throws IOException, SAXException {
+		if (this.pendingChar != EOF) {
+			this.ch = this.pendingChar;
+			this.pendingChar = EOF;
+			return;
+		}
+		if (this.pos == this.limit && !fill()) {
+			this.ch = EOF;
+			return;
+		}
+		int b = this.bytes[this.pos++] & 0xFF;
+		if (b < 0x80 || this.latin1) {
+			if (b == '\n') {
+				this.line++;
+			}
+			this.ch = b;
+			return;
+		}
+		int codePoint;
+		int continuationBytes;
+		if ((b & 0xE0) == 0xC0) {
+			codePoint = b & 0x1F;
+			continuationBytes = 1;
+		} else if ((b & 0xF0) == 0xE0) {
+			codePoint = b & 0x0F;
+			continuationBytes = 2;
+		} else if ((b & 0xF8) == 0xF0) {
+			codePoint = b & 0x07;
+			continuationBytes = 3;
+		} else {
+			throw error("invalid UTF-8 byte");
+		}
+		for (int i = 0; i < continuationBytes; i++) {
+			if (this.pos == this.limit && !fill()) {
+				throw error("incomplete UTF-8 sequence");
+			}
+			int c = this.bytes[this.pos++] & 0xFF;
+			if ((c & 0xC0) != 0x80) {
+				throw error("invalid UTF-8 sequence");
+			}
+			codePoint = (codePoint << 6) | (c & 0x3F);
+		}
+		if (codePoint > 0xFFFF) {
+			this.ch = Character.highSurrogate(codePoint);
+			this.pendingChar = Character.lowSurrogate(codePoint);
+		} else {
+			this.ch = codePoint;
+		}
+	}
+
+	private boolean fill() throws IOException {
+		int n = this.in.read(this.bytes, 0, this.bytes.length);
+		if (n <= 0) {
+			this.pos = 0;
+			this.limit = 0;
+			return false;
+		}
+		this.pos = 0;
+		this.limit = n;
+		return true;
+	}
+
+	private SAXException error(String message) throws SAXException {
+		SAXParseException e = new SAXParseException(message, null, this.source, this.line, -1);
+		this.handler.fatalError(e);
+		return e;
+	}
+
+	/**
+	 * The parts of a DTD which change what is reported to the handler: the attribute defaults, the attributes which
+	 * are not of type CDATA, the elements which may only contain other elements, and the internal entities.
+	 */
+	private static final class Dtd {
+		private final Map<String, List<String[]>> attributeDefaults = new HashMap<>();
+		private final Map<String, Set<String>> tokenizedAttributes = new HashMap<>();
+		private final Set<String> elementContent = new HashSet<>();
+		private final Map<String, String> entities = new HashMap<>();
+
+		void parse(CharSequence declarations) {
+			String withoutComments = COMMENT.matcher(declarations).replaceAll(" ");
+			Matcher attlist = ATTLIST.matcher(withoutComments);
+			while (attlist.find()) {
+				Matcher attribute = ATTRIBUTE_DEFAULT.matcher(attlist.group(2));
+				while (attribute.find()) {
+					String value = attribute.group(3) != null ? attribute.group(3) : attribute.group(4);
+					if (!attribute.group(2).equals("CDATA")) {
+						this.tokenizedAttributes.computeIfAbsent(attlist.group(1), k -> new HashSet<>()).add(attribute.group(1));
+						if (value != null) {
+							value = value.trim().replaceAll(" +", " ");
+						}
+					}
+					if (value != null) {
+						this.attributeDefaults.computeIfAbsent(attlist.group(1), k -> new ArrayList<>()).add(new String[]{attribute.group(1), value});
+					}
+				}
+			}
+			Matcher element = ELEMENT.matcher(withoutComments);
+			while (element.find()) {
+				String contentModel = element.group(2).trim();
+				if (contentModel.startsWith("(") && !contentModel.contains("#PCDATA")) {
+					this.elementContent.add(element.group(1));
+				}
+			}
+			Matcher entity = ENTITY.matcher(withoutComments);
+			while (entity.find()) {
+				// the first declaration of an entity is binding. External entities are not read, to prevent XEE attacks
+				String value = entity.group(2) != null ? entity.group(2) : entity.group(3);
+				this.entities.putIfAbsent(entity.group(1), value != null ? value : "");
+			}
+		}
+
+		boolean isTokenized(String element, String attribute) {
+			Set<String> attributes = this.tokenizedAttributes.get(element);
+			return attributes != null && attributes.contains(attribute);
+		}
+	}
+
+	/**
+	 * Caches the Strings of the element and attribute names, which are the same for most elements.
+	 */
+	private static final class NameCache {
+		private String[] strings = new String[256];
+
+		String get(char[] chars, int length) {
+			int hash = 0;
+			for (int i = 0; i < length; i++) {
+				hash = 31 * hash + chars[i];
+			}
+			int index = (hash ^ (hash >>> 16)) & (this.strings.length - 1);
+			String s = this.strings[index];
+			if (s != null && s.length() == length) {
+				boolean equal = true;
+				for (int i = 0; i < length && equal; i++) {
+					equal = s.charAt(i) == chars[i];
+				}
+				if (equal) {
+					return s;
+				}
+			}
+			s = new String(chars, 0, length);
+			this.strings[index] = s;
+			return s;
+		}
+	}
+
+	/**
+	 * The attributes of the current element.  The values are slices of one character buffer; their Strings are only
+	 * created when they are requested.  The object is re-used for all elements, like by the SAX parsers.
+	 */
+	private static final class SliceAttributes implements Attributes {
+		private String[] qNames = new String[16];
+		private String[] localNames = new String[16];
+		private int[] starts = new int[16];
+		private int[] lengths = new int[16];
+		private String[] values = new String[16];
+		private int count = 0;
+		private char[] valueChars = new char[1024];
+		private int valueLength = 0;
+
+		void clear() {
+			Arrays.fill(this.values, 0, this.count, null);
+			this.count = 0;
+			this.valueLength = 0;
+		}
+
+		void appendValue(char c) {
+			if (this.valueLength == this.valueChars.length) {
+				this.valueChars = Arrays.copyOf(this.valueChars, this.valueChars.length * 2);
+			}
+			this.valueChars[this.valueLength++] = c;
+		}
+
+		void add(String qName, String localName, int start, int length) {
+			if (this.count == this.qNames.length) {
+				int capacity = this.count * 2;
+				this.qNames = Arrays.copyOf(this.qNames, capacity);
+				this.localNames = Arrays.copyOf(this.localNames, capacity);
+				this.starts = Arrays.copyOf(this.starts, capacity);
+				this.lengths = Arrays.copyOf(this.lengths, capacity);
+				this.values = Arrays.copyOf(this.values, capacity);
+			}
+			this.qNames[this.count] = qName;
+			this.localNames[this.count] = localName;
+			this.starts[this.count] = start;
+			this.lengths[this.count] = length;
+			this.count++;
+		}
+
+		void addDefault(String qName, String localName, String value) {
+			add(qName, localName, 0, value.length());
+			this.values[this.count - 1] = value;
+		}
+
+		@Override
+		public int getLength() {
+			return this.count;
+		}
+
+		@Override
+		public String getURI(int index) {
+			return index >= 0 && index < this.count ? "" : null;
+		}
+
+		@Override
+		public String getLocalName(int index) {
+			return index >= 0 && index < this.count ? this.localNames[index] : null;
+		}
+
+		@Override
+		public String getQName(int index) {
+			return index >= 0 && index < this.count ? this.qNames[index] : null;
+		}
+
+		@Override
+		public String getType(int index) {
+			return index >= 0 && index < this.count ? "CDATA" : null;
+		}
+
+		@Override
+		public String getValue(int index) {
+			if (index < 0 || index >= this.count) {
+				return null;
+			}
+			String value = this.values[index];
+			if (value == null) {
+				value = new String(this.valueChars, this.starts[index], this.lengths[index]);
+				this.values[index] = value;
+			}
+			return value;
+		}
+
+		@Override
+		public int getIndex(String uri, String localName) {
+			for (int i = 0; i < this.count; i++) {
+				if (this.localNames[i].equals(localName) && (uri == null || uri.isEmpty())) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public int getIndex(String qName) {
+			for (int i = 0; i < this.count; i++) {
+				if (this.qNames[i].equals(qName)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public String getType(String uri, String localName) {
+			return getType(getIndex(uri, localName));
+		}
+
+		@Override
+		public String getType(String qName) {
+			return getType(getIndex(qName));
+		}
+
+		@Override
+		public String getValue(String uri, String localName) {
+			return getValue(getIndex(uri, localName));
+		}
+
+		@Override
+		public String getValue(String qName) {
+			return getValue(getIndex(qName));
+		}
+	}
+
+}
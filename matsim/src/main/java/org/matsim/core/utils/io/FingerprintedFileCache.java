@@ -0,0 +1,171 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Plain binary file cache for data which takes long to calculate, but only depends on a few inputs. The inputs are
+ * hashed into a fingerprint, which is stored in the header of the file together with a magic number and a format
+ * version, so a cached file is only used if none of the inputs has changed. The file is read completely into the heap
+ * of the process, so the cache saves the calculation, but not memory.
+ * <p></p>
+ * Several processes may read and write the same file. New files are written to a temporary file first and then moved
+ * in place, so other processes never see a partially written file. Problems with the file are only logged, as the
+ * cache is optional: reading then returns <code>null</code> and the data must be calculated.
+ */
+public final class FingerprintedFileCache {
+
+	private static final Logger log = LogManager.getLogger(FingerprintedFileCache.class);
+
+	public static final int FINGERPRINT_LENGTH = 32;
+
+	@FunctionalInterface
+	public interface DataWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface DataReader<T> {
+		/**
+		 * @return the data read from the file, or <code>null</code> if the content is invalid.
+		 */
+		T read(DataInputStream in) throws IOException;
+	}
+
+	private final String description;
+	private final int magic;
+	private final int version;
+
+	/**
+	 * @param description the name of the cached data, used in log messages
+	 * @param magic identifies the type of the file
+	 * @param version the version of the file format, files with other versions are ignored
+	 */
+	public FingerprintedFileCache(String description, int magic, int version) {
+		this.description = description;
+		this.magic = magic;
+		this.version = version;
+	}
+
+	/**
+	 * @return a SHA-256 hash of everything the writer writes, and of the format version.
+	 */
+	public byte[] fingerprint(DataWriter inputs) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest)))) {
+			out.writeInt(this.version);
+			inputs.write(out);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * @return the data read by the reader, or <code>null</code> if the file does not exist, was written for another
+	 * fingerprint, or is invalid, i.e. the reader returned <code>null</code> or did not read the whole file.
+	 */
+	public <T> T read(Path file, byte[] fingerprint, DataReader<T> reader) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if (in.readInt() != this.magic || in.readInt() != this.version) {
+				log.warn(this.description + " cache " + file + " has an unknown format, ignoring it.");
+				return null;
+			}
+			byte[] fileFingerprint = new byte[FINGERPRINT_LENGTH];
+			in.readFully(fileFingerprint);
+			if (!Arrays.equals(fingerprint, fileFingerprint)) {
+				log.info(this.description + " cache " + file + " was written for other inputs, ignoring it.");
+				return null;
+			}
+			T data = reader.read(in);
+			if (data == null || in.read() != -1) {
+				log.warn(this.description + " cache " + file + " is invalid, ignoring it.");
+				return null;
+			}
+			log.info("Read " + this.description + " cache " + file);
+			return data;
+		} catch (EOFException e) {
+			log.warn(this.description + " cache " + file + " is too short, ignoring it.");
+			return null;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Could not read " + this.description + " cache " + file + ", calculating the data instead.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the header and the data to a temporary file, which is then moved to the given file.
+	 */
+	public void write(Path file, byte[] fingerprint, DataWriter writer) {
+		Path tmpFile = null;
+		try {
+			Path dir = file.toAbsolutePath().getParent();
+			Files.createDirectories(dir);
+			tmpFile = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+				out.writeInt(this.magic);
+				out.writeInt(this.version);
+				out.write(fingerprint);
+				writer.write(out);
+			}
+			try {
+				Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			log.info("Wrote " + this.description + " cache " + file);
+		} catch (IOException e) {
+			log.warn("Could not write " + this.description + " cache " + file, e);
+			if (tmpFile != null) {
+				try {
+					Files.deleteIfExists(tmpFile);
+				} catch (IOException ignored) {
+					// nothing more we can do
+				}
+			}
+		}
+	}
+}
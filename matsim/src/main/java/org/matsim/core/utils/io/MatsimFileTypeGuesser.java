@@ -94,6 +94,8 @@ public class MatsimFileTypeGuesser extends DefaultHandler {
 				}
 			}
 
+		} else if (name.endsWith(".mpop")) {
+			this.fileType = FileType.Population;
 		} else if (name.endsWith(".txt.gz") || name.endsWith(".txt")) {
 			this.fileType = FileType.Events;
 		} else if (name.endsWith(".mvi.gz") || name.endsWith(".mvi")) {
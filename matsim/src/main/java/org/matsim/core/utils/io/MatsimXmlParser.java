@@ -35,6 +35,7 @@ import javax.xml.parsers.SAXParserFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.io.UncheckedIOException;
 import java.net.URL;
 import java.net.URLConnection;
@@ -63,6 +64,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 
 	private boolean isValidating = true;
 	private boolean isNamespaceAware = true;
+	private boolean isFastParsing;
 	private final ValidationType validationType;
 
 	private String localDtdBase = null;
@@ -86,6 +88,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	public MatsimXmlParser(ValidationType validationType) {
 		this.validationType = validationType;
 		this.preferLocalDtds = FeatureFlags.preferLocalDTDs();
+		this.isFastParsing = FeatureFlags.useFastXmlParser();
 	}
 
 	/**
@@ -129,6 +132,19 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		this.isNamespaceAware = awareness;
 	}
 
+	/**
+	 * Sets, if the input should be read by a fast, non-validating parser instead of a SAX parser.  The fast parser only
+	 * supports UTF-8 and ISO-8859-1 encoded input, and applies the attribute defaults of the DTD, but does not validate
+	 * the input, regardless of {@link #setValidating(boolean)}.  Input in other encodings is read by the SAX parser.
+	 * By default, the value of the system property <code>matsim.fastXmlParser</code> is used.
+	 *
+	 * @param fastParsing Whether the fast parser should be used or not.
+	 * @see FeatureFlags#useFastXmlParser()
+	 */
+	public final void setFastParsing(final boolean fastParsing) {
+		this.isFastParsing = fastParsing;
+	}
+
 	/**
 	 * Sets the directory where to look for DTD and XSD files if they are not found
 	 * at the location specified in the XML.
@@ -152,6 +168,14 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	public final void readFile(final String filename) throws UncheckedIOException {
 		log.info("starting to parse xml from file " + filename + " ...");
 		this.theSource = filename;
+		if (this.isFastParsing) {
+			try (InputStream stream = IOUtils.getInputStream(IOUtils.resolveFileOrResource(filename))) {
+				parseFast(stream, false);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return;
+		}
 		parse(new InputSource(IOUtils.getBufferedReader(filename)));
 	}
 
@@ -169,15 +193,31 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		this.theSource = url.toString();
 		log.info("starting to parse xml from url " + this.theSource + " ...");
 		System.out.flush();
+		if (this.isFastParsing) {
+			try (InputStream stream = IOUtils.getInputStream(IOUtils.resolveFileOrResource(this.theSource))) {
+				parseFast(stream, false);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return;
+		}
 		parse(new InputSource(IOUtils.getBufferedReader(this.theSource)));
 	}
 
 	public final void parse(final InputStream stream) throws UncheckedIOException {
 		this.theSource = "stream";
+		if (this.isFastParsing) {
+			parseFast(stream, true);
+			return;
+		}
 		parse(new InputSource(stream));
 	}
 
 	public final void parse(final InputSource input) throws UncheckedIOException {
+		if (this.isFastParsing && input.getByteStream() != null && input.getCharacterStream() == null && input.getEncoding() == null) {
+			parseFast(input.getByteStream(), true);
+			return;
+		}
 		try {
 			boolean validating = this.isValidating && this.validationType != ValidationType.NO_VALIDATION;
 			boolean useWstxParser = !validating || this.validationType == ValidationType.DTD_ONLY;
@@ -232,6 +272,34 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		}
 	}
 
+	/**
+	 * Reads the input with the {@link FastXmlReader}, or with the SAX parser if the encoding of the input is not
+	 * supported by it.
+	 *
+	 * @param honorDeclaredEncoding if false, the input is decoded as UTF-8, like by {@link IOUtils#getBufferedReader(String)}
+	 */
+	private void parseFast(final InputStream stream, final boolean honorDeclaredEncoding) throws UncheckedIOException {
+		try {
+			FastXmlReader reader = new FastXmlReader(this, stream, this.theSource, this.isNamespaceAware);
+			if (reader.init(honorDeclaredEncoding)) {
+				reader.parse();
+			} else {
+				log.info("encoding of " + this.theSource + " is not supported by the fast xml parser, using the SAX parser.");
+				boolean fastParsing = this.isFastParsing;
+				this.isFastParsing = false;
+				try {
+					parse(new InputSource(new SequenceInputStream(reader.getBufferedBytes(), stream)));
+				} finally {
+					this.isFastParsing = fastParsing;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (SAXException e) {
+			throw new UncheckedIOException(new IOException(e));
+		}
+	}
+
 	public final String getDoctype() {
 		return this.doctype;
 	}
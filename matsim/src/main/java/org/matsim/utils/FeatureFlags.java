@@ -26,4 +26,12 @@ public abstract class FeatureFlags {
 		return true; // default fallback
 	}
 
+	public static boolean useFastXmlParser() {
+		String property = System.getProperty("matsim.fastXmlParser");
+		if (property != null) {
+			return Boolean.parseBoolean(property);
+		}
+		return false; // default fallback
+	}
+
 }
@@ -19,16 +19,26 @@
  * *********************************************************************** */
 package ch.sbb.matsim.routing.pt.raptor;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.matsim.api.core.v01.Id;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestUtils;
 
 /**
  * @author mrieser / SBB
  */
 public class SwissRailRaptorDataTest {
 
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
 	@Test
 	void testTransfersFromSchedule() {
         Fixture f = new Fixture();
@@ -97,4 +107,49 @@ public class SwissRailRaptorDataTest {
         Assertions.assertEquals(data2.transfers.length, data4.transfers.length, "number of transfers should have stayed the same.");
     }
 
+	@Test
+	void testTransferCacheFile() throws IOException {
+		Fixture f = new Fixture();
+		f.init();
+
+		f.config.transitRouter().setMaxBeelineWalkConnectionDistance(100);
+		RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(f.config);
+		SwissRailRaptorData expected = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+
+		Path cacheFile = Paths.get(this.utils.getOutputDirectory(), "raptorTransfers.bin");
+		raptorConfig.setTransferCacheFile(cacheFile.toString());
+		SwissRailRaptorData written = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		Assertions.assertTrue(Files.exists(cacheFile), "cache file should have been written.");
+		assertSameTransfers(expected, written);
+		long lastModified = Files.getLastModifiedTime(cacheFile).toMillis();
+
+		SwissRailRaptorData read = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		assertSameTransfers(expected, read);
+		Assertions.assertEquals(lastModified, Files.getLastModifiedTime(cacheFile).toMillis(), "cache file should have been re-used.");
+
+		// a changed schedule must not use the cached transfers
+		Id<TransitStopFacility> stopId9 = Id.create(9, TransitStopFacility.class);
+		Id<TransitStopFacility> stopId19 = Id.create(19, TransitStopFacility.class);
+		f.schedule.getMinimalTransferTimes().set(stopId19, stopId9, 345);
+		SwissRailRaptorData changed = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		raptorConfig.setTransferCacheFile(null);
+		assertSameTransfers(SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null), changed);
+		Assertions.assertEquals(expected.transfers.length + 1, changed.transfers.length, "number of transfers should have incrased.");
+	}
+
+	private static void assertSameTransfers(SwissRailRaptorData expected, SwissRailRaptorData actual) {
+		Assertions.assertEquals(expected.transfers.length, actual.transfers.length, "wrong number of transfers.");
+		for (int i = 0; i < expected.transfers.length; i++) {
+			SwissRailRaptorData.RTransfer e = expected.transfers[i];
+			SwissRailRaptorData.RTransfer a = actual.transfers[i];
+			Assertions.assertEquals(e.fromRouteStop, a.fromRouteStop);
+			Assertions.assertEquals(e.toRouteStop, a.toRouteStop);
+			Assertions.assertEquals(e.transferTime, a.transferTime);
+			Assertions.assertEquals(e.transferDistance, a.transferDistance);
+		}
+		for (int i = 0; i < expected.routeStops.length; i++) {
+			Assertions.assertEquals(expected.routeStops[i].indexFirstTransfer, actual.routeStops[i].indexFirstTransfer);
+			Assertions.assertEquals(expected.routeStops[i].countTransfers, actual.routeStops[i].countTransfers);
+		}
+	}
 }
@@ -0,0 +1,113 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AsyncOutputWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+
+public class AsyncOutputWriterTest {
+
+	@Test
+	void testSynchronous() {
+		AsyncOutputWriter writer = new AsyncOutputWriter(0, 1);
+		assertFalse(writer.isAsync());
+		List<String> written = new ArrayList<>();
+		writer.write("test", () -> "a", written::add);
+		assertEquals(List.of("a"), written, "must be written before write() returns");
+	}
+
+	@Test
+	void testInvalidSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new AsyncOutputWriter(2, 0));
+		ControllerConfigGroup config = new ControllerConfigGroup();
+		assertThrows(IllegalArgumentException.class, () -> config.setAsyncOutputMaxPending(0));
+		assertThrows(IllegalArgumentException.class, () -> config.setAsyncOutputThreads(-1));
+	}
+
+	@Test
+	void testAsynchronous() throws InterruptedException {
+		AsyncOutputWriter writer = new AsyncOutputWriter(2, 4);
+		assertTrue(writer.isAsync());
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+		writer.write("blocked", () -> 0, value -> {
+			await(release);
+			written.add(value);
+		});
+		writer.write("test", () -> 1, written::add);
+		assertFalse(written.contains(0), "must not wait for the writer");
+
+		release.countDown();
+		writer.awaitCompletion();
+		assertEquals(2, written.size());
+		writer.notifyShutdown(null);
+	}
+
+	@Test
+	void testBackPressure() throws InterruptedException {
+		AsyncOutputWriter writer = new AsyncOutputWriter(4, 2);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		for (int i = 0; i < 10; i++) {
+			writer.write("test", () -> running.incrementAndGet(), value -> {
+				maxRunning.accumulateAndGet(running.get(), Math::max);
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				running.decrementAndGet();
+			});
+		}
+		writer.awaitCompletion();
+		assertTrue(maxRunning.get() <= 2, "at most 2 snapshots may be pending, but there were " + maxRunning.get());
+		assertEquals(0, running.get());
+		writer.notifyShutdown(null);
+	}
+
+	@Test
+	void testRethrowsException() {
+		AsyncOutputWriter writer = new AsyncOutputWriter(1, 1);
+		writer.write("failing", () -> "a", value -> {
+			throw new IllegalStateException("testing");
+		});
+		assertThrows(IllegalStateException.class, writer::awaitCompletion);
+		writer.notifyShutdown(null);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReplayEventsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.controler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsManagerModule;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class ReplayEventsTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testReplay() {
+		assertReplay(ConfigUtils.createConfig());
+	}
+
+	@Test
+	void testReplayWithThreads() {
+		Config config = ConfigUtils.createConfig();
+		config.eventsManager().setNumberOfThreads(2);
+		config.eventsManager().setSynchronizeOnSimSteps(false);
+		assertReplay(config);
+	}
+
+	@Test
+	void testReplayWithOneThreadPerHandler() {
+		Config config = ConfigUtils.createConfig();
+		config.eventsManager().setOneThreadPerHandler(true);
+		assertReplay(config);
+	}
+
+	private void assertReplay(Config config) {
+		String eventsFile = utils.getOutputDirectory() + "events.xml";
+		EventWriterXML writer = new EventWriterXML(eventsFile);
+		List<Event> linkEnters = new ArrayList<>();
+		List<Event> arrivals = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			LinkEnterEvent linkEnter = new LinkEnterEvent(i, Id.create(i % 10, Vehicle.class), Id.create(i % 13, Link.class));
+			writer.handleEvent(linkEnter);
+			linkEnters.add(linkEnter);
+			writer.handleEvent(new LinkLeaveEvent(i, Id.create(i % 10, Vehicle.class), Id.create(i % 13, Link.class)));
+			if (i % 100 == 0) {
+				PersonArrivalEvent arrival = new PersonArrivalEvent(i, Id.create(i, Person.class), Id.create(i % 13, Link.class), "car");
+				writer.handleEvent(arrival);
+				arrivals.add(arrival);
+			}
+		}
+		writer.closeFile();
+
+		List<Event> handledLinkEnters = new ArrayList<>();
+		List<Event> handledArrivals = new ArrayList<>();
+		ReplayEvents.run(config, eventsFile, new EventsManagerModule(), new AbstractModule() {
+			@Override
+			public void install() {
+				addEventHandlerBinding().toInstance((LinkEnterEventHandler) handledLinkEnters::add);
+				addEventHandlerBinding().toInstance((PersonArrivalEventHandler) handledArrivals::add);
+			}
+		});
+
+		// every handler must see its events in the order of the file
+		Assertions.assertEquals(linkEnters, handledLinkEnters);
+		Assertions.assertEquals(arrivals, handledArrivals);
+	}
+}
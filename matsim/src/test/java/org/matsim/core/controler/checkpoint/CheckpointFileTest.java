@@ -0,0 +1,220 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CheckpointFileTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.replanning.inheritance.PlanInheritanceModule;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class CheckpointFileTest {
+
+	@RegisterExtension private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testWriteAndReadParticipants() {
+		Path file = Path.of(this.utils.getOutputDirectory(), "checkpoint.bin");
+		CounterParticipant a = new CounterParticipant("a", 42);
+		CounterParticipant b = new CounterParticipant("b", 4711);
+		CheckpointFile.write(file, new CheckpointFile.Header(17, 1234L), List.of(a, b));
+
+		CheckpointFile.Header header = CheckpointFile.readHeader(file);
+		assertEquals(17, header.iteration());
+		assertEquals(1234L, header.randomSeed());
+
+		CounterParticipant a2 = new CounterParticipant("a", 0);
+		CounterParticipant b2 = new CounterParticipant("b", 0);
+		CheckpointFile.read(file, List.of(b2, a2));
+		assertEquals(42, a2.value);
+		assertEquals(4711, b2.value);
+	}
+
+	@Test
+	void testSkipsUnknownSections() {
+		Path file = Path.of(this.utils.getOutputDirectory(), "checkpoint.bin");
+		CheckpointFile.write(file, new CheckpointFile.Header(3, 1L),
+				List.of(new CounterParticipant("a", 1), new CounterParticipant("b", 2), new CounterParticipant("c", 3)));
+
+		CounterParticipant c = new CounterParticipant("c", 0);
+		CounterParticipant d = new CounterParticipant("d", 99);
+		CheckpointFile.read(file, List.of(c, d));
+		assertEquals(3, c.value);
+		assertEquals(99, d.value, "a participant without section must keep its state");
+	}
+
+	@Test
+	void testDuplicateNames() {
+		Path file = Path.of(this.utils.getOutputDirectory(), "checkpoint.bin");
+		List<CheckpointParticipant> participants = List.of(new CounterParticipant("a", 1), new CounterParticipant("a", 2));
+		assertThrows(IllegalStateException.class, () -> CheckpointFile.write(file, new CheckpointFile.Header(0, 1L), participants));
+	}
+
+	@Test
+	void testPopulationCheckpoint() {
+		Path file = Path.of(this.utils.getOutputDirectory(), "checkpoint.bin");
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		PopulationFactory factory = population.getFactory();
+		for (String id : new String[] {"2", "1"}) {
+			Person person = factory.createPerson(Id.createPersonId(id));
+			person.getAttributes().putAttribute("age", 42);
+			Plan plan1 = createPlan(factory);
+			plan1.setScore(12.5);
+			Plan plan2 = createPlan(factory);
+			person.addPlan(plan1);
+			person.addPlan(plan2);
+			person.setSelectedPlan(plan2);
+			population.addPerson(person);
+		}
+		CheckpointFile.write(file, new CheckpointFile.Header(5, 1L),
+				List.of(new PopulationCheckpoint(population, new PlansConfigGroup(), Collections.emptyMap())));
+
+		Population restored = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		restored.addPerson(restored.getFactory().createPerson(Id.createPersonId("1")));
+		restored.addPerson(restored.getFactory().createPerson(Id.createPersonId("2")));
+		CheckpointFile.read(file, List.of(new PopulationCheckpoint(restored, new PlansConfigGroup(), Collections.emptyMap())));
+
+		assertEquals(List.of(Id.createPersonId("2"), Id.createPersonId("1")), List.copyOf(restored.getPersons().keySet()));
+		Person person = restored.getPersons().get(Id.createPersonId("1"));
+		assertEquals(42, person.getAttributes().getAttribute("age"));
+		assertEquals(2, person.getPlans().size());
+		assertEquals(12.5, person.getPlans().get(0).getScore(), MatsimTestUtils.EPSILON);
+		assertNull(person.getPlans().get(1).getScore());
+		assertSame(person.getPlans().get(1), person.getSelectedPlan());
+
+		Plan plan = person.getSelectedPlan();
+		assertEquals(3, plan.getPlanElements().size());
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		assertEquals("home", home.getType());
+		assertEquals(new Coord(10, 20), home.getCoord());
+		assertEquals(7 * 3600, home.getEndTime().seconds(), MatsimTestUtils.EPSILON);
+		assertTrue(home.getStartTime().isUndefined());
+		Leg leg = (Leg) plan.getPlanElements().get(1);
+		assertEquals(TransportMode.car, leg.getMode());
+		NetworkRoute route = (NetworkRoute) leg.getRoute();
+		assertEquals(Id.createLinkId("1"), route.getStartLinkId());
+		assertEquals(List.of(Id.createLinkId("2")), route.getLinkIds());
+		assertEquals(Id.createLinkId("3"), route.getEndLinkId());
+		assertEquals(500, route.getDistance(), MatsimTestUtils.EPSILON);
+	}
+
+	/**
+	 * Plan ids, iterations created and plan mutators are only set if plan inheritance is enabled, which it is not by
+	 * default.
+	 */
+	@Test
+	void testPopulationCheckpointPlanInheritance() {
+		Path file = Path.of(this.utils.getOutputDirectory(), "checkpoint.bin");
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		PopulationFactory factory = population.getFactory();
+		Person person = factory.createPerson(Id.createPersonId("1"));
+		Plan withoutInheritance = createPlan(factory);
+		Plan withInheritance = createPlan(factory);
+		withInheritance.setPlanId(Id.create("1-3", Plan.class));
+		withInheritance.setIterationCreated(3);
+		withInheritance.setPlanMutator("ReRoute");
+		person.addPlan(withoutInheritance);
+		person.addPlan(withInheritance);
+		population.addPerson(person);
+		CheckpointFile.write(file, new CheckpointFile.Header(5, 1L),
+				List.of(new PopulationCheckpoint(population, new PlansConfigGroup(), Collections.emptyMap())));
+
+		Population restored = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		Person restoredPerson = restored.getFactory().createPerson(Id.createPersonId("1"));
+		restoredPerson.getAttributes().putAttribute("stale", "value");
+		restored.addPerson(restoredPerson);
+		CheckpointFile.read(file, List.of(new PopulationCheckpoint(restored, new PlansConfigGroup(), Collections.emptyMap())));
+
+		assertNull(restoredPerson.getAttributes().getAttribute("stale"));
+		Plan plan1 = restoredPerson.getPlans().get(0);
+		assertNull(plan1.getId());
+		assertNull(plan1.getAttributes().getAttribute(PlanInheritanceModule.ITERATION_CREATED));
+		assertNull(plan1.getPlanMutator());
+		Plan plan2 = restoredPerson.getPlans().get(1);
+		assertEquals(Id.create("1-3", Plan.class), plan2.getId());
+		assertEquals(3, plan2.getIterationCreated());
+		assertEquals("ReRoute", plan2.getPlanMutator());
+	}
+
+	private static Plan createPlan(PopulationFactory factory) {
+		Plan plan = factory.createPlan();
+		Activity home = factory.createActivityFromCoord("home", new Coord(10, 20));
+		home.setLinkId(Id.createLinkId("1"));
+		home.setEndTime(7 * 3600);
+		plan.addActivity(home);
+		Leg leg = factory.createLeg(TransportMode.car);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("1"), List.of(Id.createLinkId("2")), Id.createLinkId("3"));
+		route.setDistance(500);
+		leg.setRoute(route);
+		plan.addLeg(leg);
+		Activity work = factory.createActivityFromLinkId("work", Id.createLinkId("3"));
+		plan.addActivity(work);
+		return plan;
+	}
+
+	private static final class CounterParticipant implements CheckpointParticipant {
+		private final String name;
+		private int value;
+
+		CounterParticipant(String name, int value) {
+			this.name = name;
+			this.value = value;
+		}
+
+		@Override
+		public String getCheckpointName() {
+			return this.name;
+		}
+
+		@Override
+		public void writeCheckpoint(DataOutput out) throws IOException {
+			out.writeInt(this.value);
+		}
+
+		@Override
+		public void readCheckpoint(DataInput in) throws IOException {
+			this.value = in.readInt();
+		}
+	}
+
+}
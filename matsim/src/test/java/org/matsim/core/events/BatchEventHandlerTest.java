@@ -0,0 +1,145 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BatchEventHandlerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.BatchEventHandler;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class BatchEventHandlerTest {
+
+	static Stream<Arguments> eventsManagers() {
+		return Stream.of(
+				Arguments.of("EventsManagerImpl", (Supplier<EventsManager>) EventsManagerImpl::new),
+				Arguments.of("ParallelEventsManagerImpl", (Supplier<EventsManager>) () -> new ParallelEventsManagerImpl(2)),
+				Arguments.of("SimStepParallelEventsManagerImpl", (Supplier<EventsManager>) () -> new SimStepParallelEventsManagerImpl(2)),
+				Arguments.of("ParallelEventsManager", (Supplier<EventsManager>) () -> new ParallelEventsManager(true, 2, 1024)),
+				Arguments.of("ParallelEventsManager, one thread per handler", (Supplier<EventsManager>) () -> new ParallelEventsManager(true, true, -1, 1024)));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("eventsManagers")
+	void testBatchesAndSingleEvents(String name, Supplier<EventsManager> factory) {
+		EventsManager events = factory.get();
+		RecordingBatchHandler batchHandler = new RecordingBatchHandler();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(batchHandler);
+		events.addHandler(collector);
+		events.initProcessing();
+
+		EventArray first = new EventArray();
+		first.add(new LinkEnterEvent(1.0, Id.createVehicleId(1), Id.createLinkId(1)));
+		first.add(new LinkLeaveEvent(2.0, Id.createVehicleId(1), Id.createLinkId(1)));
+		events.processEvents(first);
+		events.afterSimStep(2.0);
+		events.processEvent(new LinkEnterEvent(3.0, Id.createVehicleId(1), Id.createLinkId(2)));
+		events.afterSimStep(3.0);
+		EventArray second = new EventArray();
+		second.add(new LinkLeaveEvent(4.0, Id.createVehicleId(1), Id.createLinkId(2)));
+		second.add(new PersonArrivalEvent(4.0, Id.createPersonId(1), Id.createLinkId(2), "car"));
+		events.processEvents(second);
+		events.afterSimStep(4.0);
+		events.finishProcessing();
+
+		// both handlers see the events in the same order
+		assertEquals(5, collector.getEvents().size());
+		assertEquals(collector.getEvents(), batchHandler.events);
+		// ParallelEventsManager also passes single events in batches, so only the total is the same for all managers
+		assertTrue(batchHandler.batches > 0);
+		assertEquals(5, batchHandler.singleEvents + batchHandler.batchedEvents);
+	}
+
+	/**
+	 * The default events manager passes single events which are waiting together in the queue of one of its threads as a
+	 * batch, so that batch event handlers get them in one call also if the mobsim submits them one by one.
+	 */
+	@Test
+	void testQueuedSingleEventsAreBatched() {
+		EventsManager events = new SimStepParallelEventsManagerImpl(1);
+		CountDownLatch allEventsSubmitted = new CountDownLatch(1);
+		// blocks the events processing thread until all events are in its queue
+		events.addHandler((LinkEnterEventHandler) event -> {
+			try {
+				allEventsSubmitted.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		RecordingBatchHandler batchHandler = new RecordingBatchHandler();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(batchHandler);
+		events.addHandler(collector);
+		events.initProcessing();
+
+		for (int i = 0; i < 10; i++) {
+			events.processEvent(new LinkEnterEvent(1.0, Id.createVehicleId(i), Id.createLinkId(1)));
+		}
+		allEventsSubmitted.countDown();
+		events.afterSimStep(1.0);
+		events.finishProcessing();
+
+		assertEquals(10, collector.getEvents().size());
+		assertEquals(collector.getEvents(), batchHandler.events);
+		assertTrue(batchHandler.batches > 0);
+	}
+
+	private static class RecordingBatchHandler implements BatchEventHandler, BasicEventHandler {
+		private final List<Event> events = new ArrayList<>();
+		private int batches = 0;
+		private int batchedEvents = 0;
+		private int singleEvents = 0;
+
+		@Override
+		public void handleEvents(EventArray events) {
+			this.batches++;
+			for (int i = 0; i < events.size(); i++) {
+				this.events.add(events.get(i));
+				this.batchedEvents++;
+			}
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			this.events.add(event);
+			this.singleEvents++;
+		}
+	}
+}
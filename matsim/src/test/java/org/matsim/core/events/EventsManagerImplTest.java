@@ -23,7 +23,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.handler.EventHandler;
 
@@ -69,6 +72,58 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	void testProcessEvent_PrivateEventHandler() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		CountingPrivateEventHandler handler = new CountingPrivateEventHandler();
+		CountingMyEventHandler otherHandler = new CountingMyEventHandler();
+		manager.addHandler(handler);
+		manager.addHandler(otherHandler);
+		manager.initProcessing();
+		manager.processEvent(new MyEvent(123.45));
+		manager.processEvent(new PrivateEvent(234.56));
+		manager.finishProcessing();
+		Assertions.assertEquals(12, handler.counter, "EventHandler with private interface was not called.");
+		Assertions.assertEquals(2, otherHandler.counter, "EventHandler was not called.");
+	}
+
+	@Test
+	void testProcessEvent_ExceptionInPrivateEventHandler() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		manager.addHandler((PrivateEventHandler) e -> {
+			throw new IllegalStateException();
+		});
+		manager.initProcessing();
+		RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> manager.processEvent(new PrivateEvent(123.45)));
+		Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+	}
+
+	@Test
+	void testProcessEvent_ErrorInEventHandler() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		manager.addHandler((MyEventHandler) e -> {
+			throw new AssertionError();
+		});
+		manager.initProcessing();
+		RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> manager.processEvent(new MyEvent(123.45)));
+		Assertions.assertTrue(e.getCause() instanceof AssertionError);
+	}
+
+	/**
+	 * Exceptions of the handlers of the core events are not wrapped, as these handlers have never been called by
+	 * reflection.
+	 */
+	@Test
+	void testProcessEvent_ExceptionInLinkEnterEventHandler() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		manager.addHandler((LinkEnterEventHandler) e -> {
+			throw new IllegalStateException();
+		});
+		manager.initProcessing();
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> manager.processEvent(new LinkEnterEvent(123.45, Id.createVehicleId(1), Id.createLinkId(2))));
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
@@ -109,4 +164,30 @@ public class EventsManagerImplTest {
 			System.out.println(i);
 		}
 	}
+
+	private static class PrivateEvent extends MyEvent {
+		public PrivateEvent(final double time) {
+			super(time);
+		}
+	}
+
+	private interface PrivateEventHandler extends EventHandler {
+		void handleEvent(final PrivateEvent e);
+	}
+
+	private static class CountingPrivateEventHandler implements PrivateEventHandler, MyEventHandler {
+		private int counter = 0;
+		@Override
+		public void reset(final int iteration) {
+			this.counter = 0;
+		}
+		@Override
+		public void handleEvent(final PrivateEvent e) {
+			this.counter += 10;
+		}
+		@Override
+		public void handleEvent(final MyEvent e) {
+			this.counter++;
+		}
+	}
 }
@@ -21,6 +21,8 @@
 package org.matsim.core.events;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -34,6 +36,7 @@ import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.EventHandler;
 import org.matsim.testcases.MatsimTestUtils;
 import org.xml.sax.SAXException;
 
@@ -164,4 +167,51 @@ public class EventsReadersTest {
 		events.finishProcessing();
 		assertEquals(9, handler.eventCounter, "number of read events");
 	}
+
+	@Test
+	final void testSkipUnhandledEvents() {
+		List<Event> processed = new ArrayList<>();
+		EventsManager events = new EventsManager() {
+			@Override
+			public void processEvent(Event event) {
+				processed.add(event);
+			}
+
+			@Override
+			public boolean hasHandlerFor(Class<? extends Event> eventClass) {
+				return eventClass == LinkEnterEvent.class || eventClass == PersonMoneyEvent.class;
+			}
+
+			@Override
+			public void addHandler(EventHandler handler) {
+			}
+
+			@Override
+			public void removeHandler(EventHandler handler) {
+			}
+
+			@Override
+			public void resetHandlers(int iteration) {
+			}
+
+			@Override
+			public void initProcessing() {
+			}
+
+			@Override
+			public void afterSimStep(double time) {
+			}
+
+			@Override
+			public void finishProcessing() {
+			}
+		};
+		MatsimEventsReader reader = new MatsimEventsReader(events);
+		reader.setSkipUnhandledEvents(true);
+		reader.readFile(utils.getClassInputDirectory() + "events.xml");
+
+		assertEquals(2, processed.size(), "only the handled events should be read");
+		assertEquals(LinkEnterEvent.class, processed.get(0).getClass());
+		assertEquals(PersonMoneyEvent.class, processed.get(1).getClass());
+	}
 }
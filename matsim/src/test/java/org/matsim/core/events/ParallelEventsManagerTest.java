@@ -2,11 +2,16 @@ package org.matsim.core.events;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.List;
+
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ParallelEventsManagerTest {
 
@@ -49,4 +54,18 @@ public class ParallelEventsManagerTest {
         assertEquals(0, handler.counter);
 
     }
+
+	@Test
+	void hasHandlerFor() {
+		EventsManager parallel = EventsUtils.createParallelEventsManager();
+		EventsManager sequential = EventsUtils.createEventsManager();
+		parallel.addHandler(handler);
+		sequential.addHandler(handler);
+
+		for (Class<? extends Event> eventClass : List.of(EventsManagerImplTest.MyEvent.class, LinkEnterEvent.class, Event.class)) {
+			assertEquals(sequential.hasHandlerFor(eventClass), parallel.hasHandlerFor(eventClass), eventClass.getName());
+		}
+		assertTrue(parallel.hasHandlerFor(EventsManagerImplTest.MyEvent.class));
+		assertFalse(parallel.hasHandlerFor(LinkEnterEvent.class));
+	}
 }
@@ -19,18 +19,36 @@
 
 package org.matsim.core.events.algorithms;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.facilities.ActivityFacility;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.testcases.utils.EventsCollector;
 import org.matsim.vehicles.Vehicle;
@@ -96,4 +114,55 @@ public class EventWriterXMLTest {
 		events.finishProcessing();
 		Assertions.assertEquals(1, collector.getEvents().size(), "there must be 1 event.");
 	}
+
+	/**
+	 * The events which are encoded attribute by attribute must be written exactly as if they were written from their
+	 * attributes map.
+	 */
+	@Test
+	void testSameOutputAsAttributes() {
+		Id<Person> person = Id.create("p&1", Person.class);
+		Id<Link> link = Id.create("l1", Link.class);
+		Id<Vehicle> vehicle = Id.create("v1", Vehicle.class);
+		Id<ActivityFacility> facility = Id.create("f<1>", ActivityFacility.class);
+		List<Event> events = List.of(
+				new ActivityEndEvent(21600.0, person, link, facility, "home", new Coord(-1.5, 1e8)),
+				new PersonDepartureEvent(21600.0, person, link, "car", "car"),
+				new PersonDepartureEvent(21600.0, person, link, "walk", null),
+				new PersonEntersVehicleEvent(21600.0, person, vehicle),
+				new VehicleEntersTrafficEvent(21600.0, person, link, vehicle, "car", 1.0),
+				new LinkLeaveEvent(21601.0, vehicle, link),
+				new LinkEnterEvent(21601.0, vehicle, Id.create("l2", Link.class)),
+				new LinkLeaveEvent(21633.75, vehicle, Id.create("l2", Link.class)),
+				new VehicleLeavesTrafficEvent(21634.1, person, link, vehicle, null, 0.3),
+				new PersonLeavesVehicleEvent(21634.1, person, vehicle),
+				new PersonArrivalEvent(1e7, person, link, "car"),
+				new PersonArrivalEvent(-0.0, person, link, null),
+				new ActivityStartEvent(Double.NaN, person, link, null, "\"work\""),
+				new PersonMoneyEvent(21700.0, person, -2.5, "toll", null, null),
+				new GenericEvent("ä generic event", -12.0));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EventWriterXML writer = new EventWriterXML(out);
+		events.forEach(writer::handleEvent);
+		writer.closeFile();
+
+		StringBuilder expected = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+		for (Event event : events) {
+			expected.append("\t<event ");
+			for (Map.Entry<String, String> entry : event.getAttributes().entrySet()) {
+				expected.append(entry.getKey()).append("=\"").append(encode(entry.getValue())).append("\" ");
+			}
+			expected.append(" />\n");
+		}
+		expected.append("</events>");
+		Assertions.assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+	}
+
+	private static String encode(String value) {
+		if (value == null) {
+			return null;
+		}
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
 }
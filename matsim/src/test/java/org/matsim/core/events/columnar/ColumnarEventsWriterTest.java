@@ -0,0 +1,222 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarEventsWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.events.columnar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.HasPersonId;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
+import org.matsim.vis.snapshotwriters.PositionEvent;
+import org.matsim.vis.snapshotwriters.PositionInfo;
+
+public class ColumnarEventsWriterTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testWriteRead() {
+		List<Event> written = createEvents();
+		String filename = write(written);
+
+		List<Event> read = read(filename, null);
+		Assertions.assertEquals(written.size(), read.size());
+		for (int i = 0; i < written.size(); i++) {
+			Assertions.assertEquals(written.get(i).getClass(), read.get(i).getClass());
+			Assertions.assertEquals(written.get(i).getAttributes(), read.get(i).getAttributes());
+		}
+	}
+
+	/**
+	 * The person, vehicle and link columns also hold the ids of {@link HasPersonId} etc., which the attributes of an
+	 * event do not need to contain.  Only the attributes which the event had must be read back.
+	 */
+	@Test
+	void testWriteRead_entityAttributes() {
+		Id<Person> person = Id.create("person_1", Person.class);
+		Id<Link> link = Id.create("link_1", Link.class);
+		List<Event> written = List.of(
+				new AgentWaitingForPtEvent(10, person, Id.create("stop_1", TransitStopFacility.class), Id.create("stop_2", TransitStopFacility.class)),
+				new PositionEvent(20, new PositionInfo.DirectBuilder().setPersonId(person).setLinkId(link)
+						.setVehicleId(Id.create("veh_1", Vehicle.class)).setEasting(100).setNorthing(200)
+						.setAgentState(AgentSnapshotInfo.AgentState.PERSON_DRIVING_CAR).build()),
+				new NoPersonAttributeEvent(30, person));
+		String filename = write(written);
+
+		List<Event> read = read(filename, null);
+		Assertions.assertEquals(written.size(), read.size());
+		for (int i = 0; i < written.size(); i++) {
+			Assertions.assertEquals(written.get(i).getAttributes(), read.get(i).getAttributes());
+		}
+		Assertions.assertFalse(read.get(2).getAttributes().containsKey(HasPersonId.ATTRIBUTE_PERSON));
+
+		// the person can still be used to filter
+		List<Event> filtered = read(filename, reader -> reader.setPersonIds(Set.of(person)));
+		Assertions.assertEquals(3, filtered.size());
+	}
+
+	@Test
+	void testFilterByTypeAndTime() {
+		List<Event> written = createEvents();
+		String filename = write(written);
+
+		List<Event> expected = new ArrayList<>();
+		for (Event event : written) {
+			if (event instanceof LinkEnterEvent && event.getTime() >= 7 * 3600 && event.getTime() < 8 * 3600) {
+				expected.add(event);
+			}
+		}
+		Assertions.assertFalse(expected.isEmpty());
+
+		List<Event> read = read(filename, reader -> {
+			reader.setEventTypes(Set.of(LinkEnterEvent.EVENT_TYPE));
+			reader.setTimeRange(7 * 3600, 8 * 3600);
+		});
+		Assertions.assertEquals(expected, read);
+	}
+
+	@Test
+	void testFilterByEntity() {
+		List<Event> written = createEvents();
+		String filename = write(written);
+
+		List<Event> expected = new ArrayList<>();
+		for (Event event : written) {
+			if (event instanceof LinkLeaveEvent linkLeave && linkLeave.getVehicleId().toString().equals("veh_3")) {
+				expected.add(event);
+			}
+		}
+
+		List<Event> read = read(filename, reader -> {
+			reader.setEventTypes(Set.of(LinkLeaveEvent.EVENT_TYPE));
+			reader.setVehicleIds(Set.of(Id.create("veh_3", Vehicle.class)));
+		});
+		Assertions.assertEquals(expected, read);
+
+		List<Event> unknown = read(filename, reader -> reader.setPersonIds(Set.of(Id.create("nobody", Person.class))));
+		Assertions.assertTrue(unknown.isEmpty());
+	}
+
+	private String write(List<Event> events) {
+		String filename = utils.getOutputDirectory() + "events.mcev";
+		// small chunks, so the events are spread over many of them
+		ColumnarEventsWriter writer = new ColumnarEventsWriter(filename, 50, 600.);
+		for (Event event : events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+		return filename;
+	}
+
+	private interface ReaderSetup {
+		void apply(ColumnarEventsReader reader);
+	}
+
+	private static List<Event> read(String filename, ReaderSetup setup) {
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		if (setup == null) {
+			new MatsimEventsReader(events).readFile(filename);
+		} else {
+			ColumnarEventsReader reader = new ColumnarEventsReader(events);
+			setup.apply(reader);
+			reader.readFile(filename);
+		}
+		events.finishProcessing();
+		return new ArrayList<>(collector.getEvents());
+	}
+
+	private static final class NoPersonAttributeEvent extends Event implements HasPersonId {
+		private final Id<Person> personId;
+
+		NoPersonAttributeEvent(double time, Id<Person> personId) {
+			super(time);
+			this.personId = personId;
+		}
+
+		@Override
+		public String getEventType() {
+			return "noPersonAttribute";
+		}
+
+		@Override
+		public Id<Person> getPersonId() {
+			return this.personId;
+		}
+
+		@Override
+		public Map<String, String> getAttributes() {
+			Map<String, String> attr = super.getAttributes();
+			attr.remove(ATTRIBUTE_PERSON);
+			return attr;
+		}
+	}
+
+	private static List<Event> createEvents() {
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			double time = 6 * 3600 + i * 20;
+			Id<Person> person = Id.create("person_" + (i % 17), Person.class);
+			Id<Vehicle> vehicle = Id.create("veh_" + (i % 7), Vehicle.class);
+			Id<Link> link = Id.create("link_" + (i % 11), Link.class);
+			events.add(new LinkEnterEvent(time, vehicle, link));
+			events.add(new LinkLeaveEvent(time + 5, vehicle, link));
+			if (i % 10 == 0) {
+				events.add(new PersonDepartureEvent(time + 5, person, link, "car", "car"));
+				events.add(new ActivityStartEvent(time + 5, person, link, Id.create("f" + i, ActivityFacility.class), "work", new Coord(i, -i)));
+				events.add(new PersonMoneyEvent(time + 5.25, person, -1.5 * i, "toll", "city", null));
+			}
+			if (i % 50 == 0) {
+				GenericEvent generic = new GenericEvent("custom", time + 6);
+				generic.getAttributes().put("something", "value" + i);
+				events.add(generic);
+			}
+		}
+		return events;
+	}
+}
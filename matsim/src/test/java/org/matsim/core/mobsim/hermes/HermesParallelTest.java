@@ -0,0 +1,124 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HermesParallelTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.hermes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+/**
+ * Tests Hermes with the network split into several realms.
+ */
+public class HermesParallelTest {
+
+	@BeforeEach
+	public void prepareTest() {
+		Id.resetCaches();
+		ScenarioImporter.flush();
+		HermesConfigGroup.SIM_STEPS = 30 * 60 * 60;
+	}
+
+	@Test
+	void testSameTrafficAsSingleThread() {
+		List<Event> sequential = runEquil(1);
+		List<Event> parallel = runEquil(4);
+
+		Assertions.assertEquals(0, count(parallel, PersonStuckEvent.class));
+		Assertions.assertTrue(count(parallel, PersonArrivalEvent.class) > 0);
+
+		// equil is never congested, so handing agents and capacity over between the realms only after each tick does
+		// not change any time.  Only the order of the events within a tick depends on the realms.
+		Assertions.assertEquals(sorted(toStrings(sequential)), sorted(toStrings(parallel)));
+
+		// the events must come in order of time
+		for (int i = 1; i < parallel.size(); i++) {
+			Assertions.assertTrue(parallel.get(i - 1).getTime() <= parallel.get(i).getTime());
+		}
+	}
+
+	@Test
+	void testDeterministic() {
+		List<String> first = toStrings(runEquil(4));
+		List<String> second = toStrings(runEquil(4));
+		Assertions.assertEquals(first, second);
+	}
+
+	@Test
+	void testInvalidNumberOfThreads() {
+		HermesConfigGroup hermes = new HermesConfigGroup();
+		Assertions.assertThrows(IllegalArgumentException.class, () -> hermes.setNumberOfThreads(0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> hermes.setNumberOfThreads(-1));
+	}
+
+	private List<Event> runEquil(int numberOfThreads) {
+		prepareTest();
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.hermes().setNumberOfThreads(numberOfThreads);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		HermesTest.createHermes(scenario, events).run();
+		return new ArrayList<>(collector.getEvents());
+	}
+
+	private static int count(List<Event> events, Class<? extends Event> type) {
+		int count = 0;
+		for (Event event : events) {
+			if (type.isInstance(event)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static List<String> sorted(List<String> events) {
+		List<String> result = new ArrayList<>(events);
+		Collections.sort(result);
+		return result;
+	}
+
+	private static List<String> toStrings(List<Event> events) {
+		List<String> result = new ArrayList<>();
+		for (Event event : events) {
+			result.add(event.toString());
+		}
+		return result;
+	}
+}
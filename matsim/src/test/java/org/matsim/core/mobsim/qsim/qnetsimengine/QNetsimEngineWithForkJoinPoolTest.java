@@ -0,0 +1,109 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineWithForkJoinPoolTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.NetsimEngineThreading;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class QNetsimEngineWithForkJoinPoolTest {
+
+	@Test
+	void testSameEventsAsThreadpool() {
+		List<String> threadpoolEvents = runEquil(NetsimEngineThreading.fixedThreadPool, NetworkPartitioning.roundRobin, 2);
+		List<String> workStealingEvents = runEquil(NetsimEngineThreading.workStealing, NetworkPartitioning.roundRobin, 2);
+		List<String> workStealingSpatialEvents = runEquil(NetsimEngineThreading.workStealing, NetworkPartitioning.spaceFillingCurve, 2);
+
+		assertFalse(threadpoolEvents.isEmpty());
+		assertEquals(threadpoolEvents, workStealingEvents);
+		assertEquals(threadpoolEvents, workStealingSpatialEvents);
+	}
+
+	@Test
+	void testSameEventsAsThreadpool_chunked() {
+		int chunkSize = QNetsimEngineWithForkJoinPool.chunkSize;
+		try {
+			// equil is too small to ever exceed the default chunk size
+			QNetsimEngineWithForkJoinPool.chunkSize = 1;
+			List<String> threadpoolEvents = runEquil(NetsimEngineThreading.fixedThreadPool, NetworkPartitioning.roundRobin, 2);
+			List<String> workStealingEvents = runEquil(NetsimEngineThreading.workStealing, NetworkPartitioning.spaceFillingCurve, 2);
+
+			assertFalse(threadpoolEvents.isEmpty());
+			assertEquals(threadpoolEvents, workStealingEvents);
+		} finally {
+			QNetsimEngineWithForkJoinPool.chunkSize = chunkSize;
+		}
+	}
+
+	@Test
+	void testSingleThread() {
+		List<String> threadpoolEvents = runEquil(NetsimEngineThreading.fixedThreadPool, NetworkPartitioning.roundRobin, 1);
+		List<String> workStealingEvents = runEquil(NetsimEngineThreading.workStealing, NetworkPartitioning.roundRobin, 1);
+
+		assertFalse(threadpoolEvents.isEmpty());
+		assertEquals(threadpoolEvents, workStealingEvents);
+	}
+
+	private static List<String> runEquil(NetsimEngineThreading threading, NetworkPartitioning partitioning, int numberOfThreads) {
+		MatsimRandom.reset();
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.qsim().setNumberOfThreads(numberOfThreads);
+		config.qsim().setNetsimEngineThreading(threading);
+		config.qsim().setNetworkPartitioning(partitioning);
+		config.qsim().setNetsimEngineTasksPerThread(4);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		new QSimBuilder(config).useDefaults().build(scenario, events).run();
+		events.finishProcessing();
+
+		// the order of events within a time step depends on the threads, so compare them sorted.
+		List<String> result = new ArrayList<>();
+		for (Event event : collector.getEvents()) {
+			result.add(event.toString());
+		}
+		Collections.sort(result);
+		return result;
+	}
+}
@@ -0,0 +1,144 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetworkPartitionerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
+import org.matsim.core.network.NetworkUtils;
+
+public class QNetworkPartitionerTest {
+
+	private static final int GRID_SIZE = 20;
+
+	@Test
+	void testRoundRobinIsUnchanged() {
+		List<Node> nodes = new ArrayList<>(createGrid().getNodes().values());
+		int[] parts = QNetworkPartitioner.partition(nodes, 3, NetworkPartitioning.roundRobin);
+		for (int i = 0; i < parts.length; i++) {
+			assertEquals(i % 3, parts[i]);
+		}
+	}
+
+	@Test
+	void testSingleRunner() {
+		List<Node> nodes = new ArrayList<>(createGrid().getNodes().values());
+		for (NetworkPartitioning partitioning : NetworkPartitioning.values()) {
+			assertArrayEquals(new int[nodes.size()], QNetworkPartitioner.partition(nodes, 1, partitioning));
+		}
+	}
+
+	@Test
+	void testSpaceFillingCurve() {
+		assertBalancedAndLocal(NetworkPartitioning.spaceFillingCurve, 4);
+		assertBalancedAndLocal(NetworkPartitioning.spaceFillingCurve, 7);
+	}
+
+	@Test
+	void testCoordinateBisection() {
+		assertBalancedAndLocal(NetworkPartitioning.coordinateBisection, 4);
+		assertBalancedAndLocal(NetworkPartitioning.coordinateBisection, 7);
+	}
+
+	@Test
+	void testHilbertIndexVisitsNeighbours() {
+		// consecutive indices on the hilbert curve must always be adjacent cells
+		int cells = 8;
+		Map<Long, int[]> cellByIndex = new HashMap<>();
+		for (int x = 0; x < cells; x++) {
+			for (int y = 0; y < cells; y++) {
+				cellByIndex.put(QNetworkPartitioner.hilbertIndex(x, y, cells), new int[]{x, y});
+			}
+		}
+		assertEquals(cells * cells, cellByIndex.size());
+		for (long d = 1; d < cells * cells; d++) {
+			int[] previous = cellByIndex.get(d - 1);
+			int[] current = cellByIndex.get(d);
+			assertEquals(1, Math.abs(previous[0] - current[0]) + Math.abs(previous[1] - current[1]));
+		}
+	}
+
+	private static void assertBalancedAndLocal(NetworkPartitioning partitioning, int numberOfParts) {
+		Network network = createGrid();
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		int[] parts = QNetworkPartitioner.partition(nodes, numberOfParts, partitioning);
+
+		double[] weights = QNetworkPartitioner.computeWeights(nodes);
+		double[] weightPerPart = new double[numberOfParts];
+		double totalWeight = 0.;
+		Map<Id<Node>, Integer> partByNode = new HashMap<>();
+		for (int i = 0; i < parts.length; i++) {
+			weightPerPart[parts[i]] += weights[i];
+			totalWeight += weights[i];
+			partByNode.put(nodes.get(i).getId(), parts[i]);
+		}
+		for (double weight : weightPerPart) {
+			assertEquals(totalWeight / numberOfParts, weight, 0.1 * totalWeight / numberOfParts, "parts are not balanced");
+		}
+
+		// spatial partitions should cut far fewer links than round robin, which cuts (nearly) all of them.
+		int cutLinks = 0;
+		for (Link link : network.getLinks().values()) {
+			if (!partByNode.get(link.getFromNode().getId()).equals(partByNode.get(link.getToNode().getId()))) {
+				cutLinks++;
+			}
+		}
+		assertTrue(cutLinks < 0.25 * network.getLinks().size(), "too many links between parts: " + cutLinks);
+	}
+
+	private static Network createGrid() {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(100. * x, 100. * y));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y]);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1]);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLinks(Network network, Node a, Node b) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(a.getId() + "-" + b.getId()), a, b, 100., 10., 1800., 1.);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(b.getId() + "-" + a.getId()), b, a, 100., 10., 1800., 1.);
+	}
+}
@@ -0,0 +1,268 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlanTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.facilities.ActivityFacility;
+
+public class CompactPlanTest {
+
+	private static Population createCompactPopulation() {
+		PlansConfigGroup plansConfigGroup = new PlansConfigGroup();
+		plansConfigGroup.setCompactPlanStorage(true);
+		return PopulationUtils.createPopulation(plansConfigGroup, null);
+	}
+
+	private static Plan createPlan(PopulationFactory factory) {
+		Plan plan = factory.createPlan();
+		Activity home = factory.createActivityFromCoord("home", new Coord(10, 20));
+		home.setLinkId(Id.createLinkId("1"));
+		home.setEndTime(7 * 3600);
+		home.getAttributes().putAttribute("a", "b");
+		plan.addActivity(home);
+		Leg leg = factory.createLeg(TransportMode.car);
+		leg.setRoutingMode(TransportMode.car);
+		leg.setDepartureTime(7 * 3600);
+		leg.setTravelTime(600);
+		Route route = RouteUtils.createGenericRouteImpl(Id.createLinkId("1"), Id.createLinkId("2"));
+		leg.setRoute(route);
+		plan.addLeg(leg);
+		Activity interaction = factory.createInteractionActivityFromLinkId("car interaction", Id.createLinkId("2"));
+		plan.addActivity(interaction);
+		plan.addLeg(factory.createLeg(TransportMode.walk));
+		Activity work = factory.createActivityFromActivityFacilityId("work", Id.create("f1", ActivityFacility.class));
+		work.setCoord(new Coord(100, 200, 5));
+		work.setMaximumDuration(8 * 3600);
+		plan.addActivity(work);
+		return plan;
+	}
+
+	@Test
+	void testCompact() {
+		Population population = createCompactPopulation();
+		Plan plan = createPlan(population.getFactory());
+		assertInstanceOf(CompactPlan.class, plan);
+		Route route = ((Leg) plan.getPlanElements().get(1)).getRoute();
+
+		((CompactPlan) plan).compact();
+
+		List<PlanElement> elements = plan.getPlanElements();
+		assertEquals(5, elements.size());
+		Activity home = (Activity) elements.get(0);
+		assertSame(home, elements.get(0), "views must be cached to be comparable by identity");
+		assertEquals("home", home.getType());
+		assertEquals(new Coord(10, 20), home.getCoord());
+		assertEquals(Id.createLinkId("1"), home.getLinkId());
+		assertNull(home.getFacilityId());
+		assertEquals(7 * 3600, home.getEndTime().seconds(), 0);
+		assertTrue(home.getStartTime().isUndefined());
+		assertTrue(home.getMaximumDuration().isUndefined());
+		assertEquals("b", home.getAttributes().getAttribute("a"));
+
+		Leg leg = (Leg) elements.get(1);
+		assertEquals(TransportMode.car, leg.getMode());
+		assertEquals(TransportMode.car, leg.getRoutingMode());
+		assertEquals(7 * 3600, leg.getDepartureTime().seconds(), 0);
+		assertEquals(600, leg.getTravelTime().seconds(), 0);
+		assertSame(route, leg.getRoute());
+
+		Activity interaction = (Activity) elements.get(2);
+		assertTrue(PopulationUtils.isInteractionActivity(interaction));
+		assertEquals(0, interaction.getMaximumDuration().seconds(), 0);
+		assertThrows(UnsupportedOperationException.class, () -> interaction.setEndTime(0));
+
+		Leg walk = (Leg) elements.get(3);
+		assertNull(walk.getRoute());
+		assertNull(walk.getRoutingMode());
+		assertTrue(walk.getAttributes().isEmpty());
+
+		Activity work = (Activity) elements.get(4);
+		assertEquals(new Coord(100, 200, 5), work.getCoord());
+		assertEquals(Id.create("f1", ActivityFacility.class), work.getFacilityId());
+		assertNull(work.getLinkId());
+		assertEquals(8 * 3600, work.getMaximumDuration().seconds(), 0);
+		assertTrue(work.getEndTime().isUndefined());
+	}
+
+	@Test
+	void testViewsWriteThrough() {
+		Population population = createCompactPopulation();
+		CompactPlan plan = (CompactPlan) createPlan(population.getFactory());
+		plan.compact();
+
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		home.setEndTime(8 * 3600);
+		home.setType("h");
+		home.setLinkId(Id.createLinkId("3"));
+		Leg walk = (Leg) plan.getPlanElements().get(3);
+		walk.getAttributes().putAttribute("x", 1);
+		TripStructureUtils.setRoutingMode(walk, TransportMode.walk);
+		plan.compact();
+
+		Activity home2 = (Activity) plan.getPlanElements().get(0);
+		assertEquals(8 * 3600, home2.getEndTime().seconds(), 0);
+		assertEquals("h", home2.getType());
+		assertEquals(Id.createLinkId("3"), home2.getLinkId());
+		Leg walk2 = (Leg) plan.getPlanElements().get(3);
+		assertEquals(1, walk2.getAttributes().getAttribute("x"));
+		assertEquals(TransportMode.walk, walk2.getRoutingMode());
+	}
+
+	@Test
+	void testInsertAndRemove() {
+		Population population = createCompactPopulation();
+		PopulationFactory factory = population.getFactory();
+		CompactPlan plan = (CompactPlan) createPlan(factory);
+		plan.compact();
+		List<PlanElement> elements = plan.getPlanElements();
+		Activity home = (Activity) elements.get(0);
+		Activity work = (Activity) elements.get(4);
+
+		// replace the trip by a direct bike leg, as a router would do
+		elements.subList(1, 4).clear();
+		assertEquals(2, elements.size());
+		assertSame(work, elements.get(1));
+		Leg bike = factory.createLeg(TransportMode.bike);
+		elements.add(1, bike);
+		assertSame(bike, elements.get(1));
+		assertSame(work, elements.get(2));
+		assertEquals(2, elements.indexOf(work));
+
+		// added elements stay usable until the plan is compacted
+		bike.setTravelTime(1200);
+		work.setStartTime(8 * 3600);
+		plan.compact();
+		assertEquals(3, plan.getPlanElements().size());
+		assertEquals(1200, ((Leg) plan.getPlanElements().get(1)).getTravelTime().seconds(), 0);
+		assertEquals(8 * 3600, ((Activity) plan.getPlanElements().get(2)).getStartTime().seconds(), 0);
+
+		// removed views continue to work outside the plan
+		Activity removed = (Activity) plan.getPlanElements().remove(2);
+		assertEquals("work", removed.getType());
+		removed.setType("school");
+		assertEquals("school", removed.getType());
+		assertEquals(2, plan.getPlanElements().size());
+		assertEquals("home", home.getType());
+
+		Plan other = factory.createPlan();
+		other.addActivity(removed);
+		((CompactPlan) other).compact();
+		assertEquals("school", ((Activity) other.getPlanElements().get(0)).getType());
+		assertEquals(new Coord(100, 200, 5), ((Activity) other.getPlanElements().get(0)).getCoord());
+	}
+
+	@Test
+	void testReinsertViews() {
+		Population population = createCompactPopulation();
+		PopulationFactory factory = population.getFactory();
+		CompactPlan plan = (CompactPlan) createPlan(factory);
+		plan.compact();
+		List<PlanElement> elements = plan.getPlanElements();
+
+		// swapping views of the same plan must not lose their data
+		Collections.swap(elements, 0, 4);
+		assertEquals("work", ((Activity) elements.get(0)).getType());
+		assertEquals("home", ((Activity) elements.get(4)).getType());
+		plan.compact();
+		assertEquals("work", ((Activity) elements.get(0)).getType());
+		assertEquals(new Coord(100, 200, 5), ((Activity) elements.get(0)).getCoord());
+		assertEquals("home", ((Activity) elements.get(4)).getType());
+		assertEquals(7 * 3600, ((Activity) elements.get(4)).getEndTime().seconds(), 0);
+
+		// replacing an element by a view of another position duplicates that element
+		elements.set(3, elements.get(1));
+		Leg car = (Leg) elements.get(3);
+		car.setTravelTime(900);
+		plan.compact();
+		assertEquals(TransportMode.car, ((Leg) elements.get(1)).getMode());
+		assertEquals(TransportMode.car, ((Leg) elements.get(3)).getMode());
+		assertEquals(900, ((Leg) elements.get(3)).getTravelTime().seconds(), 0);
+		assertEquals(Id.createLinkId("2"), ((Leg) elements.get(3)).getRoute().getEndLinkId());
+
+		// adding a view of this plan again, at its own position or elsewhere
+		elements.add(2, elements.get(2));
+		elements.add(0, elements.get(5));
+		assertEquals(7, elements.size());
+		plan.compact();
+		assertEquals("home", ((Activity) elements.get(0)).getType());
+		assertEquals("work", ((Activity) elements.get(1)).getType());
+		assertEquals("car interaction", ((Activity) elements.get(3)).getType());
+		assertEquals("car interaction", ((Activity) elements.get(4)).getType());
+		assertTrue(PopulationUtils.isInteractionActivity((Activity) elements.get(4)));
+		assertEquals("home", ((Activity) elements.get(6)).getType());
+		assertEquals(Id.createLinkId("1"), ((Activity) elements.get(6)).getLinkId());
+	}
+
+	@Test
+	void testCompactPlans() {
+		Population population = createCompactPopulation();
+		Person person = population.getFactory().createPerson(Id.createPersonId("1"));
+		Plan plan1 = createPlan(PopulationUtils.getFactory());
+		plan1.setScore(12.0);
+		plan1.setType("a");
+		plan1.setPlanId(Id.create("p1", Plan.class));
+		Plan plan2 = createPlan(PopulationUtils.getFactory());
+		person.addPlan(plan1);
+		person.addPlan(plan2);
+		person.setSelectedPlan(plan2);
+		population.addPerson(person);
+		assertInstanceOf(PlanImpl.class, plan1);
+
+		PopulationUtils.compactPlans(population);
+
+		assertEquals(2, person.getPlans().size());
+		Plan compact1 = person.getPlans().get(0);
+		assertInstanceOf(CompactPlan.class, compact1);
+		assertInstanceOf(CompactPlan.class, person.getPlans().get(1));
+		assertSame(person.getPlans().get(1), person.getSelectedPlan());
+		assertSame(person, compact1.getPerson());
+		assertEquals(12.0, compact1.getScore(), 0);
+		assertEquals("a", compact1.getType());
+		assertEquals(Id.create("p1", Plan.class), compact1.getId());
+		assertEquals(plan1.getPlanElements().size(), compact1.getPlanElements().size());
+		assertEquals(Id.create("1", Link.class), ((Activity) compact1.getPlanElements().get(0)).getLinkId());
+
+		// copying compact plans must work as with the default plans
+		Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+		assertEquals(5, copy.getPlanElements().size());
+		assertEquals("work", ((Activity) copy.getPlanElements().get(4)).getType());
+	}
+}
@@ -0,0 +1,178 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationIOTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.replanning.inheritance.PlanInheritanceModule;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.MatsimFileTypeGuesser;
+import org.matsim.core.utils.misc.CRCChecksum;
+import org.matsim.pt.routes.DefaultTransitPassengerRoute;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class BinaryPopulationIOTest {
+
+	@RegisterExtension
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testWriteAndRead() {
+		Population population = createPopulation(2500);
+		String binaryFile = this.utils.getOutputDirectory() + "plans.mpop";
+		new PopulationWriter(population).write(binaryFile);
+
+		assertEquals(MatsimFileTypeGuesser.FileType.Population, new MatsimFileTypeGuesser(binaryFile).getGuessedFileType());
+
+		Population read = PopulationUtils.readPopulation(binaryFile);
+		assertEquals(population.getPersons().size(), read.getPersons().size());
+		assertEquals("test population", read.getName());
+
+		// the xml files of both populations must be the same
+		String expectedXml = this.utils.getOutputDirectory() + "expected.xml";
+		String actualXml = this.utils.getOutputDirectory() + "actual.xml";
+		new PopulationWriter(population).write(expectedXml);
+		new PopulationWriter(read).write(actualXml);
+		assertEquals(CRCChecksum.getCRCFromFile(expectedXml), CRCChecksum.getCRCFromFile(actualXml));
+
+		Person person = read.getPersons().get(Id.createPersonId("42"));
+		assertSame(person.getPlans().get(1), person.getSelectedPlan());
+		assertEquals(42.5, person.getPlans().get(0).getScore(), MatsimTestUtils.EPSILON);
+		assertNull(person.getPlans().get(1).getScore());
+		Leg leg = (Leg) person.getSelectedPlan().getPlanElements().get(1);
+		assertEquals(List.of(Id.createLinkId("2"), Id.createLinkId("3")), ((NetworkRoute) leg.getRoute()).getLinkIds());
+		assertEquals(123.25, leg.getDepartureTime().seconds(), MatsimTestUtils.EPSILON);
+	}
+
+	@Test
+	void testStreaming() {
+		Population population = createPopulation(2500);
+		String binaryFile = this.utils.getOutputDirectory() + "plans.mpop";
+		new PopulationWriter(population).write(binaryFile);
+
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		StreamingPopulationReader reader = new StreamingPopulationReader(scenario);
+		List<Id<Person>> personIds = new ArrayList<>();
+		reader.addAlgorithm(person -> {
+			personIds.add(person.getId());
+			assertEquals(2, person.getPlans().size());
+		});
+		reader.readFile(binaryFile);
+
+		assertEquals(new ArrayList<>(PopulationUtils.getSortedPersons(population).keySet()), personIds);
+	}
+
+	/**
+	 * Plan ids, iterations created and plan mutators are only set if plan inheritance is enabled.
+	 */
+	@Test
+	void testPlanInheritance() {
+		Population population = createPopulation(10);
+		Plan plan = population.getPersons().get(Id.createPersonId("3")).getPlans().get(0);
+		plan.setPlanId(Id.create("3-1", Plan.class));
+		plan.setIterationCreated(1);
+		plan.setPlanMutator("ReRoute");
+		String binaryFile = this.utils.getOutputDirectory() + "plans.mpop";
+		PopulationWriter writer = new PopulationWriter(population);
+		writer.setNumberOfThreads(4);
+		writer.write(binaryFile);
+
+		Population read = PopulationUtils.readPopulation(binaryFile);
+		Plan withInheritance = read.getPersons().get(Id.createPersonId("3")).getPlans().get(0);
+		assertEquals(Id.create("3-1", Plan.class), withInheritance.getId());
+		assertEquals(1, withInheritance.getIterationCreated());
+		assertEquals("ReRoute", withInheritance.getPlanMutator());
+		Plan withoutInheritance = read.getPersons().get(Id.createPersonId("3")).getPlans().get(1);
+		assertNull(withoutInheritance.getId());
+		assertNull(withoutInheritance.getAttributes().getAttribute(PlanInheritanceModule.ITERATION_CREATED));
+		assertNull(withoutInheritance.getPlanMutator());
+	}
+
+	private static Population createPopulation(int personCount) {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		population.setName("test population");
+		population.getAttributes().putAttribute("source", "BinaryPopulationIOTest");
+		PopulationFactory factory = population.getFactory();
+		for (int i = 0; i < personCount; i++) {
+			Person person = factory.createPerson(Id.createPersonId(i));
+			person.getAttributes().putAttribute("age", i % 90);
+			Plan plan1 = createPlan(factory, i);
+			plan1.setScore(i + 0.5);
+			Plan plan2 = createPlan(factory, i);
+			plan2.setType("alternative");
+			person.addPlan(plan1);
+			person.addPlan(plan2);
+			person.setSelectedPlan(plan2);
+			population.addPerson(person);
+		}
+		return population;
+	}
+
+	private static Plan createPlan(PopulationFactory factory, int i) {
+		Plan plan = factory.createPlan();
+		Activity home = factory.createActivityFromCoord("home", new Coord(i * 10.1, 20));
+		home.setLinkId(Id.createLinkId("1"));
+		home.setEndTime(7 * 3600 + i);
+		home.getAttributes().putAttribute("flexible", true);
+		plan.addActivity(home);
+
+		Leg car = factory.createLeg(TransportMode.car);
+		car.setRoutingMode(TransportMode.car);
+		car.setDepartureTime(123.25);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("1"),
+				List.of(Id.createLinkId("2"), Id.createLinkId("3")), Id.createLinkId("4"));
+		route.setDistance(1500);
+		route.setTravelTime(300);
+		route.setVehicleId(Id.createVehicleId(i));
+		car.setRoute(route);
+		plan.addLeg(car);
+
+		plan.addActivity(factory.createInteractionActivityFromLinkId("pt interaction", Id.createLinkId("4")));
+
+		Leg pt = factory.createLeg(TransportMode.pt);
+		pt.setRoute(new DefaultTransitPassengerRoute(Id.createLinkId("4"), Id.createLinkId("5"), null, null, null, null));
+		plan.addLeg(pt);
+
+		Activity work = factory.createActivityFromLinkId("work", Id.createLinkId("5"));
+		work.setMaximumDuration(8 * 3600);
+		plan.addActivity(work);
+		return plan;
+	}
+}
@@ -20,13 +20,21 @@
 
 package org.matsim.core.replanning.modules;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 
 /**
@@ -61,6 +69,46 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	void testDynamicLoadBalancing() {
+		Config config = new Config();
+		config.addCoreModules();
+		config.global().setNumberOfThreads(4);
+		config.global().setDynamicLoadBalancing(true);
+		CountingModule testee = new CountingModule(config.global());
+
+		Population population = PopulationUtils.createPopulation(config);
+		for (int i = 0; i < 100; i++) {
+			Person person = population.getFactory().createPerson(Id.createPersonId(i));
+			person.addPlan(population.getFactory().createPlan());
+			population.addPerson(person);
+		}
+
+		// the second time, the plans are sorted by the durations of the first time
+		for (int iteration = 1; iteration <= 2; iteration++) {
+			testee.prepareReplanning(null);
+			for (Person person : population.getPersons().values()) {
+				testee.handlePlan(person.getSelectedPlan());
+			}
+			testee.finishReplanning();
+			for (Person person : population.getPersons().values()) {
+				Assertions.assertEquals(iteration, testee.counts.get(person.getId()).get(), "every plan must be handled exactly once per iteration");
+			}
+		}
+	}
+
+	private static class CountingModule extends AbstractMultithreadedModule {
+		private final Map<Id<Person>, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+		public CountingModule(GlobalConfigGroup globalConfigGroup) {
+			super(globalConfigGroup);
+		}
+		@Override
+		public PlanAlgorithm getPlanAlgoInstance() {
+			return plan -> this.counts.computeIfAbsent(plan.getPerson().getId(), id -> new AtomicInteger()).incrementAndGet();
+		}
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
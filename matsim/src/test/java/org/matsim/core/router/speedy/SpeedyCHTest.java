@@ -0,0 +1,272 @@
+package org.matsim.core.router.speedy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.ScoringConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.AbstractLeastCostPathCalculatorTestWithTurnRestrictions;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class SpeedyCHTest extends AbstractLeastCostPathCalculatorTestWithTurnRestrictions {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		return new SpeedyCHFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	/**
+	 * Compares the routes with the ones found by {@link SpeedyDijkstra} on a grid network with random travel times
+	 * which change every hour. As the hierarchy is customized per hour, the routes must be optimal for the travel times
+	 * at the departure time.
+	 */
+	@Test
+	void testSameCostsAsDijkstra() {
+		Network network = createGridNetwork(12, new Random(20240517));
+		TimeDependentTravelTime travelTime = new TimeDependentTravelTime(network);
+		LeastCostPathCalculator ch = new SpeedyCHFactory().createPathCalculator(network, travelTime, travelTime);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(4711);
+		for (int i = 0; i < 500; i++) {
+			Node fromNode = nodes.get(random.nextInt(nodes.size()));
+			Node toNode = nodes.get(random.nextInt(nodes.size()));
+			double departureTime = random.nextInt(24) * 3600 + random.nextInt(3600);
+			TravelTime atDeparture = (link, time, person, vehicle) -> travelTime.getLinkTravelTime(link, departureTime, person, vehicle);
+			SpeedyDijkstra dijkstra = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), atDeparture, new OnlyTimeDependentTravelDisutility(atDeparture));
+			Path expected = dijkstra.calcLeastCostPath(fromNode, toNode, departureTime, null, null);
+			Path actual = ch.calcLeastCostPath(fromNode, toNode, departureTime, null, null);
+
+			double actualCost = 0;
+			for (Link link : actual.links) {
+				actualCost += atDeparture.getLinkTravelTime(link, departureTime, null, null);
+			}
+			assertEquals(expected.travelCost, actualCost, 1e-3 * expected.travelCost + 1e-3, "wrong costs from " + fromNode.getId() + " to " + toNode.getId());
+			assertEquals(fromNode, actual.nodes.get(0));
+			assertEquals(toNode, actual.nodes.get(actual.nodes.size() - 1));
+			assertEquals(actual.nodes.size(), actual.links.size() + 1);
+			for (int l = 0; l < actual.links.size(); l++) {
+				assertEquals(actual.nodes.get(l), actual.links.get(l).getFromNode());
+				assertEquals(actual.nodes.get(l + 1), actual.links.get(l).getToNode());
+			}
+		}
+	}
+
+	@Test
+	void testNoRoute() {
+		Network network = NetworkUtils.createNetwork();
+		Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0, 0));
+		Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(100, 0));
+		Node c = NetworkUtils.createAndAddNode(network, Id.createNodeId("c"), new Coord(200, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), a, b, 100, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("cb"), c, b, 100, 10, 1000, 1);
+
+		LeastCostPathCalculator ch = getLeastCostPathCalculator(network);
+		assertNull(ch.calcLeastCostPath(a, c, 0, null, null));
+		assertEquals(1, ch.calcLeastCostPath(c, b, 0, null, null).links.size());
+	}
+
+	@Test
+	void testFallbackForPersonDependentDisutility() {
+		Network network = createGridNetwork(3, new Random(1));
+		TravelTime travelTime = new TimeDependentTravelTime(network);
+		TravelDisutility personDependent = new TravelDisutility() {
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				if (person == null) {
+					throw new IllegalArgumentException("person is required");
+				}
+				return link.getLength();
+			}
+
+			@Override
+			public double getLinkMinimumTravelDisutility(Link link) {
+				return link.getLength();
+			}
+		};
+		assertInstanceOf(SpeedyALT.class, new SpeedyCHFactory().createPathCalculator(network, personDependent, travelTime));
+		assertInstanceOf(SpeedyCH.class, new SpeedyCHFactory().createPathCalculator(network, (TravelDisutility) travelTime, travelTime));
+	}
+
+	@Test
+	void testFallbackForLinkDependentDisutility() {
+		Network network = createGridNetwork(3, new Random(1));
+		TravelTime travelTime = new TimeDependentTravelTime(network);
+		Id<Link> lastLinkId = null;
+		for (Link link : network.getLinks().values()) {
+			lastLinkId = link.getId();
+		}
+		Id<Link> personDependentLinkId = lastLinkId;
+		TravelDisutility linkDependent = new PersonRequiredDisutility((link, time) -> link.getId().equals(personDependentLinkId));
+		assertInstanceOf(SpeedyALT.class, new SpeedyCHFactory().createPathCalculator(network, linkDependent, travelTime));
+	}
+
+	/**
+	 * If the disutility needs a person only at some times, the routes departing at these times are calculated by the
+	 * fallback router.
+	 */
+	@Test
+	void testFallbackForTimeDependentDisutility() {
+		Network network = createGridNetwork(4, new Random(3));
+		TravelTime travelTime = new TimeDependentTravelTime(network);
+		TravelDisutility timeDependent = new PersonRequiredDisutility((link, time) -> time >= 5 * 3600);
+		LeastCostPathCalculator router = new SpeedyCHFactory().createPathCalculator(network, timeDependent, travelTime);
+		assertInstanceOf(SpeedyCH.class, router);
+
+		Node fromNode = network.getNodes().get(Id.createNodeId("0_0"));
+		Node toNode = network.getNodes().get(Id.createNodeId("3_3"));
+		Person person = PopulationUtils.getFactory().createPerson(Id.createPersonId(1));
+		SpeedyDijkstra dijkstra = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), travelTime, new PersonRequiredDisutility((link, time) -> false));
+		for (double departureTime : new double[] {3600, 6 * 3600}) {
+			Path expected = dijkstra.calcLeastCostPath(fromNode, toNode, departureTime, null, null);
+			Path actual = router.calcLeastCostPath(fromNode, toNode, departureTime, person, null);
+			assertEquals(expected.travelCost, actual.travelCost, 1e-6);
+		}
+	}
+
+	/**
+	 * The contraction order must contain every node exactly once.
+	 */
+	@Test
+	void testNestedDissectionOrder() {
+		SpeedyGraph graph = SpeedyGraphBuilder.build(createGridNetwork(20, new Random(5)));
+		int[] order = NestedDissectionOrder.calculate(graph);
+		assertEquals(graph.nodeCount, order.length);
+		boolean[] seen = new boolean[graph.nodeCount];
+		for (int node : order) {
+			assertFalse(seen[node]);
+			seen[node] = true;
+		}
+	}
+
+	/**
+	 * Routers with separate, but equal travel disutilities (like one per thread) must share the customized weights.
+	 */
+	@Test
+	void testSharedCustomization() {
+		Network network = createGridNetwork(5, new Random(2));
+		SpeedyCHData ch = new SpeedyCHData(SpeedyGraphBuilder.build(network), 2);
+		TimeDependentTravelTime travelTime = new TimeDependentTravelTime(network);
+
+		float[] weights = ch.customize(new OnlyTimeDependentTravelDisutility(travelTime), 1800);
+		assertSame(weights, ch.customize(new OnlyTimeDependentTravelDisutility(travelTime), 1800));
+		assertNotSame(weights, ch.customize(new OnlyTimeDependentTravelDisutility(travelTime), 5400));
+	}
+
+	private static Network createGridNetwork(int size, Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 1000, y * 1000));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					// leave out some links so the network is not symmetric
+					if (random.nextInt(5) > 0) {
+						addLink(network, nodes[x][y + 1], nodes[x][y], random);
+					}
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(Network network, Node fromNode, Node toNode, Random random) {
+		Id<Link> linkId = Id.createLinkId(fromNode.getId() + "-" + toNode.getId());
+		NetworkUtils.createAndAddLink(network, linkId, fromNode, toNode, 500 + random.nextInt(1000), 5 + random.nextInt(25), 1000, 1);
+	}
+
+	/**
+	 * A disutility based on the link length, which requires a person where the given condition is met.
+	 */
+	private static class PersonRequiredDisutility implements TravelDisutility {
+		private final BiPredicate<Link, Double> personRequired;
+
+		PersonRequiredDisutility(BiPredicate<Link, Double> personRequired) {
+			this.personRequired = personRequired;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			if (person == null && this.personRequired.test(link, time)) {
+				throw new IllegalArgumentException("person is required");
+			}
+			return link.getLength();
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return link.getLength();
+		}
+	}
+
+	/**
+	 * Travel times which depend on the link and the hour of the day, also used as travel disutility.
+	 */
+	private static class TimeDependentTravelTime implements TravelTime, TravelDisutility {
+		private final double[][] travelTimes;
+
+		TimeDependentTravelTime(Network network) {
+			Random random = new Random(42);
+			int maxIndex = 0;
+			for (Link link : network.getLinks().values()) {
+				maxIndex = Math.max(maxIndex, link.getId().index());
+			}
+			this.travelTimes = new double[maxIndex + 1][31];
+			for (Link link : network.getLinks().values()) {
+				for (int hour = 0; hour < 31; hour++) {
+					this.travelTimes[link.getId().index()][hour] = link.getLength() / link.getFreespeed() * (1 + random.nextDouble());
+				}
+			}
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			int hour = Math.min(30, Math.max(0, (int) (time / 3600)));
+			return this.travelTimes[link.getId().index()][hour];
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return getLinkTravelTime(link, time, person, vehicle);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return link.getLength() / link.getFreespeed();
+		}
+	}
+
+}
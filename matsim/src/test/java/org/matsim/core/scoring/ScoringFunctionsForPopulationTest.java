@@ -29,10 +29,12 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.HasPersonId;
 import org.matsim.api.core.v01.events.PersonScoreEvent;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationFactory;
 import org.matsim.core.api.experimental.events.EventsManager;
@@ -134,6 +136,237 @@ public class ScoringFunctionsForPopulationTest {
 		Assertions.assertEquals(1.234+2.345, rsf.separateScoreSum, 1e-7);
 	}
 
+	 @Test
+	 void testScoringThreads() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		scenario.getConfig().scoring().setNumberOfThreads(4);
+		Population population = scenario.getPopulation();
+		PopulationFactory pf = population.getFactory();
+		for (int i = 0; i < 100; i++) {
+			population.addPerson(pf.createPerson(Id.create(i, Person.class)));
+		}
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+
+		EventsToActivities eventsToActivities = new EventsToActivities();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		ScoringFunctionFactory scoringFunctionFactory = agentId -> new RecordingScoringFunction();
+
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, scenario.getConfig());
+		for (int iteration = 0; iteration < 2; iteration++) {
+			controlerListenerManager.fireControlerIterationStartsEvent(iteration, false);
+
+			eventsManager.initProcessing();
+			for (int time = 0; time < 100; time++) {
+				for (Person person : population.getPersons().values()) {
+					eventsManager.processEvent(new PersonScoreEvent(time, person.getId(), 0.5, "testing"));
+				}
+			}
+			eventsManager.finishProcessing();
+			sf.finishScoringFunctions();
+
+			for (Person person : population.getPersons().values()) {
+				RecordingScoringFunction rsf = (RecordingScoringFunction) sf.getScoringFunctionForAgent(person.getId());
+				Assertions.assertEquals(100, rsf.separateScoreCounter);
+				Assertions.assertEquals(50.0, rsf.getScore(), 1e-7);
+			}
+		}
+	}
+
+	 @Test
+	 void testScoringThreadsRethrowException() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		scenario.getConfig().scoring().setNumberOfThreads(2);
+		Population population = scenario.getPopulation();
+		PopulationFactory pf = population.getFactory();
+		Id<Person> personId = Id.create(1, Person.class);
+		population.addPerson(pf.createPerson(personId));
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+
+		ScoringFunctionFactory scoringFunctionFactory = agentId -> new RecordingScoringFunction() {
+			@Override
+			public void addScore(double amount) {
+				throw new IllegalStateException("testing");
+			}
+		};
+
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, new EventsToActivities(),
+				new EventsToLegs(scenario), population, scoringFunctionFactory, scenario.getConfig());
+		controlerListenerManager.fireControlerIterationStartsEvent(0, false);
+		sf.handleEvent(new PersonScoreEvent(7*3600, personId, 1.0, "testing"));
+		Assertions.assertThrows(IllegalStateException.class, sf::finishScoringFunctions);
+	}
+
+	 @Test
+	 void testIncrementalScoring() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		scenario.getConfig().scoring().setIncrementalScoring(true);
+		Population population = scenario.getPopulation();
+		PopulationFactory pf = population.getFactory();
+		Id<Person> personId = Id.create(1, Person.class);
+		Person p = pf.createPerson(personId);
+		p.addPlan(pf.createPlan());
+		population.addPerson(p);
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+
+		EventsToActivities eventsToActivities = new EventsToActivities();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		int[] finished = new int[1];
+		ScoringFunctionFactory scoringFunctionFactory = agentId -> {
+			SumScoringFunction sum = new SumScoringFunction();
+			sum.addScoringFunction(new ScoreSumScoring(finished));
+			return sum;
+		};
+
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, scenario.getConfig());
+
+		// first iteration: nothing to compare with
+		controlerListenerManager.fireControlerIterationStartsEvent(0, false);
+		experience(sf, pf, personId, 1.5, "home");
+		sf.finishScoringFunctions();
+		Assertions.assertEquals(1, finished[0]);
+		Assertions.assertEquals(1.5, sf.getScoringFunctionForAgent(personId).getScore(), 1e-7);
+
+		// same plan, same experience: the score is re-used
+		controlerListenerManager.fireControlerIterationStartsEvent(1, false);
+		experience(sf, pf, personId, 1.5, "home");
+		sf.finishScoringFunctions();
+		Assertions.assertEquals(1, finished[0]);
+		Assertions.assertEquals(1.5, sf.getScoringFunctionForAgent(personId).getScore(), 1e-7);
+
+		// same plan, different experience
+		controlerListenerManager.fireControlerIterationStartsEvent(2, false);
+		experience(sf, pf, personId, 2.5, "home");
+		sf.finishScoringFunctions();
+		Assertions.assertEquals(2, finished[0]);
+		Assertions.assertEquals(2.5, sf.getScoringFunctionForAgent(personId).getScore(), 1e-7);
+
+		// same plan, only an attribute of an activity differs
+		controlerListenerManager.fireControlerIterationStartsEvent(3, false);
+		experience(sf, pf, personId, 2.5, "school");
+		sf.finishScoringFunctions();
+		Assertions.assertEquals(3, finished[0]);
+
+		// different plan, same experience
+		Plan otherPlan = pf.createPlan();
+		p.addPlan(otherPlan);
+		p.setSelectedPlan(otherPlan);
+		controlerListenerManager.fireControlerIterationStartsEvent(4, false);
+		experience(sf, pf, personId, 2.5, "school");
+		sf.finishScoringFunctions();
+		Assertions.assertEquals(4, finished[0]);
+		Assertions.assertEquals(2.5, sf.getScoringFunctionForAgent(personId).getScore(), 1e-7);
+	}
+
+	 @Test
+	 void testIncrementalScoringWithEventScoring() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		scenario.getConfig().scoring().setIncrementalScoring(true);
+		Population population = scenario.getPopulation();
+		PopulationFactory pf = population.getFactory();
+		Id<Person> personId = Id.create(1, Person.class);
+		Person p = pf.createPerson(personId);
+		p.addPlan(pf.createPlan());
+		population.addPerson(p);
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		int[] finished = new int[1];
+		ScoringFunctionFactory scoringFunctionFactory = agentId -> {
+			SumScoringFunction sum = new SumScoringFunction();
+			sum.addScoringFunction(new EventScoreSumScoring(finished));
+			return sum;
+		};
+
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, EventsUtils.createEventsManager(),
+				new EventsToActivities(), new EventsToLegs(scenario), population, scoringFunctionFactory, scenario.getConfig());
+
+		// the score depends on an event which is not part of the fingerprint, so the agent must always be scored
+		for (int iteration = 0; iteration < 2; iteration++) {
+			controlerListenerManager.fireControlerIterationStartsEvent(iteration, false);
+			experience(sf, pf, personId, 1.5, "home");
+			sf.handleEvent(new TestPersonEvent(9*3600 + iteration, personId));
+			sf.finishScoringFunctions();
+			Assertions.assertEquals(iteration + 1, finished[0]);
+			Assertions.assertEquals(1.5 + 9*3600 + iteration, sf.getScoringFunctionForAgent(personId).getScore(), 1e-7);
+		}
+	}
+
+	private static void experience(ScoringFunctionsForPopulation sf, PopulationFactory pf, Id<Person> personId, double score, String purpose) {
+		Activity home = pf.createActivityFromCoord("home", new Coord(100, 100));
+		home.getAttributes().putAttribute("purpose", purpose);
+		sf.handleActivity(new PersonExperiencedActivity(personId, home));
+		sf.handleLeg(new PersonExperiencedLeg(personId, pf.createLeg("walk")));
+		sf.handleEvent(new PersonScoreEvent(8*3600, personId, score, "testing"));
+		sf.handleActivity(new PersonExperiencedActivity(personId, pf.createActivityFromCoord("work", new Coord(1000, 100))));
+	}
+
+	/**
+	 * Sums up the separate scores, and the time of {@link TestPersonEvent}s if it is used as event scoring.
+	 */
+	private static class ScoreSumScoring implements SumScoringFunction.ScoreScoring {
+
+		private final int[] finished;
+		double score = 0;
+
+		ScoreSumScoring(int[] finished) {
+			this.finished = finished;
+		}
+
+		@Override
+		public void addScore(double amount) {
+			this.score += amount;
+		}
+
+		@Override
+		public void finish() {
+			this.finished[0]++;
+		}
+
+		@Override
+		public double getScore() {
+			return this.score;
+		}
+	}
+
+	private static class EventScoreSumScoring extends ScoreSumScoring implements SumScoringFunction.ArbitraryEventScoring {
+
+		EventScoreSumScoring(int[] finished) {
+			super(finished);
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			if (event instanceof TestPersonEvent) {
+				this.score += event.getTime();
+			}
+		}
+	}
+
+	private static class TestPersonEvent extends Event implements HasPersonId {
+
+		private final Id<Person> personId;
+
+		TestPersonEvent(double time, Id<Person> personId) {
+			super(time);
+			this.personId = personId;
+		}
+
+		@Override
+		public Id<Person> getPersonId() {
+			return this.personId;
+		}
+
+		@Override
+		public String getEventType() {
+			return "testPerson";
+		}
+	}
+
 	private static class RecordingScoringFunction implements ScoringFunction {
 
 		int tripCounter = 0;
@@ -175,7 +408,7 @@ public class ScoringFunctionsForPopulationTest {
 
 		@Override
 		public double getScore() {
-			return 0;
+			return this.separateScoreSum;
 		}
 
 		@Override
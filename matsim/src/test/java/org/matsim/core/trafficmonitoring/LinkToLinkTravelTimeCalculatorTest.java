@@ -22,8 +22,9 @@ package org.matsim.core.trafficmonitoring;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
-import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
@@ -31,6 +32,7 @@ import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeStorage;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.scenario.MutableScenario;
 import org.matsim.core.scenario.ScenarioUtils;
@@ -47,10 +49,12 @@ public class LinkToLinkTravelTimeCalculatorTest {
 	/**
 	 * @author mrieser
 	 */
-	@Test
-	void testLongTravelTimeInEmptySlot() {
+	@ParameterizedTest
+	@EnumSource(TravelTimeStorage.class)
+	void testLongTravelTimeInEmptySlot(TravelTimeStorage storage) {
 		MutableScenario scenario = (MutableScenario) ScenarioUtils.createScenario(utils.loadConfig((String)null));
     scenario.getConfig().travelTimeCalculator().setCalculateLinkToLinkTravelTimes(true);
+		scenario.getConfig().travelTimeCalculator().setTravelTimeStorage(storage);
 		Network network = (Network) scenario.getNetwork();
 		network.setCapacityPeriod(3600.0);
 		Node node1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord((double) 0, (double) 0));
@@ -35,6 +35,8 @@ import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
@@ -52,6 +54,7 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeStorage;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
 import org.matsim.core.network.NetworkUtils;
@@ -76,8 +79,9 @@ public class TravelTimeCalculatorTest {
 
 	private final static Logger log = LogManager.getLogger(TravelTimeCalculatorTest.class);
 
-	@Test
-	final void testTravelTimeCalculator_Array_Optimistic() throws IOException {
+	@ParameterizedTest
+	@EnumSource(TravelTimeStorage.class)
+	final void testTravelTimeCalculator_Array_Optimistic(TravelTimeStorage storage) throws IOException {
 
 		int endTime = 30*3600;
 		int binSize = 15*60;
@@ -86,6 +90,7 @@ public class TravelTimeCalculatorTest {
 		// by default: averaging travel times
 		String compareFile = utils.getClassInputDirectory() + "link10_ttimes.txt";
 		MutableScenario scenario = (MutableScenario) ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		scenario.getConfig().travelTimeCalculator().setTravelTimeStorage( storage );
 		TimeSlotComputation travelTimeAggregator = new TimeSlotComputation( numSlots, binSize );
 		TravelTimeGetter travelTimeGetter = new AveragingTravelTimeGetter( travelTimeAggregator ) ;
 		doTravelTimeCalculatorTest(scenario,
@@ -323,8 +328,9 @@ public class TravelTimeCalculatorTest {
 	 * @throws ParserConfigurationException
 	 * @throws SAXException
 	 */
-	@Test
-	void testReadFromFile_LargeScenarioCase() throws SAXException, ParserConfigurationException, IOException {
+	@ParameterizedTest
+	@EnumSource(TravelTimeStorage.class)
+	void testReadFromFile_LargeScenarioCase(TravelTimeStorage storage) throws SAXException, ParserConfigurationException, IOException {
 		/* Assume, you have a big events file from a huge scenario and you want to do data-mining...
 		 * Then you likely want to calculate link travel times. This requires the network, but NOT
 		 * the population. Thus, using "new Events(new EventsBuilderImpl(scenario))" is not appropriate
@@ -337,6 +343,7 @@ public class TravelTimeCalculatorTest {
 
 		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
 		Config config = scenario.getConfig();
+		config.travelTimeCalculator().setTravelTimeStorage(storage);
 		Network network = scenario.getNetwork();
 		new MatsimNetworkReader(scenario.getNetwork()).readFile(networkFile);
 
@@ -357,11 +364,13 @@ public class TravelTimeCalculatorTest {
 	/**
 	 * @author mrieser / senozon
 	 */
-	@Test
-	void testGetLinkTravelTime_ignorePtVehiclesAtStop() {
+	@ParameterizedTest
+	@EnumSource(TravelTimeStorage.class)
+	void testGetLinkTravelTime_ignorePtVehiclesAtStop(TravelTimeStorage storage) {
 		Network network = NetworkUtils.createNetwork();
         TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
 		config.setTraveltimeBinSize(900);
+		config.setTravelTimeStorage(storage);
 		TravelTimeCalculator ttc = new TravelTimeCalculator(network, config);
 
 		Node n1 = network.getFactory().createNode(Id.create(1, Node.class), new Coord(0, 0));
@@ -0,0 +1,102 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FingerprintedFileCacheTest {
+
+	private static final FingerprintedFileCache CACHE = new FingerprintedFileCache("test", 0x54455354, 1);
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testWriteAndRead() {
+		Path file = this.tempDir.resolve("sub/cache.bin");
+		byte[] fingerprint = CACHE.fingerprint(out -> out.writeUTF("input"));
+		int[] data = {1, 2, 3};
+		CACHE.write(file, fingerprint, out -> writeInts(out, data));
+
+		Assertions.assertArrayEquals(data, CACHE.read(file, fingerprint, FingerprintedFileCacheTest::readInts));
+		try (var files = Files.list(file.getParent())) {
+			Assertions.assertEquals(1, files.count(), "the temporary file should have been moved.");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	void testOtherFingerprint() {
+		Path file = this.tempDir.resolve("cache.bin");
+		byte[] fingerprint = CACHE.fingerprint(out -> out.writeUTF("input"));
+		byte[] otherFingerprint = CACHE.fingerprint(out -> out.writeUTF("other input"));
+		Assertions.assertFalse(Arrays.equals(fingerprint, otherFingerprint));
+		CACHE.write(file, fingerprint, out -> writeInts(out, new int[] {1}));
+
+		Assertions.assertNull(CACHE.read(file, otherFingerprint, FingerprintedFileCacheTest::readInts));
+		Assertions.assertNull(new FingerprintedFileCache("test", 0x54455354, 2).read(file, fingerprint, FingerprintedFileCacheTest::readInts),
+				"a file of another version must be ignored.");
+		Assertions.assertNull(CACHE.read(this.tempDir.resolve("missing.bin"), fingerprint, FingerprintedFileCacheTest::readInts));
+	}
+
+	@Test
+	void testInvalidFile() throws IOException {
+		Path file = this.tempDir.resolve("cache.bin");
+		byte[] fingerprint = CACHE.fingerprint(out -> out.writeUTF("input"));
+		CACHE.write(file, fingerprint, out -> writeInts(out, new int[] {1, 2}));
+		byte[] content = Files.readAllBytes(file);
+
+		Files.write(file, Arrays.copyOf(content, content.length - 1));
+		Assertions.assertNull(CACHE.read(file, fingerprint, FingerprintedFileCacheTest::readInts), "a truncated file must be ignored.");
+
+		Files.write(file, content);
+		Files.write(file, new byte[] {0}, StandardOpenOption.APPEND);
+		Assertions.assertNull(CACHE.read(file, fingerprint, FingerprintedFileCacheTest::readInts), "a file with trailing data must be ignored.");
+
+		Files.write(file, content);
+		Assertions.assertNull(CACHE.read(file, fingerprint, in -> null), "a file rejected by the reader must be ignored.");
+	}
+
+	private static void writeInts(DataOutputStream out, int[] data) throws IOException {
+		out.writeInt(data.length);
+		for (int value : data) {
+			out.writeInt(value);
+		}
+	}
+
+	private static int[] readInts(DataInputStream in) throws IOException {
+		int[] data = new int[in.readInt()];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = in.readInt();
+		}
+		return data;
+	}
+}
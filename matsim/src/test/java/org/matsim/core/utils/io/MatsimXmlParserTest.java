@@ -32,10 +32,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
+import java.util.TreeMap;
 
 /**
  * @author mrieser / Simunto
@@ -390,4 +393,132 @@ public class MatsimXmlParserTest {
 		Assertions.assertEquals("objectattributes-", log.get(3));
 	}
 
+	@Test
+	void testFastParsing_sameAsSax() {
+		String xml = "<?xml version='1.0' encoding='UTF-8'?>\r\n" +
+				"<!-- a comment -->\r\n" +
+				"<!DOCTYPE root [\n" +
+				"<!ENTITY BASE  \"./input/\">\n" +
+				"]>\n" +
+				"<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://www.matsim.org/files/dtd root.xsd\">\r\n" +
+				"<?some processing-instruction?>\n" +
+				"<dummy a=\"v&quot;&amp;&lt;&gt;&apos;\" b='tab\tnl&#10;' c=\"&BASE;file.xml\" d=\"crlf\r\nline\" e=\"cr\rline\"/>\n" +
+				"<content>text &#228;\u00fc\uD83D\uDE00 <![CDATA[<cdata> & ]]]]> more&#x21;\r\nline</content>\n" +
+				"</root>";
+
+		List<String> saxLog = new ArrayList<>();
+		RecordingParser saxParser = new RecordingParser(saxLog);
+		saxParser.setFastParsing(false);
+		saxParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+		List<String> fastLog = new ArrayList<>();
+		RecordingParser fastParser = new RecordingParser(fastLog);
+		fastParser.setFastParsing(true);
+		fastParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+		Assertions.assertEquals(6, saxLog.size());
+		Assertions.assertEquals("start:dummy {a=v\"&<>', b=tab nl\n, c=./input/file.xml}", saxLog.get(1));
+		Assertions.assertEquals("end:content [text \u00e4\u00fc\uD83D\uDE00 <cdata> & ]] more!\nline]", saxLog.get(4));
+		Assertions.assertEquals(saxLog, fastLog);
+	}
+
+	@Test
+	void testFastParsing_dtdDefaultsAndDoctype() {
+		String xml = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+				"<!DOCTYPE network SYSTEM \"http://www.matsim.org/files/dtd/network_v2.dtd\">\n" +
+				"<network>\n" +
+				"<nodes><node id=\"1\" x=\"0\" y=\"0\"/></nodes>\n" +
+				"<links>\n" +
+				"<link id=\"1\" from=\"1\" to=\"1\" length=\"1\" freespeed=\"1\" capacity=\"1\" permlanes=\"1\" modes=\"bike\"/>\n" +
+				"<link id=\"2\" from=\"1\" to=\"1\" length=\"1\" freespeed=\"1\" capacity=\"1\" permlanes=\"1\"/>\n" +
+				"</links>\n" +
+				"</network>";
+
+		List<String> log = new ArrayList<>();
+		RecordingParser parser = new RecordingParser(log);
+		parser.setFastParsing(true);
+		parser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+		Assertions.assertEquals("network_v2.dtd", parser.getDoctype());
+		Assertions.assertTrue(log.contains("start:links {capperiod=01:00:00, effectivecellsize=7.5, effectivelanewidth=3.75}"));
+		Assertions.assertTrue(log.contains("start:link {capacity=1, freespeed=1, from=1, id=1, length=1, modes=bike, oneway=1, permlanes=1, to=1}"));
+		Assertions.assertTrue(log.contains("start:link {capacity=1, freespeed=1, from=1, id=2, length=1, modes=car, oneway=1, permlanes=1, to=1}"));
+		// whitespace in elements with element content is not reported
+		Assertions.assertTrue(log.contains("end:links []"));
+	}
+
+	@Test
+	void testFastParsing_tokenizedAttributes() {
+		String xml = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+				"<!DOCTYPE root [\n" +
+				"<!ATTLIST dummy id ID #IMPLIED\n" +
+				"                list NMTOKENS \"  x   y \"\n" +
+				"                text CDATA #IMPLIED>\n" +
+				"]>\n" +
+				"<root><dummy id=\"  a \" text=\"  a  b \"/><dummy list=\" p \tq  \"/></root>";
+
+		List<String> saxLog = new ArrayList<>();
+		RecordingParser saxParser = new RecordingParser(saxLog);
+		saxParser.setFastParsing(false);
+		saxParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+		List<String> fastLog = new ArrayList<>();
+		RecordingParser fastParser = new RecordingParser(fastLog);
+		fastParser.setFastParsing(true);
+		fastParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+		Assertions.assertEquals("start:dummy {id=a, list=x y, text=  a  b }", saxLog.get(1));
+		Assertions.assertEquals("start:dummy {list=p q}", saxLog.get(3));
+		Assertions.assertEquals(saxLog, fastLog);
+	}
+
+	@Test
+	void testFastParsing_otherEncodings() {
+		String xml = "<?xml version='1.0' encoding='ISO-8859-1'?>\n<dummy a=\"\u00e4\">\u00f6</dummy>";
+		for (String encoding : new String[] {"ISO-8859-1", "UTF-16"}) {
+			String str = xml.replace("ISO-8859-1", encoding);
+			List<String> log = new ArrayList<>();
+			RecordingParser parser = new RecordingParser(log);
+			parser.setFastParsing(true);
+			parser.parse(new ByteArrayInputStream(str.getBytes(Charset.forName(encoding))));
+			Assertions.assertEquals(List.of("start:dummy {a=\u00e4}", "end:dummy [\u00f6]"), log, encoding);
+		}
+	}
+
+	@Test
+	void testFastParsing_malformed() {
+		for (String xml : new String[] {"<a><b></a>", "<a x=\"1\" x=\"2\"/>", "<a>&unknown;</a>", "<a/><b/>", "<a>"}) {
+			RecordingParser parser = new RecordingParser(new ArrayList<>());
+			parser.setFastParsing(true);
+			Assertions.assertThrows(UncheckedIOException.class, () -> parser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))), xml);
+		}
+	}
+
+	private static class RecordingParser extends MatsimXmlParser {
+
+		private final List<String> log;
+
+		public RecordingParser(List<String> log) {
+			super(ValidationType.NO_VALIDATION);
+			this.log = log;
+		}
+
+		@Override
+		public void startTag(String name, Attributes atts, Stack<String> context) {
+			Map<String, String> values = new TreeMap<>();
+			for (int i = 0; i < atts.getLength(); i++) {
+				if (!atts.getQName(i).startsWith("xmlns")) {
+					values.put(atts.getQName(i), atts.getValue(i));
+				}
+			}
+			this.log.add("start:" + name + " " + values);
+		}
+
+		@Override
+		public void endTag(String name, String content, Stack<String> context) {
+			this.log.add("end:" + name + " [" + content + "]");
+		}
+
+	}
+
 }
@@ -23,6 +23,8 @@
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -127,6 +129,37 @@ public class MatsimCountsIOTest {
 		Assertions.assertEquals(1, counts.getCounts().size());
 	}
 
+	 /**
+	  * Counts files refer to an xml schema instead of a DTD, so the doctype must be taken from the schema location
+	  * when the fast parser is used.
+	  */
+	 @Test
+	 void testReading_fastParsing() {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<counts xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+				"xsi:noNamespaceSchemaLocation=\"http://matsim.org/files/dtd/counts_v1.xsd\"\n" +
+				" name=\"test\" desc=\"test counting stations\" year=\"2024\"  layer=\"0\" \n" +
+				" > \n" +
+				"\n" +
+				"\t<count loc_id=\"100\" cs_id=\"005\">\n" +
+				"\t\t<volume h=\"1\" val=\"10.00\" />\n" +
+				"\t\t<volume h=\"2\" val=\"1.00\" />\n" +
+				"\t</count>\n" +
+				"</counts>\n";
+
+		Counts<Link> counts = new Counts<>();
+		MatsimCountsReader reader = new MatsimCountsReader(counts);
+		reader.setFastParsing(true);
+		reader.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+		Assertions.assertEquals("counts_v1.xsd", reader.getDoctype());
+		Assertions.assertEquals("test", counts.getName());
+		Assertions.assertEquals(1, counts.getCounts().size());
+		Count<Link> count = counts.getCount(Id.create("100", Link.class));
+		Assertions.assertEquals("005", count.getCsLabel());
+		Assertions.assertEquals(10.0, count.getVolume(1).getValue(), 1e-9);
+		Assertions.assertEquals(1.0, count.getVolume(2).getValue(), 1e-9);
+	}
+
 	 @Test
 	 void testDefaultYear_empty() {
 		Counts counts = new Counts();
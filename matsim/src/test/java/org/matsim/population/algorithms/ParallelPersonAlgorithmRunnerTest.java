@@ -21,6 +21,7 @@
 package org.matsim.population.algorithms;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import org.apache.logging.log4j.LogManager;
 import org.junit.jupiter.api.Assertions;
@@ -89,6 +90,23 @@ public class ParallelPersonAlgorithmRunnerTest {
 		Assertions.assertEquals(sumRef, sum);
 	}
 
+	/**
+	 * Tests that all persons are handled exactly once when the threads share the persons.
+	 */
+	@Test
+	void testNofPersons_dynamicLoadBalancing() {
+		Population population = ScenarioUtils.createScenario(ConfigUtils.createConfig()).getPopulation();
+		for (int i = 0; i < 1000; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			population.addPerson(person);
+		}
+		final PersonAlgorithmTester tester = new PersonAlgorithmTester();
+		ParallelPersonAlgorithmUtils.run(population, 3, true, () -> tester);
+
+		Assertions.assertEquals(1000, tester.personIds.size());
+		Assertions.assertEquals(1000, new HashSet<>(tester.personIds).size());
+	}
+
 	@Test
 	void testCrashingAlgorithm() {
 		try {